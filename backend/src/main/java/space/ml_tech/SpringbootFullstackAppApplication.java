@@ -2,8 +2,11 @@ package space.ml_tech;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
-@SpringBootApplication
+// the JDBC/JPA transaction manager stays the only `TransactionManager` bean, so that plain
+// `@Transactional` keeps resolving to it; the R2DBC DAO creates its own transaction manager
+@SpringBootApplication(exclude = R2dbcTransactionManagerAutoConfiguration.class)
 public class SpringbootFullstackAppApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(SpringbootFullstackAppApplication.class, args);
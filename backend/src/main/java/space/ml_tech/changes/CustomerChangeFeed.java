@@ -0,0 +1,425 @@
+package space.ml_tech.changes;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerChangedEvent;
+import space.ml_tech.customer.CustomerChangesMissedEvent;
+import space.ml_tech.customer.CustomersChangedEvent;
+import space.ml_tech.exceptions.ServiceUnavailableException;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The customer changes of every node (as told by the {@link CustomerChangeListener}) for
+ * `GET /api/v1/customers/stream`: each one is numbered, kept in a ring of the last `buffer-size`
+ * and handed to every subscriber. A subscriber that comes back with the id of the last event it got
+ * (`Last-Event-ID`) is first sent what it missed, as long as the ring still holds it. Otherwise, and
+ * whenever this node may itself have missed changes or a single statement changed too many customers
+ * to tell one by one, it gets a `reset`, upon which it should read the customers again. Ids carry
+ * the node's boot id, so an id from another node (or from before a restart) gets a `reset` too.
+ *
+ * Idle subscribers cost no thread: each has a queue, drained into its connection by a virtual thread
+ * of its own while there's something in it, so a connection that blocks holds up nobody else.
+ * A subscriber that lets `max-queued-events` pile up, or whose connection takes longer than
+ * `write-timeout` to take one event, is dropped, and can resume like after any disconnection.
+ * A comment goes to every subscriber every `heartbeat-interval`, so that idle connections aren't
+ * closed by proxies and dead ones get noticed
+ */
+@Component
+public class CustomerChangeFeed implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerChangeFeed.class);
+
+    public static final String RESET = "reset";
+
+    // ----------- FIELDS & CONSTRUCTORS ----------- //
+    private final String bootId = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final Event[] ring;
+    private final int maxSubscribers;
+    private final int maxQueuedEvents;
+    private final long writeTimeoutNanos;
+    // appending to the ring and registering a subscriber exclude each other, so that
+    // a new subscriber gets every event exactly once, either replayed or live
+    private final ReentrantLock lock = new ReentrantLock();
+    private long lastSequence;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("customer-feed-sender-", 1).factory());
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "customer-feed-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder resumed = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public CustomerChangeFeed(@Value("${customer.stream.buffer-size:1024}") int bufferSize,
+                              @Value("${customer.stream.max-subscribers:10000}") int maxSubscribers,
+                              @Value("${customer.stream.max-queued-events:1024}") int maxQueuedEvents,
+                              @Value("${customer.stream.heartbeat-interval:20s}") Duration heartbeatInterval,
+                              @Value("${customer.stream.write-timeout:10s}") Duration writeTimeout) {
+        this.ring = new Event[bufferSize];
+        this.maxSubscribers = maxSubscribers;
+        this.maxQueuedEvents = maxQueuedEvents;
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+        heartbeats.scheduleWithFixedDelay(this::sendHeartbeats,
+                heartbeatInterval.toMillis(), heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+        // a stalled send is noticed at most half a timeout late
+        long checkInterval = Math.max(1, writeTimeout.toMillis() / 2);
+        heartbeats.scheduleWithFixedDelay(this::dropStalledSubscribers,
+                checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+    }
+
+
+    // ----------- METHODS ----------- //
+    /**
+     * Starts sending events to `sink`, beginning with those after `lastEventId` if the ring
+     * still holds them, or with a `reset` if it doesn't. Throws ServiceUnavailableException
+     * when there are `max-subscribers` already
+     */
+    public Subscription subscribe(String lastEventId, Sink sink) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ServiceUnavailableException("Too many subscribers, please retry later");
+        }
+        Subscriber subscriber = new Subscriber(sink);
+        lock.lock();
+        try {
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                List<Event> missed = eventsAfter(lastEventId);
+                // more than it may have queued: reading the customers again is cheaper anyway
+                if (missed == null || missed.size() > maxQueuedEvents) {
+                    resets.increment();
+                    subscriber.enqueue(new Event(currentId(), RESET, null));
+                } else {
+                    resumed.increment();
+                    missed.forEach(subscriber::enqueue);
+                }
+            }
+            subscribers.add(subscriber);
+        } finally {
+            lock.unlock();
+        }
+        subscriber.schedule();
+        return subscriber;
+    }
+
+    /**
+     * {@link #subscribe} for the reactive stack. An event is only sent once the subscriber has
+     * asked for it, and the send waits for that like a blocking write waits for the connection:
+     * a slow subscriber backs up into its queue here, where `max-queued-events` and
+     * `write-timeout` apply to it as to any other
+     */
+    public Flux<Event> events(String lastEventId) {
+        return Flux.create(sink -> {
+            Demand demand = new Demand();
+            sink.onRequest(demand::add);
+            Subscription subscription = subscribe(lastEventId, new Sink() {
+                @Override
+                public void send(Event event) throws InterruptedException {
+                    if (demand.take()) {
+                        sink.next(event);
+                    }
+                }
+
+                @Override
+                public void close() {
+                    demand.end();
+                    sink.complete();
+                }
+            });
+            sink.onDispose(() -> {
+                demand.end();
+                subscription.cancel();
+            });
+        });
+    }
+
+    @EventListener
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        // the trigger sends the whole row; should it ever not, subscribers still learn which customer changed
+        Customer customer = event.customer() != null
+                ? event.customer()
+                : Customer.builder().id(event.id()).email(event.email()).build();
+        publish(event.operation().name().toLowerCase(), customer);
+    }
+
+    // more changes than subscribers could be sent one by one: reading the customers again is cheaper
+    @EventListener
+    public void onCustomersChanged(CustomersChangedEvent event) {
+        publish(RESET, null);
+    }
+
+    @EventListener
+    public void onChangesMissed(CustomerChangesMissedEvent event) {
+        publish(RESET, null);
+    }
+
+    public CustomerChangeFeedStats stats() {
+        long sequence;
+        lock.lock();
+        try {
+            sequence = lastSequence;
+        } finally {
+            lock.unlock();
+        }
+        return new CustomerChangeFeedStats(
+                subscribers.size(),
+                sequence,
+                ring.length,
+                published.sum(),
+                resumed.sum(),
+                resets.sum(),
+                dropped.sum()
+        );
+    }
+
+    @Override
+    public void close() {
+        heartbeats.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.sink.close());
+        subscribers.clear();
+    }
+
+
+    /*---- Helper Methods -----*/
+    private void publish(String type, Customer customer) {
+        lock.lock();
+        try {
+            lastSequence++;
+            Event event = new Event(bootId + "-" + lastSequence, type, customer);
+            ring[(int) (lastSequence % ring.length)] = event;
+            // only queued here, the senders do the writing
+            for (Subscriber subscriber : subscribers) {
+                subscriber.enqueue(event);
+                subscriber.schedule();
+            }
+        } finally {
+            lock.unlock();
+        }
+        published.increment();
+    }
+
+    // the ring's events after `lastEventId`, or null if some of them are gone (or the id isn't ours)
+    private List<Event> eventsAfter(String lastEventId) {
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash < 0 || !lastEventId.substring(0, dash).equals(bootId)) {
+            return null;
+        }
+        long sequence;
+        try {
+            sequence = Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (sequence > lastSequence || sequence < lastSequence - ring.length) {
+            return null;
+        }
+        List<Event> missed = new ArrayList<>((int) (lastSequence - sequence));
+        for (long next = sequence + 1; next <= lastSequence; next++) {
+            missed.add(ring[(int) (next % ring.length)]);
+        }
+        return missed;
+    }
+
+    private String currentId() {
+        return bootId + "-" + lastSequence;
+    }
+
+    private void sendHeartbeats() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enqueue(Event.HEARTBEAT);
+            subscriber.schedule();
+        }
+    }
+
+    private void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long since = subscriber.sendingSince;
+            if (since != 0 && now - since > writeTimeoutNanos) {
+                log.debug("Dropping a customer stream subscriber whose connection stalled");
+                subscriber.drop();
+            }
+        }
+    }
+
+    /**
+     * One change as it goes out: `id` is what the subscriber hands back as `Last-Event-ID`, `type`
+     * is `insert`, `update`, `delete` or `reset`, and `customer` is the row (as it was before
+     * a deletion), or null for a `reset`. A null `type` is a heartbeat
+     */
+    public record Event(String id, String type, Customer customer) {
+
+        static final Event HEARTBEAT = new Event(null, null, null);
+    }
+
+    // where the events of one subscriber go; `send` may block on a slow connection,
+    // and `close` until that send returns
+    public interface Sink {
+
+        void send(Event event) throws Exception;
+
+        void close();
+    }
+
+    public interface Subscription {
+
+        void cancel();
+    }
+
+    // what a reactive subscriber has asked for and not been sent yet
+    private static final class Demand {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition requested = lock.newCondition();
+        private long outstanding;
+        private boolean ended;
+
+        void add(long n) {
+            lock.lock();
+            try {
+                outstanding = Operators.addCap(outstanding, n);
+                requested.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // waits for the subscriber to ask for one more event; false once it's gone
+        boolean take() throws InterruptedException {
+            lock.lock();
+            try {
+                while (outstanding == 0 && !ended) {
+                    requested.await();
+                }
+                if (ended) {
+                    return false;
+                }
+                // `Long.MAX_VALUE` is an unbounded request
+                if (outstanding != Long.MAX_VALUE) {
+                    outstanding--;
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void end() {
+            lock.lock();
+            try {
+                ended = true;
+                requested.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private final class Subscriber implements Subscription, Runnable {
+
+        private final Sink sink;
+        // guarded by itself
+        private final Queue<Event> queue = new ArrayDeque<>();
+        private boolean scheduled;
+        private volatile boolean cancelled;
+        // when the event being sent was handed to the sink (made odd, so never 0),
+        // or 0 between sends
+        private volatile long sendingSince;
+
+        Subscriber(Sink sink) {
+            this.sink = sink;
+        }
+
+        void enqueue(Event event) {
+            boolean overflowed;
+            synchronized (queue) {
+                overflowed = queue.size() >= maxQueuedEvents;
+                if (!overflowed) {
+                    queue.add(event);
+                }
+            }
+            if (overflowed && !cancelled) {
+                log.debug("Dropping a customer stream subscriber that fell {} events behind", maxQueuedEvents);
+                drop();
+            }
+        }
+
+        // closed on a thread of its own: a sink may only close once the send it's blocked in returns
+        void drop() {
+            if (cancelled) {
+                return;
+            }
+            dropped.increment();
+            cancel();
+            senders.execute(sink::close);
+        }
+
+        void schedule() {
+            synchronized (queue) {
+                if (scheduled || queue.isEmpty() || cancelled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            senders.execute(this);
+        }
+
+        // sends what's queued, on a sender of its own
+        @Override
+        public void run() {
+            while (!cancelled) {
+                Event event;
+                synchronized (queue) {
+                    event = queue.poll();
+                    if (event == null) {
+                        scheduled = false;
+                        return;
+                    }
+                }
+                sendingSince = System.nanoTime() | 1;
+                try {
+                    sink.send(event);
+                } catch (Exception e) {
+                    // the client is gone
+                    cancel();
+                    sink.close();
+                } finally {
+                    sendingSince = 0;
+                }
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscribers.remove(this);
+        }
+    }
+}
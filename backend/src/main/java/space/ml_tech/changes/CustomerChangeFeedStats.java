@@ -0,0 +1,16 @@
+package space.ml_tech.changes;
+
+/**
+ * Snapshot of the {@link CustomerChangeFeed}: `resumed` counts the subscribers that were sent what
+ * they had missed, `resets` those that had to start over, and `dropped` those that fell too far behind
+ * or whose connection stalled
+ */
+public record CustomerChangeFeedStats(
+        int subscribers,
+        long lastSequence,
+        int bufferSize,
+        long published,
+        long resumed,
+        long resets,
+        long dropped) {
+}
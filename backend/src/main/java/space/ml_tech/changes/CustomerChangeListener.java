@@ -0,0 +1,246 @@
+package space.ml_tech.changes;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerChangedEvent;
+import space.ml_tech.customer.CustomerChangesMissedEvent;
+import space.ml_tech.customer.CustomersChangedEvent;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Listens on the `customer_changes` channel, which a trigger on `customer` notifies of every committed
+ * change (see the `V6`, `V7` and `V10` migrations), and publishes each one as a {@link CustomerChangedEvent} for the
+ * caches of this node to act upon, or as a {@link CustomersChangedEvent} for a statement that changed more
+ * rows than are announced one by one. So a write made through any node reaches the others within
+ * milliseconds of its commit.
+ *
+ * It has a connection of its own, outside the pool, which it holds for as long as the application runs.
+ * When idle, the connection is checked every `heartbeat-interval`. When it is lost, it's reopened every
+ * `reconnect-delay` until that works. Whatever changed in the meantime went unannounced, so once it listens
+ * again a {@link CustomerChangesMissedEvent} has everything derived from the table dropped or rebuilt
+ */
+@Component
+public class CustomerChangeListener implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerChangeListener.class);
+
+    static final String CHANNEL = "customer_changes";
+
+    // ----------- FIELDS & CONSTRUCTORS ----------- //
+    private final boolean enabled;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final String url;
+    private final Properties connectionProperties = new Properties();
+    private final long heartbeatMillis;
+    private final long reconnectDelayMillis;
+    private final ExecutorService listener;
+    private volatile Connection connection;
+    private volatile boolean closed;
+
+    private final LongAdder notifications = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+
+    public CustomerChangeListener(DataSource dataSource,
+                                  ApplicationEventPublisher eventPublisher,
+                                  ObjectMapper objectMapper,
+                                  @Value("${customer.change-notifications.enabled:true}") boolean enabled,
+                                  @Value("${customer.change-notifications.heartbeat-interval:10s}") Duration heartbeatInterval,
+                                  @Value("${customer.change-notifications.reconnect-delay:1s}") Duration reconnectDelay) throws SQLException {
+        this.enabled = enabled;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.heartbeatMillis = heartbeatInterval.toMillis();
+        this.reconnectDelayMillis = reconnectDelay.toMillis();
+        // the settings of the primary's pool, for a connection of our own
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        this.url = pool.getJdbcUrl();
+        if (pool.getUsername() != null) {
+            connectionProperties.setProperty("user", pool.getUsername());
+        }
+        if (pool.getPassword() != null) {
+            connectionProperties.setProperty("password", pool.getPassword());
+        }
+        connectionProperties.setProperty("ApplicationName", "customer-change-listener");
+        this.listener = enabled
+                ? Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "customer-change-listener");
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+        if (enabled) {
+            // listening before the caches start filling, so that their first build can't miss a change
+            try {
+                connection = listen();
+            } catch (SQLException e) {
+                log.warn("Can't listen for customer changes yet, retrying in the background: {}", e.getMessage());
+            }
+            listener.execute(this::listenUntilClosed);
+        }
+    }
+
+
+    // ----------- METHODS ----------- //
+    public CustomerChangeListenerStats stats() {
+        return new CustomerChangeListenerStats(
+                enabled,
+                connection != null,
+                notifications.sum(),
+                resyncs.sum(),
+                reconnects.sum()
+        );
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (listener != null) {
+            listener.shutdownNow();
+        }
+        closeQuietly(connection);
+    }
+
+
+    /*---- Helper Methods -----*/
+    private void listenUntilClosed() {
+        while (!closed) {
+            try {
+                if (connection == null) {
+                    connection = listen();
+                    reconnects.increment();
+                    log.info("Listening for customer changes again");
+                    publish(new CustomerChangesMissedEvent("reconnected"));
+                }
+                receive(connection);
+            } catch (SQLException e) {
+                if (closed) {
+                    return;
+                }
+                if (connection != null) {
+                    log.warn("Lost the connection listening for customer changes, caches may be stale until it's back: {}",
+                            e.getMessage());
+                    closeQuietly(connection);
+                    connection = null;
+                }
+                try {
+                    TimeUnit.MILLISECONDS.sleep(reconnectDelayMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private Connection listen() throws SQLException {
+        Connection listening = DriverManager.getConnection(url, connectionProperties);
+        try (Statement statement = listening.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+        } catch (SQLException e) {
+            closeQuietly(listening);
+            throw e;
+        }
+        return listening;
+    }
+
+    private void receive(Connection listening) throws SQLException {
+        PGNotification[] received = listening.unwrap(PGConnection.class).getNotifications((int) heartbeatMillis);
+        if (received == null || received.length == 0) {
+            // nothing for a while: make sure that's not because the connection is gone
+            try (Statement statement = listening.createStatement()) {
+                statement.execute("SELECT 1");
+            }
+            return;
+        }
+        for (PGNotification notification : received) {
+            notifications.increment();
+            Object event = toEvent(notification.getParameter());
+            if (event != null) {
+                publish(event);
+            }
+        }
+    }
+
+    // the event of a notification's JSON payload, or null if it can't be made sense of
+    Object toEvent(String payload) {
+        Message message;
+        try {
+            message = objectMapper.readValue(payload, Message.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable customer change notification: {}", payload);
+            return null;
+        }
+        if ("RESYNC".equals(message.op())) {
+            return new CustomerChangesMissedEvent("bulk change");
+        }
+        try {
+            if (message.fromId() != null) {
+                return new CustomersChangedEvent(
+                        CustomerChangedEvent.Operation.valueOf(message.op()),
+                        message.fromId(),
+                        message.toId(),
+                        message.count()
+                );
+            }
+            return new CustomerChangedEvent(
+                    CustomerChangedEvent.Operation.valueOf(message.op()),
+                    message.id(),
+                    message.email(),
+                    message.previousEmail(),
+                    message.customer()
+            );
+        } catch (IllegalArgumentException | NullPointerException e) {
+            log.warn("Ignoring unknown customer change notification: {}", payload);
+            return null;
+        }
+    }
+
+    private void publish(Object event) {
+        if (event instanceof CustomerChangesMissedEvent) {
+            resyncs.increment();
+        }
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            // a failing handler mustn't stop the others from hearing about later changes
+            log.warn("Handling {} failed", event, e);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.debug("Closing the customer change connection failed", e);
+            }
+        }
+    }
+
+    // a row's change has an `id`, a bulk one a `fromId`, `toId` and `count` instead
+    private record Message(String op, Integer id, String email, String previousEmail, Customer customer,
+                           Integer fromId, Integer toId, Long count) {
+    }
+}
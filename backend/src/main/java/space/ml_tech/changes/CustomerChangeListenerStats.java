@@ -0,0 +1,13 @@
+package space.ml_tech.changes;
+
+/**
+ * Snapshot of the {@link CustomerChangeListener}: `resyncs` counts the times this node dropped what it
+ * derives from the table, after a bulk change or after `reconnects`
+ */
+public record CustomerChangeListenerStats(
+        boolean enabled,
+        boolean listening,
+        long notifications,
+        long resyncs,
+        long reconnects) {
+}
@@ -0,0 +1,50 @@
+package space.ml_tech.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import space.ml_tech.customer.BulkheadCustomerDao;
+import space.ml_tech.customer.CachingCustomerDao;
+import space.ml_tech.customer.CustomerDao;
+import space.ml_tech.customer.GroupCommitCustomerDao;
+import space.ml_tech.customer.ReplicaRoutingCustomerDao;
+
+import java.time.Duration;
+
+/**
+ * Decorated {@link CustomerDao} beans. They're chained in front of one of the
+ * plain implementations, which stay available under their own qualifier:
+ * cache -> group commit -> bulkhead -> replica routing -> JDBC
+ */
+@Configuration
+public class CustomerDaoConfig {
+
+    @Bean("beanOfTypeReplicaRouting")
+    public ReplicaRoutingCustomerDao replicaRoutingCustomerDao(@Qualifier("beanOfTypeJdbc") CustomerDao customerDao) {
+        return new ReplicaRoutingCustomerDao(customerDao);
+    }
+
+    // by default at most as many concurrent DAO calls as there are connections in the pool
+    @Bean("beanOfTypeBulkhead")
+    public BulkheadCustomerDao bulkheadCustomerDao(@Qualifier("beanOfTypeReplicaRouting") CustomerDao customerDao,
+                                                   @Value("${execution.bulkhead.max-concurrent-calls:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrentCalls,
+                                                   @Value("${execution.bulkhead.acquire-timeout:2s}") Duration acquireTimeout) {
+        return new BulkheadCustomerDao(customerDao, maxConcurrentCalls, acquireTimeout);
+    }
+
+    @Bean("beanOfTypeGroupCommit")
+    public GroupCommitCustomerDao groupCommitCustomerDao(@Qualifier("beanOfTypeBulkhead") CustomerDao customerDao,
+                                                         @Value("${customer.group-commit.enabled:false}") boolean enabled,
+                                                         @Value("${customer.group-commit.max-batch-size:100}") int maxBatchSize,
+                                                         @Value("${customer.group-commit.max-delay:2ms}") Duration maxDelay) {
+        return new GroupCommitCustomerDao(customerDao, enabled, maxBatchSize, maxDelay);
+    }
+
+    @Bean("beanOfTypeCached")
+    public CachingCustomerDao cachingCustomerDao(@Qualifier("beanOfTypeGroupCommit") CustomerDao customerDao,
+                                                 @Value("${customer.cache.maximum-weight:16777216}") long maximumWeight,
+                                                 @Value("${customer.cache.expire-after-write:5m}") Duration expireAfterWrite) {
+        return new CachingCustomerDao(customerDao, maximumWeight, expireAfterWrite);
+    }
+}
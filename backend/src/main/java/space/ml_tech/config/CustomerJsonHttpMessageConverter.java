@@ -0,0 +1,56 @@
+package space.ml_tech.config;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+import space.ml_tech.customer.CustomerJson;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link CustomerJson} body into the response, on the request's own thread (unlike a
+ * `StreamingResponseBody`). The generator writes UTF-8 bytes straight to the servlet output
+ * stream, and only flushes its buffer once it's full, so a `CustomerJson` that fails before
+ * writing anything still leaves the response open for the error status
+ */
+public class CustomerJsonHttpMessageConverter extends AbstractHttpMessageConverter<CustomerJson> {
+
+    private final JsonFactory jsonFactory;
+
+    public CustomerJsonHttpMessageConverter(JsonFactory jsonFactory) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.jsonFactory = jsonFactory;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return CustomerJson.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected CustomerJson readInternal(Class<? extends CustomerJson> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("CustomerJson is a response body only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(CustomerJson customerJson, HttpOutputMessage outputMessage) throws IOException {
+        // `writeUTF8String` needs a generator that writes bytes, hence the stream and not a writer
+        JsonGenerator generator = jsonFactory.createGenerator(
+                StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8);
+        customerJson.writeTo(generator);
+        // not closed when `writeTo` fails: closing would auto-complete the unfinished
+        // array or object, and make a truncated response look like valid JSON
+        generator.close();
+    }
+}
@@ -0,0 +1,42 @@
+package space.ml_tech.config;
+
+import com.google.protobuf.CodedInputStream;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractDataBufferDecoder;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.util.MimeType;
+import space.ml_tech.customer.CustomerDTO;
+import space.ml_tech.customer.CustomerProtobuf;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * The reactive stack's {@link CustomerProtobufHttpMessageConverter}: a `CustomerDTO` request body,
+ * joined into one buffer first (up to `spring.codec.max-in-memory-size`), since a message can't be
+ * read until all of it is there
+ */
+public class CustomerProtobufDecoder extends AbstractDataBufferDecoder<Object> {
+
+    public CustomerProtobufDecoder() {
+        super(CustomerProtobufHttpMessageConverter.PROTOBUF);
+    }
+
+    @Override
+    public boolean canDecode(ResolvableType elementType, MimeType mimeType) {
+        return elementType.toClass() == CustomerDTO.class && super.canDecode(elementType, mimeType);
+    }
+
+    @Override
+    public Object decode(DataBuffer buffer, ResolvableType targetType, MimeType mimeType, Map<String, Object> hints) {
+        try {
+            return CustomerProtobuf.readCustomerDto(CodedInputStream.newInstance(buffer.asInputStream()));
+        } catch (IOException e) {
+            throw new DecodingException("Malformed Protobuf body: " + e.getMessage(), e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+}
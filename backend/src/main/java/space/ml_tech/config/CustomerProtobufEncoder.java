@@ -0,0 +1,79 @@
+package space.ml_tech.config;
+
+import com.google.protobuf.CodedOutputStream;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractEncoder;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerProtobuf;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * The reactive stack's {@link CustomerProtobufHttpMessageConverter}. A `Flux` of customers is
+ * written as a `CustomerList` one entry at a time, so it's streamed like the JSON array is
+ */
+public class CustomerProtobufEncoder extends AbstractEncoder<Object> {
+
+    // a few customers, for both the buffer and the coded stream's own; the buffer grows for a whole list
+    private static final int INITIAL_CAPACITY = 256;
+
+    public CustomerProtobufEncoder() {
+        super(CustomerProtobufHttpMessageConverter.PROTOBUF);
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return CustomerProtobufHttpMessageConverter.canWrite(elementType) && super.canEncode(elementType, mimeType);
+    }
+
+    // a `Mono` is one message; the customers of a `Flux` are the entries of a `CustomerList`
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono) {
+            return Mono.from(inputStream)
+                    .map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints))
+                    .flux();
+        }
+        return Flux.from(inputStream).map(value -> {
+            if (!(value instanceof Customer customer)) {
+                throw new EncodingException("Not a customer: %s".formatted(value));
+            }
+            return encode(bufferFactory, output -> CustomerProtobuf.writeEntry(customer, output));
+        });
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory,
+                                  ResolvableType valueType, MimeType mimeType, Map<String, Object> hints) {
+        return encode(bufferFactory, output -> CustomerProtobuf.write(value, output));
+    }
+
+
+    /*---- Helper Methods -----*/
+    private static DataBuffer encode(DataBufferFactory bufferFactory, Writer writer) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(INITIAL_CAPACITY);
+        try {
+            CodedOutputStream output = CodedOutputStream.newInstance(buffer.asOutputStream(), INITIAL_CAPACITY);
+            writer.write(output);
+            output.flush();
+            return buffer;
+        } catch (IOException | IllegalArgumentException e) {
+            DataBufferUtils.release(buffer);
+            throw new EncodingException("Could not write Protobuf: " + e.getMessage(), e);
+        }
+    }
+
+    private interface Writer {
+        void write(CodedOutputStream output) throws IOException;
+    }
+}
@@ -0,0 +1,94 @@
+package space.ml_tech.config;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.util.StreamUtils;
+import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerDTO;
+import space.ml_tech.customer.CustomerProtobuf;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Writes the customer payloads as `application/x-protobuf`, and reads `CustomerDTO` request bodies
+ * from it (see {@link CustomerProtobuf}). Any other body isn't a Protobuf message this API has,
+ * and is left to the other converters, or answered with a 406 or 415
+ */
+public class CustomerProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType PROTOBUF = MediaType.parseMediaType(CustomerProtobuf.MEDIA_TYPE_VALUE);
+
+    // flushed to the response whenever it's full, like Jackson's own output buffer
+    private static final int BUFFER_SIZE = 8192;
+
+    public CustomerProtobufHttpMessageConverter() {
+        super(PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return CustomerDTO.class.isAssignableFrom(clazz) || CustomerProtobuf.canWrite(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return type == CustomerDTO.class && canRead(mediaType);
+    }
+
+    // judged by the declared type, or by the body's class when that's `Object`: `CustomerController#getCustomers`
+    // returns a `ResponseEntity<Object>`, and chooses the encoding of its `List<Customer>` itself
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        ResolvableType declared = type != null ? ResolvableType.forType(type) : ResolvableType.NONE;
+        ResolvableType bodyType = declared.resolve(Object.class) != Object.class
+                ? declared
+                : ResolvableType.forClass(clazz);
+        return canWrite(bodyType) && canWrite(mediaType);
+    }
+
+    // a `Customer`, a `CustomerPage`, or a `List` of customers: a list of anything else (the stats, say) is left
+    // to the other converters, or answered with a 406, rather than chosen and then failing as it's written.
+    // A `List` whose element type isn't known is taken for customers
+    static boolean canWrite(ResolvableType type) {
+        Class<?> clazz = type.toClass();
+        if (List.class.isAssignableFrom(clazz)) {
+            return Customer.class.isAssignableFrom(type.asCollection().getGeneric().resolve(Customer.class));
+        }
+        return CustomerProtobuf.canWrite(clazz);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return readInternal(CustomerDTO.class, inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return CustomerProtobuf.readCustomerDto(CodedInputStream.newInstance(inputMessage.getBody()));
+        } catch (InvalidProtocolBufferException e) {
+            throw new HttpMessageNotReadableException("Malformed Protobuf body: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(StreamUtils.nonClosing(outputMessage.getBody()), BUFFER_SIZE);
+        try {
+            CustomerProtobuf.write(body, output);
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotWritableException(e.getMessage(), e);
+        }
+        output.flush();
+    }
+}
@@ -0,0 +1,61 @@
+package space.ml_tech.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import space.ml_tech.customer.CustomerDao;
+import space.ml_tech.customer.InstrumentedCustomerDao;
+import space.ml_tech.metrics.MetricsRegistry;
+import space.ml_tech.metrics.ProfilingDataSource;
+import space.ml_tech.metrics.SqlProfiler;
+
+import javax.sql.DataSource;
+
+import java.util.Set;
+
+/**
+ * Wraps the plain {@link CustomerDao} implementations listed in `metrics.customer-dao.beans`
+ * in an {@link InstrumentedCustomerDao}, under their own bean name, so that everything that
+ * uses them (the decorator chain included) is measured without knowing about it, and
+ * the JDBC `DataSource` in a {@link ProfilingDataSource} when `metrics.sql.enabled` is set
+ */
+@Configuration
+public class MetricsConfig {
+
+    // static, and with a lazy registry, so that it doesn't pull beans in before post-processing is set up
+    @Bean
+    public static BeanPostProcessor customerDaoMetricsPostProcessor(ObjectProvider<MetricsRegistry> metricsRegistry,
+                                                                    Environment environment) {
+        Set<String> beanNames = Set.of(environment.getProperty(
+                "metrics.customer-dao.beans", String[].class,
+                new String[]{"beanOfTypeJdbc", "beanOfTypeJpa", "beanOfTypeList"}
+        ));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof CustomerDao customerDao && beanNames.contains(beanName)) {
+                    return new InstrumentedCustomerDao(customerDao, beanName, metricsRegistry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    // after initialization, so that the pool is bound to its `spring.datasource.hikari` settings first
+    @Bean
+    public static BeanPostProcessor dataSourceProfilingPostProcessor(ObjectProvider<SqlProfiler> sqlProfiler,
+                                                                     Environment environment) {
+        boolean enabled = environment.getProperty("metrics.sql.enabled", Boolean.class, true);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (enabled && bean instanceof DataSource dataSource && !(bean instanceof ProfilingDataSource)) {
+                    return new ProfilingDataSource(dataSource, sqlProfiler.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package space.ml_tech.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * JDBC and R2DBC side by side. The R2DBC `ConnectionFactory` (a pool, configured by
+ * `spring.r2dbc.*`) is auto-configured, but Spring Boot backs off from auto-configuring the
+ * JDBC `DataSource` as soon as one exists, so it is declared here from the same
+ * `spring.datasource.*` properties. Flyway, JPA and every JDBC DAO keep using it in both modes
+ */
+@Configuration
+public class R2dbcConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    // auto-configured by Spring Data R2DBC only, whose repositories we don't use
+    @Bean
+    public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+}
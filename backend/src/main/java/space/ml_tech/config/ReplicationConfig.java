@@ -0,0 +1,105 @@
+package space.ml_tech.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import space.ml_tech.replication.ReplicaRoutingDataSource;
+import space.ml_tech.replication.ReplicationProperties;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Puts the JDBC `dataSource` pool (the primary) behind a {@link ReplicaRoutingDataSource} when
+ * `replication.replicas` lists any, with a pool per replica sized like the primary's.
+ * Without replicas the `dataSource` stays as it is and every read goes to the primary
+ */
+@Configuration
+public class ReplicationConfig {
+
+    // ordered (by its declared type, which is all Spring looks at when it sorts post-processors), so that it wraps
+    // the pool before the (unordered) SQL profiling does, and the profiling sees the statements of every replica
+    @Bean
+    public static ReplicaRoutingPostProcessor replicaRoutingPostProcessor(Environment environment) {
+        ReplicationProperties properties = Binder.get(environment)
+                .bindOrCreate("replication", ReplicationProperties.class);
+        return new ReplicaRoutingPostProcessor(properties);
+    }
+
+
+    /*---- Helper Methods -----*/
+    // not started until their first connection, so that the application starts with a replica down
+    private static List<HikariDataSource> replicaPools(HikariDataSource primary, ReplicationProperties properties) {
+        List<ReplicationProperties.Replica> replicas = properties.replicas();
+        return IntStream.range(0, replicas.size())
+                .mapToObj(index -> {
+                    ReplicationProperties.Replica replica = replicas.get(index);
+                    HikariDataSource pool = new HikariDataSource();
+                    pool.setPoolName("replica-" + index);
+                    pool.setJdbcUrl(replica.url());
+                    pool.setUsername(replica.username() != null ? replica.username() : primary.getUsername());
+                    pool.setPassword(replica.password() != null ? replica.password() : primary.getPassword());
+                    // unset (-1) until the primary starts, unless `spring.datasource.hikari.maximum-pool-size` is given
+                    if (primary.getMaximumPoolSize() > 0) {
+                        pool.setMaximumPoolSize(primary.getMaximumPoolSize());
+                    }
+                    pool.setConnectionTimeout(properties.connectionTimeout().toMillis());
+                    pool.setReadOnly(true);
+                    return pool;
+                })
+                .toList();
+    }
+
+    // Spring destroys the bean it created, the primary pool, not what it was wrapped in: the replicas are closed with it
+    public static final class ReplicaRoutingPostProcessor implements DestructionAwareBeanPostProcessor, Ordered {
+
+        private final ReplicationProperties properties;
+        private volatile ReplicaRoutingDataSource routingDataSource;
+
+        ReplicaRoutingPostProcessor(ReplicationProperties properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if ("dataSource".equals(beanName) && bean instanceof HikariDataSource primary
+                    && !properties.replicas().isEmpty()) {
+                routingDataSource = new ReplicaRoutingDataSource(
+                        primary,
+                        replicaPools(primary, properties),
+                        properties.maxLag(),
+                        properties.lagCheckInterval()
+                );
+                return routingDataSource;
+            }
+            return bean;
+        }
+
+        @Override
+        public boolean requiresDestruction(Object bean) {
+            return bean instanceof HikariDataSource && routingDataSource != null;
+        }
+
+        @Override
+        public void postProcessBeforeDestruction(Object bean, String beanName) {
+            if ("dataSource".equals(beanName) && routingDataSource != null) {
+                try {
+                    routingDataSource.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package space.ml_tech.config;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.util.MimeType;
+import org.springframework.web.reactive.config.CorsRegistration;
+import org.springframework.web.reactive.config.CorsRegistry;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.resources.LoopResources;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Web configuration of the reactive stack (`spring.main.web-application-type: reactive`):
+ * the same CORS rules as {@link WebMVCConfig}, and Reactor Netty as the server.
+ * Tomcat is on the classpath too and would otherwise be picked, serving the reactive
+ * handlers from its thread pool instead of from a small, fixed set of event loops
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class WebFluxConfig implements WebFluxConfigurer {
+
+    @Value("#{'${cors.allowed-origins}'.split(',')}")
+    private List<String> allowedOrigins;
+
+    @Value("#{'${cors.allowed-methods}'.split(',')}")
+    private List<String> allowedMethods;
+
+    @Override
+    public void addCorsMappings(CorsRegistry registry) {
+        CorsRegistration corsRegistration = registry.addMapping("/api/**");
+        allowedOrigins.forEach(corsRegistration::allowedOrigins);
+        allowedMethods.forEach(corsRegistration::allowedMethods);
+    }
+
+    // CBOR, which WebFlux leaves out by default, Smile, and Protobuf (see `CustomerProtobuf`)
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder() {
+            @Override
+            public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                           ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+                return encodeAsList(this, inputStream, bufferFactory, elementType, mimeType, hints);
+            }
+        });
+        configurer.customCodecs().register(new Jackson2CborEncoder() {
+            @Override
+            public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                           ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+                return encodeAsList(this, inputStream, bufferFactory, elementType, mimeType, hints);
+            }
+        });
+        configurer.customCodecs().registerWithDefaultConfig(new Jackson2CborDecoder());
+        configurer.customCodecs().register(new CustomerProtobufEncoder());
+        configurer.customCodecs().registerWithDefaultConfig(new CustomerProtobufDecoder());
+    }
+
+    // every connection is served by one of `event-loop-threads` threads, however many there are
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(
+            @Value("${execution.reactive.event-loop-threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int eventLoopThreads) {
+        NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+        factory.addServerCustomizers(server -> server.runOn(LoopResources.create("customer-http", eventLoopThreads, true)));
+        return factory;
+    }
+
+
+    /*---- Helper Methods -----*/
+    // Jackson's CBOR encoder refuses a `Flux`, and its Smile encoder writes one root value after another,
+    // where the client expects the array of a `List`: the customers are collected and encoded as one.
+    // A `Mono` is encoded as its value, like Jackson does
+    private static Flux<DataBuffer> encodeAsList(Encoder<Object> encoder, Publisher<?> inputStream,
+                                                 DataBufferFactory bufferFactory, ResolvableType elementType,
+                                                 MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono) {
+            return Mono.from(inputStream)
+                    .map(value -> encoder.encodeValue(value, bufferFactory, elementType, mimeType, hints))
+                    .flux();
+        }
+        ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+        return Flux.from(inputStream)
+                .collectList()
+                .map(list -> encoder.encodeValue(list, bufferFactory, listType, mimeType, hints))
+                .flux();
+    }
+}
@@ -1,7 +1,10 @@
 package space.ml_tech.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -15,6 +18,7 @@ import java.util.List;
  * (see <a href="https://developer.mozilla.org/en-US/docs/Web/HTTP/CORS">MDN link</a>)
  */
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class WebMVCConfig implements WebMvcConfigurer {
 
     @Value("#{'${cors.allowed-origins}'.split(',')}")
@@ -23,10 +27,24 @@ public class WebMVCConfig implements WebMvcConfigurer {
     @Value("#{'${cors.allowed-methods}'.split(',')}")
     private List<String> allowedMethods;
 
+    private final ObjectMapper objectMapper;
+
+    public WebMVCConfig(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         CorsRegistration corsRegistration = registry.addMapping("/api/**");
         allowedOrigins.forEach(corsRegistration::allowedOrigins);
         allowedMethods.forEach(corsRegistration::allowedMethods);
     }
+
+    // ahead of Jackson's converter, which would otherwise try to serialize a `CustomerJson` as a bean.
+    // Protobuf goes last, after the Jackson JSON, Smile and CBOR converters, so that JSON stays the default
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new CustomerJsonHttpMessageConverter(objectMapper.getFactory()));
+        converters.add(new CustomerProtobufHttpMessageConverter());
+    }
 }
@@ -1,30 +1,210 @@
 package space.ml_tech.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.server.NotAcceptableStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import space.ml_tech.changes.CustomerChangeFeed;
 import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerBatchResult;
+import space.ml_tech.customer.CustomerChanges;
+import space.ml_tech.customer.CustomerBatchService;
+import space.ml_tech.customer.CustomerCsvImportService;
+import space.ml_tech.customer.CustomerImportResult;
+import space.ml_tech.customer.CustomerPage;
+import space.ml_tech.customer.CustomerProtobuf;
 import space.ml_tech.customer.CustomerService;
 import space.ml_tech.customer.CustomerDTO;
+import space.ml_tech.customer.CustomerSearchCriteria;
+import space.ml_tech.customer.Gender;
+import space.ml_tech.exceptions.RequestValidationException;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping({"api/v1/customers", "api/v1/customers/"})
 public class CustomerController {
 
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    // the binary encodings of the customer payloads, for `Accept` and `Content-Type`
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final String APPLICATION_PROTOBUF_VALUE = CustomerProtobuf.MEDIA_TYPE_VALUE;
+    // what the tagged customer responses are written in, JSON (the default) first
+    static final List<MediaType> ENCODINGS = List.of(
+            MediaType.APPLICATION_JSON,
+            MediaType.APPLICATION_CBOR,
+            MediaType.parseMediaType(APPLICATION_SMILE_VALUE),
+            MediaType.parseMediaType(APPLICATION_PROTOBUF_VALUE)
+    );
+    public static final String LAST_EVENT_ID = "Last-Event-ID";
+    // how long a disconnected `EventSource` waits before it reconnects
+    static final long STREAM_RETRY_MILLIS = 1000;
+
     private final CustomerService customerService;
+    private final CustomerBatchService customerBatchService;
+    private final CustomerCsvImportService customerCsvImportService;
+    private final ObjectMapper objectMapper;
+    private final CustomerChangeFeed customerChangeFeed;
+
+    // `direct`: the rows are written as JSON straight from the `ResultSet` (see `CustomerJsonWriter`)
+    @Value("${customer.read-path:entity}")
+    private ReadPath readPath = ReadPath.ENTITY;
 
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService,
+                              CustomerBatchService customerBatchService,
+                              CustomerCsvImportService customerCsvImportService,
+                              ObjectMapper objectMapper,
+                              CustomerChangeFeed customerChangeFeed) {
         this.customerService = customerService;
+        this.customerBatchService = customerBatchService;
+        this.customerCsvImportService = customerCsvImportService;
+        this.objectMapper = objectMapper;
+        this.customerChangeFeed = customerChangeFeed;
     }
 
+    // a `List<Customer>`, or a `CustomerJson` with the same JSON on the direct read path unless a binary
+    // encoding is asked for. Its `ETag` is the table's change counter (and the encoding), read before the
+    // customers and like them on the primary: a write in between can only make the body newer than its tag,
+    // which costs a refetch rather than a stale 304
     @GetMapping
-    public List<Customer> getCustomers() {
-        return customerService.getAllCostumers();
+    public ResponseEntity<Object> getCustomers(@RequestParam(value = "name", required = false) String name,
+                                               @RequestParam(value = "emailDomain", required = false) String emailDomain,
+                                               @RequestParam(value = "minAge", required = false) Integer minAge,
+                                               @RequestParam(value = "maxAge", required = false) Integer maxAge,
+                                               @RequestParam(value = "gender", required = false) Gender gender,
+                                               @RequestHeader HttpHeaders headers) {
+        // a search without a limit could match the whole table again
+        if (!searchCriteria(name, emailDomain, minAge, maxAge, gender).isEmpty()) {
+            throw new RequestValidationException("limit is required when filtering customers");
+        }
+        MediaType encoding = negotiate(headers.getAccept(), ENCODINGS);
+        String etag = etag(customerService.getCustomersChangeCount(), encoding);
+        if (matches(headers.getIfNoneMatch(), etag)) {
+            return notModified(etag);
+        }
+        return revalidated(etag, encoding).body(readsDirect(encoding)
+                ? customerService.getAllCustomersJson()
+                : customerService.getAllCostumers());
+    }
+
+    // keyset pagination, e.g. `?limit=50` for the first page and then
+    // `?after=<nextCursor>&limit=50` for the following ones. The optional filters
+    // (`name` prefix, `emailDomain`, `minAge`, `maxAge`, `gender`) are evaluated by the database
+    @GetMapping(params = "limit")
+    public ResponseEntity<CustomerPage> getCustomersPage(@RequestParam(value = "after", required = false) String after,
+                                         @RequestParam("limit") int limit,
+                                         @RequestParam(value = "name", required = false) String name,
+                                         @RequestParam(value = "emailDomain", required = false) String emailDomain,
+                                         @RequestParam(value = "minAge", required = false) Integer minAge,
+                                         @RequestParam(value = "maxAge", required = false) Integer maxAge,
+                                         @RequestParam(value = "gender", required = false) Gender gender) {
+        return negotiated().body(customerService.getCustomersPage(
+                searchCriteria(name, emailDomain, minAge, maxAge, gender), after, limit
+        ));
+    }
+
+    // delta sync for clients that keep a copy of the customers: `GET /changes` for a full sync, then
+    // `?since=<watermark>` with the watermark of the previous page, while `hasMore`, and of the last page
+    // for the next sync. Only the changes after the watermark are read
+    @GetMapping("/changes")
+    public ResponseEntity<CustomerChanges> getCustomerChanges(@RequestParam(value = "since", required = false) String since,
+                                                              @RequestParam(value = "limit", defaultValue = "500") int limit) {
+        return negotiated().body(customerService.getChanges(since, limit));
     }
 
+    // full-table export as newline-delimited JSON. Rows are serialized as they come off the
+    // database cursor, so neither the table nor the response body is ever held in memory
+    @GetMapping(value = "/export", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCustomers() {
+        ObjectWriter writer = objectMapper.writerFor(Customer.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(new SerializedString("\n"));
+                customerService.exportCustomers(customer -> {
+                    try {
+                        writer.writeValue(generator, customer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeRaw('\n');
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    // every insert, update and delete as it happens, as server-sent events (see `CustomerChangeFeed`).
+    // The connection is held by the servlet container's async support, not by a thread
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCustomerChanges(@RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId)
+            throws IOException {
+        // no timeout: the heartbeats find out about clients that are gone
+        SseEmitter emitter = new SseEmitter(0L);
+        // sent as soon as the response starts, so that the client knows it's connected
+        emitter.send(SseEmitter.event().comment("connected").reconnectTime(STREAM_RETRY_MILLIS));
+        CustomerChangeFeed.Subscription subscription = customerChangeFeed.subscribe(lastEventId, new CustomerChangeFeed.Sink() {
+            @Override
+            public void send(CustomerChangeFeed.Event event) throws IOException {
+                emitter.send(event.type() == null
+                        ? SseEmitter.event().comment("heartbeat")
+                        : SseEmitter.event().id(event.id()).name(event.type()).data(eventData(event), MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void close() {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+        return emitter;
+    }
+
+    // a `Customer`, or a `CustomerJson` with the same JSON on the direct read path, tagged with
+    // the customer's version (and the encoding). A revalidation (`If-None-Match`) looks up the version alone first and
+    // answers 304 without reading the row; so does the direct path, which can't tag its body afterwards
     @GetMapping("/{id}")
-    public Customer getCustomer(@PathVariable("id") Integer customerId) {
-        return customerService.getCustomer(customerId);
+    public ResponseEntity<Object> getCustomer(@PathVariable("id") Integer customerId,
+                                              @RequestHeader HttpHeaders headers) {
+        List<String> ifNoneMatch = headers.getIfNoneMatch();
+        MediaType encoding = negotiate(headers.getAccept(), ENCODINGS);
+        boolean direct = readsDirect(encoding);
+        if (direct || !ifNoneMatch.isEmpty()) {
+            String etag = etag(customerService.getCustomerVersion(customerId), encoding);
+            if (matches(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+            if (direct) {
+                return revalidated(etag, encoding).body(customerService.getCustomerJson(customerId));
+            }
+        }
+        Customer customer = customerService.getCustomer(customerId);
+        return revalidated(etag(customer.getVersion(), encoding), encoding).body(customer);
     }
 
     @PostMapping
@@ -32,6 +212,19 @@ public class CustomerController {
          customerService.addCustomer(customerDto);
     }
 
+    // bulk insert from a JSON array or NDJSON body; the raw stream is handed to the
+    // batch service so the payload is parsed incrementally instead of being buffered
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE})
+    public CustomerBatchResult addCustomers(InputStream body) throws IOException {
+        return customerBatchService.addCustomers(body);
+    }
+
+    // CSV import for very large loads, streamed into Postgres with `COPY FROM STDIN`
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    public CustomerImportResult importCustomers(InputStream body) {
+        return customerCsvImportService.importCsv(body);
+    }
+
     @PutMapping("/{id}")
     public void updateCustomer(@PathVariable("id") Integer customerId,
                                @RequestBody CustomerDTO customerDTO) {
@@ -42,4 +235,95 @@ public class CustomerController {
     public void deleteCustomer(@PathVariable("id") Integer customerId) {
         customerService.deleteCustomerById(customerId);
     }
+
+
+    // entities by default, which also keeps `GET /{id}` in front of the customer cache
+    enum ReadPath {
+        ENTITY, DIRECT
+    }
+
+
+    /*---- Helper Methods -----*/
+    // the direct read path only writes JSON
+    private boolean readsDirect(MediaType encoding) {
+        return readPath == ReadPath.DIRECT && encoding.equals(MediaType.APPLICATION_JSON);
+    }
+
+    // the first of `encodings` (the default first) that `accept` takes, the most preferred first. It's set as the
+    // `Content-Type` of the response, which Spring then writes in without negotiating again, so that the body
+    // is always in the encoding its `ETag` names
+    static MediaType negotiate(List<MediaType> accept, List<MediaType> encodings) {
+        if (accept.isEmpty()) {
+            return encodings.get(0);
+        }
+        List<MediaType> byQuality = new ArrayList<>(accept);
+        byQuality.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType acceptable : byQuality) {
+            if (acceptable.getQualityValue() == 0) {
+                break;
+            }
+            for (MediaType encoding : encodings) {
+                if (acceptable.isCompatibleWith(encoding)) {
+                    return encoding;
+                }
+            }
+        }
+        throw new NotAcceptableStatusException(encodings);
+    }
+
+    // the body depends on `Accept`, so shared caches have to keep each encoding apart
+    static ResponseEntity.BodyBuilder negotiated() {
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT);
+    }
+
+    // `no-cache`: clients may keep the response, but must revalidate it before every use
+    static ResponseEntity.BodyBuilder revalidated(String etag, MediaType encoding) {
+        return negotiated()
+                .contentType(encoding)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache());
+    }
+
+    static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .build();
+    }
+
+    // the customer, or an empty object for a `reset` (an event without data would never reach the client)
+    static Object eventData(CustomerChangeFeed.Event event) {
+        return event.customer() != null ? event.customer() : Map.of();
+    }
+
+    // one tag per encoding of a version, e.g. `"3-json"` and `"3-protobuf"`: the same tag for two different
+    // bodies would have a cache revalidate its copy in one encoding with a 304 meant for another
+    static String etag(long version, MediaType encoding) {
+        return "\"" + version + "-" + encoding.getSubtype().replaceFirst("^x-(jackson-)?", "") + "\"";
+    }
+
+    // `If-None-Match` uses the weak comparison: `W/"3-json"` matches `"3-json"`
+    static boolean matches(List<String> ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch) {
+            if (candidate.equals("*") || candidate.equals(etag)
+                    || (candidate.startsWith("W/") && candidate.substring(2).equals(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // blank text filters (e.g. an empty search box) mean "no filter"
+    static CustomerSearchCriteria searchCriteria(String name, String emailDomain,
+                                                 Integer minAge, Integer maxAge, Gender gender) {
+        return new CustomerSearchCriteria(
+                name == null || name.isBlank() ? null : name,
+                emailDomain == null || emailDomain.isBlank() ? null : emailDomain.strip(),
+                minAge,
+                maxAge,
+                gender
+        );
+    }
 }
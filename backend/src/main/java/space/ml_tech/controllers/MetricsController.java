@@ -0,0 +1,25 @@
+package space.ml_tech.controllers;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import space.ml_tech.metrics.MetricsRegistry;
+
+// scraped by Prometheus, e.g. with `metrics_path: /api/v1/metrics`
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping({"api/v1/metrics", "api/v1/metrics/"})
+public class MetricsController {
+
+    private final MetricsRegistry metricsRegistry;
+
+    public MetricsController(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    @GetMapping(produces = MetricsRegistry.PROMETHEUS_CONTENT_TYPE)
+    public String getMetrics() {
+        return metricsRegistry.scrape();
+    }
+}
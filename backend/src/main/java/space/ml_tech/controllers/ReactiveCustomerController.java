@@ -0,0 +1,171 @@
+package space.ml_tech.controllers;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import space.ml_tech.changes.CustomerChangeFeed;
+import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerBatchResult;
+import space.ml_tech.customer.CustomerChanges;
+import space.ml_tech.customer.CustomerDTO;
+import space.ml_tech.customer.CustomerPage;
+import space.ml_tech.customer.Gender;
+import space.ml_tech.customer.ReactiveCustomerService;
+import space.ml_tech.exceptions.RequestValidationException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static space.ml_tech.controllers.CustomerController.APPLICATION_NDJSON_VALUE;
+import static space.ml_tech.controllers.CustomerController.ENCODINGS;
+import static space.ml_tech.controllers.CustomerController.APPLICATION_PROTOBUF_VALUE;
+import static space.ml_tech.controllers.CustomerController.APPLICATION_SMILE_VALUE;
+import static space.ml_tech.controllers.CustomerController.LAST_EVENT_ID;
+import static space.ml_tech.controllers.CustomerController.STREAM_RETRY_MILLIS;
+import static space.ml_tech.controllers.CustomerController.etag;
+import static space.ml_tech.controllers.CustomerController.eventData;
+import static space.ml_tech.controllers.CustomerController.matches;
+import static space.ml_tech.controllers.CustomerController.negotiate;
+import static space.ml_tech.controllers.CustomerController.negotiated;
+import static space.ml_tech.controllers.CustomerController.notModified;
+import static space.ml_tech.controllers.CustomerController.revalidated;
+import static space.ml_tech.controllers.CustomerController.searchCriteria;
+
+/**
+ * The {@link CustomerController} endpoints on WebFlux, active with
+ * `spring.main.web-application-type: reactive`. Requests are served by a few event-loop
+ * threads that never block, so a slow client costs a connection, not a thread.
+ * The list endpoints return a {@link Flux}: rows are encoded as they come from the database,
+ * and the database is only asked for more once the client has taken what was sent
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping({"api/v1/customers", "api/v1/customers/"})
+public class ReactiveCustomerController {
+
+    // those of `CustomerController`, and one customer per line
+    private static final List<MediaType> LIST_ENCODINGS = Stream.concat(
+            ENCODINGS.stream(), Stream.of(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))).toList();
+
+    private final ReactiveCustomerService customerService;
+    private final CustomerChangeFeed customerChangeFeed;
+
+    public ReactiveCustomerController(ReactiveCustomerService customerService,
+                                      CustomerChangeFeed customerChangeFeed) {
+        this.customerService = customerService;
+        this.customerChangeFeed = customerChangeFeed;
+    }
+
+    // a JSON array by default, or one customer per line with `Accept: application/x-ndjson`;
+    // either way the response is streamed rather than collected first, and so is Protobuf (CBOR and Smile are
+    // collected, see `WebFluxConfig`). Tagged like `CustomerController#getCustomers`
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public Mono<ResponseEntity<Flux<Customer>>> getCustomers(@RequestParam(value = "name", required = false) String name,
+                                                             @RequestParam(value = "emailDomain", required = false) String emailDomain,
+                                                             @RequestParam(value = "minAge", required = false) Integer minAge,
+                                                             @RequestParam(value = "maxAge", required = false) Integer maxAge,
+                                                             @RequestParam(value = "gender", required = false) Gender gender,
+                                                             @RequestHeader HttpHeaders headers) {
+        if (!searchCriteria(name, emailDomain, minAge, maxAge, gender).isEmpty()) {
+            return Mono.error(new RequestValidationException("limit is required when filtering customers"));
+        }
+        MediaType encoding = negotiate(headers.getAccept(), LIST_ENCODINGS);
+        return customerService.getCustomersChangeCount().map(changes -> {
+            String etag = etag(changes, encoding);
+            return matches(headers.getIfNoneMatch(), etag)
+                    ? notModified(etag)
+                    : revalidated(etag, encoding).body(customerService.getAllCostumers());
+        });
+    }
+
+    @GetMapping(params = "limit")
+    public Mono<ResponseEntity<CustomerPage>> getCustomersPage(@RequestParam(value = "after", required = false) String after,
+                                               @RequestParam("limit") int limit,
+                                               @RequestParam(value = "name", required = false) String name,
+                                               @RequestParam(value = "emailDomain", required = false) String emailDomain,
+                                               @RequestParam(value = "minAge", required = false) Integer minAge,
+                                               @RequestParam(value = "maxAge", required = false) Integer maxAge,
+                                               @RequestParam(value = "gender", required = false) Gender gender) {
+        return customerService.getCustomersPage(
+                searchCriteria(name, emailDomain, minAge, maxAge, gender), after, limit
+        ).map(page -> negotiated().body(page));
+    }
+
+    // the same delta sync as `CustomerController#getCustomerChanges`
+    @GetMapping("/changes")
+    public Mono<ResponseEntity<CustomerChanges>> getCustomerChanges(@RequestParam(value = "since", required = false) String since,
+                                                                    @RequestParam(value = "limit", defaultValue = "500") int limit) {
+        return customerService.getChanges(since, limit).map(changes -> negotiated().body(changes));
+    }
+
+    @GetMapping(value = "/export", produces = APPLICATION_NDJSON_VALUE)
+    public Flux<Customer> exportCustomers() {
+        return customerService.getAllCostumers();
+    }
+
+    // the same events as `CustomerController#streamCustomerChanges`
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamCustomerChanges(@RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId) {
+        // sent as the connection asks for them, so a slow client is dropped like on the servlet stack
+        Flux<ServerSentEvent<Object>> events = customerChangeFeed.events(lastEventId)
+                .map(event -> event.type() == null
+                        ? ServerSentEvent.builder().comment("heartbeat").build()
+                        : ServerSentEvent.builder(eventData(event)).id(event.id()).event(event.type()).build());
+        return Flux.concat(
+                Mono.just(ServerSentEvent.builder().comment("connected").retry(Duration.ofMillis(STREAM_RETRY_MILLIS)).build()),
+                events
+        );
+    }
+
+    // tagged like `CustomerController#getCustomer`: a revalidation checks the version alone first
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Customer>> getCustomer(@PathVariable("id") Integer customerId,
+                                                      @RequestHeader HttpHeaders headers) {
+        List<String> ifNoneMatch = headers.getIfNoneMatch();
+        MediaType encoding = negotiate(headers.getAccept(), ENCODINGS);
+        if (ifNoneMatch.isEmpty()) {
+            return tagged(customerService.getCustomer(customerId), encoding);
+        }
+        return customerService.getCustomerVersion(customerId).flatMap(version -> {
+            String etag = etag(version, encoding);
+            return matches(ifNoneMatch, etag)
+                    ? Mono.just(notModified(etag))
+                    : tagged(customerService.getCustomer(customerId), encoding);
+        });
+    }
+
+    @PostMapping
+    public Mono<Void> addCustomer(@RequestBody CustomerDTO customerDto) {
+        return customerService.addCustomer(customerDto);
+    }
+
+    // a JSON array or NDJSON body, decoded one customer at a time as it arrives
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE})
+    public Mono<CustomerBatchResult> addCustomers(@RequestBody Flux<CustomerDTO> body) {
+        return customerService.addCustomers(body);
+    }
+
+    @PutMapping("/{id}")
+    public Mono<Void> updateCustomer(@PathVariable("id") Integer customerId,
+                                     @RequestBody CustomerDTO customerDTO) {
+        return customerService.updateCustomer(customerId, customerDTO);
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<Void> deleteCustomer(@PathVariable("id") Integer customerId) {
+        return customerService.deleteCustomerById(customerId);
+    }
+
+
+    /*---- Helper Methods -----*/
+    private static Mono<ResponseEntity<Customer>> tagged(Mono<Customer> customer, MediaType encoding) {
+        return customer.map(found -> revalidated(etag(found.getVersion(), encoding), encoding).body(found));
+    }
+}
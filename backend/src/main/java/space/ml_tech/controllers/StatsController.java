@@ -0,0 +1,126 @@
+package space.ml_tech.controllers;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import space.ml_tech.changes.CustomerChangeFeed;
+import space.ml_tech.changes.CustomerChangeFeedStats;
+import space.ml_tech.changes.CustomerChangeListener;
+import space.ml_tech.changes.CustomerChangeListenerStats;
+import space.ml_tech.customer.BulkheadCustomerDao;
+import space.ml_tech.customer.BulkheadStats;
+import space.ml_tech.customer.CachingCustomerDao;
+import space.ml_tech.customer.CustomerCacheStats;
+import space.ml_tech.customer.CustomerService;
+import space.ml_tech.customer.GroupCommitCustomerDao;
+import space.ml_tech.customer.GroupCommitStats;
+import space.ml_tech.customer.SingleFlightStats;
+import space.ml_tech.limiter.ConcurrencyLimiter;
+import space.ml_tech.limiter.ConcurrencyLimiterStats;
+import space.ml_tech.metrics.SqlProfiler;
+import space.ml_tech.metrics.SqlStatementStats;
+import space.ml_tech.replication.ReplicaRoutingDataSource;
+import space.ml_tech.replication.ReplicationStats;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+
+// the decorated JDBC DAOs these stats come from only serve the servlet stack
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping({"api/v1/stats", "api/v1/stats/"})
+public class StatsController {
+
+    private final CachingCustomerDao cachingCustomerDao;
+    private final BulkheadCustomerDao bulkheadCustomerDao;
+    private final GroupCommitCustomerDao groupCommitCustomerDao;
+    private final SqlProfiler sqlProfiler;
+    private final DataSource dataSource;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final CustomerService customerService;
+    private final CustomerChangeListener customerChangeListener;
+    private final CustomerChangeFeed customerChangeFeed;
+
+    public StatsController(CachingCustomerDao cachingCustomerDao,
+                           BulkheadCustomerDao bulkheadCustomerDao,
+                           GroupCommitCustomerDao groupCommitCustomerDao,
+                           SqlProfiler sqlProfiler,
+                           DataSource dataSource,
+                           ConcurrencyLimiter concurrencyLimiter,
+                           CustomerService customerService,
+                           CustomerChangeListener customerChangeListener,
+                           CustomerChangeFeed customerChangeFeed) {
+        this.cachingCustomerDao = cachingCustomerDao;
+        this.bulkheadCustomerDao = bulkheadCustomerDao;
+        this.groupCommitCustomerDao = groupCommitCustomerDao;
+        this.sqlProfiler = sqlProfiler;
+        this.dataSource = dataSource;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.customerService = customerService;
+        this.customerChangeListener = customerChangeListener;
+        this.customerChangeFeed = customerChangeFeed;
+    }
+
+    @GetMapping("/cache")
+    public CustomerCacheStats getCacheStats() {
+        return cachingCustomerDao.stats();
+    }
+
+    @GetMapping("/bulkhead")
+    public BulkheadStats getBulkheadStats() {
+        return bulkheadCustomerDao.stats();
+    }
+
+    @GetMapping("/group-commit")
+    public GroupCommitStats getGroupCommitStats() {
+        return groupCommitCustomerDao.stats();
+    }
+
+    @GetMapping("/limiter")
+    public ConcurrencyLimiterStats getLimiterStats() {
+        return concurrencyLimiter.stats();
+    }
+
+    @GetMapping("/single-flight")
+    public List<SingleFlightStats> getSingleFlightStats() {
+        return customerService.getSingleFlightStats();
+    }
+
+    @GetMapping("/change-notifications")
+    public CustomerChangeListenerStats getChangeNotificationStats() {
+        return customerChangeListener.stats();
+    }
+
+    @GetMapping("/stream")
+    public CustomerChangeFeedStats getStreamStats() {
+        return customerChangeFeed.stats();
+    }
+
+    // the most expensive statements by total execution time, since startup or the last reset
+    @GetMapping("/sql")
+    public List<SqlStatementStats> getSqlStats(@RequestParam(defaultValue = "10") int top) {
+        return sqlProfiler.top(top);
+    }
+
+    @PostMapping("/sql/reset")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void resetSqlStats() {
+        sqlProfiler.reset();
+    }
+
+    // where the connections went; without `replication.replicas` there's nothing to route, and no replica to report
+    @GetMapping("/replication")
+    public ResponseEntity<ReplicationStats> getReplicationStats() throws SQLException {
+        if (!dataSource.isWrapperFor(ReplicaRoutingDataSource.class)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(dataSource.unwrap(ReplicaRoutingDataSource.class).stats());
+    }
+}
@@ -0,0 +1,143 @@
+package space.ml_tech.customer;
+
+import space.ml_tech.exceptions.ServiceUnavailableException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of concurrent calls into the wrapped DAO, normally at the size of the
+ * connection pool. With virtual threads there's no longer a Tomcat thread pool to hold back
+ * thousands of concurrent requests, and they would all pile up inside the connection pool
+ * instead. Here they wait (cheaply, a blocked virtual thread releases its carrier) for at most
+ * `acquireTimeout`, after which the request fails fast with a 503 rather than with a pool
+ * timeout deep inside JDBC
+ */
+public class BulkheadCustomerDao extends ForwardingCustomerDao {
+
+    private final int maxConcurrentCalls;
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private final LongAdder rejected = new LongAdder();
+
+    public BulkheadCustomerDao(CustomerDao delegate, int maxConcurrentCalls, Duration acquireTimeout) {
+        super(delegate);
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        // fair, so that a steady stream of new callers can't starve the ones already waiting
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return call(delegate::selectAllCustomers);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Integer id) {
+        return call(() -> delegate.selectCustomerById(id));
+    }
+
+    @Override
+    public List<Customer> selectCustomersAfter(Integer afterId, int limit) {
+        return call(() -> delegate.selectCustomersAfter(afterId, limit));
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearchCriteria criteria, Integer afterId, int limit) {
+        return call(() -> delegate.searchCustomers(criteria, afterId, limit));
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> consumer) {
+        call(() -> {
+            delegate.forEachCustomer(consumer);
+            return null;
+        });
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        call(() -> {
+            delegate.insertCustomer(customer);
+            return null;
+        });
+    }
+
+    @Override
+    public int[] insertCustomers(List<Customer> customers) {
+        return call(() -> delegate.insertCustomers(customers));
+    }
+
+    @Override
+    public Optional<Customer> deletePersonById(Integer id) {
+        return call(() -> delegate.deletePersonById(id));
+    }
+
+    @Override
+    public Optional<Customer> updatePerson(Customer update) {
+        return call(() -> delegate.updatePerson(update));
+    }
+
+    @Override
+    public Optional<Long> selectCustomerVersion(Integer id) {
+        return call(() -> delegate.selectCustomerVersion(id));
+    }
+
+    @Override
+    public CustomerChangeLog selectChangesAfter(long afterTxid, int afterId, boolean withDeletions, int limit) {
+        return call(() -> delegate.selectChangesAfter(afterTxid, afterId, withDeletions, limit));
+    }
+
+    @Override
+    public long selectChangeCount() {
+        return call(delegate::selectChangeCount);
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        return call(() -> delegate.existsPersonWithEmail(email));
+    }
+
+    @Override
+    public boolean existsPersonWithId(Integer id) {
+        return call(() -> delegate.existsPersonWithId(id));
+    }
+
+    public BulkheadStats stats() {
+        return new BulkheadStats(
+                maxConcurrentCalls,
+                permits.availablePermits(),
+                permits.getQueueLength(),
+                rejected.sum()
+        );
+    }
+
+
+    /*---- Helper Methods -----*/
+    // also used by `CustomerJsonWriter`, which goes to the database without going through a DAO
+    <T> T call(Supplier<T> supplier) {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new ServiceUnavailableException("Too many concurrent requests, please retry later");
+        }
+        try {
+            return supplier.get();
+        } finally {
+            permits.release();
+        }
+    }
+}
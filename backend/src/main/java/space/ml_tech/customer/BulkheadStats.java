@@ -0,0 +1,12 @@
+package space.ml_tech.customer;
+
+/**
+ * Snapshot of the {@link BulkheadCustomerDao}: `waiting` is an estimate of the
+ * callers queued for a permit, `rejected` counts the ones that gave up
+ */
+public record BulkheadStats(
+        int maxConcurrentCalls,
+        int availablePermits,
+        int waiting,
+        long rejected) {
+}
@@ -0,0 +1,187 @@
+package space.ml_tech.customer;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.context.event.EventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Read-through cache of customers by id, in front of any {@link CustomerDao}.
+ * It is backed by Caffeine, whose W-TinyLFU policy only admits a new entry when it is
+ * requested more often than the one it would evict, so a scan over many cold ids
+ * can't flush out the hot customers. The cache is bounded by an estimate of the
+ * retained bytes (not by entry count) and entries expire after a fixed time-to-live.
+ *
+ * Writes go to the database first and then invalidate the affected id. Invalidating also drops
+ * an in-flight load of that id, so a reader can't put back a row it read before the write committed.
+ * Loads read from the primary, never from a replica (see {@link ReplicaRoutingCustomerDao}), for
+ * the same reason: a replica may not have the write yet.
+ *
+ * The cache holds futures: the first reader of a missing id registers one and then loads the
+ * row itself, outside of any lock, while concurrent readers of the same id wait on that future.
+ * Loading inside the map's `compute` would hold a `synchronized` bin lock during the query,
+ * which pins the carrier thread when running on virtual threads.
+ * Entries are copied in and out, since {@link Customer} is mutable.
+ *
+ * Writes made by other nodes come in as {@link CustomerChangedEvent}s a few milliseconds after
+ * they commit, and invalidate the same way; the time-to-live is only a backstop for the case
+ * where notifications are off
+ */
+public class CachingCustomerDao extends ForwardingCustomerDao {
+
+    private final AsyncCache<Integer, Customer> cache;
+    private final long maximumWeight;
+
+    public CachingCustomerDao(CustomerDao delegate, long maximumWeight, Duration expireAfterWrite) {
+        super(delegate);
+        this.maximumWeight = maximumWeight;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((Integer id, Customer customer) -> estimateSize(customer))
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Integer id) {
+        CompletableFuture<Customer> loading = new CompletableFuture<>();
+        CompletableFuture<Customer> cached = cache.get(id, (key, executor) -> loading);
+        if (cached == loading) {
+            // a future completed with null (nothing found) is removed again, so misses aren't cached
+            try {
+                loading.complete(delegate.selectCustomerById(id).map(CachingCustomerDao::copy).orElse(null));
+            } catch (RuntimeException e) {
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return Optional.ofNullable(cached.join()).map(CachingCustomerDao::copy);
+        } catch (CompletionException e) {
+            // another reader's load failed: surface its exception as if we had loaded ourselves
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @Override
+    public boolean existsPersonWithId(Integer id) {
+        CompletableFuture<Customer> cached = cache.getIfPresent(id);
+        boolean loaded = cached != null && cached.isDone() && !cached.isCompletedExceptionally();
+        return (loaded && cached.join() != null) || delegate.existsPersonWithId(id);
+    }
+
+    // a revalidation of a cached customer is answered from the cache, as its full read would be
+    @Override
+    public Optional<Long> selectCustomerVersion(Integer id) {
+        CompletableFuture<Customer> cached = cache.getIfPresent(id);
+        if (cached != null && cached.isDone() && !cached.isCompletedExceptionally() && cached.join() != null) {
+            return Optional.of(cached.join().getVersion());
+        }
+        return delegate.selectCustomerVersion(id);
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        delegate.insertCustomer(customer);
+        // nothing can be cached under a brand-new id (misses are not cached), this just keeps it that way
+        cache.synchronous().invalidate(customer.getId());
+    }
+
+    @Override
+    public int[] insertCustomers(List<Customer> customers) {
+        int[] inserted = delegate.insertCustomers(customers);
+        // same as `insertCustomer`, for the rows that got in (the skipped ones have no id)
+        for (int i = 0; i < customers.size(); i++) {
+            if (inserted[i] == 1) {
+                cache.synchronous().invalidate(customers.get(i).getId());
+            }
+        }
+        return inserted;
+    }
+
+    @Override
+    public Optional<Customer> deletePersonById(Integer id) {
+        try {
+            return delegate.deletePersonById(id);
+        } finally {
+            cache.synchronous().invalidate(id);
+        }
+    }
+
+    @Override
+    public Optional<Customer> updatePerson(Customer update) {
+        try {
+            return delegate.updatePerson(update);
+        } finally {
+            cache.synchronous().invalidate(update.getId());
+        }
+    }
+
+    public void invalidate(Integer id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    @EventListener
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        invalidate(event.id());
+    }
+
+    // only the cached customers in the range: a bulk insert, whose new ids can't be cached yet, drops none
+    @EventListener
+    public void onCustomersChanged(CustomersChangedEvent event) {
+        cache.synchronous().invalidateAll(cache.asMap().keySet().stream()
+                .filter(id -> id >= event.fromId() && id <= event.toId())
+                .toList());
+    }
+
+    @EventListener
+    public void onChangesMissed(CustomerChangesMissedEvent event) {
+        invalidateAll();
+    }
+
+    public CustomerCacheStats stats() {
+        CacheStats stats = cache.synchronous().stats();
+        return new CustomerCacheStats(
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                cache.synchronous().estimatedSize(),
+                cache.synchronous().policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L),
+                maximumWeight
+        );
+    }
+
+
+    /*---- Helper Methods -----*/
+    // rough retained size in bytes: object headers and fields, plus two compact (Latin-1) strings
+    static int estimateSize(Customer customer) {
+        return 96 + length(customer.getName()) + length(customer.getEmail());
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : 48 + value.length();
+    }
+
+    private static Customer copy(Customer customer) {
+        return new Customer(
+                customer.getId(),
+                customer.getName(),
+                customer.getEmail(),
+                customer.getAge(),
+                customer.getGender(),
+                customer.getVersion()
+        );
+    }
+}
@@ -1,5 +1,6 @@
 package space.ml_tech.customer;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -40,4 +41,13 @@ public class Customer {
     @Column(nullable = false)
     @Enumerated(EnumType.STRING)
     private Gender gender;
+    // bumped by every update; it's the `ETag` of the customer rather than part of its JSON.
+    // Null until the customer is stored (Spring Data tells new entities apart by a null version)
+    @Version
+    @JsonIgnore
+    private Long version;
+
+    public Customer(Integer id, String name, String email, Integer age, Gender gender) {
+        this(id, name, email, age, gender, null);
+    }
 }
@@ -0,0 +1,12 @@
+package space.ml_tech.customer;
+
+/**
+ * Age aggregates of a group of customers, as computed by
+ * {@link CustomerColumnarDataAccessService#ageStatsByGender()}
+ */
+public record CustomerAgeStats(
+        long count,
+        int minAge,
+        int maxAge,
+        double averageAge) {
+}
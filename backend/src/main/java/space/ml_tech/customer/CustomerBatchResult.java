@@ -0,0 +1,20 @@
+package space.ml_tech.customer;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk insert through `POST /api/v1/customers/batch`.
+ * Only rejected rows are listed in `errors`; every other received row was inserted.
+ * `row` is the zero-based position of the customer in the request body
+ */
+public record CustomerBatchResult(
+        int received,
+        int inserted,
+        List<RowError> errors) {
+
+    public record RowError(
+            int row,
+            String email,
+            String reason) {
+    }
+}
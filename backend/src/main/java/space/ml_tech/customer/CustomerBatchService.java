@@ -0,0 +1,139 @@
+package space.ml_tech.customer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import space.ml_tech.exceptions.RequestValidationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk insert of customers from a JSON array or an NDJSON stream.
+ * The body is parsed one customer at a time and written in chunks of `customer.batch.chunk-size`
+ * rows through {@link CustomerDao#insertCustomers(List)}, so the request is never fully buffered.
+ * Each chunk is committed on its own: if the body turns out to be malformed half-way through,
+ * the chunks before the bad token stay inserted.
+ * The chunks go through the same DAO chain as single inserts (the cache, the bulkhead and the metrics),
+ * so a bulk insert takes one bulkhead permit per chunk and is counted like any other write
+ */
+@Service
+public class CustomerBatchService {
+
+    private final CustomerDao customerDao;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public CustomerBatchService(@Qualifier("beanOfTypeCached") CustomerDao customerDao,
+                                ObjectMapper objectMapper,
+                                @Value("${customer.batch.chunk-size:500}") int chunkSize) {
+        this.customerDao = customerDao;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    public CustomerBatchResult addCustomers(InputStream body) throws IOException {
+        List<CustomerBatchResult.RowError> errors = new ArrayList<>();
+        List<Customer> chunk = new ArrayList<>(chunkSize);
+        List<Integer> chunkRows = new ArrayList<>(chunkSize);
+        int received = 0;
+        int inserted = 0;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            // a JSON array is read element by element; anything else is treated as
+            // NDJSON, i.e. a sequence of root-level objects separated by whitespace
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+
+            while (token != null && token != JsonToken.END_ARRAY) {
+                int row = received++;
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    errors.add(new CustomerBatchResult.RowError(row, null, "Expected a JSON object"));
+                } else {
+                    JsonNode node = parser.readValueAsTree();
+                    String rejection = validate(node);
+                    if (rejection != null) {
+                        errors.add(new CustomerBatchResult.RowError(row, node.path("email").asText(null), rejection));
+                    } else {
+                        chunk.add(toCustomer(node));
+                        chunkRows.add(row);
+                    }
+                }
+
+                if (chunk.size() == chunkSize) {
+                    inserted += flush(chunk, chunkRows, errors);
+                }
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            inserted += flush(chunk, chunkRows, errors);
+            throw new RequestValidationException(
+                    "Malformed request body after row %s (%s customers inserted before it): %s"
+                            .formatted(received, inserted, e.getOriginalMessage())
+            );
+        }
+
+        inserted += flush(chunk, chunkRows, errors);
+        return new CustomerBatchResult(received, inserted, errors);
+    }
+
+
+    /*---- Helper Methods -----*/
+    private int flush(List<Customer> chunk, List<Integer> chunkRows, List<CustomerBatchResult.RowError> errors) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+
+        int inserted = 0;
+        int[] counts = customerDao.insertCustomers(List.copyOf(chunk));
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                errors.add(new CustomerBatchResult.RowError(chunkRows.get(i), chunk.get(i).getEmail(), "Email already taken!"));
+            } else {
+                inserted++;
+            }
+        }
+
+        chunk.clear();
+        chunkRows.clear();
+        return inserted;
+    }
+
+    private String validate(JsonNode node) {
+        if (!node.path("name").isTextual() || node.path("name").asText().isBlank()) {
+            return "Missing name";
+        }
+        if (!node.path("email").isTextual() || node.path("email").asText().isBlank()) {
+            return "Missing email";
+        }
+        if (!node.path("age").isIntegralNumber() || !node.path("age").canConvertToInt() || node.path("age").asInt() < 0) {
+            return "Invalid age";
+        }
+        try {
+            Gender.valueOf(node.path("gender").asText());
+        } catch (IllegalArgumentException e) {
+            return "Invalid gender";
+        }
+        return null;
+    }
+
+    private Customer toCustomer(JsonNode node) {
+        return Customer.builder()
+                .name(node.get("name").asText())
+                .email(node.get("email").asText())
+                .age(node.get("age").asInt())
+                .gender(Gender.valueOf(node.get("gender").asText()))
+                .build();
+    }
+}
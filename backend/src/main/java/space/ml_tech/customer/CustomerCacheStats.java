@@ -0,0 +1,15 @@
+package space.ml_tech.customer;
+
+/**
+ * Snapshot of the {@link CachingCustomerDao} statistics.
+ * `weightedSize` and `maximumWeight` are (estimated) bytes
+ */
+public record CustomerCacheStats(
+        long hitCount,
+        long missCount,
+        double hitRate,
+        long evictionCount,
+        long estimatedSize,
+        long weightedSize,
+        long maximumWeight) {
+}
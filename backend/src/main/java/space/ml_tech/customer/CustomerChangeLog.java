@@ -0,0 +1,19 @@
+package space.ml_tech.customer;
+
+import java.util.List;
+
+/**
+ * One read of the customer change log, behind `GET /api/v1/customers/changes`: the `entries` after the
+ * requested position, ordered by (`txid`, `id`). `frontier` is the lowest transaction that may still
+ * commit, so no entry can still show up below it, and `floor` changes whenever changes were lost
+ * for good (a `TRUNCATE`, or pruned tombstones). The in-memory DAOs number their writes instead of using transaction ids
+ */
+public record CustomerChangeLog(
+        List<Entry> entries,
+        long frontier,
+        long floor) {
+
+    // `customer` is null for a deleted customer
+    public record Entry(long txid, int id, Customer customer) {
+    }
+}
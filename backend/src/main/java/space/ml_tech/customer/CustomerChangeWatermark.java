@@ -0,0 +1,64 @@
+package space.ml_tech.customer;
+
+import space.ml_tech.exceptions.RequestValidationException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Where a client stands in the customer change log, handed out by `GET /api/v1/customers/changes` as
+ * an opaque token. A sync pass walks the log from (`txid`, `id`) in pages. `frontier` is the log's
+ * frontier when the pass began (0 before its first page), and the pass ends at it: a change
+ * committed during the pass may sort before the page being read, and is picked up by the next one.
+ * `floor` is the log's floor when the client started, and `deletions` is false for a full sync,
+ * which has no use for tombstones
+ */
+record CustomerChangeWatermark(long txid, int id, long frontier, long floor, boolean deletions) {
+
+    static final CustomerChangeWatermark START = new CustomerChangeWatermark(0, 0, 0, 0, false);
+
+    private static final int BYTES = Long.BYTES + Integer.BYTES + Long.BYTES + Long.BYTES + 1;
+
+    // the watermark after a page of `log`, whose last entry was `last` if there are more
+    CustomerChangeWatermark next(CustomerChangeLog log, CustomerChangeLog.Entry last) {
+        // whichever is lower, in case this page was read from a replica further behind than the first
+        long passFrontier = frontier == 0 ? log.frontier() : Math.min(frontier, log.frontier());
+        return last != null
+                ? new CustomerChangeWatermark(last.txid(), last.id(), passFrontier, log.floor(), deletions)
+                : new CustomerChangeWatermark(passFrontier, 0, 0, log.floor(), true);
+    }
+
+    // whether changes this client hasn't read yet were lost for good since it started: the floor moved past
+    // where it stands. Pruning tombstones that it has already read moves the floor without losing it anything
+    boolean lostChanges(CustomerChangeLog log) {
+        return this != START && floor != log.floor() && txid < log.floor();
+    }
+
+    String encode() {
+        byte[] bytes = ByteBuffer.allocate(BYTES)
+                .putLong(txid)
+                .putInt(id)
+                .putLong(frontier)
+                .putLong(floor)
+                .put((byte) (deletions ? 1 : 0))
+                .array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    static CustomerChangeWatermark decode(String watermark) {
+        if (watermark == null || watermark.isBlank()) {
+            return START;
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(watermark);
+            if (bytes.length != BYTES) {
+                throw new IllegalArgumentException();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new CustomerChangeWatermark(
+                    buffer.getLong(), buffer.getInt(), buffer.getLong(), buffer.getLong(), buffer.get() == 1);
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException("Invalid watermark: %s".formatted(watermark));
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package space.ml_tech.customer;
+
+/**
+ * A committed change to one customer, whichever node (or tool) made it, as announced by the
+ * database. `email` is the customer's email after the change (before it, for a deletion),
+ * `previousEmail` the one an update replaced, if any, and `customer` the whole row, likewise
+ */
+public record CustomerChangedEvent(Operation operation, Integer id, String email, String previousEmail, Customer customer) {
+
+    public enum Operation {
+        INSERT, UPDATE, DELETE
+    }
+}
@@ -0,0 +1,18 @@
+package space.ml_tech.customer;
+
+import java.util.List;
+
+/**
+ * One page of `GET /api/v1/customers/changes?since=`: the customers inserted or updated and the ids of
+ * those deleted after `since`. `watermark` is an opaque token to pass back as `?since=`, for the next page
+ * while `hasMore` is true and for the next sync after that. When `reset` is true the changes since
+ * `since` couldn't all be told anymore, so this is the first page of a full sync and the client
+ * has to drop its copy first
+ */
+public record CustomerChanges(
+        List<Customer> changed,
+        List<Integer> deleted,
+        String watermark,
+        boolean hasMore,
+        boolean reset) {
+}
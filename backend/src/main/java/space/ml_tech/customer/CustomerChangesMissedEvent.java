@@ -0,0 +1,9 @@
+package space.ml_tech.customer;
+
+/**
+ * Changes to `customer` may have gone by without a {@link CustomerChangedEvent} each:
+ * too many at once, or while this node wasn't listening. Anything derived from
+ * the table should be dropped or rebuilt
+ */
+public record CustomerChangesMissedEvent(String reason) {
+}
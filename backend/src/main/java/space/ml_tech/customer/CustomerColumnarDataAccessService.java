@@ -0,0 +1,582 @@
+package space.ml_tech.customer;
+
+import org.springframework.stereotype.Repository;
+import space.ml_tech.exceptions.DuplicateResourceException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory store laid out by column rather than by customer, for reports that scan
+ * every customer by age and gender. Ages live in an `int[]`, genders in a `byte[]` of
+ * dictionary codes (the {@link Gender} ordinal, or {@link #DELETED} for a tombstone), versions
+ * in a `long[]` and names and emails as UTF-8 bytes appended to one shared array per column, so a scan walks
+ * a couple of primitive arrays instead of chasing a `Customer`, an `Integer` and a `String`
+ * per row. {@link Customer} objects are only materialized for the DAO methods that return them.
+ *
+ * Ids are generated from 1 upwards and a customer's id is its row number plus one, so the
+ * id "index" is free. Emails are unique through an open-addressing hash table of rows.
+ * Deletes leave a tombstone, and updated names and emails are appended while the old bytes
+ * stay behind as garbage; both are reported by {@link #footprint()}.
+ *
+ * Each row also keeps the number of the last write to it (deleted rows included), which is the
+ * change log of this store.
+ *
+ * Writes are serialized by a {@link StampedLock}; reads and scans share its read lock
+ */
+@Repository("beanOfTypeColumnar")
+public class CustomerColumnarDataAccessService implements CustomerDao {
+
+    private static final Gender[] GENDERS = Gender.values();
+    private static final byte DELETED = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+    // rows materialized per read-lock hold by `forEachCustomer`, so a slow consumer can't stall writers
+    private static final int SCAN_CHUNK_SIZE = 1024;
+
+    private final StampedLock lock = new StampedLock();
+
+    private int rows;
+    private int liveRows;
+    // bumped by every insert, update and delete
+    private long changeCount;
+    private int[] ages = new int[INITIAL_CAPACITY];
+    private byte[] genders = new byte[INITIAL_CAPACITY];
+    private long[] versions = new long[INITIAL_CAPACITY];
+    // the `changeCount` of the last write to each row
+    private long[] changeStamps = new long[INITIAL_CAPACITY];
+    private final StringColumn names = new StringColumn(INITIAL_CAPACITY);
+    private final StringColumn emails = new StringColumn(INITIAL_CAPACITY);
+    private int[] emailHashes = new int[INITIAL_CAPACITY];
+    // linear-probing table of `row + 1` (0 = empty slot), kept at most half full
+    private int[] emailIndex = new int[INITIAL_CAPACITY * 2];
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        List<Customer> customers = new ArrayList<>();
+        forEachCustomer(customers::add);
+        return customers;
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Integer id) {
+        long stamp = lock.readLock();
+        try {
+            int row = rowOf(id);
+            return row < 0 ? Optional.empty() : Optional.of(materialize(row));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public List<Customer> selectCustomersAfter(Integer afterId, int limit) {
+        long stamp = lock.readLock();
+        try {
+            List<Customer> customers = new ArrayList<>(Math.min(limit, liveRows));
+            for (int row = Math.max(afterId, 0); row < rows && customers.size() < limit; row++) {
+                if (genders[row] != DELETED) {
+                    customers.add(materialize(row));
+                }
+            }
+            return customers;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // age and gender are checked on the columns; names and emails are only decoded for those rows
+    @Override
+    public List<Customer> searchCustomers(CustomerSearchCriteria criteria, Integer afterId, int limit) {
+        int minAge = criteria.minAge() == null ? Integer.MIN_VALUE : criteria.minAge();
+        int maxAge = criteria.maxAge() == null ? Integer.MAX_VALUE : criteria.maxAge();
+        byte[] namePrefix = criteria.namePrefix() == null ? null : utf8(criteria.namePrefix());
+
+        long stamp = lock.readLock();
+        try {
+            List<Customer> customers = new ArrayList<>(Math.min(limit, liveRows));
+            for (int row = Math.max(afterId, 0); row < rows && customers.size() < limit; row++) {
+                byte code = genders[row];
+                int age = ages[row];
+                if (code == DELETED || age < minAge || age > maxAge
+                        || (criteria.gender() != null && code != criteria.gender().ordinal())
+                        || (namePrefix != null && !names.startsWith(row, namePrefix))) {
+                    continue;
+                }
+                Customer customer = materialize(row);
+                if (criteria.matches(customer)) {
+                    customers.add(customer);
+                }
+            }
+            return customers;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // a scan of the stamp column; only the rows that made it into the page are materialized
+    @Override
+    public CustomerChangeLog selectChangesAfter(long afterTxid, int afterId, boolean withDeletions, int limit) {
+        long stamp = lock.readLock();
+        try {
+            List<Integer> changed = new ArrayList<>();
+            for (int row = 0; row < rows; row++) {
+                long change = changeStamps[row];
+                if ((change > afterTxid || (change == afterTxid && row + 1 > afterId))
+                        && (withDeletions || genders[row] != DELETED)) {
+                    changed.add(row);
+                }
+            }
+            // stamps are unique, ids only break ties with `afterTxid`'s own row
+            changed.sort(Comparator.comparingLong(row -> changeStamps[row]));
+            List<CustomerChangeLog.Entry> entries = new ArrayList<>(Math.min(limit, changed.size()));
+            for (int i = 0; i < changed.size() && entries.size() < limit; i++) {
+                int row = changed.get(i);
+                entries.add(new CustomerChangeLog.Entry(
+                        changeStamps[row], row + 1, genders[row] == DELETED ? null : materialize(row)));
+            }
+            // writes hold the write lock, so every numbered one is applied
+            return new CustomerChangeLog(entries, changeCount + 1, 0);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> consumer) {
+        List<Customer> chunk = new ArrayList<>(SCAN_CHUNK_SIZE);
+        int next = 0;
+        while (true) {
+            long stamp = lock.readLock();
+            try {
+                for (; next < rows && chunk.size() < SCAN_CHUNK_SIZE; next++) {
+                    if (genders[next] != DELETED) {
+                        chunk.add(materialize(next));
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            if (chunk.isEmpty()) {
+                return;
+            }
+            chunk.forEach(consumer);
+            chunk.clear();
+        }
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        if (!tryInsert(customer)) {
+            throw new DuplicateResourceException("Email already taken!");
+        }
+    }
+
+    @Override
+    public int[] insertCustomers(List<Customer> customers) {
+        int[] inserted = new int[customers.size()];
+        for (int i = 0; i < customers.size(); i++) {
+            inserted[i] = tryInsert(customers.get(i)) ? 1 : 0;
+        }
+        return inserted;
+    }
+
+    @Override
+    public Optional<Customer> deletePersonById(Integer id) {
+        long stamp = lock.writeLock();
+        try {
+            int row = rowOf(id);
+            if (row < 0) {
+                return Optional.empty();
+            }
+            Customer deleted = materialize(row);
+            removeFromEmailIndex(row);
+            names.release(row);
+            emails.release(row);
+            genders[row] = DELETED;
+            liveRows--;
+            changeStamps[row] = ++changeCount;
+            return Optional.of(deleted);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Optional<Customer> updatePerson(Customer update) {
+        long stamp = lock.writeLock();
+        try {
+            int row = rowOf(update.getId());
+            if (row < 0) {
+                return Optional.empty();
+            }
+
+            byte[] newEmail = null;
+            if (update.getEmail() != null && !emails.equals(row, utf8(update.getEmail()))) {
+                newEmail = utf8(update.getEmail());
+                if (findRowByEmail(newEmail, update.getEmail().hashCode()) >= 0) {
+                    throw new DuplicateResourceException("Email already taken!");
+                }
+            }
+            boolean changeName = update.getName() != null && !names.equals(row, utf8(update.getName()));
+            boolean changeAge = update.getAge() != null && update.getAge() != ages[row];
+            if (newEmail == null && !changeName && !changeAge) {
+                return Optional.empty();
+            }
+
+            if (newEmail != null) {
+                removeFromEmailIndex(row);
+                emails.set(row, newEmail);
+                emailHashes[row] = update.getEmail().hashCode();
+                addToEmailIndex(row);
+            }
+            if (changeName) {
+                names.set(row, utf8(update.getName()));
+            }
+            if (changeAge) {
+                ages[row] = update.getAge();
+            }
+            versions[row]++;
+            changeStamps[row] = ++changeCount;
+            return Optional.of(materialize(row));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Optional<Long> selectCustomerVersion(Integer id) {
+        long stamp = lock.readLock();
+        try {
+            int row = rowOf(id);
+            return row < 0 ? Optional.empty() : Optional.of(versions[row]);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public long selectChangeCount() {
+        long stamp = lock.readLock();
+        try {
+            return changeCount;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        long stamp = lock.readLock();
+        try {
+            return findRowByEmail(utf8(email), email.hashCode()) >= 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean existsPersonWithId(Integer id) {
+        long stamp = lock.readLock();
+        try {
+            return rowOf(id) >= 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // number of customers whose age is within [minAge, maxAge], optionally of one gender only
+    public long countCustomers(int minAge, int maxAge, Gender gender) {
+        long stamp = lock.readLock();
+        try {
+            int[] ages = this.ages;
+            byte[] genders = this.genders;
+            long count = 0;
+            if (gender == null) {
+                for (int row = 0; row < rows; row++) {
+                    int age = ages[row];
+                    if (genders[row] != DELETED && age >= minAge && age <= maxAge) {
+                        count++;
+                    }
+                }
+            } else {
+                byte code = (byte) gender.ordinal();
+                for (int row = 0; row < rows; row++) {
+                    int age = ages[row];
+                    if (genders[row] == code && age >= minAge && age <= maxAge) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // count, min, max and average age per gender, in one pass over the two columns
+    public Map<Gender, CustomerAgeStats> ageStatsByGender() {
+        long[] counts = new long[GENDERS.length];
+        long[] sums = new long[GENDERS.length];
+        int[] min = new int[GENDERS.length];
+        int[] max = new int[GENDERS.length];
+        Arrays.fill(min, Integer.MAX_VALUE);
+        Arrays.fill(max, Integer.MIN_VALUE);
+
+        long stamp = lock.readLock();
+        try {
+            int[] ages = this.ages;
+            byte[] genders = this.genders;
+            for (int row = 0; row < rows; row++) {
+                int code = genders[row];
+                if (code == DELETED) {
+                    continue;
+                }
+                int age = ages[row];
+                counts[code]++;
+                sums[code] += age;
+                min[code] = Math.min(min[code], age);
+                max[code] = Math.max(max[code], age);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+
+        Map<Gender, CustomerAgeStats> stats = new EnumMap<>(Gender.class);
+        for (Gender gender : GENDERS) {
+            int code = gender.ordinal();
+            if (counts[code] > 0) {
+                stats.put(gender, new CustomerAgeStats(
+                        counts[code], min[code], max[code], (double) sums[code] / counts[code]));
+            }
+        }
+        return stats;
+    }
+
+    public CustomerStoreFootprint footprint() {
+        long stamp = lock.readLock();
+        try {
+            long ageBytes = (long) ages.length * Integer.BYTES;
+            long genderBytes = genders.length;
+            long versionBytes = (long) versions.length * Long.BYTES;
+            long changeStampBytes = (long) changeStamps.length * Long.BYTES;
+            long nameBytes = names.sizeInBytes();
+            long emailBytes = emails.sizeInBytes();
+            long indexBytes = ((long) emailIndex.length + emailHashes.length) * Integer.BYTES;
+            return new CustomerStoreFootprint(
+                    rows,
+                    liveRows,
+                    ageBytes,
+                    genderBytes,
+                    versionBytes,
+                    changeStampBytes,
+                    nameBytes,
+                    emailBytes,
+                    indexBytes,
+                    names.garbageBytes() + emails.garbageBytes(),
+                    ageBytes + genderBytes + versionBytes + changeStampBytes + nameBytes + emailBytes + indexBytes
+            );
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+
+    /*---- Helper Methods -----*/
+    // sets the generated id on `customer`; returns false if its email is already taken
+    private boolean tryInsert(Customer customer) {
+        byte[] email = utf8(customer.getEmail());
+        int hash = customer.getEmail().hashCode();
+        byte[] name = utf8(customer.getName());
+        int age = customer.getAge();
+        byte gender = (byte) customer.getGender().ordinal();
+
+        long stamp = lock.writeLock();
+        try {
+            if (findRowByEmail(email, hash) >= 0) {
+                return false;
+            }
+            int row = rows;
+            ensureCapacity(row + 1);
+            ages[row] = age;
+            genders[row] = gender;
+            versions[row] = 0;
+            names.set(row, name);
+            emails.set(row, email);
+            emailHashes[row] = hash;
+            rows++;
+            liveRows++;
+            changeStamps[row] = ++changeCount;
+            addToEmailIndex(row);
+            customer.setId(row + 1);
+            customer.setVersion(0L);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // row of a live customer, or -1
+    private int rowOf(Integer id) {
+        if (id == null || id < 1 || id > rows) {
+            return -1;
+        }
+        int row = id - 1;
+        return genders[row] == DELETED ? -1 : row;
+    }
+
+    private Customer materialize(int row) {
+        return new Customer(row + 1, names.get(row), emails.get(row), ages[row], GENDERS[genders[row]], versions[row]);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ages.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ages.length * 2);
+        ages = Arrays.copyOf(ages, newCapacity);
+        genders = Arrays.copyOf(genders, newCapacity);
+        versions = Arrays.copyOf(versions, newCapacity);
+        changeStamps = Arrays.copyOf(changeStamps, newCapacity);
+        emailHashes = Arrays.copyOf(emailHashes, newCapacity);
+        names.ensureCapacity(newCapacity);
+        emails.ensureCapacity(newCapacity);
+    }
+
+    private int findRowByEmail(byte[] email, int hash) {
+        int mask = emailIndex.length - 1;
+        for (int slot = mix(hash) & mask; emailIndex[slot] != 0; slot = (slot + 1) & mask) {
+            int row = emailIndex[slot] - 1;
+            if (emailHashes[row] == hash && emails.equals(row, email)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private void addToEmailIndex(int row) {
+        if ((liveRows + 1) * 2L > emailIndex.length) {
+            rehashEmailIndex(emailIndex.length * 2);
+        }
+        int mask = emailIndex.length - 1;
+        int slot = mix(emailHashes[row]) & mask;
+        while (emailIndex[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        emailIndex[slot] = row + 1;
+    }
+
+    // backward-shift deletion: no tombstones in the table, so probe chains stay short
+    private void removeFromEmailIndex(int row) {
+        int mask = emailIndex.length - 1;
+        int slot = mix(emailHashes[row]) & mask;
+        while (emailIndex[slot] != row + 1) {
+            slot = (slot + 1) & mask;
+        }
+        int hole = slot;
+        for (int next = (hole + 1) & mask; emailIndex[next] != 0; next = (next + 1) & mask) {
+            int home = mix(emailHashes[emailIndex[next] - 1]) & mask;
+            // move the entry into the hole unless its home slot lies cyclically in (hole, next]
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                emailIndex[hole] = emailIndex[next];
+                hole = next;
+            }
+        }
+        emailIndex[hole] = 0;
+    }
+
+    private void rehashEmailIndex(int capacity) {
+        int[] old = emailIndex;
+        emailIndex = new int[capacity];
+        int mask = capacity - 1;
+        for (int entry : old) {
+            if (entry != 0) {
+                int slot = mix(emailHashes[entry - 1]) & mask;
+                while (emailIndex[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                emailIndex[slot] = entry;
+            }
+        }
+    }
+
+    // `String.hashCode` is weak in the low bits that pick the slot
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Variable-length strings of one column, stored back to back as UTF-8
+     * in one `byte[]` and addressed by an offset and a length per row
+     */
+    private static final class StringColumn {
+
+        private byte[] bytes;
+        private int used;
+        private int garbage;
+        private int[] offsets;
+        private int[] lengths;
+
+        private StringColumn(int capacity) {
+            this.bytes = new byte[capacity * 16];
+            this.offsets = new int[capacity];
+            this.lengths = new int[capacity];
+        }
+
+        private String get(int row) {
+            return new String(bytes, offsets[row], lengths[row], StandardCharsets.UTF_8);
+        }
+
+        private boolean equals(int row, byte[] value) {
+            int offset = offsets[row];
+            return Arrays.equals(bytes, offset, offset + lengths[row], value, 0, value.length);
+        }
+
+        private boolean startsWith(int row, byte[] prefix) {
+            int offset = offsets[row];
+            return lengths[row] >= prefix.length
+                    && Arrays.equals(bytes, offset, offset + prefix.length, prefix, 0, prefix.length);
+        }
+
+        // appends the value; whatever the row pointed to before becomes garbage
+        private void set(int row, byte[] value) {
+            if (used + value.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(used + value.length, bytes.length * 2));
+            }
+            garbage += lengths[row];
+            System.arraycopy(value, 0, bytes, used, value.length);
+            offsets[row] = used;
+            lengths[row] = value.length;
+            used += value.length;
+        }
+
+        private void release(int row) {
+            garbage += lengths[row];
+        }
+
+        private void ensureCapacity(int capacity) {
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+
+        private long sizeInBytes() {
+            return bytes.length + ((long) offsets.length + lengths.length) * Integer.BYTES;
+        }
+
+        private long garbageBytes() {
+            return garbage;
+        }
+    }
+}
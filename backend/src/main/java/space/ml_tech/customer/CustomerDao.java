@@ -2,6 +2,7 @@ package space.ml_tech.customer;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * This class is not needed for basic CRUD operations
@@ -14,17 +15,38 @@ public interface CustomerDao {
         // GET methods
         List<Customer> selectAllCustomers();
         Optional<Customer> selectCustomerById(Integer id);
+        // keyset page: up to `limit` customers with an id strictly greater than `afterId`, ordered by id
+        List<Customer> selectCustomersAfter(Integer afterId, int limit);
+        // hands every customer to `consumer` one at a time, without materializing the whole table
+        void forEachCustomer(Consumer<Customer> consumer);
+        // keyset page of the customers that match every non-null field of `criteria`
+        List<Customer> searchCustomers(CustomerSearchCriteria criteria, Integer afterId, int limit);
+        // up to `limit` entries of the change log after (`afterTxid`, `afterId`), deletions included only if
+        // `withDeletions`; each inserted or updated customer appears once, as it is now
+        CustomerChangeLog selectChangesAfter(long afterTxid, int afterId, boolean withDeletions, int limit);
 
         // POST methods
+        // sets the generated id (and initial version) on `customer`; throws DuplicateResourceException if the email is taken
         void insertCustomer(Customer customer);
+        // one entry per customer: 1 if inserted (and its generated id and initial version set), 0 if skipped
+        // because the email is already taken
+        int[] insertCustomers(List<Customer> customers);
 
         // DELETE methods
-        void deletePersonById(Integer id);
+        // returns the deleted customer, or empty if there was no customer with that id
+        Optional<Customer> deletePersonById(Integer id);
 
         // PUT methods
-        void updatePerson(Customer customer);
+        // partial update: only the non-null name, email and age of `update` are applied.
+        // Returns the updated customer, or empty if no customer with that id exists
+        // or nothing actually changed; throws DuplicateResourceException if the new email is taken
+        Optional<Customer> updatePerson(Customer update);
 
         // Misc methods
+        // the version of the customer alone (its `ETag`), or empty if there is no customer with that id
+        Optional<Long> selectCustomerVersion(Integer id);
+        // a counter that changes whenever any customer is inserted, updated or deleted (the `ETag` of the list)
+        long selectChangeCount();
         boolean existsPersonWithEmail(String email);
         boolean existsPersonWithId(Integer id);
 }
\ No newline at end of file
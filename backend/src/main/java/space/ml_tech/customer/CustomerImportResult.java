@@ -0,0 +1,15 @@
+package space.ml_tech.customer;
+
+import java.util.List;
+
+/**
+ * Outcome of a CSV import through `POST /api/v1/customers/import`.
+ * `rejected` counts every row that was not inserted, while `errors` only lists
+ * the first `customer.import.max-reported-errors` of them, ordered by row
+ */
+public record CustomerImportResult(
+        long received,
+        long inserted,
+        long rejected,
+        List<CustomerBatchResult.RowError> errors) {
+}
@@ -1,10 +1,25 @@
 package space.ml_tech.customer;
 
+import org.postgresql.util.PSQLException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import space.ml_tech.exceptions.DuplicateResourceException;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * This service class is used to access data through JDBC, as opposed to JPA.
@@ -15,9 +30,15 @@ import java.util.Optional;
 public class CustomerJDBCDataAccessService implements CustomerDao {
 
     // ----------- FIELDS & CONSTRUCTORS ----------- //
+    private static final String EMAIL_UNIQUE_CONSTRAINT = "customer_email_unique";
+
     private final JdbcTemplate jdbcTemplate;
     private final CustomerRowMapper customerRowMapper;
 
+    // number of rows the driver pulls from the server-side cursor per round trip
+    @Value("${customer.export.fetch-size:1000}")
+    private int exportFetchSize = 1000;
+
     public CustomerJDBCDataAccessService(JdbcTemplate jdbcTemplate, CustomerRowMapper customerRowMapper) {
         this.jdbcTemplate = jdbcTemplate;
         this.customerRowMapper = customerRowMapper;
@@ -28,7 +49,7 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
     @Override
     public List<Customer> selectAllCustomers() {
         String sqlStatement = """
-                SELECT id, name, email, age, gender
+                SELECT id, name, email, age, gender, version
                 FROM customer
                 """;
         return jdbcTemplate.query(sqlStatement, customerRowMapper);
@@ -37,7 +58,7 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
     @Override
     public Optional<Customer> selectCustomerById(Integer id) {
         String sqlStatement = """
-                SELECT id, name, email, age, gender
+                SELECT id, name, email, age, gender, version
                 FROM customer
                 WHERE id = ?
                 """;
@@ -47,60 +68,297 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
                 .findFirst();
     }
 
+    @Override
+    public List<Customer> selectCustomersAfter(Integer afterId, int limit) {
+        // keyset pagination: the primary key index lets Postgres seek straight
+        // to `afterId`, so the cost of a page doesn't grow with its position
+        String sqlStatement = """
+                SELECT id, name, email, age, gender, version
+                FROM customer
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?
+                """;
+        return jdbcTemplate.query(sqlStatement, customerRowMapper, afterId, limit);
+    }
+
+    /**
+     * Pushes every filter into the `WHERE` clause, where it can use the indexes of
+     * `V4__Add_Customer_Search_Indexes.sql`: the prefix search becomes a `LIKE 'prefix%'`
+     * (served by the `text_pattern_ops` index on `name`) and the domain is compared with
+     * the same `lower(split_part(email, '@', 2))` expression the domain index is built on
+     */
+    @Override
+    public List<Customer> searchCustomers(CustomerSearchCriteria criteria, Integer afterId, int limit) {
+        List<String> predicates = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        predicates.add("id > ?");
+        args.add(afterId);
+        if (criteria.namePrefix() != null) {
+            predicates.add("name LIKE ?");
+            args.add(escapeLike(criteria.namePrefix()) + "%");
+        }
+        if (criteria.emailDomain() != null) {
+            predicates.add("lower(split_part(email, '@', 2)) = lower(?)");
+            args.add(criteria.emailDomain());
+        }
+        if (criteria.minAge() != null) {
+            predicates.add("age >= ?");
+            args.add(criteria.minAge());
+        }
+        if (criteria.maxAge() != null) {
+            predicates.add("age <= ?");
+            args.add(criteria.maxAge());
+        }
+        if (criteria.gender() != null) {
+            predicates.add("gender = ?");
+            args.add(criteria.gender().name());
+        }
+        args.add(limit);
+
+        String sqlStatement = """
+                SELECT id, name, email, age, gender, version
+                FROM customer
+                WHERE %s
+                ORDER BY id
+                LIMIT ?
+                """.formatted(String.join(" AND ", predicates));
+        return jdbcTemplate.query(sqlStatement, customerRowMapper, args.toArray());
+    }
+
+    /**
+     * The rows and tombstones written after (`afterTxid`, `afterId`), each side seeking on its
+     * `(changed_xid, id)` index of `V8__Track_Customer_Changes.sql` and stopping after `limit` rows, so
+     * an incremental sync costs as much as its changes rather than the table. The frontier and
+     * the floor come from the same statement, hence from the same snapshot as the rows
+     */
+    @Override
+    public CustomerChangeLog selectChangesAfter(long afterTxid, int afterId, boolean withDeletions, int limit) {
+        String sqlStatement = """
+                WITH changes AS (
+                    (SELECT id, name, email, age, gender, version, changed_xid, FALSE AS deleted
+                     FROM customer
+                     WHERE (changed_xid, id) > (?::text::xid8, ?)
+                     ORDER BY changed_xid, id
+                     LIMIT ?)
+                    UNION ALL
+                    (SELECT id, NULL, NULL, NULL, NULL, NULL, changed_xid, TRUE
+                     FROM customer_tombstone
+                     WHERE ? AND (changed_xid, id) > (?::text::xid8, ?)
+                     ORDER BY changed_xid, id
+                     LIMIT ?)
+                    ORDER BY changed_xid, id
+                    LIMIT ?
+                )
+                SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint AS frontier,
+                       (SELECT changed_xid FROM customer_change_floor)::text::bigint AS floor,
+                       changes.id, changes.name, changes.email, changes.age, changes.gender, changes.version,
+                       changes.changed_xid::text::bigint AS txid, changes.deleted
+                FROM (SELECT 1) AS snapshot
+                LEFT JOIN changes ON TRUE
+                ORDER BY changes.changed_xid, changes.id
+                """;
+        List<CustomerChangeLog.Entry> entries = new ArrayList<>();
+        long[] frontierAndFloor = new long[2];
+        jdbcTemplate.query(sqlStatement, (RowCallbackHandler) rs -> {
+            frontierAndFloor[0] = rs.getLong("frontier");
+            frontierAndFloor[1] = rs.getLong("floor");
+            long txid = rs.getLong("txid");
+            if (rs.wasNull()) {
+                // no changes: the row only carries the frontier and the floor
+                return;
+            }
+            Customer customer = rs.getBoolean("deleted") ? null : customerRowMapper.mapRow(rs, rs.getRow());
+            entries.add(new CustomerChangeLog.Entry(txid, rs.getInt("id"), customer));
+        }, afterTxid, afterId, limit, withDeletions, afterTxid, afterId, limit, limit);
+        return new CustomerChangeLog(entries, frontierAndFloor[0], frontierAndFloor[1]);
+    }
+
+    /**
+     * Streams the whole table through a forward-only, server-side cursor. The Postgres driver
+     * only honours the fetch size when auto-commit is off, hence the (read-only) transaction;
+     * without it every row would be buffered in memory before the first one is handed out
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachCustomer(Consumer<Customer> consumer) {
+        String sqlStatement = """
+                SELECT id, name, email, age, gender, version
+                FROM customer
+                """;
+        jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            sqlStatement,
+                            ResultSet.TYPE_FORWARD_ONLY,
+                            ResultSet.CONCUR_READ_ONLY
+                    );
+                    statement.setFetchSize(exportFetchSize);
+                    return statement;
+                },
+                (RowCallbackHandler) rs -> consumer.accept(customerRowMapper.mapRow(rs, rs.getRow()))
+        );
+    }
+
+    /**
+     * Every write below is a single statement, which Postgres runs atomically on its own:
+     * uniqueness is enforced by `customer_email_unique` rather than by a separate lookup,
+     * so there is no window between a check and the write for a concurrent request to slip into,
+     * and no extra round trip for an explicit transaction
+     */
     @Override
     public void insertCustomer(Customer customer) {
         String sqlStatement = """
                 INSERT INTO customer(name, email, age, gender)
                 VALUES (?, ?, ?, ?)
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id, version
                 """;
-        jdbcTemplate.update(
+        List<Customer> inserted = jdbcTemplate.query(
                 sqlStatement,
+                (rs, rowNum) -> {
+                    customer.setId(rs.getInt("id"));
+                    customer.setVersion(rs.getLong("version"));
+                    return customer;
+                },
                 customer.getName(),
                 customer.getEmail(),
                 customer.getAge(),
                 customer.getGender().name()
         );
+        if (inserted.isEmpty()) {
+            throw new DuplicateResourceException("Email already taken!");
+        }
+    }
+
+    /**
+     * Inserts all customers with a single statement, which gets them as one array per column
+     * (so it's the same four parameters, and the same server-side plan, whatever the number of rows).
+     * Rows whose email is already taken (in the table or earlier in the same list) are skipped by
+     * `ON CONFLICT` instead of failing the whole statement, and show up as a 0 count; the inserted
+     * ones are matched back to their customer by email, to set the generated id and version.
+     * Being a single statement, it's atomic without an explicit transaction around it
+     */
+    @Override
+    public int[] insertCustomers(List<Customer> customers) {
+        String sqlStatement = """
+                INSERT INTO customer(name, email, age, gender)
+                SELECT * FROM unnest(?::text[], ?::text[], ?::int[], ?::text[])
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id, version, email
+                """;
+        int[] inserted = new int[customers.size()];
+        if (customers.isEmpty()) {
+            return inserted;
+        }
+        Map<String, Integer> indexByEmail = new HashMap<>();
+        for (int i = 0; i < customers.size(); i++) {
+            // of several customers with the same email, the first one is the one that gets in
+            indexByEmail.putIfAbsent(customers.get(i).getEmail(), i);
+        }
+        jdbcTemplate.query(
+                sqlStatement,
+                (PreparedStatementSetter) ps -> {
+                    Connection connection = ps.getConnection();
+                    ps.setArray(1, connection.createArrayOf("text", customers.stream().map(Customer::getName).toArray()));
+                    ps.setArray(2, connection.createArrayOf("text", customers.stream().map(Customer::getEmail).toArray()));
+                    ps.setArray(3, connection.createArrayOf("int4", customers.stream().map(Customer::getAge).toArray()));
+                    ps.setArray(4, connection.createArrayOf("text", customers.stream().map(customer -> customer.getGender().name()).toArray()));
+                },
+                (RowCallbackHandler) rs -> {
+                    int i = indexByEmail.get(rs.getString("email"));
+                    customers.get(i).setId(rs.getInt("id"));
+                    customers.get(i).setVersion(rs.getLong("version"));
+                    inserted[i] = 1;
+                }
+        );
+        return inserted;
     }
 
     @Override
-    public void deletePersonById(Integer id) {
-        String sqlStatement = """ 
+    public Optional<Customer> deletePersonById(Integer id) {
+        String sqlStatement = """
                 DELETE
                 FROM customer
                 WHERE id = ?
+                RETURNING id, name, email, age, gender, version
                 """;
-        jdbcTemplate.update(sqlStatement, id);
-        System.out.println("Deleted customer with id = " + id + "!!");
+        return jdbcTemplate.query(sqlStatement, customerRowMapper, id)
+                .stream()
+                .findFirst();
     }
 
     @Override
-    public void updatePerson(Customer update) {
+    public Optional<Customer> updatePerson(Customer update) {
+        // build one partial UPDATE out of the non-null fields; the `IS DISTINCT FROM` guard
+        // turns a no-op update into zero rows instead of a pointless write
+        List<String> columns = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
         if (update.getName() != null) {
-            String sqlStatement = """
-                    UPDATE customer
-                    SET name = ?
-                    WHERE id = ?
-                    """;
-            jdbcTemplate.update(sqlStatement, update.getName(), update.getId());
+            columns.add("name");
+            values.add(update.getName());
+        }
+        if (update.getEmail() != null) {
+            columns.add("email");
+            values.add(update.getEmail());
         }
         if (update.getAge() != null) {
-            String sqlStatement = """
-                    UPDATE customer
-                    SET age = ?
-                    WHERE id = ?
-                    """;
-            jdbcTemplate.update(sqlStatement, update.getAge(), update.getId());
+            columns.add("age");
+            values.add(update.getAge());
         }
-        if (update.getEmail() != null) {
-            String sqlStatement = """
-                    UPDATE customer
-                    SET email = ?
-                    WHERE id = ?
-                    """;
-            jdbcTemplate.update(sqlStatement, update.getEmail(), update.getId());
+        if (columns.isEmpty()) {
+            return Optional.empty();
+        }
+
+        String sqlStatement = """
+                UPDATE customer
+                SET %s, version = version + 1
+                WHERE id = ?
+                  AND (%s)
+                RETURNING id, name, email, age, gender, version
+                """.formatted(
+                String.join(", ", columns.stream().map(column -> column + " = ?").toList()),
+                String.join(" OR ", columns.stream().map(column -> column + " IS DISTINCT FROM ?").toList())
+        );
+
+        List<Object> args = new ArrayList<>(values);
+        args.add(update.getId());
+        args.addAll(values);
+        try {
+            return jdbcTemplate.query(sqlStatement, customerRowMapper, args.toArray())
+                    .stream()
+                    .findFirst();
+        } catch (DataIntegrityViolationException e) {
+            throw translate(e);
         }
     }
 
+    @Override
+    public Optional<Long> selectCustomerVersion(Integer id) {
+        String sqlStatement = """
+                SELECT version
+                FROM customer
+                WHERE id = ?
+                """;
+        return jdbcTemplate.queryForList(sqlStatement, Long.class, id)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Sum of the `customer_changes` slots that `V5__Add_Customer_Versions.sql` bumps on every
+     * write to `customer` (that changes rows, since `V9`): 16 tiny rows, however big the table is
+     */
+    @Override
+    public long selectChangeCount() {
+        String sqlStatement = """
+                SELECT sum(changes)
+                FROM customer_changes
+                """;
+        Long changes = jdbcTemplate.queryForObject(sqlStatement, Long.class);
+        return changes == null ? 0 : changes;
+    }
+
     @Override
     public boolean existsPersonWithEmail(String email) {
         String sqlStatement = """
@@ -122,4 +380,24 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
         Integer count = jdbcTemplate.queryForObject(sqlStatement, Integer.class, id);
         return count != null && count > 0;
     }
+
+
+    /*---- Helper Methods -----*/
+    // only a clash on `customer_email_unique` means the email is taken; any other violation
+    // (a null column, a check constraint) is a bug in the request or the code, and stays one
+    private static RuntimeException translate(DataIntegrityViolationException e) {
+        if (e.getCause() instanceof PSQLException psql
+                && psql.getServerErrorMessage() != null
+                && EMAIL_UNIQUE_CONSTRAINT.equals(psql.getServerErrorMessage().getConstraint())) {
+            return new DuplicateResourceException("Email already taken!");
+        }
+        return e;
+    }
+
+    // `%` and `_` in the user's prefix must match literally (`\` is the default LIKE escape)
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
 }
@@ -1,13 +1,23 @@
 package space.ml_tech.customer;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import space.ml_tech.exceptions.DuplicateResourceException;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository("beanOfTypeJpa")
 public class CustomerJPADataAccessService implements CustomerDao {
 
+    private static final int STREAM_CHUNK_SIZE = 1000;
+    private static final String EMAIL_UNIQUE_CONSTRAINT = "customer_email_unique";
+
     private final CustomerRepository customerRepository;
 
     public CustomerJPADataAccessService(CustomerRepository customerRepository) {
@@ -24,19 +34,128 @@ public class CustomerJPADataAccessService implements CustomerDao {
         return customerRepository.findById(id);
     }
 
+    @Override
+    public List<Customer> selectCustomersAfter(Integer afterId, int limit) {
+        return customerRepository
+                .findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.ofSize(limit))
+                .getContent();
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearchCriteria criteria, Integer afterId, int limit) {
+        return customerRepository.search(criteria, afterId, limit);
+    }
+
+    @Override
+    public CustomerChangeLog selectChangesAfter(long afterTxid, int afterId, boolean withDeletions, int limit) {
+        List<Object[]> rows = customerRepository.findChangesAfter(afterTxid, afterId, withDeletions, limit);
+        List<CustomerChangeLog.Entry> entries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            // a row without a change only carries the frontier and the floor
+            if (row[8] == null) {
+                continue;
+            }
+            int id = ((Number) row[2]).intValue();
+            Customer customer = Boolean.TRUE.equals(row[9])
+                    ? null
+                    : new Customer(id, (String) row[3], (String) row[4], ((Number) row[5]).intValue(),
+                    Gender.valueOf((String) row[6]), ((Number) row[7]).longValue());
+            entries.add(new CustomerChangeLog.Entry(((Number) row[8]).longValue(), id, customer));
+        }
+        Object[] first = rows.get(0);
+        return new CustomerChangeLog(entries, ((Number) first[0]).longValue(), ((Number) first[1]).longValue());
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> consumer) {
+        // walk the table in keyset chunks: each chunk runs in its own persistence
+        // context, so loaded entities can be garbage collected as soon as they're consumed
+        List<Customer> chunk = selectCustomersAfter(0, STREAM_CHUNK_SIZE);
+        while (!chunk.isEmpty()) {
+            chunk.forEach(consumer);
+            if (chunk.size() < STREAM_CHUNK_SIZE) {
+                break;
+            }
+            chunk = selectCustomersAfter(chunk.get(chunk.size() - 1).getId(), STREAM_CHUNK_SIZE);
+        }
+    }
+
     @Override
     public void insertCustomer(Customer customer) {
-        customerRepository.save(customer);
+        // flush right away, so that a unique constraint violation surfaces here
+        // and not when some enclosing transaction happens to commit
+        try {
+            customerRepository.saveAndFlush(customer);
+        } catch (DataIntegrityViolationException e) {
+            throw translate(e);
+        }
     }
 
+    // not `@Transactional`: each customer is saved in a transaction of its own, so a taken
+    // email only rolls back its own insert, and the unique constraint decides which ones get in
     @Override
-    public void deletePersonById(Integer id) {
-        customerRepository.deleteById(id);
+    public int[] insertCustomers(List<Customer> customers) {
+        int[] inserted = new int[customers.size()];
+        for (int i = 0; i < customers.size(); i++) {
+            try {
+                insertCustomer(customers.get(i));
+                inserted[i] = 1;
+            } catch (DuplicateResourceException e) {
+                // skipped, like `ON CONFLICT DO NOTHING` does it
+            }
+        }
+        return inserted;
     }
 
     @Override
-    public void updatePerson(Customer customer) {
-        customerRepository.save(customer);
+    @Transactional
+    public Optional<Customer> deletePersonById(Integer id) {
+        Optional<Customer> customer = customerRepository.findById(id);
+        customer.ifPresent(customerRepository::delete);
+        return customer;
+    }
+
+    @Override
+    @Transactional
+    public Optional<Customer> updatePerson(Customer update) {
+        Optional<Customer> existing = customerRepository.findById(update.getId());
+        if (existing.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Customer customer = existing.get();
+        boolean changes = false;
+        if (update.getName() != null && !update.getName().equals(customer.getName())) {
+            customer.setName(update.getName());
+            changes = true;
+        }
+        if (update.getEmail() != null && !update.getEmail().equals(customer.getEmail())) {
+            customer.setEmail(update.getEmail());
+            changes = true;
+        }
+        if (update.getAge() != null && !update.getAge().equals(customer.getAge())) {
+            customer.setAge(update.getAge());
+            changes = true;
+        }
+        if (!changes) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(customerRepository.saveAndFlush(customer));
+        } catch (DataIntegrityViolationException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public Optional<Long> selectCustomerVersion(Integer id) {
+        return customerRepository.findVersionById(id);
+    }
+
+    @Override
+    public long selectChangeCount() {
+        return customerRepository.countChanges();
     }
 
     @Override
@@ -48,4 +167,16 @@ public class CustomerJPADataAccessService implements CustomerDao {
     public boolean existsPersonWithId(Integer id) {
         return customerRepository.existsCustomerById(id);
     }
-}
\ No newline at end of file
+
+
+    /*---- Helper Methods -----*/
+    // only a clash on `customer_email_unique` means the email is taken; any other violation
+    // (a null column, a check constraint) is a bug in the request or the code, and stays one
+    private static RuntimeException translate(DataIntegrityViolationException e) {
+        if (e.getCause() instanceof ConstraintViolationException violation
+                && EMAIL_UNIQUE_CONSTRAINT.equalsIgnoreCase(violation.getConstraintName())) {
+            return new DuplicateResourceException("Email already taken!");
+        }
+        return e;
+    }
+}
@@ -0,0 +1,15 @@
+package space.ml_tech.customer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * A JSON response body that writes itself, as returned by the `customer.read-path: direct`
+ * endpoints. It runs when the response is written, not when the controller returns it
+ */
+@FunctionalInterface
+public interface CustomerJson {
+
+    void writeTo(JsonGenerator generator) throws IOException;
+}
@@ -0,0 +1,147 @@
+package space.ml_tech.customer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Writes customers as JSON tokens straight from the JDBC `ResultSet`, with no `Customer`,
+ * `List` or `String` per row in between. Columns are read by position, and the text columns
+ * as the UTF-8 bytes the Postgres driver received (for anything but `bytea`, `getBytes` hands
+ * out the driver's own buffer), which Jackson escapes into its output buffer as it goes.
+ * The JSON is the same as Jackson's for a {@link Customer}.
+ * It goes through the bulkhead like the DAOs do, but not through the cache. It reads from the
+ * primary, like the change count and versions its bodies are tagged with: a body from a replica
+ * could be older than its tag (see {@link ReplicaRoutingCustomerDao})
+ */
+@Component
+public class CustomerJsonWriter {
+
+    // encoded once, in the order Jackson writes the properties of a `Customer`
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString EMAIL = new SerializedString("email");
+    private static final SerializableString AGE = new SerializedString("age");
+    private static final SerializableString GENDER = new SerializedString("gender");
+
+    // ----------- FIELDS & CONSTRUCTORS ----------- //
+    private final JdbcTemplate jdbcTemplate;
+    private final BulkheadCustomerDao bulkhead;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // number of rows the driver pulls from the server-side cursor per round trip
+    @Value("${customer.export.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    public CustomerJsonWriter(JdbcTemplate jdbcTemplate,
+                              @Qualifier("beanOfTypeBulkhead") BulkheadCustomerDao bulkhead,
+                              PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bulkhead = bulkhead;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+
+    // ----------- METHODS ----------- //
+    /**
+     * Writes the whole table as one JSON array. Like the export, the rows come through a
+     * server-side cursor (which the Postgres driver only uses outside of auto-commit, hence the
+     * transaction), so that neither the driver nor the response holds more than a fetch at a time
+     */
+    public void writeAllCustomers(JsonGenerator generator) {
+        String sqlStatement = """
+                SELECT id, name, email, age, gender
+                FROM customer
+                """;
+        bulkhead.call(() -> readOnlyTransaction.execute(status -> {
+            write(generator, JsonGenerator::writeStartArray);
+            jdbcTemplate.query(
+                    connection -> {
+                        PreparedStatement statement = connection.prepareStatement(
+                                sqlStatement,
+                                ResultSet.TYPE_FORWARD_ONLY,
+                                ResultSet.CONCUR_READ_ONLY
+                        );
+                        statement.setFetchSize(fetchSize);
+                        return statement;
+                    },
+                    (RowCallbackHandler) rs -> writeRow(rs, generator)
+            );
+            write(generator, JsonGenerator::writeEndArray);
+            return null;
+        }));
+    }
+
+    /**
+     * Writes the customer as one JSON object, or nothing at all (so that the caller can
+     * still answer with a 404) when there is no customer with that id
+     */
+    public boolean writeCustomerById(Integer id, JsonGenerator generator) {
+        String sqlStatement = """
+                SELECT id, name, email, age, gender
+                FROM customer
+                WHERE id = ?
+                """;
+        return bulkhead.call(() -> jdbcTemplate.query(sqlStatement, (ResultSetExtractor<Boolean>) rs -> {
+            if (!rs.next()) {
+                return false;
+            }
+            writeRow(rs, generator);
+            return true;
+        }, id));
+    }
+
+
+    /*---- Helper Methods -----*/
+    // the current row, with the columns in `SELECT id, name, email, age, gender` order
+    static void writeRow(ResultSet rs, JsonGenerator generator) throws SQLException {
+        try {
+            generator.writeStartObject();
+            generator.writeFieldName(ID);
+            generator.writeNumber(rs.getInt(1));
+            generator.writeFieldName(NAME);
+            writeText(rs, 2, generator);
+            generator.writeFieldName(EMAIL);
+            writeText(rs, 3, generator);
+            generator.writeFieldName(AGE);
+            generator.writeNumber(rs.getInt(4));
+            generator.writeFieldName(GENDER);
+            writeText(rs, 5, generator);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeText(ResultSet rs, int column, JsonGenerator generator) throws SQLException, IOException {
+        byte[] utf8 = rs.getBytes(column);
+        if (utf8 == null) {
+            generator.writeNull();
+        } else {
+            generator.writeUTF8String(utf8, 0, utf8.length);
+        }
+    }
+
+    private static void write(JsonGenerator generator, CustomerJson token) {
+        try {
+            token.writeTo(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,62 +1,246 @@
 package space.ml_tech.customer;
 
 import org.springframework.stereotype.Repository;
+import space.ml_tech.exceptions.DuplicateResourceException;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
+/**
+ * In-memory "fake DB" for load tests and local demos.
+ * Customers are indexed by id and by email in two {@link ConcurrentHashMap}s, so reads are
+ * lock-free and writes only lock the hash bin of the key they touch. The email index plays
+ * the role of the unique constraint: a customer is only stored once its email is claimed there.
+ *
+ * Stored customers are never modified (an update stores a new instance) and callers only ever
+ * get copies, so a reader can't observe a half-applied update.
+ *
+ * Every write is numbered once it's applied, and the id it touched is stamped with that number
+ * (a deleted id keeps its stamp as a tombstone), which is the change log of this store
+ */
 @Repository("beanOfTypeList")
 public class CustomerListDataAccessService implements CustomerDao {
 
-    // fake DB
-    private static final List<Customer> customers;
+    private final Map<Integer, Customer> customersById = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idsByEmail = new ConcurrentHashMap<>();
+    private final AtomicInteger lastId = new AtomicInteger();
+    private final AtomicLong changeCount = new AtomicLong();
+    // id -> number of the last write to it
+    private final Map<Integer, Long> changeStamps = new ConcurrentHashMap<>();
+    // every write numbered up to this one is stamped; writes stamped out of order wait in `stampedAhead`
+    private final AtomicLong stampedThrough = new AtomicLong();
+    private final Set<Long> stampedAhead = new ConcurrentSkipListSet<>();
 
-    static {
-        customers = new ArrayList<>();
-        customers.add(new Customer(1, "Alex", "alex@gmail.com", 21, Gender.MALE));
-        customers.add(new Customer(2, "Jamila", "jamila@gmail.com", 19, Gender.FEMALE));
+    public CustomerListDataAccessService() {
+        insertCustomer(new Customer(null, "Alex", "alex@gmail.com", 21, Gender.MALE));
+        insertCustomer(new Customer(null, "Jamila", "jamila@gmail.com", 19, Gender.FEMALE));
     }
 
     @Override
     public List<Customer> selectAllCustomers() {
+        List<Customer> customers = new ArrayList<>(customersById.size());
+        forEachCustomer(customers::add);
         return customers;
     }
 
     @Override
     public Optional<Customer> selectCustomerById(Integer id) {
-        return customers.stream()
-                .filter(customer -> customer.getId().equals(id))
-                .findFirst();
+        return Optional.ofNullable(customersById.get(id)).map(CustomerListDataAccessService::copy);
+    }
+
+    // ids come from a counter, so walking the id range is cheap as long as there aren't huge
+    // gaps left by deletions, and it returns customers in id order without sorting the map
+    @Override
+    public List<Customer> selectCustomersAfter(Integer afterId, int limit) {
+        List<Customer> customers = new ArrayList<>(Math.min(limit, customersById.size()));
+        int last = lastId.get();
+        for (int id = Math.max(afterId, 0) + 1; id <= last && customers.size() < limit; id++) {
+            Customer customer = customersById.get(id);
+            if (customer != null) {
+                customers.add(copy(customer));
+            }
+        }
+        return customers;
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearchCriteria criteria, Integer afterId, int limit) {
+        List<Customer> customers = new ArrayList<>(Math.min(limit, customersById.size()));
+        int last = lastId.get();
+        for (int id = Math.max(afterId, 0) + 1; id <= last && customers.size() < limit; id++) {
+            Customer customer = customersById.get(id);
+            if (customer != null && criteria.matches(customer)) {
+                customers.add(copy(customer));
+            }
+        }
+        return customers;
+    }
+
+    // a scan of every stamp: fine for a store that lives in memory
+    @Override
+    public CustomerChangeLog selectChangesAfter(long afterTxid, int afterId, boolean withDeletions, int limit) {
+        // every write numbered below this one is applied already
+        long frontier = stampedThrough.get() + 1;
+        List<CustomerChangeLog.Entry> entries = new ArrayList<>();
+        changeStamps.forEach((id, stamp) -> {
+            if (stamp > afterTxid || (stamp == afterTxid && id > afterId)) {
+                // the customer as it is now, which may be newer than its stamp says
+                Customer customer = customersById.get(id);
+                if (customer != null || withDeletions) {
+                    entries.add(new CustomerChangeLog.Entry(stamp, id, customer == null ? null : copy(customer)));
+                }
+            }
+        });
+        entries.sort(Comparator.comparingLong(CustomerChangeLog.Entry::txid).thenComparingInt(CustomerChangeLog.Entry::id));
+        return new CustomerChangeLog(
+                new ArrayList<>(entries.subList(0, Math.min(limit, entries.size()))), frontier, 0);
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> consumer) {
+        int last = lastId.get();
+        for (int id = 1; id <= last; id++) {
+            Customer customer = customersById.get(id);
+            if (customer != null) {
+                consumer.accept(copy(customer));
+            }
+        }
     }
 
     @Override
     public void insertCustomer(Customer customer) {
-        customers.add(customer);
+        if (!tryInsert(customer)) {
+            throw new DuplicateResourceException("Email already taken!");
+        }
+    }
+
+    @Override
+    public int[] insertCustomers(List<Customer> customers) {
+        int[] inserted = new int[customers.size()];
+        for (int i = 0; i < customers.size(); i++) {
+            inserted[i] = tryInsert(customers.get(i)) ? 1 : 0;
+        }
+        return inserted;
+    }
+
+    @Override
+    public Optional<Customer> deletePersonById(Integer id) {
+        Customer deleted = customersById.remove(id);
+        if (deleted == null) {
+            return Optional.empty();
+        }
+        idsByEmail.remove(deleted.getEmail(), id);
+        recordChange(id);
+        return Optional.of(copy(deleted));
+    }
+
+    @Override
+    public Optional<Customer> updatePerson(Customer update) {
+        Customer[] updated = new Customer[1];
+        // `computeIfPresent` runs atomically for this id, which serializes concurrent
+        // updates and deletes of the same customer while leaving other ids untouched
+        customersById.computeIfPresent(update.getId(), (id, current) -> {
+            Customer next = copy(current);
+            boolean changes = false;
+            if (update.getName() != null && !update.getName().equals(current.getName())) {
+                next.setName(update.getName());
+                changes = true;
+            }
+            if (update.getAge() != null && !update.getAge().equals(current.getAge())) {
+                next.setAge(update.getAge());
+                changes = true;
+            }
+            if (update.getEmail() != null && !update.getEmail().equals(current.getEmail())) {
+                // claim the new email before releasing the old one; throwing leaves the entry as it was
+                if (idsByEmail.putIfAbsent(update.getEmail(), id) != null) {
+                    throw new DuplicateResourceException("Email already taken!");
+                }
+                idsByEmail.remove(current.getEmail(), id);
+                next.setEmail(update.getEmail());
+                changes = true;
+            }
+            if (!changes) {
+                return current;
+            }
+            next.setVersion(current.getVersion() + 1);
+            updated[0] = next;
+            return next;
+        });
+        if (updated[0] == null) {
+            return Optional.empty();
+        }
+        recordChange(update.getId());
+        return Optional.of(copy(updated[0]));
     }
 
     @Override
-    public void deletePersonById(Integer id) {
-        customers.stream()
-                .filter(customer -> customer.getId().equals(id))
-                .findAny()
-                .ifPresent(customers::remove);
+    public Optional<Long> selectCustomerVersion(Integer id) {
+        return Optional.ofNullable(customersById.get(id)).map(Customer::getVersion);
     }
 
     @Override
-    public void updatePerson(Customer customer) {
-        customers.add(customer);
+    public long selectChangeCount() {
+        return changeCount.get();
     }
 
     @Override
     public boolean existsPersonWithEmail(String email) {
-        return customers.stream()
-                .anyMatch(customer -> customer.getEmail().equals(email));
+        return idsByEmail.containsKey(email);
     }
 
     @Override
     public boolean existsPersonWithId(Integer id) {
-        return customers.stream()
-                .anyMatch(customer -> customer.getId().equals(id));
+        return customersById.containsKey(id);
+    }
+
+
+    /*---- Helper Methods -----*/
+    // sets the generated id on `customer`; returns false if its email is already taken
+    private boolean tryInsert(Customer customer) {
+        // an id is only drawn when the email is free, so duplicates don't leave gaps
+        int[] claimed = new int[1];
+        idsByEmail.computeIfAbsent(customer.getEmail(), email -> claimed[0] = lastId.incrementAndGet());
+        int id = claimed[0];
+        if (id == 0) {
+            return false;
+        }
+        customer.setId(id);
+        customer.setVersion(0L);
+        customersById.put(id, copy(customer));
+        recordChange(id);
+        return true;
+    }
+
+    // after the write is applied, so that a change numbered below the frontier is always visible.
+    // Whoever takes the next number out of `stampedAhead` moves the frontier over it, so it's moved
+    // in order without a lock: a writer either finds its number taken, or the frontier right before it
+    private void recordChange(int id) {
+        long stamp = changeCount.incrementAndGet();
+        // two writes to one id may get here in either order
+        changeStamps.merge(id, stamp, Math::max);
+        stampedAhead.add(stamp);
+        for (long next = stampedThrough.get() + 1; stampedAhead.remove(next); next++) {
+            stampedThrough.set(next);
+        }
+    }
+
+    private static Customer copy(Customer customer) {
+        return new Customer(
+                customer.getId(),
+                customer.getName(),
+                customer.getEmail(),
+                customer.getAge(),
+                customer.getGender(),
+                customer.getVersion()
+        );
     }
 }
@@ -0,0 +1,13 @@
+package space.ml_tech.customer;
+
+import java.util.List;
+
+/**
+ * One page of customers returned by the keyset (cursor) pagination endpoint.
+ * `nextCursor` is an opaque token to pass back as `?after=` to fetch the following page,
+ * and is `null` once the last page has been reached
+ */
+public record CustomerPage(
+        List<Customer> customers,
+        String nextCursor) {
+}
@@ -0,0 +1,188 @@
+package space.ml_tech.customer;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Protobuf wire format of the customer payloads, as described by `src/main/proto/customer.proto`.
+ * The messages are written from and read into the classes the API already uses, with the runtime's
+ * coded streams, instead of going through generated message classes and a copy per customer.
+ * A `CustomerList` is nothing but its entries one after another, so a list can be written a
+ * customer at a time (see {@link #writeEntry(Customer, CodedOutputStream)})
+ */
+public final class CustomerProtobuf {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-protobuf";
+
+    // `Customer`, and `CustomerDTO` with the same numbers
+    private static final int ID = 1;
+    private static final int NAME = 2;
+    private static final int EMAIL = 3;
+    private static final int AGE = 4;
+    private static final int GENDER = 5;
+    // `CustomerList` and `CustomerPage`
+    private static final int CUSTOMERS = 1;
+    private static final int NEXT_CURSOR = 2;
+
+    private static final int ID_TAG = tag(ID, WireFormat.WIRETYPE_VARINT);
+    private static final int NAME_TAG = tag(NAME, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int EMAIL_TAG = tag(EMAIL, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int AGE_TAG = tag(AGE, WireFormat.WIRETYPE_VARINT);
+    private static final int GENDER_TAG = tag(GENDER, WireFormat.WIRETYPE_VARINT);
+    private static final int CUSTOMERS_TAG = tag(CUSTOMERS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+
+    private CustomerProtobuf() {
+    }
+
+    // a `Customer`, a `CustomerPage`, or a `List` (whose elements the caller checks, see
+    // `CustomerProtobufHttpMessageConverter#canWrite(ResolvableType)`)
+    public static boolean canWrite(Class<?> type) {
+        return Customer.class.isAssignableFrom(type)
+                || CustomerPage.class.isAssignableFrom(type)
+                || List.class.isAssignableFrom(type);
+    }
+
+    public static void write(Object body, CodedOutputStream output) throws IOException {
+        if (body instanceof Customer customer) {
+            writeFields(customer, output);
+        } else if (body instanceof CustomerPage page) {
+            writeEntries(page.customers(), output);
+            if (page.nextCursor() != null) {
+                output.writeString(NEXT_CURSOR, page.nextCursor());
+            }
+        } else if (body instanceof List<?> customers) {
+            writeEntries(customers, output);
+        } else {
+            throw new IllegalArgumentException("Not a customer payload: %s".formatted(body.getClass().getName()));
+        }
+    }
+
+    // one customer of a `CustomerList` or `CustomerPage`
+    public static void writeEntry(Customer customer, CodedOutputStream output) throws IOException {
+        output.writeUInt32NoTag(CUSTOMERS_TAG);
+        output.writeUInt32NoTag(size(customer));
+        writeFields(customer, output);
+    }
+
+    public static Customer readCustomer(CodedInputStream input) throws IOException {
+        Customer customer = new Customer();
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+            if (tag == ID_TAG) {
+                customer.setId(input.readInt32());
+            } else if (tag == NAME_TAG) {
+                customer.setName(input.readStringRequireUtf8());
+            } else if (tag == EMAIL_TAG) {
+                customer.setEmail(input.readStringRequireUtf8());
+            } else if (tag == AGE_TAG) {
+                customer.setAge(input.readInt32());
+            } else if (tag == GENDER_TAG) {
+                customer.setGender(gender(input.readEnum()));
+            } else {
+                input.skipField(tag);
+            }
+        }
+        return customer;
+    }
+
+    // a `CustomerList`
+    public static List<Customer> readCustomers(CodedInputStream input) throws IOException {
+        List<Customer> customers = new ArrayList<>();
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+            if (tag == CUSTOMERS_TAG) {
+                int limit = input.pushLimit(input.readRawVarint32());
+                customers.add(readCustomer(input));
+                input.popLimit(limit);
+            } else {
+                input.skipField(tag);
+            }
+        }
+        return customers;
+    }
+
+    // the id of a `Customer` is skipped like any unknown field
+    public static CustomerDTO readCustomerDto(CodedInputStream input) throws IOException {
+        String name = null;
+        String email = null;
+        Integer age = null;
+        Gender gender = null;
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+            if (tag == NAME_TAG) {
+                name = input.readStringRequireUtf8();
+            } else if (tag == EMAIL_TAG) {
+                email = input.readStringRequireUtf8();
+            } else if (tag == AGE_TAG) {
+                age = input.readInt32();
+            } else if (tag == GENDER_TAG) {
+                gender = gender(input.readEnum());
+            } else {
+                input.skipField(tag);
+            }
+        }
+        return new CustomerDTO(name, email, age, gender);
+    }
+
+
+    /*---- Helper Methods -----*/
+    private static void writeEntries(List<?> customers, CodedOutputStream output) throws IOException {
+        for (Object customer : customers) {
+            if (!(customer instanceof Customer entry)) {
+                throw new IllegalArgumentException("Not a customer: %s".formatted(customer));
+            }
+            writeEntry(entry, output);
+        }
+    }
+
+    // only the fields that are set, which is what explicit presence means on the wire
+    private static void writeFields(Customer customer, CodedOutputStream output) throws IOException {
+        if (customer.getId() != null) {
+            output.writeInt32(ID, customer.getId());
+        }
+        if (customer.getName() != null) {
+            output.writeString(NAME, customer.getName());
+        }
+        if (customer.getEmail() != null) {
+            output.writeString(EMAIL, customer.getEmail());
+        }
+        if (customer.getAge() != null) {
+            output.writeInt32(AGE, customer.getAge());
+        }
+        if (customer.getGender() != null) {
+            output.writeEnum(GENDER, customer.getGender().ordinal() + 1);
+        }
+    }
+
+    private static int size(Customer customer) {
+        int size = 0;
+        if (customer.getId() != null) {
+            size += CodedOutputStream.computeInt32Size(ID, customer.getId());
+        }
+        if (customer.getName() != null) {
+            size += CodedOutputStream.computeStringSize(NAME, customer.getName());
+        }
+        if (customer.getEmail() != null) {
+            size += CodedOutputStream.computeStringSize(EMAIL, customer.getEmail());
+        }
+        if (customer.getAge() != null) {
+            size += CodedOutputStream.computeInt32Size(AGE, customer.getAge());
+        }
+        if (customer.getGender() != null) {
+            size += CodedOutputStream.computeEnumSize(GENDER, customer.getGender().ordinal() + 1);
+        }
+        return size;
+    }
+
+    // `GENDER_UNSPECIFIED` (0) and values this server doesn't know leave the gender unset
+    private static Gender gender(int value) {
+        Gender[] genders = Gender.values();
+        return value > 0 && value <= genders.length ? genders[value - 1] : null;
+    }
+
+    private static int tag(int fieldNumber, int wireType) {
+        return fieldNumber << 3 | wireType;
+    }
+}
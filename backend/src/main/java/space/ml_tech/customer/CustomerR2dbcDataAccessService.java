@@ -0,0 +1,359 @@
+package space.ml_tech.customer;
+
+import io.r2dbc.postgresql.api.PostgresqlException;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import space.ml_tech.exceptions.DuplicateResourceException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * {@link ReactiveCustomerDao} on R2DBC, with the same SQL as {@link CustomerJDBCDataAccessService}.
+ * Link to the R2DBC `DatabaseClient` documentation can be found
+ * <a href="https://docs.spring.io/spring-framework/reference/data-access/r2dbc.html">here</a>.
+ */
+@Repository("beanOfTypeR2dbc")
+public class CustomerR2dbcDataAccessService implements ReactiveCustomerDao {
+
+    // ----------- FIELDS & CONSTRUCTORS ----------- //
+    private static final String EMAIL_UNIQUE_CONSTRAINT = "customer_email_unique";
+
+    private final DatabaseClient databaseClient;
+    // a local transaction manager rather than a bean: a second `TransactionManager` bean
+    // would make every `@Transactional` of the JDBC and JPA DAOs ambiguous
+    private final TransactionalOperator transactionalOperator;
+
+    // number of rows the driver pulls from the open portal per round trip
+    @Value("${customer.export.fetch-size:1000}")
+    private int exportFetchSize = 1000;
+
+    public CustomerR2dbcDataAccessService(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = TransactionalOperator.create(
+                new R2dbcTransactionManager(databaseClient.getConnectionFactory())
+        );
+    }
+
+
+    // ----------- METHODS ----------- //
+    /**
+     * Streams the whole table. With a fetch size the driver reads the result through a portal,
+     * `exportFetchSize` rows at a time, and only asks for the next batch once the subscriber
+     * has consumed the previous one, so a slow client throttles the query instead of
+     * having the table buffered on its behalf
+     */
+    @Override
+    public Flux<Customer> selectAllCustomers() {
+        String sqlStatement = """
+                SELECT id, name, email, age, gender, version
+                FROM customer
+                """;
+        return databaseClient.sql(sqlStatement)
+                .filter(statement -> statement.fetchSize(exportFetchSize))
+                .map(CustomerR2dbcDataAccessService::mapRow)
+                .all();
+    }
+
+    @Override
+    public Mono<Customer> selectCustomerById(Integer id) {
+        String sqlStatement = """
+                SELECT id, name, email, age, gender, version
+                FROM customer
+                WHERE id = :id
+                """;
+        return databaseClient.sql(sqlStatement)
+                .bind("id", id)
+                .map(CustomerR2dbcDataAccessService::mapRow)
+                .one();
+    }
+
+    @Override
+    public Flux<Customer> selectCustomersAfter(Integer afterId, int limit) {
+        String sqlStatement = """
+                SELECT id, name, email, age, gender, version
+                FROM customer
+                WHERE id > :afterId
+                ORDER BY id
+                LIMIT :limit
+                """;
+        return databaseClient.sql(sqlStatement)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(CustomerR2dbcDataAccessService::mapRow)
+                .all();
+    }
+
+    // see `CustomerJDBCDataAccessService#selectChangesAfter`
+    @Override
+    public Mono<CustomerChangeLog> selectChangesAfter(long afterTxid, int afterId, boolean withDeletions, int limit) {
+        String sqlStatement = """
+                WITH changes AS (
+                    (SELECT id, name, email, age, gender, version, changed_xid, FALSE AS deleted
+                     FROM customer
+                     WHERE (changed_xid, id) > (CAST(CAST(:afterTxid AS text) AS xid8), :afterId)
+                     ORDER BY changed_xid, id
+                     LIMIT :limit)
+                    UNION ALL
+                    (SELECT id, NULL, NULL, NULL, NULL, NULL, changed_xid, TRUE
+                     FROM customer_tombstone
+                     WHERE :withDeletions AND (changed_xid, id) > (CAST(CAST(:afterTxid AS text) AS xid8), :afterId)
+                     ORDER BY changed_xid, id
+                     LIMIT :limit)
+                    ORDER BY changed_xid, id
+                    LIMIT :limit
+                )
+                SELECT CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint) AS frontier,
+                       CAST(CAST((SELECT changed_xid FROM customer_change_floor) AS text) AS bigint) AS floor,
+                       changes.id, changes.name, changes.email, changes.age, changes.gender, changes.version,
+                       CAST(CAST(changes.changed_xid AS text) AS bigint) AS txid, changes.deleted
+                FROM (SELECT 1) AS snapshot
+                LEFT JOIN changes ON TRUE
+                ORDER BY changes.changed_xid, changes.id
+                """;
+        return databaseClient.sql(sqlStatement)
+                .bind("afterTxid", afterTxid)
+                .bind("afterId", afterId)
+                .bind("withDeletions", withDeletions)
+                .bind("limit", limit)
+                .map(row -> {
+                    Long txid = row.get("txid", Long.class);
+                    // no changes: the row only carries the frontier and the floor
+                    CustomerChangeLog.Entry entry = txid == null ? null : new CustomerChangeLog.Entry(
+                            txid,
+                            row.get("id", Integer.class),
+                            Boolean.TRUE.equals(row.get("deleted", Boolean.class)) ? null : mapRow(row));
+                    return new ChangeRow(row.get("frontier", Long.class), row.get("floor", Long.class), entry);
+                })
+                .all()
+                .collectList()
+                .map(rows -> new CustomerChangeLog(
+                        rows.stream().map(ChangeRow::entry).filter(Objects::nonNull).toList(),
+                        rows.get(0).frontier(),
+                        rows.get(0).floor()));
+    }
+
+    @Override
+    public Flux<Customer> searchCustomers(CustomerSearchCriteria criteria, Integer afterId, int limit) {
+        List<String> predicates = new ArrayList<>();
+        Map<String, Object> binds = new LinkedHashMap<>();
+        predicates.add("id > :afterId");
+        binds.put("afterId", afterId);
+        if (criteria.namePrefix() != null) {
+            predicates.add("name LIKE :namePattern");
+            binds.put("namePattern", CustomerJDBCDataAccessService.escapeLike(criteria.namePrefix()) + "%");
+        }
+        if (criteria.emailDomain() != null) {
+            predicates.add("lower(split_part(email, '@', 2)) = lower(:emailDomain)");
+            binds.put("emailDomain", criteria.emailDomain());
+        }
+        if (criteria.minAge() != null) {
+            predicates.add("age >= :minAge");
+            binds.put("minAge", criteria.minAge());
+        }
+        if (criteria.maxAge() != null) {
+            predicates.add("age <= :maxAge");
+            binds.put("maxAge", criteria.maxAge());
+        }
+        if (criteria.gender() != null) {
+            predicates.add("gender = :gender");
+            binds.put("gender", criteria.gender().name());
+        }
+        binds.put("limit", limit);
+
+        String sqlStatement = """
+                SELECT id, name, email, age, gender, version
+                FROM customer
+                WHERE %s
+                ORDER BY id
+                LIMIT :limit
+                """.formatted(String.join(" AND ", predicates));
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sqlStatement);
+        for (Map.Entry<String, Object> bind : binds.entrySet()) {
+            spec = spec.bind(bind.getKey(), bind.getValue());
+        }
+        return spec.map(CustomerR2dbcDataAccessService::mapRow).all();
+    }
+
+    @Override
+    public Mono<Customer> insertCustomer(Customer customer) {
+        String sqlStatement = """
+                INSERT INTO customer(name, email, age, gender)
+                VALUES (:name, :email, :age, :gender)
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id, version
+                """;
+        return databaseClient.sql(sqlStatement)
+                .bind("name", customer.getName())
+                .bind("email", customer.getEmail())
+                .bind("age", customer.getAge())
+                .bind("gender", customer.getGender().name())
+                .map(row -> {
+                    customer.setId(row.get("id", Integer.class));
+                    customer.setVersion(row.get("version", Long.class));
+                    return customer;
+                })
+                .one()
+                .switchIfEmpty(Mono.error(() -> new DuplicateResourceException("Email already taken!")));
+    }
+
+    /**
+     * Binds every customer to one prepared statement, which the driver pipelines to the server
+     * without waiting for each row's response, in a single transaction like the JDBC batch
+     */
+    @Override
+    public Mono<int[]> insertCustomers(List<Customer> customers) {
+        if (customers.isEmpty()) {
+            return Mono.just(new int[0]);
+        }
+        String sqlStatement = """
+                INSERT INTO customer(name, email, age, gender)
+                VALUES ($1, $2, $3, $4)
+                ON CONFLICT (email) DO NOTHING
+                """;
+        Flux<Long> counts = databaseClient.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(sqlStatement);
+            for (int i = 0; i < customers.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                Customer customer = customers.get(i);
+                statement.bind(0, customer.getName())
+                        .bind(1, customer.getEmail())
+                        .bind(2, customer.getAge())
+                        .bind(3, customer.getGender().name());
+            }
+            return Flux.from(statement.execute()).concatMap(Result::getRowsUpdated);
+        });
+        return counts.as(transactionalOperator::transactional)
+                .collectList()
+                .map(list -> list.stream().mapToInt(Long::intValue).toArray());
+    }
+
+    @Override
+    public Mono<Customer> deletePersonById(Integer id) {
+        String sqlStatement = """
+                DELETE
+                FROM customer
+                WHERE id = :id
+                RETURNING id, name, email, age, gender, version
+                """;
+        return databaseClient.sql(sqlStatement)
+                .bind("id", id)
+                .map(CustomerR2dbcDataAccessService::mapRow)
+                .one();
+    }
+
+    @Override
+    public Mono<Customer> updatePerson(Customer update) {
+        // the same partial, no-op-skipping UPDATE as the JDBC DAO
+        Map<String, Object> values = new LinkedHashMap<>();
+        if (update.getName() != null) {
+            values.put("name", update.getName());
+        }
+        if (update.getEmail() != null) {
+            values.put("email", update.getEmail());
+        }
+        if (update.getAge() != null) {
+            values.put("age", update.getAge());
+        }
+        if (values.isEmpty()) {
+            return Mono.empty();
+        }
+
+        String sqlStatement = """
+                UPDATE customer
+                SET %s, version = version + 1
+                WHERE id = :id
+                  AND (%s)
+                RETURNING id, name, email, age, gender, version
+                """.formatted(
+                String.join(", ", values.keySet().stream().map(column -> column + " = :" + column).toList()),
+                String.join(" OR ", values.keySet().stream().map(column -> column + " IS DISTINCT FROM :" + column).toList())
+        );
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sqlStatement).bind("id", update.getId());
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            spec = spec.bind(value.getKey(), value.getValue());
+        }
+        return spec.map(CustomerR2dbcDataAccessService::mapRow)
+                .one()
+                .onErrorMap(DataIntegrityViolationException.class, CustomerR2dbcDataAccessService::translate);
+    }
+
+    @Override
+    public Mono<Long> selectCustomerVersion(Integer id) {
+        String sqlStatement = """
+                SELECT version
+                FROM customer
+                WHERE id = :id
+                """;
+        return databaseClient.sql(sqlStatement)
+                .bind("id", id)
+                .map(row -> row.get("version", Long.class))
+                .one();
+    }
+
+    // see `CustomerJDBCDataAccessService#selectChangeCount`
+    @Override
+    public Mono<Long> selectChangeCount() {
+        String sqlStatement = """
+                SELECT coalesce(sum(changes), 0) AS changes
+                FROM customer_changes
+                """;
+        return databaseClient.sql(sqlStatement)
+                .map(row -> row.get("changes", Long.class))
+                .one();
+    }
+
+    @Override
+    public Mono<Boolean> existsPersonWithId(Integer id) {
+        String sqlStatement = """
+                SELECT EXISTS(SELECT 1 FROM customer WHERE id = :id) AS present
+                """;
+        return databaseClient.sql(sqlStatement)
+                .bind("id", id)
+                .map(row -> row.get("present", Boolean.class))
+                .one();
+    }
+
+
+    /*---- Helper Methods -----*/
+    // only a clash on `customer_email_unique` means the email is taken; any other violation
+    // (a null column, a check constraint) is a bug in the request or the code, and stays one
+    private static RuntimeException translate(DataIntegrityViolationException e) {
+        if (e.getCause() instanceof PostgresqlException postgres
+                && postgres.getErrorDetails().getConstraintName()
+                        .filter(EMAIL_UNIQUE_CONSTRAINT::equals)
+                        .isPresent()) {
+            return new DuplicateResourceException("Email already taken!");
+        }
+        return e;
+    }
+
+    private static Customer mapRow(Readable row) {
+        return new Customer(
+                row.get("id", Integer.class),
+                row.get("name", String.class),
+                row.get("email", String.class),
+                row.get("age", Integer.class),
+                Gender.valueOf(row.get("gender", String.class)),
+                row.get("version", Long.class)
+        );
+    }
+
+    private record ChangeRow(long frontier, long floor, CustomerChangeLog.Entry entry) {
+    }
+}
@@ -1,8 +1,48 @@
 package space.ml_tech.customer;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
-public interface CustomerRepository extends JpaRepository<Customer, Integer> {
+import java.util.List;
+import java.util.Optional;
+
+public interface CustomerRepository extends JpaRepository<Customer, Integer>, CustomerSearchRepository {
     boolean existsCustomerByEmail(String email);
     boolean existsCustomerById(Integer id);
+    // a `Slice` only looks one row ahead instead of issuing the `count(*)` a `Page` needs
+    Slice<Customer> findByIdGreaterThanOrderByIdAsc(Integer id, Pageable pageable);
+    // a scalar query, so that checking an `ETag` doesn't load the entity into the persistence context
+    @Query("SELECT c.version FROM Customer c WHERE c.id = :id")
+    Optional<Long> findVersionById(Integer id);
+    @Query(value = "SELECT sum(changes) FROM customer_changes", nativeQuery = true)
+    long countChanges();
+    // the same statement as `CustomerJDBCDataAccessService#selectChangesAfter`, one array per row of
+    // (frontier, floor, id, name, email, age, gender, version, txid, deleted)
+    @Query(value = """
+            WITH changes AS (
+                (SELECT id, name, email, age, gender, version, changed_xid, FALSE AS deleted
+                 FROM customer
+                 WHERE (changed_xid, id) > (CAST(CAST(:afterTxid AS text) AS xid8), :afterId)
+                 ORDER BY changed_xid, id
+                 LIMIT :limit)
+                UNION ALL
+                (SELECT id, NULL, NULL, NULL, NULL, NULL, changed_xid, TRUE
+                 FROM customer_tombstone
+                 WHERE :withDeletions AND (changed_xid, id) > (CAST(CAST(:afterTxid AS text) AS xid8), :afterId)
+                 ORDER BY changed_xid, id
+                 LIMIT :limit)
+                ORDER BY changed_xid, id
+                LIMIT :limit
+            )
+            SELECT CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint),
+                   CAST(CAST((SELECT changed_xid FROM customer_change_floor) AS text) AS bigint),
+                   changes.id, changes.name, changes.email, changes.age, changes.gender, changes.version,
+                   CAST(CAST(changes.changed_xid AS text) AS bigint), changes.deleted
+            FROM (SELECT 1) AS snapshot
+            LEFT JOIN changes ON TRUE
+            ORDER BY changes.changed_xid, changes.id
+            """, nativeQuery = true)
+    List<Object[]> findChangesAfter(long afterTxid, int afterId, boolean withDeletions, int limit);
 }
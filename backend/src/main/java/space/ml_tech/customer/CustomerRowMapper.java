@@ -17,7 +17,8 @@ public class CustomerRowMapper implements RowMapper<Customer> {
                 rs.getString("name"),
                 rs.getString("email"),
                 rs.getInt("age"),
-                Gender.valueOf(rs.getString("gender"))
+                Gender.valueOf(rs.getString("gender")),
+                rs.getLong("version")
         );
     }
 }
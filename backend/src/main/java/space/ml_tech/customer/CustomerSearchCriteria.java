@@ -0,0 +1,33 @@
+package space.ml_tech.customer;
+
+/**
+ * Filters of `GET /api/v1/customers`. Every field is optional (null means "any") and the
+ * ones that are set are combined with AND. `namePrefix` is case-sensitive, `emailDomain`
+ * is matched case-insensitively against the part of the email after the `@`, and the
+ * age range is inclusive on both ends
+ */
+public record CustomerSearchCriteria(
+        String namePrefix,
+        String emailDomain,
+        Integer minAge,
+        Integer maxAge,
+        Gender gender) {
+
+    public boolean isEmpty() {
+        return namePrefix == null && emailDomain == null && minAge == null && maxAge == null && gender == null;
+    }
+
+    // the same predicates as the SQL ones, for the in-memory DAOs
+    public boolean matches(Customer customer) {
+        return (namePrefix == null || customer.getName().startsWith(namePrefix))
+                && (emailDomain == null || emailDomain.equalsIgnoreCase(domainOf(customer.getEmail())))
+                && (minAge == null || customer.getAge() >= minAge)
+                && (maxAge == null || customer.getAge() <= maxAge)
+                && (gender == null || customer.getGender() == gender);
+    }
+
+    private static String domainOf(String email) {
+        int at = email.indexOf('@');
+        return at < 0 ? "" : email.substring(at + 1);
+    }
+}
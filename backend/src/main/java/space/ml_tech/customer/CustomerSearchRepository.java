@@ -0,0 +1,11 @@
+package space.ml_tech.customer;
+
+import java.util.List;
+
+/**
+ * Custom fragment of {@link CustomerRepository}: the filters of a search are only known at
+ * runtime, which derived query methods can't express. Implemented by {@link CustomerSearchRepositoryImpl}
+ */
+public interface CustomerSearchRepository {
+    List<Customer> search(CustomerSearchCriteria criteria, Integer afterId, int limit);
+}
@@ -0,0 +1,63 @@
+package space.ml_tech.customer;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the search with the Criteria API, with the same predicates as the JDBC
+ * implementation, so that Hibernate's SQL can use the same indexes
+ */
+class CustomerSearchRepositoryImpl implements CustomerSearchRepository {
+
+    private final EntityManager entityManager;
+
+    CustomerSearchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Customer> search(CustomerSearchCriteria criteria, Integer afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Customer> query = cb.createQuery(Customer.class);
+        Root<Customer> customer = query.from(Customer.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.greaterThan(customer.get("id"), afterId));
+        if (criteria.namePrefix() != null) {
+            predicates.add(cb.like(
+                    customer.get("name"),
+                    CustomerJDBCDataAccessService.escapeLike(criteria.namePrefix()) + "%",
+                    '\\'
+            ));
+        }
+        if (criteria.emailDomain() != null) {
+            Expression<String> domain = cb.function(
+                    "split_part", String.class, customer.get("email"), cb.literal("@"), cb.literal(2)
+            );
+            predicates.add(cb.equal(cb.lower(domain), criteria.emailDomain().toLowerCase()));
+        }
+        if (criteria.minAge() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(customer.get("age"), criteria.minAge()));
+        }
+        if (criteria.maxAge() != null) {
+            predicates.add(cb.lessThanOrEqualTo(customer.get("age"), criteria.maxAge()));
+        }
+        if (criteria.gender() != null) {
+            predicates.add(cb.equal(customer.get("gender"), criteria.gender()));
+        }
+
+        query.select(customer)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.asc(customer.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
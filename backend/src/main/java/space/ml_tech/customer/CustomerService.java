@@ -1,28 +1,103 @@
 package space.ml_tech.customer;
 
-import space.ml_tech.exceptions.DuplicateResourceException;
 import space.ml_tech.exceptions.RequestValidationException;
 import space.ml_tech.exceptions.ResourceNotFoundException;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 public class CustomerService {
+    public static final int MAX_PAGE_SIZE = 1000;
+
     private final CustomerDao customerDao;
+    private final CustomerJsonWriter customerJsonWriter;
+
+    // concurrent identical reads share one database call (the cache only does so for the customers it holds)
+    private final SingleFlight<Integer, Optional<Customer>> customersById = new SingleFlight<>("selectCustomerById");
+    private final SingleFlight<Boolean, List<Customer>> allCustomers = new SingleFlight<>("selectAllCustomers");
+    private final SingleFlight<Integer, Optional<Long>> customerVersions = new SingleFlight<>("selectCustomerVersion");
+    private final SingleFlight<Boolean, Long> changeCount = new SingleFlight<>("selectChangeCount");
 
-    public CustomerService(@Qualifier("beanOfTypeJdbc") CustomerDao customerDao){
+    public CustomerService(@Qualifier("beanOfTypeCached") CustomerDao customerDao,
+                           CustomerJsonWriter customerJsonWriter){
         this.customerDao = customerDao;
+        this.customerJsonWriter = customerJsonWriter;
     }
 
     public List<Customer> getAllCostumers(){
-        return customerDao.selectAllCustomers();
+        return allCustomers.call(Boolean.TRUE, customerDao::selectAllCustomers);
     }
 
-    public Customer getCustomer(Integer id) {
-        return customerDao.selectCustomerById(id)
+    // the same as `getAllCostumers`, for `customer.read-path: direct`
+    public CustomerJson getAllCustomersJson() {
+        return customerJsonWriter::writeAllCustomers;
+    }
+
+    public CustomerPage getCustomersPage(String cursor, int limit) {
+        return getCustomersPage(new CustomerSearchCriteria(null, null, null, null, null), cursor, limit);
+    }
+
+    public CustomerPage getCustomersPage(CustomerSearchCriteria criteria, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new RequestValidationException(
+                    "limit must be between 1 and %s".formatted(MAX_PAGE_SIZE)
+            );
+        }
+        if (criteria.minAge() != null && criteria.maxAge() != null && criteria.minAge() > criteria.maxAge()) {
+            throw new RequestValidationException("minAge must not be greater than maxAge");
+        }
+
+        // ask for one extra row, so we know whether there is a next page
+        // without having to count the whole table
+        int afterId = decodeCursor(cursor);
+        List<Customer> customers = criteria.isEmpty()
+                ? customerDao.selectCustomersAfter(afterId, limit + 1)
+                : customerDao.searchCustomers(criteria, afterId, limit + 1);
+        if (customers.size() <= limit) {
+            return new CustomerPage(customers, null);
+        }
+
+        List<Customer> page = customers.subList(0, limit);
+        return new CustomerPage(page, encodeCursor(page.get(limit - 1).getId()));
+    }
+
+    /**
+     * A page of the customers changed after `since` (a watermark handed out by a previous call, or
+     * nothing for a full sync). When changes after `since` were lost for good, the first page of
+     * a full sync comes back instead, flagged as a `reset`
+     */
+    public CustomerChanges getChanges(String since, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new RequestValidationException(
+                    "limit must be between 1 and %s".formatted(MAX_PAGE_SIZE)
+            );
+        }
+        CustomerChangeWatermark from = CustomerChangeWatermark.decode(since);
+        // ask for one extra entry, so we know whether there is a next page
+        CustomerChangeLog log = customerDao.selectChangesAfter(from.txid(), from.id(), from.deletions(), limit + 1);
+        if (from.lostChanges(log)) {
+            CustomerChangeWatermark start = CustomerChangeWatermark.START;
+            return changesPage(start, customerDao.selectChangesAfter(0, 0, false, limit + 1), limit, true);
+        }
+        return changesPage(from, log, limit, false);
+    }
+
+    public void exportCustomers(Consumer<Customer> consumer) {
+        customerDao.forEachCustomer(consumer);
+    }
+
+    // the version alone, for checking the `ETag` of `getCustomer` without reading the customer
+    public long getCustomerVersion(Integer id) {
+        return customerVersions.call(id, () -> customerDao.selectCustomerVersion(id))
                 .orElseThrow(
                         () -> new ResourceNotFoundException(
                                 "customer with id %s not found!".formatted(id)
@@ -30,13 +105,36 @@ public class CustomerService {
                 );
     }
 
-    public void addCustomer(@NotNull CustomerDTO customerDTO) {
+    // changes whenever any customer does, for the `ETag` of `getAllCostumers`
+    public long getCustomersChangeCount() {
+        return changeCount.call(Boolean.TRUE, customerDao::selectChangeCount);
+    }
+
+    public Customer getCustomer(Integer id) {
+        return customersById.call(id, () -> customerDao.selectCustomerById(id))
+                .orElseThrow(
+                        () -> new ResourceNotFoundException(
+                                "customer with id %s not found!".formatted(id)
+                        )
+                );
+    }
 
-        // make sure customer doesn't already exist...
-        // we check this by checking their email
-        checkEmailDuplicate(customerDTO);
+    // the same as `getCustomer`, for `customer.read-path: direct`. Nothing has been
+    // written yet when there is no such customer, so it still turns into a 404
+    public CustomerJson getCustomerJson(Integer id) {
+        return generator -> {
+            if (!customerJsonWriter.writeCustomerById(id, generator)) {
+                throw new ResourceNotFoundException(
+                        "customer with id %s not found!".formatted(id)
+                );
+            }
+        };
+    }
 
-        // else add the customer to database
+    public void addCustomer(@NotNull CustomerDTO customerDTO) {
+        // no separate "does the email exist?" lookup: the DAO inserts in a single statement
+        // and the unique constraint on `email` rejects duplicates atomically, which also
+        // closes the race between two concurrent sign-ups with the same email
         Customer customer = Customer.builder()
                 .name(customerDTO.name())
                 .age(customerDTO.age())
@@ -44,62 +142,135 @@ public class CustomerService {
                 .gender(customerDTO.gender())
                 .build();
         customerDao.insertCustomer(customer);
+        forgetReads(customer.getId());
     }
 
     public void deleteCustomerById(Integer id) {
-        // make sure the person with `id` actually exists
-        if (!customerDao.existsPersonWithId(id)) {
-            throw new ResourceNotFoundException(
-                    String.format("Person with id %s does not exist!".formatted(id))
-            );
-        }
-        // if it does exist, then delete them
-        customerDao.deletePersonById(id);
+        // delete straight away; an empty result means there was nobody to delete
+        Optional<Customer> deleted = customerDao.deletePersonById(id);
+        forgetReads(id);
+        deleted.orElseThrow(
+                () -> new ResourceNotFoundException(
+                        "Person with id %s does not exist!".formatted(id)
+                )
+        );
     }
 
     public void updateCustomer(Integer id, CustomerDTO customerDTO) {
 
-        // Instead of using the `getCustomer()` method we implemented above,
-        // we could use JPA via `customerRepository.getReferenceById(id)`
-        // on one of the `CustomerDao` implementations
-        Customer customer = getCustomer(id);
+        // only the fields that are present in the request are updated,
+        // in one `UPDATE` that doesn't need the current row to be fetched first
+        Customer update = Customer.builder()
+                .id(id)
+                .name(customerDTO.name())
+                .email(customerDTO.email())
+                .age(customerDTO.age())
+                .build();
 
-        boolean changes = false;
+        if (update.getName() == null && update.getEmail() == null && update.getAge() == null) {
+            throw new RequestValidationException("No data changes found.");
+        }
 
-        // update name, if changed
-        if (customerDTO.name() != null && !customerDTO.name().equals(customer.getName())) {
-            customer.setName(customerDTO.name());
-            changes = true;
+        Optional<Customer> updated = customerDao.updatePerson(update);
+        forgetReads(id);
+        if (updated.isEmpty()) {
+            // nothing was updated: only now do we pay for a second query,
+            // to tell a missing customer apart from a request that changes nothing
+            if (!customerDao.existsPersonWithId(id)) {
+                throw new ResourceNotFoundException(
+                        "customer with id %s not found!".formatted(id)
+                );
+            }
+            throw new RequestValidationException("No data changes found.");
         }
+    }
+
+    // writes that didn't go through this service (other nodes, the batch endpoint, the CSV import)
+    // come in as notifications: from then on too, no read should join a call made before them
+    @EventListener
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        forgetReads(event.id());
+    }
 
-        // update email, if changed
-        if (customerDTO.email() != null && !customerDTO.email().equals(customer.getEmail())) {
+    @EventListener
+    public void onCustomersChanged(CustomersChangedEvent event) {
+        forgetAllReads();
+    }
 
-            // make sure email is not already taken
-            checkEmailDuplicate(customerDTO);
+    @EventListener
+    public void onChangesMissed(CustomerChangesMissedEvent event) {
+        forgetAllReads();
+    }
 
-            customer.setEmail(customerDTO.email());
-            changes = true;
-        }
+    // how many reads shared a database call with others that were made at the same time
+    public List<SingleFlightStats> getSingleFlightStats() {
+        return List.of(
+                customersById.stats(),
+                allCustomers.stats(),
+                customerVersions.stats(),
+                changeCount.stats()
+        );
+    }
 
-        // update age, if changed
-        if (customerDTO.age() != null && !customerDTO.age().equals(customer.getAge())) {
-            customer.setAge(customerDTO.age());
-            changes = true;
-        }
 
-        if (!changes) {
-            throw new RequestValidationException("No data changes found.");
+    /*---- Helper Methods -----*/
+    // once a write is done, nobody should get the result of a read that started before it
+    private void forgetReads(Integer id) {
+        if (id != null) {
+            customersById.forget(id);
+            customerVersions.forget(id);
         }
+        allCustomers.forgetAll();
+        changeCount.forgetAll();
+    }
 
-        customerDao.updatePerson(customer);
+    private void forgetAllReads() {
+        customersById.forgetAll();
+        customerVersions.forgetAll();
+        allCustomers.forgetAll();
+        changeCount.forgetAll();
     }
 
+    // a page of `log`, read after `from` with one entry more than `limit`
+    static CustomerChanges changesPage(CustomerChangeWatermark from, CustomerChangeLog log, int limit, boolean reset) {
+        List<CustomerChangeLog.Entry> entries = log.entries();
+        boolean hasMore = entries.size() > limit;
+        if (hasMore) {
+            entries = entries.subList(0, limit);
+        }
+        List<Customer> changed = new ArrayList<>(entries.size());
+        List<Integer> deleted = new ArrayList<>();
+        for (CustomerChangeLog.Entry entry : entries) {
+            if (entry.customer() == null) {
+                deleted.add(entry.id());
+            } else {
+                changed.add(entry.customer());
+            }
+        }
+        CustomerChangeWatermark next = from.next(log, hasMore ? entries.get(limit - 1) : null);
+        return new CustomerChanges(changed, deleted, next.encode(), hasMore, reset);
+    }
 
-    /*---- Helper Methods -----*/
-    public void checkEmailDuplicate(@NotNull CustomerDTO customerDTO) {
-        if (customerDao.existsPersonWithEmail(customerDTO.email()))
-            throw new DuplicateResourceException("Email already taken!");
+    // the cursor is the last id of the previous page, base64 encoded so that
+    // clients treat it as an opaque token rather than something to compute
+    static String encodeCursor(int lastId) {
+        byte[] bytes = ByteBuffer.allocate(Integer.BYTES).putInt(lastId).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    static int decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != Integer.BYTES) {
+                throw new IllegalArgumentException();
+            }
+            return ByteBuffer.wrap(bytes).getInt();
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException("Invalid cursor: %s".formatted(cursor));
+        }
     }
 
 }
\ No newline at end of file
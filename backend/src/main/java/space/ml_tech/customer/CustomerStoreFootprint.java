@@ -0,0 +1,20 @@
+package space.ml_tech.customer;
+
+/**
+ * Memory used by the {@link CustomerColumnarDataAccessService}, in bytes per column
+ * (allocated capacity, not just the used part). `garbageBytes` is the part of the
+ * name and email columns left behind by updates and deletes
+ */
+public record CustomerStoreFootprint(
+        int rows,
+        int liveRows,
+        long ageBytes,
+        long genderBytes,
+        long versionBytes,
+        long changeStampBytes,
+        long nameBytes,
+        long emailBytes,
+        long indexBytes,
+        long garbageBytes,
+        long totalBytes) {
+}
@@ -0,0 +1,76 @@
+package space.ml_tech.customer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes the tombstones of customers deleted more than `tombstone-retention` ago, every `prune-interval`,
+ * through `prune_customer_tombstones` (see `V11__Prune_Customer_Tombstones.sql`), which raises the floor
+ * of the change log in the same transaction. Clients of `GET /api/v1/customers/changes` that haven't synced
+ * for longer than the retention may then have missed a deletion, and start over. Every node prunes;
+ * running it twice at once only has the second run find nothing left to delete
+ */
+@Component
+public class CustomerTombstonePruner implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerTombstonePruner.class);
+
+    // ----------- FIELDS & CONSTRUCTORS ----------- //
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration retention;
+    private final ScheduledExecutorService pruner;
+
+    public CustomerTombstonePruner(JdbcTemplate jdbcTemplate,
+                                   @Value("${customer.changes.tombstone-retention:30d}") Duration retention,
+                                   @Value("${customer.changes.prune-interval:1h}") Duration pruneInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retention = retention;
+        this.pruner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-tombstone-pruner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pruner.scheduleWithFixedDelay(this::pruneQuietly,
+                pruneInterval.toMillis(), pruneInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+
+    // ----------- METHODS ----------- //
+    // the number of tombstones deleted
+    public long prune() {
+        String sqlStatement = """
+                SELECT prune_customer_tombstones(make_interval(secs => ?))
+                """;
+        Long pruned = jdbcTemplate.queryForObject(sqlStatement, Long.class, retention.toMillis() / 1000.0);
+        return pruned != null ? pruned : 0;
+    }
+
+    @Override
+    public void close() {
+        pruner.shutdownNow();
+    }
+
+
+    /*---- Helper Methods -----*/
+    private void pruneQuietly() {
+        try {
+            long pruned = prune();
+            if (pruned > 0) {
+                log.info("Pruned {} customer tombstones older than {}", pruned, retention);
+            }
+        } catch (DataAccessException e) {
+            // tried again after the next interval
+            log.warn("Can't prune customer tombstones: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package space.ml_tech.customer;
+
+/**
+ * A committed statement that changed too many customers to announce each one with a
+ * {@link CustomerChangedEvent}: `count` customers, whose ids are between `fromId` and `toId`
+ * (not every id in between was changed, nor even exists)
+ */
+public record CustomersChangedEvent(CustomerChangedEvent.Operation operation, int fromId, int toId, long count) {
+}
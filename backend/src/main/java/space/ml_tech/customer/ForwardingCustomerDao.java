@@ -0,0 +1,89 @@
+package space.ml_tech.customer;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Base class for {@link CustomerDao} decorators (caching, filtering, ...):
+ * every call is forwarded to the wrapped DAO, so a decorator only overrides
+ * the methods it actually cares about
+ */
+public abstract class ForwardingCustomerDao implements CustomerDao {
+
+    protected final CustomerDao delegate;
+
+    protected ForwardingCustomerDao(CustomerDao delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return delegate.selectAllCustomers();
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Integer id) {
+        return delegate.selectCustomerById(id);
+    }
+
+    @Override
+    public List<Customer> selectCustomersAfter(Integer afterId, int limit) {
+        return delegate.selectCustomersAfter(afterId, limit);
+    }
+
+    @Override
+    public CustomerChangeLog selectChangesAfter(long afterTxid, int afterId, boolean withDeletions, int limit) {
+        return delegate.selectChangesAfter(afterTxid, afterId, withDeletions, limit);
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> consumer) {
+        delegate.forEachCustomer(consumer);
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearchCriteria criteria, Integer afterId, int limit) {
+        return delegate.searchCustomers(criteria, afterId, limit);
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        delegate.insertCustomer(customer);
+    }
+
+    @Override
+    public int[] insertCustomers(List<Customer> customers) {
+        return delegate.insertCustomers(customers);
+    }
+
+    @Override
+    public Optional<Customer> deletePersonById(Integer id) {
+        return delegate.deletePersonById(id);
+    }
+
+    @Override
+    public Optional<Customer> updatePerson(Customer update) {
+        return delegate.updatePerson(update);
+    }
+
+    @Override
+    public Optional<Long> selectCustomerVersion(Integer id) {
+        return delegate.selectCustomerVersion(id);
+    }
+
+    @Override
+    public long selectChangeCount() {
+        return delegate.selectChangeCount();
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        return delegate.existsPersonWithEmail(email);
+    }
+
+    @Override
+    public boolean existsPersonWithId(Integer id) {
+        return delegate.existsPersonWithId(id);
+    }
+}
@@ -0,0 +1,193 @@
+package space.ml_tech.customer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.ml_tech.exceptions.DuplicateResourceException;
+import space.ml_tech.exceptions.ServiceUnavailableException;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Group commit for {@link #insertCustomer}: concurrent inserts are queued, and a background thread
+ * writes them with one {@link CustomerDao#insertCustomers} call, i.e. one multi-row `INSERT` and one
+ * commit, instead of one statement and one commit each. A batch is sent once it has `maxBatchSize`
+ * rows or `maxDelay` after its first row came in, whichever is first; while it is being written,
+ * the next one fills up. Every caller waits for its own row and gets its own id or its own
+ * duplicate-email error, exactly as with a direct insert.
+ *
+ * The wait costs a lone insert up to `maxDelay`, so it only pays off under concurrent sign-ups,
+ * and is off unless enabled. It sits in front of the bulkhead, so that queued inserts hold no permit
+ * and a whole batch takes just one
+ */
+public class GroupCommitCustomerDao extends ForwardingCustomerDao implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitCustomerDao.class);
+
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<PendingInsert> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService flusher;
+    private volatile boolean closed;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public GroupCommitCustomerDao(CustomerDao delegate, boolean enabled, int maxBatchSize, Duration maxDelay) {
+        super(delegate);
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        }
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.flusher = enabled
+                ? Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "customer-group-commit");
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+        if (enabled) {
+            flusher.execute(this::flushUntilClosed);
+        }
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        if (!enabled || closed) {
+            delegate.insertCustomer(customer);
+            return;
+        }
+        PendingInsert insert = new PendingInsert(customer);
+        queue.add(insert);
+        // closed in the meantime: the flusher may be gone, so insert it ourselves unless it already took it
+        if (closed && queue.remove(insert)) {
+            delegate.insertCustomer(customer);
+            return;
+        }
+        try {
+            insert.result.join();
+        } catch (CompletionException e) {
+            // the error of our own row, as if we had inserted it ourselves
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    public GroupCommitStats stats() {
+        long batchCount = batches.sum();
+        long rowCount = rows.sum();
+        return new GroupCommitStats(
+                enabled,
+                maxBatchSize,
+                TimeUnit.NANOSECONDS.toMicros(maxDelayNanos),
+                batchCount,
+                rowCount,
+                batchCount == 0 ? 0 : (double) rowCount / batchCount,
+                fallbacks.sum(),
+                queue.size()
+        );
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        // nobody is left to write them
+        PendingInsert insert;
+        while ((insert = queue.poll()) != null) {
+            insert.result.completeExceptionally(new ServiceUnavailableException("Shutting down, please retry later"));
+        }
+    }
+
+
+    /*---- Helper Methods -----*/
+    private void flushUntilClosed() {
+        List<PendingInsert> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!closed) {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    // whatever is queued already, then wait for more until the deadline
+                    if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    PendingInsert next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // closed
+            batch.forEach(insert -> insert.result.completeExceptionally(
+                    new ServiceUnavailableException("Shutting down, please retry later")));
+        }
+    }
+
+    private void flush(List<PendingInsert> batch) {
+        List<Customer> customers = batch.stream().map(PendingInsert::customer).toList();
+        int[] inserted;
+        try {
+            inserted = delegate.insertCustomers(customers);
+        } catch (RuntimeException e) {
+            // one bad row fails the whole statement, be it in the database (a constraint) or before it
+            // even gets there (a missing field): insert them one by one, so that only its caller gets the
+            // error. A lone row has nothing to be told apart from, and its caller gets the error as it is
+            if (batch.size() == 1) {
+                batch.get(0).result.completeExceptionally(e);
+                return;
+            }
+            fallbacks.increment();
+            log.debug("Group commit of {} customers failed, inserting them one by one", batch.size(), e);
+            batch.forEach(this::insertAlone);
+            return;
+        } catch (Error e) {
+            batch.forEach(insert -> insert.result.completeExceptionally(e));
+            return;
+        }
+        batches.increment();
+        rows.add(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (inserted[i] == 0) {
+                batch.get(i).result.completeExceptionally(new DuplicateResourceException("Email already taken!"));
+            } else {
+                batch.get(i).result.complete(null);
+            }
+        }
+    }
+
+    private void insertAlone(PendingInsert insert) {
+        try {
+            delegate.insertCustomer(insert.customer);
+            insert.result.complete(null);
+        } catch (RuntimeException | Error e) {
+            insert.result.completeExceptionally(e);
+        }
+    }
+
+    private record PendingInsert(Customer customer, CompletableFuture<Void> result) {
+
+        PendingInsert(Customer customer) {
+            this(customer, new CompletableFuture<>());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package space.ml_tech.customer;
+
+/**
+ * Snapshot of the {@link GroupCommitCustomerDao}: `averageBatchSize` is how many inserts shared
+ * a statement and a commit, `fallbacks` counts the batches that had to be retried row by row
+ * because one of their rows was rejected
+ */
+public record GroupCommitStats(
+        boolean enabled,
+        int maxBatchSize,
+        long maxDelayMicros,
+        long batches,
+        long rows,
+        double averageBatchSize,
+        long fallbacks,
+        int waiting) {
+}
@@ -0,0 +1,263 @@
+package space.ml_tech.customer;
+
+import space.ml_tech.metrics.MetricsRegistry;
+import space.ml_tech.metrics.OperationMetrics;
+
+import java.sql.Statement;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Records the latency, errors and rows of every call into the wrapped DAO, tagged with
+ * its bean name. The metrics of each method are looked up once, here, and every method is
+ * spelled out instead of going through a lambda, so that recording doesn't allocate
+ * (`forEachCustomer` is the exception, with one row-counting consumer per call)
+ */
+public class InstrumentedCustomerDao extends ForwardingCustomerDao {
+
+    private final OperationMetrics selectAllCustomers;
+    private final OperationMetrics selectCustomerById;
+    private final OperationMetrics selectCustomersAfter;
+    private final OperationMetrics searchCustomers;
+    private final OperationMetrics selectChangesAfter;
+    private final OperationMetrics forEachCustomer;
+    private final OperationMetrics insertCustomer;
+    private final OperationMetrics insertCustomers;
+    private final OperationMetrics deletePersonById;
+    private final OperationMetrics updatePerson;
+    private final OperationMetrics selectCustomerVersion;
+    private final OperationMetrics selectChangeCount;
+    private final OperationMetrics existsPersonWithEmail;
+    private final OperationMetrics existsPersonWithId;
+
+    public InstrumentedCustomerDao(CustomerDao delegate, String daoName, MetricsRegistry metricsRegistry) {
+        super(delegate);
+        this.selectAllCustomers = metricsRegistry.daoOperation(daoName, "selectAllCustomers");
+        this.selectCustomerById = metricsRegistry.daoOperation(daoName, "selectCustomerById");
+        this.selectCustomersAfter = metricsRegistry.daoOperation(daoName, "selectCustomersAfter");
+        this.searchCustomers = metricsRegistry.daoOperation(daoName, "searchCustomers");
+        this.selectChangesAfter = metricsRegistry.daoOperation(daoName, "selectChangesAfter");
+        this.forEachCustomer = metricsRegistry.daoOperation(daoName, "forEachCustomer");
+        this.insertCustomer = metricsRegistry.daoOperation(daoName, "insertCustomer");
+        this.insertCustomers = metricsRegistry.daoOperation(daoName, "insertCustomers");
+        this.deletePersonById = metricsRegistry.daoOperation(daoName, "deletePersonById");
+        this.updatePerson = metricsRegistry.daoOperation(daoName, "updatePerson");
+        this.selectCustomerVersion = metricsRegistry.daoOperation(daoName, "selectCustomerVersion");
+        this.selectChangeCount = metricsRegistry.daoOperation(daoName, "selectChangeCount");
+        this.existsPersonWithEmail = metricsRegistry.daoOperation(daoName, "existsPersonWithEmail");
+        this.existsPersonWithId = metricsRegistry.daoOperation(daoName, "existsPersonWithId");
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        long start = System.nanoTime();
+        try {
+            List<Customer> customers = delegate.selectAllCustomers();
+            selectAllCustomers.recordSuccess(start, customers.size());
+            return customers;
+        } catch (RuntimeException e) {
+            selectAllCustomers.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Integer id) {
+        long start = System.nanoTime();
+        try {
+            Optional<Customer> customer = delegate.selectCustomerById(id);
+            selectCustomerById.recordSuccess(start, customer.isPresent() ? 1 : 0);
+            return customer;
+        } catch (RuntimeException e) {
+            selectCustomerById.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Customer> selectCustomersAfter(Integer afterId, int limit) {
+        long start = System.nanoTime();
+        try {
+            List<Customer> customers = delegate.selectCustomersAfter(afterId, limit);
+            selectCustomersAfter.recordSuccess(start, customers.size());
+            return customers;
+        } catch (RuntimeException e) {
+            selectCustomersAfter.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearchCriteria criteria, Integer afterId, int limit) {
+        long start = System.nanoTime();
+        try {
+            List<Customer> customers = delegate.searchCustomers(criteria, afterId, limit);
+            searchCustomers.recordSuccess(start, customers.size());
+            return customers;
+        } catch (RuntimeException e) {
+            searchCustomers.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public CustomerChangeLog selectChangesAfter(long afterTxid, int afterId, boolean withDeletions, int limit) {
+        long start = System.nanoTime();
+        try {
+            CustomerChangeLog changes = delegate.selectChangesAfter(afterTxid, afterId, withDeletions, limit);
+            selectChangesAfter.recordSuccess(start, changes.entries().size());
+            return changes;
+        } catch (RuntimeException e) {
+            selectChangesAfter.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> consumer) {
+        long start = System.nanoTime();
+        CountingConsumer counting = new CountingConsumer(consumer);
+        try {
+            delegate.forEachCustomer(counting);
+            forEachCustomer.recordSuccess(start, counting.count);
+        } catch (RuntimeException e) {
+            forEachCustomer.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        long start = System.nanoTime();
+        try {
+            delegate.insertCustomer(customer);
+            insertCustomer.recordSuccess(start, 1);
+        } catch (RuntimeException e) {
+            insertCustomer.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public int[] insertCustomers(List<Customer> customers) {
+        long start = System.nanoTime();
+        try {
+            int[] updateCounts = delegate.insertCustomers(customers);
+            insertCustomers.recordSuccess(start, insertedRows(updateCounts));
+            return updateCounts;
+        } catch (RuntimeException e) {
+            insertCustomers.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<Customer> deletePersonById(Integer id) {
+        long start = System.nanoTime();
+        try {
+            Optional<Customer> deleted = delegate.deletePersonById(id);
+            deletePersonById.recordSuccess(start, deleted.isPresent() ? 1 : 0);
+            return deleted;
+        } catch (RuntimeException e) {
+            deletePersonById.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<Customer> updatePerson(Customer update) {
+        long start = System.nanoTime();
+        try {
+            Optional<Customer> updated = delegate.updatePerson(update);
+            updatePerson.recordSuccess(start, updated.isPresent() ? 1 : 0);
+            return updated;
+        } catch (RuntimeException e) {
+            updatePerson.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<Long> selectCustomerVersion(Integer id) {
+        long start = System.nanoTime();
+        try {
+            Optional<Long> version = delegate.selectCustomerVersion(id);
+            selectCustomerVersion.recordSuccess(start, version.isPresent() ? 1 : 0);
+            return version;
+        } catch (RuntimeException e) {
+            selectCustomerVersion.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public long selectChangeCount() {
+        long start = System.nanoTime();
+        try {
+            long changes = delegate.selectChangeCount();
+            selectChangeCount.recordSuccess(start, 1);
+            return changes;
+        } catch (RuntimeException e) {
+            selectChangeCount.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        long start = System.nanoTime();
+        try {
+            boolean exists = delegate.existsPersonWithEmail(email);
+            existsPersonWithEmail.recordSuccess(start, exists ? 1 : 0);
+            return exists;
+        } catch (RuntimeException e) {
+            existsPersonWithEmail.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean existsPersonWithId(Integer id) {
+        long start = System.nanoTime();
+        try {
+            boolean exists = delegate.existsPersonWithId(id);
+            existsPersonWithId.recordSuccess(start, exists ? 1 : 0);
+            return exists;
+        } catch (RuntimeException e) {
+            existsPersonWithId.recordError(start);
+            throw e;
+        }
+    }
+
+
+    /*---- Helper Methods -----*/
+    // a batch reports 0 for a skipped duplicate, and may report SUCCESS_NO_INFO (-2) for an inserted row
+    private static long insertedRows(int[] updateCounts) {
+        long rows = 0;
+        for (int updateCount : updateCounts) {
+            if (updateCount > 0) {
+                rows += updateCount;
+            } else if (updateCount == Statement.SUCCESS_NO_INFO) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private static final class CountingConsumer implements Consumer<Customer> {
+
+        private final Consumer<Customer> consumer;
+        private long count;
+
+        private CountingConsumer(Consumer<Customer> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void accept(Customer customer) {
+            count++;
+            consumer.accept(customer);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package space.ml_tech.customer;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link CustomerDao}, used by the reactive stack
+ * (`spring.main.web-application-type: reactive`). Nothing happens until the returned
+ * publisher is subscribed to, and a {@link Flux} only pulls as many rows from the
+ * database as its subscriber has asked for
+ */
+public interface ReactiveCustomerDao {
+
+        // GET methods
+        // every customer in a single stream; rows are fetched from the server as they're requested
+        Flux<Customer> selectAllCustomers();
+        // empty if there is no customer with that id
+        Mono<Customer> selectCustomerById(Integer id);
+        // keyset page: up to `limit` customers with an id strictly greater than `afterId`, ordered by id
+        Flux<Customer> selectCustomersAfter(Integer afterId, int limit);
+        // keyset page of the customers that match every non-null field of `criteria`
+        Flux<Customer> searchCustomers(CustomerSearchCriteria criteria, Integer afterId, int limit);
+        // the same as CustomerDao#selectChangesAfter
+        Mono<CustomerChangeLog> selectChangesAfter(long afterTxid, int afterId, boolean withDeletions, int limit);
+
+        // POST methods
+        // emits `customer` with its generated id and version; fails with DuplicateResourceException if the email is taken
+        Mono<Customer> insertCustomer(Customer customer);
+        // one entry per customer: 1 if inserted, 0 if skipped because the email is already taken
+        Mono<int[]> insertCustomers(List<Customer> customers);
+
+        // DELETE methods
+        // emits the deleted customer, or completes empty if there was no customer with that id
+        Mono<Customer> deletePersonById(Integer id);
+
+        // PUT methods
+        // partial update with the same semantics as CustomerDao#updatePerson;
+        // completes empty if no customer with that id exists or nothing actually changed
+        Mono<Customer> updatePerson(Customer update);
+
+        // Misc methods
+        // the same as CustomerDao#selectCustomerVersion; completes empty if there is no customer with that id
+        Mono<Long> selectCustomerVersion(Integer id);
+        // the same counter as CustomerDao#selectChangeCount
+        Mono<Long> selectChangeCount();
+        Mono<Boolean> existsPersonWithId(Integer id);
+}
@@ -0,0 +1,214 @@
+package space.ml_tech.customer;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import space.ml_tech.exceptions.RequestValidationException;
+import space.ml_tech.exceptions.ResourceNotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@link CustomerService} rules on top of a {@link ReactiveCustomerDao},
+ * for the reactive stack only (`spring.main.web-application-type: reactive`)
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCustomerService {
+
+    private final ReactiveCustomerDao customerDao;
+    private final int chunkSize;
+
+    public ReactiveCustomerService(ReactiveCustomerDao customerDao,
+                                   @Value("${customer.batch.chunk-size:500}") int chunkSize) {
+        this.customerDao = customerDao;
+        this.chunkSize = chunkSize;
+    }
+
+    public Flux<Customer> getAllCostumers() {
+        return customerDao.selectAllCustomers();
+    }
+
+    public Mono<CustomerPage> getCustomersPage(CustomerSearchCriteria criteria, String cursor, int limit) {
+        return Mono.defer(() -> {
+            if (limit < 1 || limit > CustomerService.MAX_PAGE_SIZE) {
+                return Mono.error(new RequestValidationException(
+                        "limit must be between 1 and %s".formatted(CustomerService.MAX_PAGE_SIZE)
+                ));
+            }
+            if (criteria.minAge() != null && criteria.maxAge() != null && criteria.minAge() > criteria.maxAge()) {
+                return Mono.error(new RequestValidationException("minAge must not be greater than maxAge"));
+            }
+
+            // one extra row tells us whether there is a next page
+            int afterId = CustomerService.decodeCursor(cursor);
+            Flux<Customer> customers = criteria.isEmpty()
+                    ? customerDao.selectCustomersAfter(afterId, limit + 1)
+                    : customerDao.searchCustomers(criteria, afterId, limit + 1);
+            return customers.collectList().map(rows -> {
+                if (rows.size() <= limit) {
+                    return new CustomerPage(rows, null);
+                }
+                List<Customer> page = rows.subList(0, limit);
+                return new CustomerPage(page, CustomerService.encodeCursor(page.get(limit - 1).getId()));
+            });
+        });
+    }
+
+    // see `CustomerService#getChanges`
+    public Mono<CustomerChanges> getChanges(String since, int limit) {
+        return Mono.defer(() -> {
+            if (limit < 1 || limit > CustomerService.MAX_PAGE_SIZE) {
+                return Mono.error(new RequestValidationException(
+                        "limit must be between 1 and %s".formatted(CustomerService.MAX_PAGE_SIZE)
+                ));
+            }
+            CustomerChangeWatermark from = CustomerChangeWatermark.decode(since);
+            return customerDao.selectChangesAfter(from.txid(), from.id(), from.deletions(), limit + 1)
+                    .flatMap(log -> from.lostChanges(log)
+                            ? customerDao.selectChangesAfter(0, 0, false, limit + 1).map(startOver ->
+                                    CustomerService.changesPage(CustomerChangeWatermark.START, startOver, limit, true))
+                            : Mono.just(CustomerService.changesPage(from, log, limit, false)));
+        });
+    }
+
+    public Mono<Long> getCustomerVersion(Integer id) {
+        return customerDao.selectCustomerVersion(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(
+                        "customer with id %s not found!".formatted(id)
+                )));
+    }
+
+    public Mono<Long> getCustomersChangeCount() {
+        return customerDao.selectChangeCount();
+    }
+
+    public Mono<Customer> getCustomer(Integer id) {
+        return customerDao.selectCustomerById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(
+                        "customer with id %s not found!".formatted(id)
+                )));
+    }
+
+    public Mono<Void> addCustomer(@NotNull CustomerDTO customerDTO) {
+        Customer customer = Customer.builder()
+                .name(customerDTO.name())
+                .age(customerDTO.age())
+                .email(customerDTO.email())
+                .gender(customerDTO.gender())
+                .build();
+        return customerDao.insertCustomer(customer).then();
+    }
+
+    /**
+     * Reactive flavour of {@link CustomerBatchService#addCustomers}: customers are decoded from
+     * the request body as they arrive and inserted `customer.batch.chunk-size` at a time.
+     * The next chunk is only requested from the body once the previous one is written,
+     * so a fast client is held back by the database instead of being buffered
+     */
+    public Mono<CustomerBatchResult> addCustomers(Flux<CustomerDTO> body) {
+        return Mono.defer(() -> {
+            AtomicInteger received = new AtomicInteger();
+            AtomicInteger inserted = new AtomicInteger();
+            List<CustomerBatchResult.RowError> errors = new ArrayList<>();
+
+            return body.index()
+                    .doOnNext(row -> received.incrementAndGet())
+                    .buffer(chunkSize)
+                    .concatMap(chunk -> insertChunk(chunk, errors), 0)
+                    .doOnNext(inserted::addAndGet)
+                    .then(Mono.fromSupplier(() -> new CustomerBatchResult(received.get(), inserted.get(), errors)))
+                    .onErrorMap(DecodingException.class, e -> new RequestValidationException(
+                            "Malformed request body after row %s (%s customers inserted before it): %s"
+                                    .formatted(received.get(), inserted.get(), e.getMostSpecificCause().getMessage())
+                    ));
+        });
+    }
+
+    public Mono<Void> deleteCustomerById(Integer id) {
+        return customerDao.deletePersonById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(
+                        "Person with id %s does not exist!".formatted(id)
+                )))
+                .then();
+    }
+
+    public Mono<Void> updateCustomer(Integer id, CustomerDTO customerDTO) {
+        Customer update = Customer.builder()
+                .id(id)
+                .name(customerDTO.name())
+                .email(customerDTO.email())
+                .age(customerDTO.age())
+                .build();
+
+        if (update.getName() == null && update.getEmail() == null && update.getAge() == null) {
+            return Mono.error(new RequestValidationException("No data changes found."));
+        }
+
+        // as in CustomerService, the existence check only runs when nothing was updated
+        return customerDao.updatePerson(update)
+                .switchIfEmpty(Mono.defer(() -> customerDao.existsPersonWithId(id)
+                        .flatMap(exists -> Mono.error(exists
+                                ? new RequestValidationException("No data changes found.")
+                                : new ResourceNotFoundException("customer with id %s not found!".formatted(id))))))
+                .then();
+    }
+
+
+    /*---- Helper Methods -----*/
+    // validates a chunk of (row number, customer) pairs and inserts the valid ones; emits how many were inserted
+    private Mono<Integer> insertChunk(List<Tuple2<Long, CustomerDTO>> chunk, List<CustomerBatchResult.RowError> errors) {
+        List<Customer> customers = new ArrayList<>(chunk.size());
+        List<Integer> rows = new ArrayList<>(chunk.size());
+        for (Tuple2<Long, CustomerDTO> row : chunk) {
+            CustomerDTO dto = row.getT2();
+            String rejection = validate(dto);
+            if (rejection != null) {
+                errors.add(new CustomerBatchResult.RowError(row.getT1().intValue(), dto.email(), rejection));
+                continue;
+            }
+            customers.add(Customer.builder()
+                    .name(dto.name())
+                    .email(dto.email())
+                    .age(dto.age())
+                    .gender(dto.gender())
+                    .build());
+            rows.add(row.getT1().intValue());
+        }
+
+        return customerDao.insertCustomers(customers).map(counts -> {
+            int inserted = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    errors.add(new CustomerBatchResult.RowError(rows.get(i), customers.get(i).getEmail(), "Email already taken!"));
+                } else {
+                    inserted++;
+                }
+            }
+            return inserted;
+        });
+    }
+
+    private static String validate(CustomerDTO dto) {
+        if (dto.name() == null || dto.name().isBlank()) {
+            return "Missing name";
+        }
+        if (dto.email() == null || dto.email().isBlank()) {
+            return "Missing email";
+        }
+        if (dto.age() == null || dto.age() < 0) {
+            return "Invalid age";
+        }
+        if (dto.gender() == null) {
+            return "Invalid gender";
+        }
+        return null;
+    }
+}
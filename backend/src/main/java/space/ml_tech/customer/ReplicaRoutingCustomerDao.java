@@ -0,0 +1,52 @@
+package space.ml_tech.customer;
+
+import space.ml_tech.replication.ReadRouting;
+
+import java.util.List;
+
+/**
+ * Marks the read-only calls as ones a replica may serve (see {@link ReadRouting}); whether
+ * one does is up to the `DataSource`, which sends everything to the primary when there are no
+ * replicas. Writes stay on the primary, and so does `forEachCustomer`: the NDJSON export
+ * (`GET /api/v1/customers/export`) is one long read that shouldn't be cut short, or left behind,
+ * by a lagging replica.
+ * So does `selectCustomerById`, whose every call is a load of the {@link CachingCustomerDao} in
+ * front: a row a lagging replica served would be kept for the whole time-to-live, and handed out
+ * from the cache even to the client that wrote it and is stuck to the primary.
+ * Last, the reads behind an `ETag` (`selectAllCustomers` with `selectChangeCount`, and
+ * `selectCustomerVersion`) stay on the primary too: the tag and the body are two reads, which
+ * round-robin could send to replicas that lag differently, and a body older than its tag would
+ * be confirmed by 304s until the next write
+ */
+public class ReplicaRoutingCustomerDao extends ForwardingCustomerDao {
+
+    public ReplicaRoutingCustomerDao(CustomerDao delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public List<Customer> selectCustomersAfter(Integer afterId, int limit) {
+        return ReadRouting.onReplica(() -> delegate.selectCustomersAfter(afterId, limit));
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearchCriteria criteria, Integer afterId, int limit) {
+        return ReadRouting.onReplica(() -> delegate.searchCustomers(criteria, afterId, limit));
+    }
+
+    // a replica's snapshot frontier matches what it has replayed, so its watermarks are as safe as the primary's
+    @Override
+    public CustomerChangeLog selectChangesAfter(long afterTxid, int afterId, boolean withDeletions, int limit) {
+        return ReadRouting.onReplica(() -> delegate.selectChangesAfter(afterTxid, afterId, withDeletions, limit));
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        return ReadRouting.onReplica(() -> delegate.existsPersonWithEmail(email));
+    }
+
+    @Override
+    public boolean existsPersonWithId(Integer id) {
+        return ReadRouting.onReplica(() -> delegate.existsPersonWithId(id));
+    }
+}
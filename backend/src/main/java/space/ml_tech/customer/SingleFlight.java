@@ -0,0 +1,73 @@
+package space.ml_tech.customer;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical calls: the first caller of a key runs the call, and the ones
+ * that ask for the same key while it is in flight wait for its result (or its exception)
+ * instead of running it again. Nothing is kept once the call is done, so this isn't a cache:
+ * a caller never gets a result that was read before it asked, unless it asked while a write
+ * was still being made, and {@link #forget} makes sure that it doesn't after one.
+ * Waiting is on a future, which doesn't pin the carrier of a virtual thread.
+ * Results are shared as they are, so they mustn't be modified by the callers
+ */
+public class SingleFlight<K, V> {
+
+    private final String name;
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+
+    public V call(K key, Supplier<V> call) {
+        if (key == null) {
+            return call.get();
+        }
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            shared.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                // the leader's exception, as if we had made the call ourselves
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        calls.increment();
+        try {
+            V value = call.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    // callers from now on make their own call rather than waiting for one made before a write
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    public SingleFlightStats stats() {
+        long callCount = calls.sum();
+        long sharedCount = shared.sum();
+        long total = callCount + sharedCount;
+        return new SingleFlightStats(name, callCount, sharedCount, total == 0 ? 0 : (double) sharedCount / total);
+    }
+}
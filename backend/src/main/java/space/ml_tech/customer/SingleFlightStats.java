@@ -0,0 +1,12 @@
+package space.ml_tech.customer;
+
+/**
+ * Snapshot of a {@link SingleFlight}: `calls` made to the database, `shared` results handed to
+ * callers that asked while the same call was in flight, and the share of the callers that got one
+ * (`coalescingRatio`, 0.75 when a burst of four made a single call)
+ */
+public record SingleFlightStats(String operation,
+                                long calls,
+                                long shared,
+                                double coalescingRatio) {
+}
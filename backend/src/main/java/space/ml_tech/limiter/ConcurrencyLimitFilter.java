@@ -0,0 +1,107 @@
+package space.ml_tech.limiter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Puts the `/api/v1/customers` requests through the {@link ConcurrencyLimiter}: `GET` and `HEAD`
+ * as reads, everything else as writes. A request it turns away is answered right away with a
+ * 503 and a `Retry-After`, before it gets anywhere near a thread of the database or a connection.
+ * A request is measured until the handler returns; a streamed response (the export) holds its
+ * permit until the streaming is done, but its duration isn't fed to the limit. The change stream,
+ * whose subscribers stay connected indefinitely, is left out
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(value = "execution.limiter.enabled", matchIfMissing = true)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String CUSTOMERS_PATH = "/api/v1/customers";
+    // subscribers stay connected for good, and are capped by the feed itself
+    private static final String STREAM_PATH = CUSTOMERS_PATH + "/stream";
+
+    private final ConcurrencyLimiter limiter;
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimiter limiter,
+                                  @Value("${execution.limiter.retry-after:1s}") Duration retryAfter) {
+        this.limiter = limiter;
+        this.retryAfterSeconds = Long.toString(Math.max(1, retryAfter.toSeconds()));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith(CUSTOMERS_PATH)
+                || path.length() > CUSTOMERS_PATH.length() && path.charAt(CUSTOMERS_PATH.length()) != '/'
+                || path.startsWith(STREAM_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        ConcurrencyLimiter.Permit permit = limiter.tryAcquire(partition(request));
+        if (permit == null) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many concurrent requests, please retry later");
+            return;
+        }
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion(permit));
+            } else {
+                permit.release(failed);
+            }
+        }
+    }
+
+
+    /*---- Helper Methods -----*/
+    private static ConcurrencyLimiter.Partition partition(HttpServletRequest request) {
+        String method = request.getMethod();
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method)
+                ? ConcurrencyLimiter.Partition.READ
+                : ConcurrencyLimiter.Partition.WRITE;
+    }
+
+    private record ReleaseOnCompletion(ConcurrencyLimiter.Permit permit) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permit.releaseWithoutSample();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            permit.releaseWithoutSample();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            permit.releaseWithoutSample();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
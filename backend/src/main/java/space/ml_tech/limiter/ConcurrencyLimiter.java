@@ -0,0 +1,200 @@
+package space.ml_tech.limiter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lets at most {@link GradientLimit#limit()} requests in at a time, in two partitions: reads may
+ * only take `readShare` of the limit, so that writes always find room next to a burst of (bulk)
+ * reads, and a request that has to wait is let in writes first. A request waits for at most
+ * `maxQueueTime`, and only behind fewer than `maxQueueLength` others of its partition; past that
+ * it is rejected right away, since a request that waits longer mostly adds to the latency it
+ * is waiting out. Every request let in reports how long it took, which is what moves the limit
+ */
+@Component
+public class ConcurrencyLimiter {
+
+    public enum Partition {READ, WRITE}
+
+    // ----------- FIELDS & CONSTRUCTORS ----------- //
+    private final GradientLimit limit;
+    private final double readShare;
+    private final long maxQueueTimeNanos;
+    private final int maxQueueLength;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition readTurn = lock.newCondition();
+    private final Condition writeTurn = lock.newCondition();
+    private final LongAdder rejectedReads = new LongAdder();
+    private final LongAdder rejectedWrites = new LongAdder();
+    // guarded by `lock`
+    private int inFlightReads;
+    private int inFlightWrites;
+    private int queuedReads;
+    private int queuedWrites;
+
+    public ConcurrencyLimiter(@Value("${execution.limiter.initial-limit:20}") int initialLimit,
+                              @Value("${execution.limiter.min-limit:4}") int minLimit,
+                              @Value("${execution.limiter.max-limit:200}") int maxLimit,
+                              @Value("${execution.limiter.latency-tolerance:1.5}") double latencyTolerance,
+                              @Value("${execution.limiter.read-share:0.8}") double readShare,
+                              @Value("${execution.limiter.max-queue-time:50ms}") Duration maxQueueTime,
+                              @Value("${execution.limiter.max-queue-length:50}") int maxQueueLength) {
+        if (readShare <= 0 || readShare > 1) {
+            throw new IllegalArgumentException("readShare must be between 0 and 1");
+        }
+        this.limit = new GradientLimit(initialLimit, minLimit, maxLimit, latencyTolerance);
+        this.readShare = readShare;
+        this.maxQueueTimeNanos = maxQueueTime.toNanos();
+        this.maxQueueLength = maxQueueLength;
+    }
+
+
+    // ----------- METHODS ----------- //
+    // a permit to be released once the request is done, or null when the request is rejected
+    public Permit tryAcquire(Partition partition) {
+        lock.lock();
+        try {
+            if (!admit(partition)) {
+                if (queued(partition) >= maxQueueLength || !awaitTurn(partition)) {
+                    (partition == Partition.READ ? rejectedReads : rejectedWrites).increment();
+                    return null;
+                }
+            }
+            int inFlight = inFlightReads + inFlightWrites;
+            return new Permit(partition, inFlight, System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ConcurrencyLimiterStats stats() {
+        lock.lock();
+        try {
+            return new ConcurrencyLimiterStats(
+                    limit.limit(),
+                    limit.baselineMillis(),
+                    inFlightReads,
+                    inFlightWrites,
+                    queuedReads,
+                    queuedWrites,
+                    rejectedReads.sum(),
+                    rejectedWrites.sum()
+            );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public final class Permit {
+
+        private final Partition partition;
+        private final int inFlight;
+        private final long startNanos;
+        private boolean released;
+
+        private Permit(Partition partition, int inFlight, long startNanos) {
+            this.partition = partition;
+            this.inFlight = inFlight;
+            this.startNanos = startNanos;
+        }
+
+        // the request is done; `failed` when it failed in a way that points at overload (a 5xx)
+        public void release(boolean failed) {
+            if (free()) {
+                limit.onSample(System.nanoTime() - startNanos, inFlight, failed);
+            }
+        }
+
+        // the request is done, but how long it took says nothing about the load (a streamed response)
+        public void releaseWithoutSample() {
+            free();
+        }
+
+        private boolean free() {
+            lock.lock();
+            try {
+                if (released) {
+                    return false;
+                }
+                released = true;
+                if (partition == Partition.READ) {
+                    inFlightReads--;
+                } else {
+                    inFlightWrites--;
+                }
+                // writes first; one slot freed, one request woken
+                if (queuedWrites > 0) {
+                    writeTurn.signal();
+                } else if (queuedReads > 0) {
+                    readTurn.signal();
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+
+    /*---- Helper Methods -----*/
+    // under `lock`: takes a slot when there's one for the partition
+    private boolean admit(Partition partition) {
+        int currentLimit = limit.limit();
+        if (inFlightReads + inFlightWrites >= currentLimit) {
+            return false;
+        }
+        if (partition == Partition.WRITE) {
+            inFlightWrites++;
+            return true;
+        }
+        int maxReads = Math.max(1, (int) (currentLimit * readShare));
+        if (inFlightReads >= maxReads || queuedWrites > 0) {
+            return false;
+        }
+        inFlightReads++;
+        return true;
+    }
+
+    private int queued(Partition partition) {
+        return partition == Partition.READ ? queuedReads : queuedWrites;
+    }
+
+    // under `lock`: waits until a slot is taken, or `maxQueueTime` is over
+    private boolean awaitTurn(Partition partition) {
+        Condition turn = partition == Partition.READ ? readTurn : writeTurn;
+        if (partition == Partition.READ) {
+            queuedReads++;
+        } else {
+            queuedWrites++;
+        }
+        try {
+            long remainingNanos = maxQueueTimeNanos;
+            while (remainingNanos > 0) {
+                remainingNanos = turn.awaitNanos(remainingNanos);
+                if (admit(partition)) {
+                    return true;
+                }
+                // woken for a slot that a write queued in the meantime goes first for
+                if (partition == Partition.READ && queuedWrites > 0) {
+                    writeTurn.signal();
+                }
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            if (partition == Partition.READ) {
+                queuedReads--;
+            } else {
+                queuedWrites--;
+            }
+        }
+    }
+}
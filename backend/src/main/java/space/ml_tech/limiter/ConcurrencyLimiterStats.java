@@ -0,0 +1,15 @@
+package space.ml_tech.limiter;
+
+/**
+ * Snapshot of the {@link ConcurrencyLimiter}: the current `limit` and the no-load latency it
+ * is based on, and per partition the requests in flight, waiting for their turn, and turned away
+ */
+public record ConcurrencyLimiterStats(int limit,
+                                      double baselineMillis,
+                                      int inFlightReads,
+                                      int inFlightWrites,
+                                      int queuedReads,
+                                      int queuedWrites,
+                                      long rejectedReads,
+                                      long rejectedWrites) {
+}
@@ -0,0 +1,104 @@
+package space.ml_tech.limiter;
+
+/**
+ * A concurrency limit that follows the latency of the requests it lets through (the gradient
+ * algorithm of Netflix's concurrency-limits). Latencies are averaged over windows of
+ * `WINDOW_SIZE` samples and compared to the no-load latency: while a window is within
+ * `tolerance` times of it, the limit grows by about its square root; beyond, it shrinks by the
+ * ratio of the two, so that the requests let through keep the database at about its
+ * capacity instead of queueing inside it. Requests that failed (a 5xx, typically a pool or
+ * bulkhead timeout) cut the limit by `BACKOFF_RATIO` on the spot, once per window.
+ * The no-load latency is only learned from windows with little load (fewer requests in flight
+ * than half the limit), or at the minimum limit where there's nothing left to shed, so that the
+ * latency of an overload doesn't become the new normal
+ */
+public class GradientLimit {
+
+    static final int WINDOW_SIZE = 10;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double BASELINE_LEARNING_RATE = 0.1;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+
+    private volatile int limit;
+    private double estimatedLimit;
+    // the latency of a request when there's no queueing, 0 until the first window
+    private double baselineNanos;
+    private long windowSumNanos;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (tolerance < 1) {
+            throw new IllegalArgumentException("tolerance must be at least 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public synchronized double baselineMillis() {
+        return baselineNanos / 1e6;
+    }
+
+    /**
+     * One request done, after `latencyNanos`, with `inFlight` requests (itself included) in
+     * flight when it started
+     */
+    public synchronized void onSample(long latencyNanos, int inFlight, boolean dropped) {
+        if (dropped) {
+            // no need to wait for the window to back off from timeouts, but once per window is enough
+            if (!windowDropped) {
+                update(estimatedLimit * BACKOFF_RATIO);
+                windowDropped = true;
+            }
+            return;
+        }
+        windowSumNanos += latencyNanos;
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+        if (windowSamples < WINDOW_SIZE) {
+            return;
+        }
+        double latency = (double) windowSumNanos / windowSamples;
+        boolean appLimited = windowMaxInFlight < estimatedLimit / 2;
+        boolean backedOff = windowDropped;
+        windowSumNanos = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+
+        if (baselineNanos == 0 || latency < baselineNanos) {
+            baselineNanos = latency;
+        } else if (appLimited || limit == minLimit) {
+            baselineNanos += (latency - baselineNanos) * BASELINE_LEARNING_RATE;
+        }
+        // too few requests to tell anything about the capacity, or already cut for this window
+        if (appLimited || backedOff) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baselineNanos / latency));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        update(estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+    }
+
+
+    /*---- Helper Methods -----*/
+    private void update(double newLimit) {
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+}
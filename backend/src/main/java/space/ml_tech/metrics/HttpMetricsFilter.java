@@ -0,0 +1,79 @@
+package space.ml_tech.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records every request handled by a controller method, from the filter chain down to the
+ * written response (message conversion included), under the method's name, the HTTP method and
+ * the mapped path. A request fails when it throws or answers with a 5xx.
+ * The metrics of a handler are registered on its first request; after that a request costs a
+ * lookup by `Method` (whose hash code doesn't allocate) and the increments.
+ * Streamed responses are only timed until the streaming starts
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class HttpMetricsFilter extends OncePerRequestFilter {
+
+    private final MetricsRegistry metricsRegistry;
+    private final Map<Method, OperationMetrics> handlers = new ConcurrentHashMap<>();
+
+    public HttpMetricsFilter(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            // no handler (404, static resources, ...) means nothing to record
+            if (request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handlerMethod) {
+                OperationMetrics metrics = handlerMetrics(handlerMethod, request);
+                if (failed) {
+                    metrics.recordError(start);
+                } else {
+                    metrics.recordSuccess(start, 0);
+                }
+            }
+        }
+    }
+
+
+    /*---- Helper Methods -----*/
+    private OperationMetrics handlerMetrics(HandlerMethod handlerMethod, HttpServletRequest request) {
+        OperationMetrics metrics = handlers.get(handlerMethod.getMethod());
+        if (metrics == null) {
+            metrics = handlers.computeIfAbsent(handlerMethod.getMethod(), method -> metricsRegistry.httpEndpoint(
+                    handlerMethod.getBeanType().getSimpleName() + "." + method.getName(),
+                    request.getMethod(),
+                    path(request)
+            ));
+        }
+        return metrics;
+    }
+
+    // the mapped pattern (`/api/v1/customers/{id}`), without the trailing `/` some mappings also accept
+    private static String path(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String path = pattern == null ? request.getRequestURI() : pattern.toString();
+        return path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+}
@@ -0,0 +1,101 @@
+package space.ml_tech.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size, log-linear latency histogram in the spirit of HdrHistogram. Values up to 31ns
+ * get a bucket each; above that, every power of two is split into 16 equal buckets, so that a
+ * bucket is never wider than 1/16 (6.25%) of the values it holds. The range goes up to 2^36ns
+ * (~69s); anything slower lands in the last bucket.
+ * Recording is a bucket increment plus a sum, lock-free and allocation-free. Reads aren't atomic
+ * across buckets, which is good enough for scraping
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 36;
+    private static final int LINEAR_BUCKETS = 2 * SUB_BUCKETS;
+    static final int BUCKETS = LINEAR_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sumNanos = new LongAdder();
+
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.getAndIncrement(bucketIndex(value));
+        sumNanos.add(value);
+    }
+
+    public long sumNanos() {
+        return sumNanos.sum();
+    }
+
+    // a copy of the bucket counts, so that all the numbers derived from it agree with each other
+    public long[] snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    // how many values of `snapshot` are at most `nanos`; a bucket straddling `nanos` counts as below it
+    public static long countAtOrBelow(long[] snapshot, long nanos) {
+        long count = 0;
+        for (int i = 0; i < snapshot.length && lowestValue(i) <= nanos; i++) {
+            count += snapshot[i];
+        }
+        return count;
+    }
+
+    public static long count(long[] snapshot) {
+        long count = 0;
+        for (long bucket : snapshot) {
+            count += bucket;
+        }
+        return count;
+    }
+
+    // the lowest value of the bucket the `percentile` (0-100) falls into, or 0 when nothing was recorded
+    public static long valueAtPercentile(long[] snapshot, double percentile) {
+        long total = count(snapshot);
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return lowestValue(i);
+            }
+        }
+        return lowestValue(snapshot.length - 1);
+    }
+
+
+    /*---- Helper Methods -----*/
+    static int bucketIndex(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowestValue(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int shift = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        int subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + subBucket) << shift;
+    }
+}
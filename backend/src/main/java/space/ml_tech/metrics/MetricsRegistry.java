@@ -0,0 +1,114 @@
+package space.ml_tech.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The {@link OperationMetrics} of the DAO methods and the HTTP endpoints, and their rendering
+ * in the Prometheus text format. Operations are registered once (by the DAO decorators when they're
+ * created, by the HTTP filter on the first request of an endpoint) and then recorded into directly.
+ * Every operation is exported as `<family>_calls_total`, `<family>_errors_total`, `<family>_rows_total`
+ * (DAO methods only) and a `<family>_duration_seconds` histogram, whose buckets are sums of the
+ * much finer buckets of the {@link LatencyHistogram}
+ */
+@Component
+public class MetricsRegistry {
+
+    public static final String PROMETHEUS_CONTENT_TYPE = "text/plain;version=0.0.4;charset=utf-8";
+
+    // upper bounds of the exported histogram buckets, in seconds, as they appear in the `le` label
+    private static final String[] BUCKET_BOUNDS = {
+            "0.0001", "0.00025", "0.0005", "0.001", "0.0025", "0.005", "0.01", "0.025",
+            "0.05", "0.1", "0.25", "0.5", "1", "2.5", "5", "10"
+    };
+    private static final long[] BUCKET_BOUNDS_NANOS = Arrays.stream(BUCKET_BOUNDS)
+            .mapToLong(bound -> new BigDecimal(bound).movePointRight(9).longValueExact())
+            .toArray();
+
+    private final Family dao = new Family("customer_dao", "CustomerDao method calls", true);
+    private final Family http = new Family("customer_http", "HTTP requests", false);
+
+    public OperationMetrics daoOperation(String daoName, String method) {
+        return dao.operation("dao=\"%s\",method=\"%s\"".formatted(escape(daoName), escape(method)));
+    }
+
+    public OperationMetrics httpEndpoint(String handler, String method, String path) {
+        return http.operation("handler=\"%s\",method=\"%s\",path=\"%s\"".formatted(escape(handler), escape(method), escape(path)));
+    }
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+        dao.writeTo(out);
+        http.writeTo(out);
+        return out.toString();
+    }
+
+
+    /*---- Helper Methods -----*/
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\")
+                .replace("\"", "\\\"")
+                .replace("\n", "\\n");
+    }
+
+    private record Family(String name, String help, boolean withRows, Map<String, OperationMetrics> operations) {
+
+        Family(String name, String help, boolean withRows) {
+            // sorted by labels, so that the series of a family come out in a stable order
+            this(name, help, withRows, new ConcurrentSkipListMap<>());
+        }
+
+        OperationMetrics operation(String labels) {
+            return operations.computeIfAbsent(labels, key -> new OperationMetrics());
+        }
+
+        void writeTo(StringBuilder out) {
+            if (operations.isEmpty()) {
+                return;
+            }
+            // one snapshot per operation, so that calls, buckets and count all agree
+            Map<String, long[]> snapshots = new TreeMap<>();
+            operations.forEach((labels, metrics) -> snapshots.put(labels, metrics.latency().snapshot()));
+
+            header(out, name + "_calls_total", "counter", help + ", failed ones included");
+            snapshots.forEach((labels, snapshot) ->
+                    sample(out, name + "_calls_total", labels, LatencyHistogram.count(snapshot)));
+
+            header(out, name + "_errors_total", "counter", help + " that failed");
+            operations.forEach((labels, metrics) -> sample(out, name + "_errors_total", labels, metrics.errors()));
+
+            if (withRows) {
+                header(out, name + "_rows_total", "counter", "Rows returned or written by " + help);
+                operations.forEach((labels, metrics) -> sample(out, name + "_rows_total", labels, metrics.rows()));
+            }
+
+            String histogram = name + "_duration_seconds";
+            header(out, histogram, "histogram", "Duration of " + help);
+            snapshots.forEach((labels, snapshot) -> {
+                for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+                    long count = LatencyHistogram.countAtOrBelow(snapshot, BUCKET_BOUNDS_NANOS[i]);
+                    sample(out, histogram + "_bucket", labels + ",le=\"" + BUCKET_BOUNDS[i] + "\"", count);
+                }
+                long count = LatencyHistogram.count(snapshot);
+                sample(out, histogram + "_bucket", labels + ",le=\"+Inf\"", count);
+                out.append(histogram).append("_sum{").append(labels).append("} ")
+                        .append(operations.get(labels).latency().sumNanos() / 1e9).append('\n');
+                sample(out, histogram + "_count", labels, count);
+            });
+        }
+
+        private static void header(StringBuilder out, String metric, String type, String help) {
+            out.append("# HELP ").append(metric).append(' ').append(help).append('\n');
+            out.append("# TYPE ").append(metric).append(' ').append(type).append('\n');
+        }
+
+        private static void sample(StringBuilder out, String metric, String labels, long value) {
+            out.append(metric).append('{').append(labels).append("} ").append(value).append('\n');
+        }
+    }
+}
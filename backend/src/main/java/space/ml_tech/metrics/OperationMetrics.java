@@ -0,0 +1,37 @@
+package space.ml_tech.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, errors and rows of one operation (a DAO method, an endpoint). Callers keep a
+ * reference to it, so that recording is a couple of increments with no lookup and no allocation.
+ * Failed calls are timed too; the call count is the number of recorded latencies
+ */
+public final class OperationMetrics {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+
+    public void recordSuccess(long startNanos, long rowCount) {
+        latency.record(System.nanoTime() - startNanos);
+        rows.add(rowCount);
+    }
+
+    public void recordError(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+        errors.increment();
+    }
+
+    public LatencyHistogram latency() {
+        return latency;
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    public long rows() {
+        return rows.sum();
+    }
+}
@@ -0,0 +1,245 @@
+package space.ml_tech.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Hands out connections whose statements report each execution to the {@link SqlProfiler}.
+ * The time of a query is the time of its `execute` call plus the time spent in `ResultSet.next()`
+ * (so streamed reads count what they actually cost the database and the driver, but not what the
+ * caller does with each row), recorded once the result set or the statement is closed.
+ * Everything else (`unwrap` included, for `PGConnection`) goes straight to the real objects
+ */
+public class ProfilingDataSource extends DelegatingDataSource {
+
+    private static final Object[] NO_BINDS = new Object[0];
+
+    private final SqlProfiler sqlProfiler;
+
+    public ProfilingDataSource(DataSource targetDataSource, SqlProfiler sqlProfiler) {
+        super(targetDataSource);
+        this.sqlProfiler = sqlProfiler;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return profiled(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return profiled(obtainTargetDataSource().getConnection(username, password));
+    }
+
+
+    /*---- Helper Methods -----*/
+    private Connection profiled(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement statement) {
+                // `prepareStatement` / `prepareCall` come with their SQL, `createStatement` gets it per execution
+                String sql = args != null && args.length > 0 && args[0] instanceof String string ? string : null;
+                return proxy(method.getReturnType(), statement, new StatementHandler(statement, sql));
+            }
+            return result;
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(ProfilingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> "Profiled " + target;
+                    default -> handler.invoke(proxy, method, args);
+                });
+    }
+
+    private static long updatedRows(int[] counts) {
+        long rows = 0;
+        for (int count : counts) {
+            rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        }
+        return rows;
+    }
+
+    private static long updatedRows(long[] counts) {
+        long rows = 0;
+        for (long count : counts) {
+            rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        }
+        return rows;
+    }
+
+    // one execution whose rows are still being read
+    private final class Execution {
+
+        private final String sql;
+        private final Object[] binds;
+        private long nanos;
+        private long rows;
+        private boolean recorded;
+
+        Execution(String sql, Object[] binds, long nanos) {
+            this.sql = sql;
+            this.binds = binds;
+            this.nanos = nanos;
+        }
+
+        void finish(boolean failed) {
+            if (!recorded) {
+                recorded = true;
+                sqlProfiler.record(sql, nanos, rows, failed, binds);
+            }
+        }
+
+        ResultSet profiled(ResultSet resultSet) {
+            return proxy(ResultSet.class, resultSet, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "next" -> {
+                        long start = System.nanoTime();
+                        try {
+                            boolean next = resultSet.next();
+                            nanos += System.nanoTime() - start;
+                            if (next) {
+                                rows++;
+                            }
+                            return next;
+                        } catch (SQLException e) {
+                            nanos += System.nanoTime() - start;
+                            finish(true);
+                            throw e;
+                        }
+                    }
+                    case "close" -> {
+                        try {
+                            return invoke(resultSet, method, args);
+                        } finally {
+                            finish(false);
+                        }
+                    }
+                    default -> {
+                        return invoke(resultSet, method, args);
+                    }
+                }
+            });
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final String preparedSql;
+        private Object[] binds = NO_BINDS;
+        private int bindCount;
+        private Execution pending;
+
+        StatementHandler(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                bind(index, name.equals("setNull") ? null : args[1]);
+                return ProfilingDataSource.invoke(statement, method, args);
+            }
+            return switch (name) {
+                case "executeQuery", "execute", "executeUpdate", "executeLargeUpdate",
+                        "executeBatch", "executeLargeBatch" -> execute(method, args);
+                case "getResultSet" -> {
+                    Object result = ProfilingDataSource.invoke(statement, method, args);
+                    yield result instanceof ResultSet resultSet && pending != null
+                            ? pending.profiled(resultSet)
+                            : result;
+                }
+                case "clearParameters" -> {
+                    binds = NO_BINDS;
+                    bindCount = 0;
+                    yield ProfilingDataSource.invoke(statement, method, args);
+                }
+                case "close" -> {
+                    try {
+                        yield ProfilingDataSource.invoke(statement, method, args);
+                    } finally {
+                        finishPending();
+                    }
+                }
+                default -> ProfilingDataSource.invoke(statement, method, args);
+            };
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            finishPending();
+            // a plain `Statement` gets its SQL with the call; a batch of those is reported as the statement itself
+            String sql = args != null && args.length > 0 && args[0] instanceof String string ? string : preparedSql;
+            if (sql == null) {
+                sql = "(batch)";
+            }
+            Object[] executedBinds = bindCount == 0 ? NO_BINDS : Arrays.copyOf(binds, bindCount);
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = ProfilingDataSource.invoke(statement, method, args);
+            } catch (Throwable e) {
+                sqlProfiler.record(sql, System.nanoTime() - start, 0, true, executedBinds);
+                throw e;
+            }
+            long nanos = System.nanoTime() - start;
+            if (result instanceof ResultSet resultSet) {
+                pending = new Execution(sql, executedBinds, nanos);
+                return pending.profiled(resultSet);
+            }
+            if (result instanceof Boolean hasResultSet && hasResultSet) {
+                // rows to come through `getResultSet`
+                pending = new Execution(sql, executedBinds, nanos);
+                return result;
+            }
+            long rows = switch (result) {
+                case Integer count -> Math.max(count, 0);
+                case Long count -> Math.max(count, 0);
+                case int[] counts -> updatedRows(counts);
+                case long[] counts -> updatedRows(counts);
+                default -> Math.max(statement.getUpdateCount(), 0);
+            };
+            sqlProfiler.record(sql, nanos, rows, false, executedBinds);
+            return result;
+        }
+
+        private void bind(int index, Object value) {
+            if (index > binds.length) {
+                binds = Arrays.copyOf(binds, Math.max(index, binds.length * 2));
+            }
+            binds[index - 1] = value;
+            bindCount = Math.max(bindCount, index);
+        }
+
+        private void finishPending() {
+            if (pending != null) {
+                pending.finish(false);
+                pending = null;
+            }
+        }
+    }
+}
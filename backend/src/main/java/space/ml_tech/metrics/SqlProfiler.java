@@ -0,0 +1,165 @@
+package space.ml_tech.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import space.ml_tech.customer.CustomerDao;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Per-statement execution stats of everything that goes through the JDBC `DataSource` (see
+ * {@link ProfilingDataSource}), grouped by fingerprint: the SQL with its whitespace collapsed, its
+ * literals replaced by `?` and its `IN (...)` / multi-row `VALUES` lists folded to one element, so
+ * that the same statement with other values or another batch size counts as one.
+ * Statements slower than `metrics.sql.slow-threshold` are logged with their bind parameters and the
+ * `CustomerDao` method (or failing that, the first application method) they were run from
+ */
+@Component
+public class SqlProfiler {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlProfiler.class);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$.])-?\\d+(?:\\.\\d+)?(?![\\w$])");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN \\(\\?(?:, \\?)+\\)");
+    private static final Pattern VALUES_ROWS = Pattern.compile("(\\([?, ]+\\))(?:, \\([?, ]+\\))+");
+    private static final String OTHER_STATEMENTS = "(other statements)";
+    private static final int MAX_LOGGED_BIND_LENGTH = 100;
+
+    private final long slowThresholdNanos;
+    private final int maxStatements;
+    // by the SQL string as it was executed, so that an execution costs a lookup rather than a fingerprint
+    private final Map<String, StatementStats> bySql = new ConcurrentHashMap<>();
+    private final Map<String, StatementStats> byFingerprint = new ConcurrentHashMap<>();
+
+    public SqlProfiler(@Value("${metrics.sql.slow-threshold:100ms}") Duration slowThreshold,
+                       @Value("${metrics.sql.max-statements:500}") int maxStatements) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.maxStatements = maxStatements;
+    }
+
+    public void record(String sql, long nanos, long rows, boolean failed, Object[] binds) {
+        StatementStats stats = stats(sql);
+        stats.latency.record(nanos);
+        stats.rows.add(rows);
+        if (failed) {
+            stats.errors.increment();
+        }
+        if (nanos >= slowThresholdNanos) {
+            log.warn("Slow SQL statement: {} ms, {} rows{}, from {}, binds {}: {}",
+                    "%.1f".formatted(nanos / 1e6), rows, failed ? ", failed" : "",
+                    caller(), describe(binds), WHITESPACE.matcher(sql).replaceAll(" ").strip());
+        }
+    }
+
+    // the `limit` statements with the highest total execution time
+    public List<SqlStatementStats> top(int limit) {
+        return byFingerprint.entrySet().stream()
+                .map(entry -> entry.getValue().report(entry.getKey()))
+                .filter(stats -> stats.calls() > 0)
+                .sorted(Comparator.comparingDouble(SqlStatementStats::totalMillis).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public void reset() {
+        bySql.clear();
+        byFingerprint.clear();
+    }
+
+    static String fingerprint(String sql) {
+        String fingerprint = WHITESPACE.matcher(sql).replaceAll(" ").strip();
+        fingerprint = STRING_LITERAL.matcher(fingerprint).replaceAll("?");
+        fingerprint = NUMBER_LITERAL.matcher(fingerprint).replaceAll("?");
+        fingerprint = IN_LIST.matcher(fingerprint).replaceAll("IN (?, ...)");
+        return VALUES_ROWS.matcher(fingerprint).replaceAll("$1, ...");
+    }
+
+
+    /*---- Helper Methods -----*/
+    private StatementStats stats(String sql) {
+        StatementStats stats = bySql.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        // past `maxStatements` distinct fingerprints, new ones are lumped together instead of growing without end
+        String fingerprint = fingerprint(sql);
+        stats = byFingerprint.get(fingerprint);
+        if (stats == null) {
+            stats = byFingerprint.size() < maxStatements
+                    ? byFingerprint.computeIfAbsent(fingerprint, key -> new StatementStats())
+                    : byFingerprint.computeIfAbsent(OTHER_STATEMENTS, key -> new StatementStats());
+        }
+        if (bySql.size() < maxStatements) {
+            bySql.put(sql, stats);
+        }
+        return stats;
+    }
+
+    // only walked for slow statements: the innermost `CustomerDao` frame, else the innermost application frame
+    private static String caller() {
+        return StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE).walk(frames -> {
+            List<StackWalker.StackFrame> application = frames
+                    .filter(frame -> frame.getClassName().startsWith("space.ml_tech.")
+                            && !frame.getClassName().startsWith("space.ml_tech.metrics."))
+                    .toList();
+            return application.stream()
+                    .filter(frame -> CustomerDao.class.isAssignableFrom(frame.getDeclaringClass()))
+                    .findFirst()
+                    .or(() -> application.stream().findFirst())
+                    .map(frame -> frame.getDeclaringClass().getSimpleName() + "." + frame.getMethodName())
+                    .orElse("unknown");
+        });
+    }
+
+    private static String describe(Object[] binds) {
+        if (binds == null || binds.length == 0) {
+            return "[]";
+        }
+        return Arrays.stream(binds)
+                .map(bind -> {
+                    if (bind == null) {
+                        return "null";
+                    }
+                    String value = bind.toString();
+                    if (value.length() > MAX_LOGGED_BIND_LENGTH) {
+                        value = value.substring(0, MAX_LOGGED_BIND_LENGTH) + "...";
+                    }
+                    return bind instanceof Number || bind instanceof Boolean ? value : "'" + value + "'";
+                })
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private static final class StatementStats {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+
+        SqlStatementStats report(String fingerprint) {
+            long[] snapshot = latency.snapshot();
+            long calls = LatencyHistogram.count(snapshot);
+            double totalMillis = latency.sumNanos() / 1e6;
+            return new SqlStatementStats(
+                    fingerprint,
+                    calls,
+                    errors.sum(),
+                    rows.sum(),
+                    totalMillis,
+                    calls == 0 ? 0 : totalMillis / calls,
+                    LatencyHistogram.valueAtPercentile(snapshot, 99) / 1e6
+            );
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package space.ml_tech.metrics;
+
+/**
+ * One line of the "most expensive statements" report: all the executions of statements
+ * with the same fingerprint (the SQL with its literals and repeated value lists folded away)
+ */
+public record SqlStatementStats(String fingerprint,
+                                long calls,
+                                long errors,
+                                long rows,
+                                double totalMillis,
+                                double meanMillis,
+                                double p99Millis) {
+}
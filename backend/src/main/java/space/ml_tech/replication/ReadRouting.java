@@ -0,0 +1,50 @@
+package space.ml_tech.replication;
+
+import java.util.function.Supplier;
+
+/**
+ * Where the connections of the current thread go, as far as the {@link ReplicaRoutingDataSource}
+ * is concerned: to the primary, unless the thread is inside {@link #onReplica} and isn't
+ * {@link #stickToPrimaryUntil stuck to the primary} after a write of the same client.
+ * The route is read when a connection is taken, so a transaction that already holds one keeps it
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+    private static final ThreadLocal<Long> PRIMARY_UNTIL = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    // runs a read that may be served by a replica
+    public static <T> T onReplica(Supplier<T> read) {
+        if (Boolean.TRUE.equals(READ_ONLY.get())) {
+            return read.get();
+        }
+        READ_ONLY.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            READ_ONLY.remove();
+        }
+    }
+
+    // reads of this thread go to the primary until `epochMillis` (read-your-writes)
+    public static void stickToPrimaryUntil(long epochMillis) {
+        PRIMARY_UNTIL.set(epochMillis);
+    }
+
+    public static void clear() {
+        PRIMARY_UNTIL.remove();
+    }
+
+    // whether the current thread is inside `onReplica`
+    public static boolean isReadOnly() {
+        return Boolean.TRUE.equals(READ_ONLY.get());
+    }
+
+    static boolean isStuckToPrimary() {
+        Long until = PRIMARY_UNTIL.get();
+        return until != null && until > System.currentTimeMillis();
+    }
+}
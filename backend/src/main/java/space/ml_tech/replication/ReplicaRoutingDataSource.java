@@ -0,0 +1,211 @@
+package space.ml_tech.replication;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out connections to the primary, or, for the reads of a thread inside
+ * {@link ReadRouting#onReplica}, to the next replica (round-robin) that is up and at most
+ * `maxLag` behind the primary. The lag of every replica is measured every `lagCheckInterval`
+ * by a background thread; a replica that can't be reached is skipped until a check reaches it
+ * again, and its read retried on the primary. When no replica qualifies, the read goes to the
+ * primary too, so a replica is only ever a place to take reads off the primary, never a
+ * requirement. Anything that isn't a {@link DataSource} method (`unwrap` to the pool included)
+ * goes to the primary, and closing it closes all the pools
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    // 0 on the primary (or a stand-in replica) and on a replica that has replayed all it has received,
+    // otherwise the age of the last transaction it replayed
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                       WHEN NOT pg_is_in_recovery() THEN 0
+                       WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                       ELSE coalesce(extract(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+                   END
+            """;
+
+    // ----------- FIELDS & CONSTRUCTORS ----------- //
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+    private final ScheduledExecutorService lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-lag-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    List<? extends DataSource> replicas,
+                                    Duration maxLag,
+                                    Duration lagCheckInterval) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.maxLagMillis = maxLag.toMillis();
+        // the first check runs right away, replicas take no reads until it has measured them
+        lagChecker.scheduleWithFixedDelay(this::checkLag, 0, lagCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+
+    // ----------- METHODS ----------- //
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!ReadRouting.isReadOnly()) {
+            primaryConnections.increment();
+            return primary.getConnection();
+        }
+        if (!ReadRouting.isStuckToPrimary()) {
+            for (int attempt = 0; attempt < replicas.size(); attempt++) {
+                Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+                if (replica.isUsable(maxLagMillis)) {
+                    try {
+                        Connection connection = replica.dataSource.getConnection();
+                        replica.reads.increment();
+                        return connection;
+                    } catch (SQLException e) {
+                        replica.markDown(e);
+                    }
+                }
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // the replicas have credentials of their own
+        primaryConnections.increment();
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> type) throws SQLException {
+        return type.isInstance(this) ? (T) this : primary.unwrap(type);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> type) throws SQLException {
+        return type.isInstance(this) || primary.isWrapperFor(type);
+    }
+
+    public ReplicationStats stats() {
+        long replicaReads = 0;
+        for (Replica replica : replicas) {
+            replicaReads += replica.reads.sum();
+        }
+        return new ReplicationStats(
+                primaryConnections.sum(),
+                primaryReads.sum(),
+                replicaReads,
+                replicas.stream().map(Replica::stats).toList()
+        );
+    }
+
+    // runs a check of every replica now, rather than waiting for the next scheduled one
+    public void checkLagNow() {
+        try {
+            lagChecker.submit(this::checkLag).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Replica lag check failed", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lagChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+
+    /*---- Helper Methods -----*/
+    private void checkLag() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                rs.next();
+                replica.markUp(Math.round(rs.getDouble(1)));
+            } catch (SQLException e) {
+                replica.markDown(e);
+            }
+        }
+    }
+
+    private static final class Replica {
+
+        private final DataSource dataSource;
+        private final LongAdder reads = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        // -1 until it has been measured, and while the replica is down
+        private volatile long lagMillis = -1;
+
+        Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        boolean isUsable(long maxLagMillis) {
+            long lag = lagMillis;
+            return lag >= 0 && lag <= maxLagMillis;
+        }
+
+        void markUp(long lagMillis) {
+            if (this.lagMillis < 0) {
+                log.info("Replica {} is up, {} ms behind", this, lagMillis);
+            }
+            this.lagMillis = lagMillis;
+        }
+
+        void markDown(SQLException e) {
+            failures.increment();
+            if (lagMillis >= 0) {
+                log.warn("Replica {} is down, its reads go to the primary: {}", this, e.getMessage());
+            }
+            lagMillis = -1;
+        }
+
+        ReplicationStats.Replica stats() {
+            long lag = lagMillis;
+            return new ReplicationStats.Replica(toString(), lag >= 0, lag, reads.sum(), failures.sum());
+        }
+
+        @Override
+        public String toString() {
+            return dataSource instanceof HikariDataSource hikari
+                    ? hikari.getJdbcUrl()
+                    : dataSource.toString();
+        }
+    }
+}
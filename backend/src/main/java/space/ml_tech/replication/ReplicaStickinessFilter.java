@@ -0,0 +1,92 @@
+package space.ml_tech.replication;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Read-your-writes for the clients of the servlet stack. A request that may write (anything but
+ * `GET`, `HEAD` and `OPTIONS`) reads from the primary, and answers with a cookie holding the time
+ * until which its client's reads should too (`replication.sticky-window` from now); the requests
+ * that come back with that cookie, unexpired, read from the primary as well.
+ * The cookie is set before the request is handled, so that it's there even on streamed responses
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty("replication.replicas[0].url")
+public class ReplicaStickinessFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "read-primary-until";
+
+    private final long stickyWindowMillis;
+
+    public ReplicaStickinessFilter(@Value("${replication.sticky-window:5s}") Duration stickyWindow) {
+        this.stickyWindowMillis = stickyWindow.toMillis();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        try {
+            if (isWrite(request)) {
+                long until = System.currentTimeMillis() + stickyWindowMillis;
+                ReadRouting.stickToPrimaryUntil(until);
+                response.addCookie(cookie(until));
+            } else {
+                long until = stickyUntil(request);
+                if (until > 0) {
+                    ReadRouting.stickToPrimaryUntil(until);
+                }
+            }
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadRouting.clear();
+        }
+    }
+
+
+    /*---- Helper Methods -----*/
+    private static boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method) && !HttpMethod.OPTIONS.matches(method);
+    }
+
+    private Cookie cookie(long until) {
+        Cookie cookie = new Cookie(COOKIE, Long.toString(until));
+        cookie.setPath("/");
+        cookie.setMaxAge((int) ((stickyWindowMillis + 999) / 1000));
+        cookie.setHttpOnly(true);
+        cookie.setAttribute("SameSite", "Lax");
+        return cookie;
+    }
+
+    // 0 when there is no cookie, or one the client made up
+    private static long stickyUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
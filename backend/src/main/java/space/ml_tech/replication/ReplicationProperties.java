@@ -0,0 +1,28 @@
+package space.ml_tech.replication;
+
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The `replication.*` settings. Reads only go to a replica at most `maxLag` behind the primary,
+ * and a client that wrote something reads from the primary for `stickyWindow` afterwards, so
+ * with a window at least as long as the lag a client always sees its own writes
+ */
+public record ReplicationProperties(@DefaultValue List<Replica> replicas,
+                                    @DefaultValue("1s") Duration maxLag,
+                                    @DefaultValue("5s") Duration stickyWindow,
+                                    @DefaultValue("1s") Duration lagCheckInterval,
+                                    @DefaultValue("1s") Duration connectionTimeout) {
+
+    public ReplicationProperties {
+        if (stickyWindow.compareTo(maxLag) < 0) {
+            throw new IllegalArgumentException("replication.sticky-window must be at least replication.max-lag");
+        }
+    }
+
+    // without credentials of its own, a replica is connected to with those of the primary
+    public record Replica(String url, String username, String password) {
+    }
+}
@@ -0,0 +1,18 @@
+package space.ml_tech.replication;
+
+import java.util.List;
+
+/**
+ * Connections handed out by the {@link ReplicaRoutingDataSource}: `primaryConnections` for anything
+ * but a routed read (writes, Flyway, JPA, ...), `primaryReads` for the routed reads that went to the
+ * primary anyway (stuck to it after a write, or no replica within `max-lag`)
+ */
+public record ReplicationStats(long primaryConnections,
+                               long primaryReads,
+                               long replicaReads,
+                               List<Replica> replicas) {
+
+    // `lagMillis` is -1 while the replica can't be reached
+    public record Replica(String url, boolean available, long lagMillis, long reads, long failures) {
+    }
+}
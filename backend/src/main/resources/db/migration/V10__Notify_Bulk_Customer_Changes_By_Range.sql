@@ -0,0 +1,57 @@
+-- a statement that changed more than 100 rows sent a single {"op": "RESYNC"} (see V6 and V7), upon which
+-- every node dropped its whole cache and reset every stream subscriber. Each chunk of
+-- `POST /api/v1/customers/batch` (500 rows by default) did that. Statements of up to 1000 rows now announce
+-- every row. A larger one (a CSV import, a mass update) sends one message for the range of ids it changed:
+-- {"op": "INSERT" | "UPDATE" | "DELETE", "fromId": ..., "toId": ..., "count": ...}, so that listeners only
+-- drop what they hold in that range. RESYNC is left for a TRUNCATE, and for a row too big for a notification
+CREATE OR REPLACE FUNCTION notify_customer_changes() RETURNS TRIGGER AS $$
+DECLARE
+    changed_rows BIGINT;
+    payloads TEXT[];
+BEGIN
+    IF TG_OP = 'TRUNCATE' THEN
+        PERFORM pg_notify('customer_changes', json_build_object('op', 'RESYNC')::text);
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP = 'INSERT' THEN
+        SELECT count(*) INTO changed_rows FROM new_rows;
+    ELSE
+        SELECT count(*) INTO changed_rows FROM old_rows;
+    END IF;
+    IF changed_rows > 1000 THEN
+        IF TG_OP = 'INSERT' THEN
+            PERFORM pg_notify('customer_changes', json_build_object(
+                        'op', TG_OP, 'fromId', min(id), 'toId', max(id), 'count', changed_rows)::text)
+            FROM new_rows;
+        ELSE
+            PERFORM pg_notify('customer_changes', json_build_object(
+                        'op', TG_OP, 'fromId', min(id), 'toId', max(id), 'count', changed_rows)::text)
+            FROM old_rows;
+        END IF;
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP = 'INSERT' THEN
+        payloads := ARRAY(
+            SELECT json_build_object('op', TG_OP, 'id', id, 'email', email, 'customer', row_to_json(new_rows))::text
+            FROM new_rows);
+    ELSIF TG_OP = 'UPDATE' THEN
+        payloads := ARRAY(
+            SELECT json_build_object('op', TG_OP, 'id', new_rows.id, 'email', new_rows.email,
+                                     'previousEmail', old_rows.email, 'customer', row_to_json(new_rows))::text
+            FROM new_rows JOIN old_rows ON old_rows.id = new_rows.id);
+    ELSE
+        payloads := ARRAY(
+            SELECT json_build_object('op', TG_OP, 'id', id, 'email', email, 'customer', row_to_json(old_rows))::text
+            FROM old_rows);
+    END IF;
+
+    IF EXISTS (SELECT FROM unnest(payloads) AS payload WHERE octet_length(payload) > 7999) THEN
+        PERFORM pg_notify('customer_changes', json_build_object('op', 'RESYNC')::text);
+    ELSE
+        PERFORM pg_notify('customer_changes', payload) FROM unnest(payloads) AS payload;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,23 @@
+-- every deleted customer left a tombstone for good (see V8), so `customer_tombstone` grew with every delete.
+-- A tombstone is only of use to a client that synced before the deletion and hasn't since, so tombstones
+-- older than `customer.changes.tombstone-retention` are pruned. Those deletions are then lost for good:
+-- in the same transaction the floor is raised to the newest pruned tombstone, so that a client which
+-- hadn't synced past it starts over, while one that had carries on
+CREATE FUNCTION prune_customer_tombstones(retention INTERVAL) RETURNS BIGINT AS $$
+DECLARE
+    pruned BIGINT;
+    newest XID8;
+BEGIN
+    WITH deleted AS (
+        DELETE FROM customer_tombstone
+        WHERE deleted_at < now() - retention
+        RETURNING changed_xid
+    )
+    SELECT count(*), max(changed_xid) INTO pruned, newest FROM deleted;
+
+    IF newest IS NOT NULL THEN
+        UPDATE customer_change_floor SET changed_xid = greatest(changed_xid, newest);
+    END IF;
+    RETURN pruned;
+END;
+$$ LANGUAGE plpgsql;
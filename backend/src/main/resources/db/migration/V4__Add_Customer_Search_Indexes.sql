@@ -0,0 +1,11 @@
+-- indexes behind the filters of `GET /api/v1/customers`
+
+-- age range filters
+CREATE INDEX customer_age_idx ON customer (age);
+
+-- name prefix search (`name LIKE 'prefix%'`): `text_pattern_ops` compares byte-wise,
+-- so the index can serve LIKE prefixes whatever the database collation is
+CREATE INDEX customer_name_pattern_idx ON customer (name text_pattern_ops);
+
+-- email domain filter; queries must use this exact expression to hit the index
+CREATE INDEX customer_email_domain_idx ON customer (lower(split_part(email, '@', 2)));
@@ -0,0 +1,27 @@
+-- row version behind the `ETag` of `GET /api/v1/customers/{id}`: JPA bumps it through `@Version`,
+-- the JDBC DAO with `version = version + 1` in its `UPDATE`
+ALTER TABLE customer
+ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+-- table-level change counter behind the `ETag` of `GET /api/v1/customers`, bumped once per writing
+-- statement. It's spread over 16 rows picked by backend pid, so that concurrent writers don't
+-- queue up on one row lock until they commit; the counter is the sum of the rows. Being an
+-- ordinary table, a reader sees it change exactly when it sees the customers change
+CREATE TABLE customer_changes (
+    slot INT PRIMARY KEY,
+    changes BIGINT NOT NULL
+);
+
+INSERT INTO customer_changes (slot, changes)
+SELECT slot, 0 FROM generate_series(0, 15) AS slot;
+
+CREATE FUNCTION count_customer_change() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE customer_changes SET changes = changes + 1 WHERE slot = pg_backend_pid() % 16;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_changed
+AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON customer
+FOR EACH STATEMENT EXECUTE FUNCTION count_customer_change();
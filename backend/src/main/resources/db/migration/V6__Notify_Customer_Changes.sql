@@ -0,0 +1,57 @@
+-- every committed change to `customer` is announced on the `customer_changes` channel, so that each
+-- backend node can drop what it has cached about the customer, whichever node (or tool) wrote it.
+-- One JSON message per row: {"op": "INSERT" | "UPDATE" | "DELETE", "id": ..., "email": ..., "previousEmail": ...}.
+-- A statement that changes more than 100 rows (a bulk import, say) sends a single {"op": "RESYNC"}
+-- instead, as does TRUNCATE: it's cheaper for the listeners to start over than to go through them all.
+-- Postgres only delivers notifications on commit, and drops those of a rolled back transaction
+CREATE FUNCTION notify_customer_changes() RETURNS TRIGGER AS $$
+DECLARE
+    changed_rows BIGINT;
+BEGIN
+    IF TG_OP = 'TRUNCATE' THEN
+        PERFORM pg_notify('customer_changes', json_build_object('op', 'RESYNC')::text);
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP = 'INSERT' THEN
+        SELECT count(*) INTO changed_rows FROM new_rows;
+    ELSE
+        SELECT count(*) INTO changed_rows FROM old_rows;
+    END IF;
+
+    IF changed_rows > 100 THEN
+        PERFORM pg_notify('customer_changes', json_build_object('op', 'RESYNC')::text);
+    ELSIF TG_OP = 'INSERT' THEN
+        PERFORM pg_notify('customer_changes', json_build_object('op', TG_OP, 'id', id, 'email', email)::text)
+        FROM new_rows;
+    ELSIF TG_OP = 'UPDATE' THEN
+        PERFORM pg_notify('customer_changes', json_build_object(
+                    'op', TG_OP, 'id', new_rows.id, 'email', new_rows.email, 'previousEmail', old_rows.email)::text)
+        FROM new_rows JOIN old_rows ON old_rows.id = new_rows.id;
+    ELSE
+        PERFORM pg_notify('customer_changes', json_build_object('op', TG_OP, 'id', id, 'email', email)::text)
+        FROM old_rows;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- statement-level, with the changed rows as transition tables (which can only be had one event per trigger)
+CREATE TRIGGER customer_inserted_notify
+AFTER INSERT ON customer
+REFERENCING NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION notify_customer_changes();
+
+CREATE TRIGGER customer_updated_notify
+AFTER UPDATE ON customer
+REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION notify_customer_changes();
+
+CREATE TRIGGER customer_deleted_notify
+AFTER DELETE ON customer
+REFERENCING OLD TABLE AS old_rows
+FOR EACH STATEMENT EXECUTE FUNCTION notify_customer_changes();
+
+CREATE TRIGGER customer_truncated_notify
+AFTER TRUNCATE ON customer
+FOR EACH STATEMENT EXECUTE FUNCTION notify_customer_changes();
@@ -0,0 +1,47 @@
+-- the `customer_changes` notifications (see V6) also carry the changed row as "customer" (the row as it
+-- was, for a deletion), so that listeners can pass it on without reading it back. A notification
+-- can't be larger than 8000 bytes, and `pg_notify` fails the write rather than send it: if any
+-- row of the statement doesn't fit, a single {"op": "RESYNC"} goes out instead
+CREATE OR REPLACE FUNCTION notify_customer_changes() RETURNS TRIGGER AS $$
+DECLARE
+    changed_rows BIGINT;
+    payloads TEXT[];
+BEGIN
+    IF TG_OP = 'TRUNCATE' THEN
+        PERFORM pg_notify('customer_changes', json_build_object('op', 'RESYNC')::text);
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP = 'INSERT' THEN
+        SELECT count(*) INTO changed_rows FROM new_rows;
+    ELSE
+        SELECT count(*) INTO changed_rows FROM old_rows;
+    END IF;
+    IF changed_rows > 100 THEN
+        PERFORM pg_notify('customer_changes', json_build_object('op', 'RESYNC')::text);
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP = 'INSERT' THEN
+        payloads := ARRAY(
+            SELECT json_build_object('op', TG_OP, 'id', id, 'email', email, 'customer', row_to_json(new_rows))::text
+            FROM new_rows);
+    ELSIF TG_OP = 'UPDATE' THEN
+        payloads := ARRAY(
+            SELECT json_build_object('op', TG_OP, 'id', new_rows.id, 'email', new_rows.email,
+                                     'previousEmail', old_rows.email, 'customer', row_to_json(new_rows))::text
+            FROM new_rows JOIN old_rows ON old_rows.id = new_rows.id);
+    ELSE
+        payloads := ARRAY(
+            SELECT json_build_object('op', TG_OP, 'id', id, 'email', email, 'customer', row_to_json(old_rows))::text
+            FROM old_rows);
+    END IF;
+
+    IF EXISTS (SELECT FROM unnest(payloads) AS payload WHERE octet_length(payload) > 7999) THEN
+        PERFORM pg_notify('customer_changes', json_build_object('op', 'RESYNC')::text);
+    ELSE
+        PERFORM pg_notify('customer_changes', payload) FROM unnest(payloads) AS payload;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,74 @@
+-- change tracking behind `GET /api/v1/customers/changes?since=`: every customer row carries the
+-- transaction that last wrote it, and every deleted customer leaves a tombstone carrying the transaction
+-- that deleted it. Column defaults and triggers keep them, so writes through any DAO, the CSV import
+-- or plain SQL are all tracked.
+--
+-- The watermark is built on transaction ids rather than on `updated_at`: `now()` is the time a transaction
+-- started, so one that commits late carries a time older than changes already handed out, and would be
+-- skipped. Every transaction below `pg_snapshot_xmin(pg_current_snapshot())` is over, so no change can
+-- still show up below that frontier
+ALTER TABLE customer
+ADD COLUMN updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+ADD COLUMN changed_xid XID8 NOT NULL DEFAULT '0';
+
+-- existing rows keep 0 and come with a client's first sync; from now on each row gets its writer's
+-- transaction (a constant default above, so that adding the column doesn't rewrite the table)
+ALTER TABLE customer
+ALTER COLUMN changed_xid SET DEFAULT pg_current_xact_id();
+
+-- an incremental sync reads only the rows after its watermark, however big the table is
+CREATE INDEX customer_changed_xid_idx ON customer (changed_xid, id);
+
+CREATE TABLE customer_tombstone (
+    id BIGINT PRIMARY KEY,
+    deleted_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    changed_xid XID8 NOT NULL DEFAULT pg_current_xact_id()
+);
+
+CREATE INDEX customer_tombstone_changed_xid_idx ON customer_tombstone (changed_xid, id);
+
+-- changes whenever changes are lost for good (a TRUNCATE, which leaves no tombstones, or pruning old
+-- tombstones): clients that started syncing before that have to start over
+CREATE TABLE customer_change_floor (
+    changed_xid XID8 NOT NULL
+);
+
+INSERT INTO customer_change_floor (changed_xid) VALUES ('0');
+
+CREATE FUNCTION stamp_customer_change() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.updated_at := now();
+    NEW.changed_xid := pg_current_xact_id();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_updated_stamp
+BEFORE UPDATE ON customer
+FOR EACH ROW EXECUTE FUNCTION stamp_customer_change();
+
+CREATE FUNCTION record_customer_deletions() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO customer_tombstone (id)
+    SELECT id FROM old_rows
+    ON CONFLICT (id) DO UPDATE SET deleted_at = now(), changed_xid = pg_current_xact_id();
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_deleted_tombstone
+AFTER DELETE ON customer
+REFERENCING OLD TABLE AS old_rows
+FOR EACH STATEMENT EXECUTE FUNCTION record_customer_deletions();
+
+CREATE FUNCTION raise_customer_change_floor() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE customer_change_floor SET changed_xid = pg_current_xact_id();
+    TRUNCATE customer_tombstone;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_truncated_floor
+AFTER TRUNCATE ON customer
+FOR EACH STATEMENT EXECUTE FUNCTION raise_customer_change_floor();
@@ -0,0 +1,44 @@
+-- the change counter of V5 was bumped by every writing statement, including those that changed no row:
+-- an `UPDATE` whose `WHERE` matches nothing, or an `INSERT ... ON CONFLICT DO NOTHING` that skips every
+-- customer. That changed the `ETag` of `GET /api/v1/customers` for nothing, and made clients read the list
+-- again. The changed rows are now looked at through transition tables, and a statement without any
+-- is not counted. A transition table can only be had one event per trigger, hence one trigger per event
+CREATE OR REPLACE FUNCTION count_customer_change() RETURNS TRIGGER AS $$
+BEGIN
+    -- each transition table is only looked at in its own branch: the other one doesn't exist
+    IF TG_OP = 'INSERT' THEN
+        IF NOT EXISTS (SELECT FROM new_rows) THEN
+            RETURN NULL;
+        END IF;
+    ELSIF TG_OP <> 'TRUNCATE' THEN
+        IF NOT EXISTS (SELECT FROM old_rows) THEN
+            RETURN NULL;
+        END IF;
+    END IF;
+
+    UPDATE customer_changes SET changes = changes + 1 WHERE slot = pg_backend_pid() % 16;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER customer_changed ON customer;
+
+CREATE TRIGGER customer_inserted_count
+AFTER INSERT ON customer
+REFERENCING NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION count_customer_change();
+
+CREATE TRIGGER customer_updated_count
+AFTER UPDATE ON customer
+REFERENCING OLD TABLE AS old_rows
+FOR EACH STATEMENT EXECUTE FUNCTION count_customer_change();
+
+CREATE TRIGGER customer_deleted_count
+AFTER DELETE ON customer
+REFERENCING OLD TABLE AS old_rows
+FOR EACH STATEMENT EXECUTE FUNCTION count_customer_change();
+
+-- a TRUNCATE has no transition tables, and always counts
+CREATE TRIGGER customer_truncated_count
+AFTER TRUNCATE ON customer
+FOR EACH STATEMENT EXECUTE FUNCTION count_customer_change();
@@ -1,10 +1,13 @@
 package space.ml_tech;
 
 import com.github.javafaker.Faker;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
 import org.flywaydb.core.Flyway;
 import org.junit.jupiter.api.BeforeAll;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
@@ -58,6 +61,18 @@ public abstract class AbstractTestContainers {
                 "spring.datasource.password",
                 postgreSQLContainer::getPassword
         );
+        registry.add(
+                "spring.r2dbc.url",
+                AbstractTestContainers::getR2dbcUrl
+        );
+        registry.add(
+                "spring.r2dbc.username",
+                postgreSQLContainer::getUsername
+        );
+        registry.add(
+                "spring.r2dbc.password",
+                postgreSQLContainer::getPassword
+        );
     }
 
     private static DataSource getDataSource() {
@@ -73,6 +88,21 @@ public abstract class AbstractTestContainers {
         return new JdbcTemplate(getDataSource());
     }
 
+    protected static DatabaseClient getDatabaseClient() {
+        return DatabaseClient.create(ConnectionFactories.get(
+                ConnectionFactoryOptions.parse(getR2dbcUrl())
+                        .mutate()
+                        .option(ConnectionFactoryOptions.USER, postgreSQLContainer.getUsername())
+                        .option(ConnectionFactoryOptions.PASSWORD, postgreSQLContainer.getPassword())
+                        .build()
+        ));
+    }
+
+    // the same database as the JDBC url, e.g. `r2dbc:postgresql://localhost:49153/ascend-dao-unit-test`
+    private static String getR2dbcUrl() {
+        return postgreSQLContainer.getJdbcUrl().replaceFirst("^jdbc:", "r2dbc:");
+    }
+
     protected static final Faker FAKER = new Faker();
 
 }
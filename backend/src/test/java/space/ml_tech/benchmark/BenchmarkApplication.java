@@ -0,0 +1,144 @@
+package space.ml_tech.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import space.ml_tech.SpringbootFullstackAppApplication;
+import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerDao;
+import space.ml_tech.customer.Gender;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The application for the benchmarks that need the real beans, without a web server unless
+ * it's started with {@link #startServer}.
+ * It runs against `-Dbenchmark.datasource.url` (with `.username` / `.password`) when given,
+ * otherwise against a throwaway Testcontainers database like the tests do.
+ * Seed customers all have an email starting with {@link #SEED_PREFIX}, and whatever
+ * a benchmark writes starts with {@link #SCRATCH_PREFIX}, so that it can be cleaned up
+ */
+final class BenchmarkApplication implements AutoCloseable {
+
+    static final String SEED_PREFIX = "jmh-seed-";
+    static final String SCRATCH_PREFIX = "jmh-scratch-";
+
+    private final PostgreSQLContainer<?> container;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkApplication(PostgreSQLContainer<?> container, ConfigurableApplicationContext context) {
+        this.container = container;
+        this.context = context;
+    }
+
+    static BenchmarkApplication start(int seedRows) {
+        return start(seedRows, WebApplicationType.NONE);
+    }
+
+    // the whole application, serving HTTP on a random port (see `port()`); `arguments` are passed on
+    // as command-line arguments, e.g. `--spring.main.web-application-type=reactive`
+    static BenchmarkApplication startServer(int seedRows, String... arguments) {
+        return start(seedRows, null, arguments);
+    }
+
+    <T> T bean(String name, Class<T> type) {
+        return context.getBean(name, type);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    JdbcTemplate jdbcTemplate() {
+        return context.getBean(JdbcTemplate.class);
+    }
+
+    int port() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    // the seed customers as `customerDao` sees them (the in-memory DAOs have their own ids)
+    static List<Customer> seedCustomers(CustomerDao customerDao) {
+        return customerDao.selectAllCustomers().stream()
+                .filter(customer -> customer.getEmail().startsWith(SEED_PREFIX))
+                .toList();
+    }
+
+    static Customer seedCustomer(int i) {
+        return Customer.builder()
+                .name("Customer " + i)
+                .email(SEED_PREFIX + i + "@ml-tech.space")
+                .age(18 + i % 80)
+                .gender(i % 2 == 0 ? Gender.MALE : Gender.FEMALE)
+                .build();
+    }
+
+    // removes whatever the benchmarks wrote to the database, bypassing (and so not updating) any cache
+    void deleteScratchRows() {
+        jdbcTemplate().update("DELETE FROM customer WHERE email LIKE ?", SCRATCH_PREFIX + "%");
+    }
+
+    @Override
+    public void close() {
+        deleteScratchRows();
+        context.close();
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+
+    /*---- Helper Methods -----*/
+    // `webApplicationType` null leaves it to the application (and to `arguments`)
+    private static BenchmarkApplication start(int seedRows, WebApplicationType webApplicationType, String... arguments) {
+        String url = System.getProperty("benchmark.datasource.url");
+        String username = System.getProperty("benchmark.datasource.username", "ascend");
+        String password = System.getProperty("benchmark.datasource.password", "password");
+        PostgreSQLContainer<?> container = null;
+        if (url == null) {
+            container = new PostgreSQLContainer<>("postgres:15.3-alpine3.18")
+                    .withDatabaseName("ascend-benchmark")
+                    .withUsername(username)
+                    .withPassword(password);
+            container.start();
+            url = container.getJdbcUrl();
+        }
+
+        // command-line arguments, since plain `properties(...)` are only defaults that `application.yaml` overrides
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + username,
+                "--spring.datasource.password=" + password,
+                "--spring.r2dbc.url=" + url.replaceFirst("^jdbc:", "r2dbc:"),
+                "--spring.r2dbc.username=" + username,
+                "--spring.r2dbc.password=" + password
+        ));
+        args.addAll(List.of(arguments));
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(SpringbootFullstackAppApplication.class);
+        if (webApplicationType != null) {
+            builder.web(webApplicationType);
+        }
+        ConfigurableApplicationContext context = builder.run(args.toArray(String[]::new));
+
+        BenchmarkApplication application = new BenchmarkApplication(container, context);
+        application.seedDatabase(seedRows);
+        return application;
+    }
+
+    private void seedDatabase(int rows) {
+        jdbcTemplate().update("""
+                INSERT INTO customer(name, email, age, gender)
+                SELECT 'Customer ' || i, ? || i || '@ml-tech.space',
+                       18 + i % 80, CASE WHEN i % 2 = 0 THEN 'MALE' ELSE 'FEMALE' END
+                FROM generate_series(0, ? - 1) AS i
+                ON CONFLICT DO NOTHING
+                """, SEED_PREFIX, rows);
+        deleteScratchRows();
+    }
+}
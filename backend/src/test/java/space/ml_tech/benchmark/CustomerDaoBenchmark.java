@@ -0,0 +1,185 @@
+package space.ml_tech.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerDao;
+import space.ml_tech.customer.CustomerSearchCriteria;
+import space.ml_tech.customer.Gender;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Every {@link CustomerDao} operation on each plain implementation (in-memory list, JDBC, JPA),
+ * on a table of `rows` seed customers. Reads pick a random seed customer; writes only touch
+ * scratch customers, which are removed after every iteration so the table doesn't grow.
+ * Part of `mvn -Pbenchmark test`; see the `benchmark` profile in the `pom.xml`
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerDaoBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"list", "jdbc", "jpa"})
+    public String dao;
+
+    @Param({"10000"})
+    public int rows;
+
+    private BenchmarkApplication application;
+    private CustomerDao customerDao;
+    private int[] ids;
+    private String[] emails;
+    private final AtomicLong scratch = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = BenchmarkApplication.start(rows);
+        customerDao = application.bean("beanOfType" + Character.toUpperCase(dao.charAt(0)) + dao.substring(1), CustomerDao.class);
+        if (dao.equals("list")) {
+            List<Customer> seed = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                seed.add(BenchmarkApplication.seedCustomer(i));
+            }
+            customerDao.insertCustomers(seed);
+        }
+        List<Customer> seed = BenchmarkApplication.seedCustomers(customerDao);
+        ids = seed.stream().mapToInt(Customer::getId).toArray();
+        emails = seed.stream().map(Customer::getEmail).toArray(String[]::new);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteScratchCustomers() {
+        if (dao.equals("list")) {
+            customerDao.selectAllCustomers().stream()
+                    .filter(customer -> customer.getEmail().startsWith(BenchmarkApplication.SCRATCH_PREFIX))
+                    .forEach(customer -> customerDao.deletePersonById(customer.getId()));
+        } else {
+            application.deleteScratchRows();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+
+    // ------ GET methods ------ //
+
+    @Benchmark
+    public List<Customer> selectAllCustomers() {
+        return customerDao.selectAllCustomers();
+    }
+
+    @Benchmark
+    public Optional<Customer> selectCustomerById() {
+        return customerDao.selectCustomerById(randomId());
+    }
+
+    @Benchmark
+    public List<Customer> selectCustomersAfter() {
+        return customerDao.selectCustomersAfter(randomId(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Customer> searchCustomers() {
+        int age = 18 + ThreadLocalRandom.current().nextInt(80);
+        return customerDao.searchCustomers(
+                new CustomerSearchCriteria(null, null, age, age + 5, Gender.FEMALE), 0, PAGE_SIZE
+        );
+    }
+
+    @Benchmark
+    public void forEachCustomer(Blackhole blackhole) {
+        customerDao.forEachCustomer(blackhole::consume);
+    }
+
+    @Benchmark
+    public boolean existsPersonWithEmail() {
+        return customerDao.existsPersonWithEmail(emails[ThreadLocalRandom.current().nextInt(emails.length)]);
+    }
+
+    @Benchmark
+    public boolean existsPersonWithId() {
+        return customerDao.existsPersonWithId(randomId());
+    }
+
+
+    // ------ POST, PUT & DELETE methods ------ //
+
+    // an insert on its own would grow the table by thousands of rows per iteration
+    @Benchmark
+    public Optional<Customer> insertThenDeleteCustomer() {
+        Customer customer = scratchCustomer();
+        customerDao.insertCustomer(customer);
+        return customerDao.deletePersonById(customer.getId());
+    }
+
+    @Benchmark
+    public int[] insertCustomers() {
+        List<Customer> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(scratchCustomer());
+        }
+        return customerDao.insertCustomers(batch);
+    }
+
+    // a new name every time, so that every call really writes
+    @Benchmark
+    public Optional<Customer> updatePerson() {
+        return customerDao.updatePerson(Customer.builder()
+                .id(randomId())
+                .name("Renamed " + scratch.incrementAndGet())
+                .build());
+    }
+
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CustomerDaoBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+
+    /*---- Helper Methods -----*/
+    private int randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private Customer scratchCustomer() {
+        return Customer.builder()
+                .name("Scratch")
+                .email(BenchmarkApplication.SCRATCH_PREFIX + scratch.incrementAndGet() + "@ml-tech.space")
+                .age(30)
+                .gender(Gender.MALE)
+                .build();
+    }
+}
@@ -0,0 +1,109 @@
+package space.ml_tech.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerProtobuf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding a `List<Customer>` as `GET /api/v1/customers` sends it, in each encoding the
+ * API negotiates: JSON, CBOR and Smile with Jackson (configured like Spring's converters), and
+ * Protobuf with {@link CustomerProtobuf}. The payload size of each is printed before its runs.
+ * Part of `mvn -Pbenchmark test`; see the `benchmark` profile in the `pom.xml`
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerEncodingBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int listSize;
+
+    @Param({"JSON", "CBOR", "SMILE", "PROTOBUF"})
+    public Encoding encoding;
+
+    private ObjectWriter listWriter;
+    private ObjectReader listReader;
+    private List<Customer> customers;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = switch (encoding) {
+            case JSON, PROTOBUF -> Jackson2ObjectMapperBuilder.json().build();
+            case CBOR -> Jackson2ObjectMapperBuilder.cbor().build();
+            case SMILE -> Jackson2ObjectMapperBuilder.smile().build();
+        };
+        listWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Customer.class));
+        listReader = objectMapper.readerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Customer.class));
+
+        customers = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            Customer seed = BenchmarkApplication.seedCustomer(i);
+            seed.setId(i + 1);
+            customers.add(seed);
+        }
+        payload = encodeList();
+        System.out.println();
+        System.out.printf("%s, %s customers: %s bytes (%.1f per customer)%n",
+                encoding, listSize, payload.length, (double) payload.length / listSize);
+    }
+
+    @Benchmark
+    public byte[] encodeList() throws IOException {
+        if (encoding != Encoding.PROTOBUF) {
+            return listWriter.writeValueAsBytes(customers);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes, 8192);
+        CustomerProtobuf.write(customers, output);
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public List<Customer> decodeList() throws IOException {
+        return encoding != Encoding.PROTOBUF
+                ? listReader.readValue(payload)
+                : CustomerProtobuf.readCustomers(CodedInputStream.newInstance(payload));
+    }
+
+    public enum Encoding {
+        JSON, CBOR, SMILE, PROTOBUF
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CustomerEncodingBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
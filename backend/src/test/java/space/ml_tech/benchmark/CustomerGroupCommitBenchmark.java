@@ -0,0 +1,105 @@
+package space.ml_tech.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerDao;
+import space.ml_tech.customer.Gender;
+import space.ml_tech.customer.GroupCommitCustomerDao;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent single-customer inserts (as from `POST /api/v1/customers`), each one its own statement
+ * and commit (`off`) or group-committed (`on`), through the bulkhead and the JDBC DAO like in the
+ * application. Throughput shows what sharing statements and commits gains, the sampled latency
+ * percentiles what waiting for a batch to fill up costs (at most `maxDelay`, plus writing the batch).
+ * Run it with `-t 1` too, to see the cost when there's nobody to share with.
+ * Part of `mvn -Pbenchmark test`; see the `benchmark` profile in the `pom.xml`
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class CustomerGroupCommitBenchmark {
+
+    @Param({"off", "on"})
+    public String groupCommit;
+
+    @Param({"100"})
+    public int maxBatchSize;
+
+    @Param({"2"})
+    public int maxDelayMillis;
+
+    private BenchmarkApplication application;
+    private CustomerDao customerDao;
+    private GroupCommitCustomerDao groupCommitCustomerDao;
+    private final AtomicLong scratch = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = BenchmarkApplication.start(1000);
+        CustomerDao bulkhead = application.bean("beanOfTypeBulkhead", CustomerDao.class);
+        if (groupCommit.equals("on")) {
+            groupCommitCustomerDao = new GroupCommitCustomerDao(bulkhead, true, maxBatchSize, Duration.ofMillis(maxDelayMillis));
+            customerDao = groupCommitCustomerDao;
+        } else {
+            customerDao = bulkhead;
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteScratchCustomers() {
+        application.deleteScratchRows();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (groupCommitCustomerDao != null) {
+            System.out.println(groupCommitCustomerDao.stats());
+            groupCommitCustomerDao.close();
+        }
+        application.close();
+    }
+
+    @Benchmark
+    public Integer insertCustomer() {
+        Customer customer = Customer.builder()
+                .name("Scratch")
+                .email(BenchmarkApplication.SCRATCH_PREFIX + scratch.incrementAndGet() + "@ml-tech.space")
+                .age(30)
+                .gender(Gender.MALE)
+                .build();
+        customerDao.insertCustomer(customer);
+        return customer.getId();
+    }
+
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CustomerGroupCommitBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
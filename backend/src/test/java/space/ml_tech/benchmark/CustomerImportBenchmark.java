@@ -0,0 +1,129 @@
+package space.ml_tech.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import space.ml_tech.customer.CustomerBatchService;
+import space.ml_tech.customer.CustomerCsvImportService;
+import space.ml_tech.customer.Gender;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports `rows` new customers at a time, with the `COPY` based CSV import (`copy`) or with the
+ * chunked batch insert of `POST /api/v1/customers/batch` (`batch`). Each import is timed on its own;
+ * the bodies are built beforehand, and the imported rows deleted afterwards, outside of the timing.
+ * Part of `mvn -Pbenchmark test`; see the `benchmark` profile in the `pom.xml`
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CustomerImportBenchmark {
+
+    @Param({"batch", "copy"})
+    public String path;
+
+    @Param({"100000"})
+    public int rows;
+
+    private BenchmarkApplication application;
+    private CustomerCsvImportService customerCsvImportService;
+    private CustomerBatchService customerBatchService;
+    private final AtomicLong scratch = new AtomicLong();
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = BenchmarkApplication.start(0);
+        customerCsvImportService = application.bean(CustomerCsvImportService.class);
+        customerBatchService = application.bean(CustomerBatchService.class);
+    }
+
+    // new emails every time, or all but the first import would skip every row as a duplicate
+    @Setup(Level.Invocation)
+    public void buildBody() {
+        body = path.equals("copy") ? csv() : ndjson();
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteScratchCustomers() {
+        application.deleteScratchRows();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public long importCustomers() throws IOException {
+        long inserted = path.equals("copy")
+                ? customerCsvImportService.importCsv(new ByteArrayInputStream(body)).inserted()
+                : customerBatchService.addCustomers(new ByteArrayInputStream(body)).inserted();
+        if (inserted != rows) {
+            throw new IllegalStateException("Imported %d customers instead of %d".formatted(inserted, rows));
+        }
+        return inserted;
+    }
+
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CustomerImportBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+
+    /*---- Helper Methods -----*/
+    private byte[] csv() {
+        StringBuilder csv = new StringBuilder("name,email,age,gender\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("Customer ").append(i).append(',')
+                    .append(scratchEmail()).append(',')
+                    .append(18 + i % 80).append(',')
+                    .append(gender(i)).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] ndjson() {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            ndjson.append("{\"name\":\"Customer ").append(i)
+                    .append("\",\"email\":\"").append(scratchEmail())
+                    .append("\",\"age\":").append(18 + i % 80)
+                    .append(",\"gender\":\"").append(gender(i))
+                    .append("\"}\n");
+        }
+        return ndjson.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String scratchEmail() {
+        return BenchmarkApplication.SCRATCH_PREFIX + scratch.incrementAndGet() + "@ml-tech.space";
+    }
+
+    private static Gender gender(int i) {
+        return i % 2 == 0 ? Gender.MALE : Gender.FEMALE;
+    }
+}
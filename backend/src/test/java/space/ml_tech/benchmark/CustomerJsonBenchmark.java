@@ -0,0 +1,93 @@
+package space.ml_tech.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerDTO;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson (de)serialization of what the API sends and receives: a single `Customer`,
+ * a `List<Customer>` as returned by `GET /api/v1/customers`, and a `CustomerDTO` request body.
+ * The `ObjectMapper` is configured like Spring Boot's.
+ * Part of `mvn -Pbenchmark test`; see the `benchmark` profile in the `pom.xml`
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerJsonBenchmark {
+
+    @Param({"100", "1000"})
+    public int listSize;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter customerWriter;
+    private ObjectWriter listWriter;
+    private Customer customer;
+    private List<Customer> customers;
+    private byte[] requestBody;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        customerWriter = objectMapper.writerFor(Customer.class);
+        listWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Customer.class));
+
+        customers = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            Customer seed = BenchmarkApplication.seedCustomer(i);
+            seed.setId(i + 1);
+            customers.add(seed);
+        }
+        customer = customers.get(0);
+        requestBody = objectMapper.writeValueAsBytes(
+                new CustomerDTO(customer.getName(), customer.getEmail(), customer.getAge(), customer.getGender())
+        );
+    }
+
+    @Benchmark
+    public byte[] serializeCustomer() throws JsonProcessingException {
+        return customerWriter.writeValueAsBytes(customer);
+    }
+
+    @Benchmark
+    public byte[] serializeCustomerList() throws JsonProcessingException {
+        return listWriter.writeValueAsBytes(customers);
+    }
+
+    @Benchmark
+    public CustomerDTO deserializeCustomerDto() throws IOException {
+        return objectMapper.readValue(requestBody, CustomerDTO.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CustomerJsonBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
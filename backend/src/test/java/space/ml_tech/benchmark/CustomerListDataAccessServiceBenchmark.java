@@ -0,0 +1,87 @@
+package space.ml_tech.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerListDataAccessService;
+import space.ml_tech.customer.Gender;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of the in-memory DAO under a mixed workload (80% reads by id, 10% email checks,
+ * 5% updates, 5% inserts) on all cores. Run it again with `-t 1`, `-t 2`, ... to see whether it
+ * scales with them. The DAO is filled again before every iteration, so the inserts of one
+ * iteration don't slow down the next.
+ * Part of `mvn -Pbenchmark test`; see the `benchmark` profile in the `pom.xml`
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+@Fork(1)
+public class CustomerListDataAccessServiceBenchmark {
+
+    @Param({"100000"})
+    public int customers;
+
+    private CustomerListDataAccessService dao;
+    private final AtomicLong scratch = new AtomicLong();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        dao = new CustomerListDataAccessService();
+        for (int i = 0; i < customers; i++) {
+            dao.insertCustomer(BenchmarkApplication.seedCustomer(i));
+        }
+    }
+
+    @Benchmark
+    public Object mixedWorkload() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(customers);
+        int dice = random.nextInt(100);
+        if (dice < 80) {
+            // ids start at 1
+            return dao.selectCustomerById(i + 1);
+        } else if (dice < 90) {
+            return dao.existsPersonWithEmail(BenchmarkApplication.SEED_PREFIX + i + "@ml-tech.space");
+        } else if (dice < 95) {
+            return dao.updatePerson(new Customer(i + 1, null, null, random.nextInt(18, 99), null));
+        } else {
+            return dao.insertCustomers(List.of(Customer.builder()
+                    .name("Scratch")
+                    .email(BenchmarkApplication.SCRATCH_PREFIX + scratch.incrementAndGet() + "@ml-tech.space")
+                    .age(30)
+                    .gender(Gender.FEMALE)
+                    .build()));
+        }
+    }
+
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CustomerListDataAccessServiceBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
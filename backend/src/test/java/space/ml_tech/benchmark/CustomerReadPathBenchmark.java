@@ -0,0 +1,114 @@
+package space.ml_tech.benchmark;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerDao;
+import space.ml_tech.customer.CustomerJsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The two read paths of `GET /api/v1/customers` and `GET /api/v1/customers/{id}`, minus HTTP:
+ * `entity` maps the rows to `Customer`s with the JDBC DAO and serializes them with Jackson,
+ * `direct` writes them with {@link CustomerJsonWriter}. Both write into a discarding stream.
+ * Run with `-prof gc` for the allocation per call (`gc.alloc.rate.norm`), e.g.
+ * `mvn -Pbenchmark test -Djmh.include=CustomerReadPathBenchmark -Djmh.args="-prof gc"`
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerReadPathBenchmark {
+
+    @Param({"entity", "direct"})
+    public String path;
+
+    @Param({"10000"})
+    public int rows;
+
+    private BenchmarkApplication application;
+    private CustomerDao customerDao;
+    private CustomerJsonWriter customerJsonWriter;
+    private ObjectMapper objectMapper;
+    private JsonFactory jsonFactory;
+    private int[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = BenchmarkApplication.start(rows);
+        customerDao = application.bean("beanOfTypeJdbc", CustomerDao.class);
+        customerJsonWriter = application.bean(CustomerJsonWriter.class);
+        objectMapper = application.bean(ObjectMapper.class);
+        jsonFactory = objectMapper.getFactory();
+        ids = BenchmarkApplication.seedCustomers(customerDao).stream()
+                .mapToInt(Customer::getId)
+                .toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public void getCustomers() throws IOException {
+        if (path.equals("direct")) {
+            JsonGenerator generator = generator();
+            customerJsonWriter.writeAllCustomers(generator);
+            generator.close();
+        } else {
+            objectMapper.writeValue(OutputStream.nullOutputStream(), customerDao.selectAllCustomers());
+        }
+    }
+
+    @Benchmark
+    public void getCustomer() throws IOException {
+        int id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+        if (path.equals("direct")) {
+            JsonGenerator generator = generator();
+            customerJsonWriter.writeCustomerById(id, generator);
+            generator.close();
+        } else {
+            objectMapper.writeValue(OutputStream.nullOutputStream(), customerDao.selectCustomerById(id).orElseThrow());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CustomerReadPathBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build())
+                .run();
+    }
+
+
+    /*---- Helper Methods -----*/
+    // the same generator `CustomerJsonHttpMessageConverter` writes a response with
+    private JsonGenerator generator() throws IOException {
+        return jsonFactory.createGenerator(OutputStream.nullOutputStream(), JsonEncoding.UTF8);
+    }
+}
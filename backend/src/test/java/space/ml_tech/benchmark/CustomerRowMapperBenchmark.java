@@ -0,0 +1,93 @@
+package space.ml_tech.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerRowMapper;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CustomerRowMapper#mapRow} on its own, over an in-memory `ResultSet` (a JDK
+ * `CachedRowSet`) so that the driver and the network don't drown it out.
+ * Part of `mvn -Pbenchmark test`; see the `benchmark` profile in the `pom.xml`
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerRowMapperBenchmark {
+
+    private static final int ROWS = 1024;
+
+    private final CustomerRowMapper customerRowMapper = new CustomerRowMapper();
+    private CachedRowSet resultSet;
+    private int row;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(5);
+        column(metaData, 1, "id", Types.INTEGER);
+        column(metaData, 2, "name", Types.VARCHAR);
+        column(metaData, 3, "email", Types.VARCHAR);
+        column(metaData, 4, "age", Types.INTEGER);
+        column(metaData, 5, "gender", Types.VARCHAR);
+
+        resultSet = RowSetProvider.newFactory().createCachedRowSet();
+        resultSet.setMetaData(metaData);
+        for (int i = 1; i <= ROWS; i++) {
+            resultSet.moveToInsertRow();
+            resultSet.updateInt(1, i);
+            resultSet.updateString(2, "Customer " + i);
+            resultSet.updateString(3, "customer-%s@ml-tech.space".formatted(i));
+            resultSet.updateInt(4, 18 + i % 80);
+            resultSet.updateString(5, i % 2 == 0 ? "MALE" : "FEMALE");
+            resultSet.insertRow();
+        }
+        resultSet.moveToCurrentRow();
+        resultSet.beforeFirst();
+    }
+
+    @Benchmark
+    public Customer mapRow() throws SQLException {
+        // cycle through the rows rather than mapping the same one over and over
+        row = row % ROWS + 1;
+        resultSet.absolute(row);
+        return customerRowMapper.mapRow(resultSet, row);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CustomerRowMapperBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+
+    /*---- Helper Methods -----*/
+    private static void column(RowSetMetaDataImpl metaData, int index, String name, int type) throws SQLException {
+        metaData.setColumnName(index, name);
+        metaData.setColumnLabel(index, name);
+        metaData.setColumnType(index, type);
+    }
+}
@@ -0,0 +1,126 @@
+package space.ml_tech.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerAgeStats;
+import space.ml_tech.customer.CustomerColumnarDataAccessService;
+import space.ml_tech.customer.CustomerListDataAccessService;
+import space.ml_tech.customer.Gender;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Reporting scans (count by age range and gender, age stats per gender) over the columnar
+ * store, compared with the same scans over {@link CustomerListDataAccessService}: through its
+ * `forEachCustomer`, and over a plain `List<Customer>` as the best case for the object layout.
+ * Run the `main` method from the IDE, or any other way that has the test classpath
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerScanBenchmark {
+
+    private static final int MIN_AGE = 25;
+    private static final int MAX_AGE = 40;
+
+    @Param({"100000", "1000000"})
+    public int customers;
+
+    private CustomerColumnarDataAccessService columnar;
+    private CustomerListDataAccessService list;
+    private List<Customer> objects;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        columnar = new CustomerColumnarDataAccessService();
+        list = new CustomerListDataAccessService();
+        for (int i = 0; i < customers; i++) {
+            columnar.insertCustomer(customer(i));
+            list.insertCustomer(customer(i));
+        }
+        objects = list.selectAllCustomers();
+        System.out.println();
+        System.out.println(columnar.footprint());
+    }
+
+    @Benchmark
+    public long countColumnar() {
+        return columnar.countCustomers(MIN_AGE, MAX_AGE, Gender.FEMALE);
+    }
+
+    @Benchmark
+    public long countListDao() {
+        AtomicLong count = new AtomicLong();
+        list.forEachCustomer(customer -> {
+            if (customer.getGender() == Gender.FEMALE && customer.getAge() >= MIN_AGE && customer.getAge() <= MAX_AGE) {
+                count.incrementAndGet();
+            }
+        });
+        return count.get();
+    }
+
+    @Benchmark
+    public long countObjects() {
+        long count = 0;
+        for (Customer customer : objects) {
+            if (customer.getGender() == Gender.FEMALE && customer.getAge() >= MIN_AGE && customer.getAge() <= MAX_AGE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public Map<Gender, CustomerAgeStats> ageStatsColumnar() {
+        return columnar.ageStatsByGender();
+    }
+
+    @Benchmark
+    public Map<Gender, ?> ageStatsObjects() {
+        Map<Gender, ?> stats = objects.stream().collect(Collectors.groupingBy(
+                Customer::getGender,
+                () -> new EnumMap<>(Gender.class),
+                Collectors.summarizingInt(Customer::getAge)
+        ));
+        return stats;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CustomerScanBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    private static Customer customer(int i) {
+        return new Customer(
+                null,
+                "Customer " + i,
+                "customer-%s@ml-tech.space".formatted(i),
+                18 + i % 60,
+                i % 2 == 0 ? Gender.MALE : Gender.FEMALE
+        );
+    }
+}
@@ -0,0 +1,118 @@
+package space.ml_tech.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerDTO;
+import space.ml_tech.customer.CustomerDao;
+import space.ml_tech.customer.CustomerPage;
+import space.ml_tech.customer.CustomerSearchCriteria;
+import space.ml_tech.customer.CustomerService;
+import space.ml_tech.customer.Gender;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link CustomerService} end to end, through the same DAO chain as in production
+ * (cache, group commit, bulkhead, replica routing, JDBC) on a table of `rows` seed customers.
+ * Part of `mvn -Pbenchmark test`; see the `benchmark` profile in the `pom.xml`
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerServiceBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"10000"})
+    public int rows;
+
+    private BenchmarkApplication application;
+    private CustomerService customerService;
+    private int[] ids;
+    private final AtomicLong scratch = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = BenchmarkApplication.start(rows);
+        customerService = application.bean(CustomerService.class);
+        ids = BenchmarkApplication.seedCustomers(application.bean("beanOfTypeJdbc", CustomerDao.class))
+                .stream()
+                .mapToInt(Customer::getId)
+                .toArray();
+    }
+
+    // registered customers are never read back, so deleting them behind the cache is harmless
+    @TearDown(Level.Iteration)
+    public void deleteScratchCustomers() {
+        application.deleteScratchRows();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+    // mostly cache hits once the seed customers have been read a few times
+    @Benchmark
+    public Customer getCustomer() {
+        return customerService.getCustomer(randomId());
+    }
+
+    @Benchmark
+    public CustomerPage getCustomersPage() {
+        return customerService.getCustomersPage(null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public CustomerPage searchCustomersPage() {
+        int age = 18 + ThreadLocalRandom.current().nextInt(80);
+        return customerService.getCustomersPage(
+                new CustomerSearchCriteria(null, null, age, age + 5, Gender.FEMALE), null, PAGE_SIZE
+        );
+    }
+
+    @Benchmark
+    public void addCustomer() {
+        String email = BenchmarkApplication.SCRATCH_PREFIX + scratch.incrementAndGet() + "@ml-tech.space";
+        customerService.addCustomer(new CustomerDTO("Scratch", email, 30, Gender.MALE));
+    }
+
+    // a new name every time, so that every call really writes
+    @Benchmark
+    public void updateCustomer() {
+        customerService.updateCustomer(randomId(), new CustomerDTO("Renamed " + scratch.incrementAndGet(), null, null, null));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CustomerServiceBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+
+    /*---- Helper Methods -----*/
+    private int randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
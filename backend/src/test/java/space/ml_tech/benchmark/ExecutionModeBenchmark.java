@@ -0,0 +1,97 @@
+package space.ml_tech.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * `GET /api/v1/customers` from many concurrent clients (one per benchmark thread), against the
+ * application served by Tomcat's platform thread pool (`platform`), one virtual thread per request
+ * (`virtual`), or WebFlux on a few Netty event loops over R2DBC (`reactive`). Throughput and the
+ * sampled latency percentiles compare the three. Requests filter by age, so they aren't served
+ * by the customer cache and every one of them holds a connection for the duration of its query.
+ * Requests turned away (by the bulkhead or the concurrency limit) are counted, and printed after each run.
+ * Part of `mvn -Pbenchmark test`; see the `benchmark` profile in the `pom.xml`
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(200)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+    @Param({"platform", "virtual", "reactive"})
+    public String mode;
+
+    @Param({"50000"})
+    public int rows;
+
+    private BenchmarkApplication application;
+    private HttpClient client;
+    private String uri;
+    private final LongAdder failures = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = BenchmarkApplication.startServer(rows, mode.equals("reactive")
+                ? "--spring.main.web-application-type=reactive"
+                : "--execution.mode=" + mode);
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        uri = "http://localhost:%d/api/v1/customers?limit=20&minAge=%%d&maxAge=%%d".formatted(application.port());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n%,d failed requests%n", failures.sum());
+        client.close();
+        application.close();
+    }
+
+    @Benchmark
+    public int getCustomers() throws IOException, InterruptedException {
+        int age = 18 + ThreadLocalRandom.current().nextInt(80);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri.formatted(age, age)))
+                .GET()
+                .build();
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 200) {
+            failures.increment();
+        }
+        return status;
+    }
+
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ExecutionModeBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
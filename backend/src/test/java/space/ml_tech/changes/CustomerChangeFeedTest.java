@@ -0,0 +1,188 @@
+package space.ml_tech.changes;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerChangedEvent;
+import space.ml_tech.customer.Gender;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerChangeFeedTest {
+
+    private CustomerChangeFeed customerChangeFeed;
+
+
+    @BeforeEach
+    void setUp() {
+        customerChangeFeed = new CustomerChangeFeed(4, 100, 2, Duration.ofMinutes(1), Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        customerChangeFeed.close();
+    }
+
+    @Test
+    void subscriberResumingAfterAnEventGetsWhatItMissedThenWhatComesNext() throws Exception {
+        // Given
+        RecordingSink first = new RecordingSink();
+        customerChangeFeed.subscribe(null, first);
+        insert(1);
+        CustomerChangeFeed.Event seen = first.next();
+        insert(2);
+
+        // When
+        RecordingSink resumed = new RecordingSink();
+        customerChangeFeed.subscribe(seen.id(), resumed);
+        insert(3);
+
+        // Then
+        assertThat(seen.type()).isEqualTo("insert");
+        assertThat(resumed.next().customer().getId()).isEqualTo(2);
+        assertThat(resumed.next().customer().getId()).isEqualTo(3);
+        assertThat(customerChangeFeed.stats().resumed()).isEqualTo(1);
+    }
+
+    @Test
+    void subscriberWhoseEventsAreGoneIsToldToStartOver() throws Exception {
+        // Given
+        RecordingSink first = new RecordingSink();
+        customerChangeFeed.subscribe(null, first);
+        insert(1);
+        CustomerChangeFeed.Event seen = first.next();
+        // the ring holds the last 4 events only
+        for (int id = 2; id <= 6; id++) {
+            insert(id);
+        }
+
+        // When
+        RecordingSink late = new RecordingSink();
+        customerChangeFeed.subscribe(seen.id(), late);
+        // an id from another node (or from before a restart) means nothing here
+        RecordingSink foreign = new RecordingSink();
+        customerChangeFeed.subscribe("othernode-3", foreign);
+
+        // Then
+        assertThat(late.next().type()).isEqualTo(CustomerChangeFeed.RESET);
+        assertThat(foreign.next().type()).isEqualTo(CustomerChangeFeed.RESET);
+        assertThat(customerChangeFeed.stats().resets()).isEqualTo(2);
+    }
+
+    @Test
+    void subscriberThatFallsBehindIsDropped() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink stuck = new RecordingSink() {
+            @Override
+            public void send(CustomerChangeFeed.Event event) throws Exception {
+                release.await();
+                super.send(event);
+            }
+        };
+        customerChangeFeed.subscribe(null, stuck);
+
+        // When
+        // one being sent, two queued, and one too many
+        for (int id = 1; id <= 4; id++) {
+            insert(id);
+        }
+
+        // Then
+        assertThat(stuck.closed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(customerChangeFeed.stats().dropped()).isEqualTo(1);
+        assertThat(customerChangeFeed.stats().subscribers()).isZero();
+        release.countDown();
+    }
+
+    @Test
+    void subscriberWhoseConnectionStallsIsDroppedWithoutHoldingUpTheOthers() throws Exception {
+        // Given
+        customerChangeFeed.close();
+        customerChangeFeed = new CustomerChangeFeed(4, 100, 2, Duration.ofMinutes(1), Duration.ofMillis(200));
+        CountDownLatch release = new CountDownLatch(1);
+        List<RecordingSink> stalled = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            RecordingSink sink = new RecordingSink() {
+                @Override
+                public void send(CustomerChangeFeed.Event event) throws Exception {
+                    release.await();
+                    super.send(event);
+                }
+            };
+            customerChangeFeed.subscribe(null, sink);
+            stalled.add(sink);
+        }
+        RecordingSink healthy = new RecordingSink();
+        customerChangeFeed.subscribe(null, healthy);
+
+        // When
+        insert(1);
+
+        // Then
+        assertThat(healthy.next().customer().getId()).isEqualTo(1);
+        for (RecordingSink sink : stalled) {
+            assertThat(sink.closed.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+        assertThat(customerChangeFeed.stats().dropped()).isEqualTo(50);
+        assertThat(customerChangeFeed.stats().subscribers()).isEqualTo(1);
+        release.countDown();
+    }
+
+    @Test
+    void reactiveSubscriberIsOnlySentWhatItAsksForAndDroppedWhenItStopsAsking() {
+        // Given
+        customerChangeFeed.close();
+        customerChangeFeed = new CustomerChangeFeed(4, 100, 2, Duration.ofMinutes(1), Duration.ofMillis(200));
+
+        // When
+        // Then
+        StepVerifier.create(customerChangeFeed.events(null), 1)
+                .then(() -> insert(1))
+                .assertNext(event -> assertThat(event.customer().getId()).isEqualTo(1))
+                // not asked for: the send waits until the write timeout drops the subscriber
+                .then(() -> insert(2))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        assertThat(customerChangeFeed.stats().dropped()).isEqualTo(1);
+        assertThat(customerChangeFeed.stats().subscribers()).isZero();
+    }
+
+
+    /*---- Helper Methods -----*/
+    private void insert(int id) {
+        Customer customer = new Customer(id, "Alex", "alex" + id + "@gmail.com", 20, Gender.MALE);
+        customerChangeFeed.onCustomerChanged(new CustomerChangedEvent(
+                CustomerChangedEvent.Operation.INSERT, id, customer.getEmail(), null, customer));
+    }
+
+    private static class RecordingSink implements CustomerChangeFeed.Sink {
+
+        final BlockingQueue<CustomerChangeFeed.Event> events = new LinkedBlockingQueue<>();
+        final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public void send(CustomerChangeFeed.Event event) throws Exception {
+            events.add(event);
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+
+        CustomerChangeFeed.Event next() throws InterruptedException {
+            return events.poll(5, TimeUnit.SECONDS);
+        }
+    }
+}
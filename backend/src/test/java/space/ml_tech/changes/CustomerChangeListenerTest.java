@@ -0,0 +1,91 @@
+package space.ml_tech.changes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerChangedEvent;
+import space.ml_tech.customer.CustomerChangesMissedEvent;
+import space.ml_tech.customer.CustomersChangedEvent;
+import space.ml_tech.customer.Gender;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerChangeListenerTest {
+
+    private CustomerChangeListener customerChangeListener;
+    @Mock
+    DataSource dataSource;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+    private AutoCloseable autoCloseable;
+
+
+    @BeforeEach
+    void setUp() throws Exception {
+        autoCloseable = MockitoAnnotations.openMocks(this);
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:postgresql://localhost:5432/customer");
+        Mockito.when(dataSource.unwrap(HikariDataSource.class)).thenReturn(pool);
+        // not listening: only the notifications are looked at
+        customerChangeListener = new CustomerChangeListener(dataSource, eventPublisher, new ObjectMapper(),
+                false, Duration.ofSeconds(10), Duration.ofSeconds(1));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        customerChangeListener.close();
+        autoCloseable.close();
+    }
+
+    @Test
+    void rowNotificationsBecomeCustomerChanges() {
+        // When
+        Object actual = customerChangeListener.toEvent("""
+                {"op": "UPDATE", "id": 7, "email": "alex@yahoo.com", "previousEmail": "alex@gmail.com",
+                 "customer": {"id": 7, "name": "Alex", "email": "alex@yahoo.com", "age": 20, "gender": "MALE", "version": 3}}
+                """);
+
+        // Then
+        assertThat(actual).isEqualTo(new CustomerChangedEvent(
+                CustomerChangedEvent.Operation.UPDATE, 7, "alex@yahoo.com", "alex@gmail.com",
+                new Customer(7, "Alex", "alex@yahoo.com", 20, Gender.MALE)));
+    }
+
+    @Test
+    void bulkChangeNotificationAsksForAResync() {
+        // When
+        Object actual = customerChangeListener.toEvent("{\"op\": \"RESYNC\"}");
+
+        // Then
+        assertThat(actual).isInstanceOf(CustomerChangesMissedEvent.class);
+    }
+
+    @Test
+    void bulkChangeNotificationBecomesARangeOfChanges() {
+        // When
+        Object actual = customerChangeListener.toEvent(
+                "{\"op\": \"INSERT\", \"fromId\": 1001, \"toId\": 6000, \"count\": 5000}");
+
+        // Then
+        assertThat(actual).isEqualTo(new CustomersChangedEvent(CustomerChangedEvent.Operation.INSERT, 1001, 6000, 5000));
+    }
+
+    @Test
+    void unreadableNotificationsAreIgnored() {
+        // When
+        // Then
+        assertThat(customerChangeListener.toEvent("not json")).isNull();
+        assertThat(customerChangeListener.toEvent("{\"op\": \"MERGE\", \"id\": 7}")).isNull();
+        assertThat(customerChangeListener.stats().listening()).isFalse();
+    }
+}
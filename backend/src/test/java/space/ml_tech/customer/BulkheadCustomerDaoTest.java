@@ -0,0 +1,91 @@
+package space.ml_tech.customer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import space.ml_tech.exceptions.ServiceUnavailableException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkheadCustomerDaoTest {
+
+    private BulkheadCustomerDao bulkheadCustomerDao;
+    @Mock
+    CustomerDao customerDao;
+    private AutoCloseable autoCloseable;
+
+
+    @BeforeEach
+    void setUp() {
+        autoCloseable = MockitoAnnotations.openMocks(this);
+        bulkheadCustomerDao = new BulkheadCustomerDao(customerDao, 1, Duration.ofMillis(50));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        autoCloseable.close();
+    }
+
+    @Test
+    void callsAreForwarded() {
+        // Given
+        Customer customer = new Customer(1, "Alex", "alex@gmail.com", 20, Gender.MALE);
+        Mockito.when(customerDao.selectCustomerById(1)).thenReturn(Optional.of(customer));
+
+        // When
+        Optional<Customer> actual = bulkheadCustomerDao.selectCustomerById(1);
+
+        // Then
+        assertThat(actual).contains(customer);
+        assertThat(bulkheadCustomerDao.stats().availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void willRejectCallWhenAllPermitsAreTaken() throws Exception {
+        // Given
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(customerDao.existsPersonWithId(1)).thenAnswer(invocation -> {
+            inside.countDown();
+            release.await();
+            return true;
+        });
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        Future<Boolean> slowCall = executor.submit(() -> bulkheadCustomerDao.existsPersonWithId(1));
+        inside.await();
+
+        // When
+        // Then
+        assertThatThrownBy(() -> bulkheadCustomerDao.existsPersonWithId(2))
+                .isInstanceOf(ServiceUnavailableException.class);
+        assertThat(bulkheadCustomerDao.stats().rejected()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(slowCall.get()).isTrue();
+        executor.shutdown();
+    }
+
+    @Test
+    void permitIsReleasedWhenCallFails() {
+        // Given
+        Mockito.when(customerDao.existsPersonWithEmail("alex@gmail.com")).thenThrow(new IllegalStateException());
+
+        // When
+        assertThatThrownBy(() -> bulkheadCustomerDao.existsPersonWithEmail("alex@gmail.com"))
+                .isInstanceOf(IllegalStateException.class);
+
+        // Then
+        assertThat(bulkheadCustomerDao.stats().availablePermits()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,216 @@
+package space.ml_tech.customer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingCustomerDaoTest {
+
+    private CachingCustomerDao cachingCustomerDao;
+    @Mock
+    CustomerDao customerDao;
+    private AutoCloseable autoCloseable;
+
+
+    @BeforeEach
+    void setUp() {
+        autoCloseable = MockitoAnnotations.openMocks(this);
+        cachingCustomerDao = new CachingCustomerDao(customerDao, 1_000_000, Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        autoCloseable.close();
+    }
+
+    @Test
+    void selectCustomerByIdIsServedFromCacheAfterFirstRead() {
+        // Given
+        int id = 5;
+        Customer customer = new Customer(id, "Alex", "alex@gmail.com", 20, Gender.MALE);
+        Mockito.when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
+
+        // When
+        Optional<Customer> first = cachingCustomerDao.selectCustomerById(id);
+        Optional<Customer> second = cachingCustomerDao.selectCustomerById(id);
+
+        // Then
+        assertThat(first).contains(customer);
+        assertThat(second).contains(customer);
+        Mockito.verify(customerDao, Mockito.times(1)).selectCustomerById(id);
+
+        CustomerCacheStats stats = cachingCustomerDao.stats();
+        assertThat(stats.hitCount()).isEqualTo(1);
+        assertThat(stats.missCount()).isEqualTo(1);
+        assertThat(stats.estimatedSize()).isEqualTo(1);
+    }
+
+    @Test
+    void customerChangedOnAnotherNodeIsReadAgain() {
+        // Given
+        int id = 5;
+        Mockito.when(customerDao.selectCustomerById(id))
+                .thenReturn(Optional.of(new Customer(id, "Alex", "alex@gmail.com", 20, Gender.MALE)))
+                .thenReturn(Optional.of(new Customer(id, "Alexandra", "alex@gmail.com", 20, Gender.FEMALE)));
+        cachingCustomerDao.selectCustomerById(id);
+
+        // When
+        cachingCustomerDao.onCustomerChanged(
+                new CustomerChangedEvent(CustomerChangedEvent.Operation.UPDATE, id, "alex@gmail.com", "alex@gmail.com", null));
+        Optional<Customer> actual = cachingCustomerDao.selectCustomerById(id);
+
+        // Then
+        assertThat(actual).hasValueSatisfying(customer -> assertThat(customer.getName()).isEqualTo("Alexandra"));
+        Mockito.verify(customerDao, Mockito.times(2)).selectCustomerById(id);
+    }
+
+    @Test
+    void bulkChangeOnAnotherNodeOnlyDropsCustomersInItsRange() {
+        // Given
+        Mockito.when(customerDao.selectCustomerById(Mockito.anyInt())).thenAnswer(invocation -> {
+            int id = invocation.getArgument(0);
+            return Optional.of(new Customer(id, "Alex", "alex" + id + "@gmail.com", 20, Gender.MALE));
+        });
+        cachingCustomerDao.selectCustomerById(5);
+        cachingCustomerDao.selectCustomerById(50);
+
+        // When
+        cachingCustomerDao.onCustomersChanged(
+                new CustomersChangedEvent(CustomerChangedEvent.Operation.UPDATE, 10, 60, 2000));
+        cachingCustomerDao.selectCustomerById(5);
+        cachingCustomerDao.selectCustomerById(50);
+
+        // Then
+        Mockito.verify(customerDao, Mockito.times(1)).selectCustomerById(5);
+        Mockito.verify(customerDao, Mockito.times(2)).selectCustomerById(50);
+    }
+
+    @Test
+    void cachedCustomerCannotBeModifiedByCallers() {
+        // Given
+        int id = 5;
+        Mockito.when(customerDao.selectCustomerById(id))
+                .thenReturn(Optional.of(new Customer(id, "Alex", "alex@gmail.com", 20, Gender.MALE)));
+
+        // When
+        cachingCustomerDao.selectCustomerById(id).orElseThrow().setName("Changed");
+
+        // Then
+        assertThat(cachingCustomerDao.selectCustomerById(id).orElseThrow().getName()).isEqualTo("Alex");
+    }
+
+    @Test
+    void missingCustomerIsNotCached() {
+        // Given
+        int id = 5;
+        Mockito.when(customerDao.selectCustomerById(id)).thenReturn(Optional.empty());
+
+        // When
+        cachingCustomerDao.selectCustomerById(id);
+        cachingCustomerDao.selectCustomerById(id);
+
+        // Then
+        Mockito.verify(customerDao, Mockito.times(2)).selectCustomerById(id);
+        assertThat(cachingCustomerDao.stats().estimatedSize()).isZero();
+    }
+
+    @Test
+    void updatePersonInvalidatesCachedCustomer() {
+        // Given
+        int id = 5;
+        Customer update = new Customer(id, "New name", null, null, null);
+        Mockito.when(customerDao.selectCustomerById(id))
+                .thenReturn(Optional.of(new Customer(id, "Alex", "alex@gmail.com", 20, Gender.MALE)));
+        cachingCustomerDao.selectCustomerById(id);
+
+        // When
+        cachingCustomerDao.updatePerson(update);
+        cachingCustomerDao.selectCustomerById(id);
+
+        // Then
+        Mockito.verify(customerDao).updatePerson(update);
+        Mockito.verify(customerDao, Mockito.times(2)).selectCustomerById(id);
+    }
+
+    @Test
+    void deletePersonByIdInvalidatesCachedCustomer() {
+        // Given
+        int id = 5;
+        Mockito.when(customerDao.selectCustomerById(id))
+                .thenReturn(Optional.of(new Customer(id, "Alex", "alex@gmail.com", 20, Gender.MALE)));
+        cachingCustomerDao.selectCustomerById(id);
+
+        // When
+        cachingCustomerDao.deletePersonById(id);
+
+        // Then
+        Mockito.verify(customerDao).deletePersonById(id);
+        assertThat(cachingCustomerDao.stats().estimatedSize()).isZero();
+    }
+
+    @Test
+    void insertCustomersInvalidatesOnlyTheInsertedIds() {
+        // Given
+        Customer inserted = new Customer(null, "Alex", "alex@gmail.com", 20, Gender.MALE);
+        Customer skipped = new Customer(null, "Bob", "bob@gmail.com", 30, Gender.MALE);
+        List<Customer> customers = List.of(inserted, skipped);
+        Mockito.when(customerDao.insertCustomers(customers)).thenAnswer(invocation -> {
+            inserted.setId(5);
+            return new int[]{1, 0};
+        });
+        Mockito.when(customerDao.selectCustomerById(5))
+                .thenReturn(Optional.of(new Customer(5, "Alex", "alex@gmail.com", 20, Gender.MALE)));
+        cachingCustomerDao.selectCustomerById(5);
+
+        // When
+        int[] actual = cachingCustomerDao.insertCustomers(customers);
+
+        // Then
+        assertThat(actual).containsExactly(1, 0);
+        assertThat(cachingCustomerDao.stats().estimatedSize()).isZero();
+    }
+
+    @Test
+    void existsPersonWithIdIsAnsweredFromCache() {
+        // Given
+        int id = 5;
+        Mockito.when(customerDao.selectCustomerById(id))
+                .thenReturn(Optional.of(new Customer(id, "Alex", "alex@gmail.com", 20, Gender.MALE)));
+        cachingCustomerDao.selectCustomerById(id);
+
+        // When
+        boolean exists = cachingCustomerDao.existsPersonWithId(id);
+
+        // Then
+        assertThat(exists).isTrue();
+        Mockito.verify(customerDao, Mockito.never()).existsPersonWithId(id);
+    }
+
+    @Test
+    void selectCustomerVersionIsAnsweredFromCache() {
+        // Given
+        int id = 5;
+        Mockito.when(customerDao.selectCustomerById(id))
+                .thenReturn(Optional.of(new Customer(id, "Alex", "alex@gmail.com", 20, Gender.MALE, 3L)));
+        Mockito.when(customerDao.selectCustomerVersion(6)).thenReturn(Optional.of(1L));
+        cachingCustomerDao.selectCustomerById(id);
+
+        // When
+        Optional<Long> cached = cachingCustomerDao.selectCustomerVersion(id);
+        Optional<Long> uncached = cachingCustomerDao.selectCustomerVersion(6);
+
+        // Then
+        assertThat(cached).contains(3L);
+        assertThat(uncached).contains(1L);
+        Mockito.verify(customerDao, Mockito.never()).selectCustomerVersion(id);
+    }
+}
@@ -0,0 +1,121 @@
+package space.ml_tech.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import space.ml_tech.exceptions.RequestValidationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerBatchServiceTest {
+
+    @Mock
+    private CustomerDao customerDao;
+    private CustomerBatchService customerBatchService;
+
+    @BeforeEach
+    void setUp() {
+        customerBatchService = new CustomerBatchService(customerDao, new ObjectMapper(), 2);
+    }
+
+    @Test
+    void canInsertJsonArrayInChunks() throws IOException {
+        // Given
+        String body = """
+                [
+                  {"name": "Foo", "email": "foo@bar.com", "age": 20, "gender": "MALE"},
+                  {"name": "Faa", "email": "faa@bar.com", "age": 21, "gender": "FEMALE"},
+                  {"name": "Fii", "email": "fii@bar.com", "age": 22, "gender": "MALE"}
+                ]
+                """;
+        Mockito.when(customerDao.insertCustomers(Mockito.anyList()))
+                .thenReturn(new int[]{1, 1}, new int[]{1});
+
+        // When
+        CustomerBatchResult result = customerBatchService.addCustomers(stream(body));
+
+        // Then
+        Mockito.verify(customerDao, Mockito.times(2)).insertCustomers(Mockito.anyList());
+        assertThat(result.received()).isEqualTo(3);
+        assertThat(result.inserted()).isEqualTo(3);
+        assertThat(result.errors()).isEmpty();
+    }
+
+    @Test
+    void canInsertNdjson() throws IOException {
+        // Given
+        String body = """
+                {"name": "Foo", "email": "foo@bar.com", "age": 20, "gender": "MALE"}
+                {"name": "Faa", "email": "faa@bar.com", "age": 21, "gender": "FEMALE"}
+                """;
+        Mockito.when(customerDao.insertCustomers(Mockito.anyList())).thenReturn(new int[]{1, 1});
+
+        // When
+        CustomerBatchResult result = customerBatchService.addCustomers(stream(body));
+
+        // Then
+        Mockito.verify(customerDao).insertCustomers(List.of(
+                new Customer(null, "Foo", "foo@bar.com", 20, Gender.MALE),
+                new Customer(null, "Faa", "faa@bar.com", 21, Gender.FEMALE)
+        ));
+        assertThat(result.inserted()).isEqualTo(2);
+    }
+
+    @Test
+    void willReportDuplicatesAndInvalidRows() throws IOException {
+        // Given
+        String body = """
+                [
+                  {"name": "Foo", "email": "foo@bar.com", "age": 20, "gender": "MALE"},
+                  {"name": "", "email": "nameless@bar.com", "age": 21, "gender": "MALE"},
+                  {"name": "Faa", "email": "faa@bar.com", "age": 21, "gender": "UNKNOWN"},
+                  {"name": "Fuu", "email": "foo@bar.com", "age": 23, "gender": "MALE"},
+                  42
+                ]
+                """;
+        Mockito.when(customerDao.insertCustomers(Mockito.anyList())).thenReturn(new int[]{1, 0});
+
+        // When
+        CustomerBatchResult result = customerBatchService.addCustomers(stream(body));
+
+        // Then
+        assertThat(result.received()).isEqualTo(5);
+        assertThat(result.inserted()).isEqualTo(1);
+        assertThat(result.errors()).containsExactlyInAnyOrder(
+                new CustomerBatchResult.RowError(1, "nameless@bar.com", "Missing name"),
+                new CustomerBatchResult.RowError(2, "faa@bar.com", "Invalid gender"),
+                new CustomerBatchResult.RowError(3, "foo@bar.com", "Email already taken!"),
+                new CustomerBatchResult.RowError(4, null, "Expected a JSON object")
+        );
+    }
+
+    @Test
+    void willThrowWhenBodyIsMalformed() {
+        // Given
+        String body = """
+                [{"name": "Foo", "email": "foo@bar.com", "age": 20, "gender": "MALE"}, {"name":
+                """;
+        Mockito.when(customerDao.insertCustomers(Mockito.anyList())).thenReturn(new int[]{1});
+
+        // Then
+        assertThatThrownBy(() -> customerBatchService.addCustomers(stream(body)))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessageStartingWith("Malformed request body after row 2 (1 customers inserted before it)");
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,206 @@
+package space.ml_tech.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import space.ml_tech.exceptions.DuplicateResourceException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerColumnarDataAccessServiceTest {
+
+    private CustomerColumnarDataAccessService customerColumnarDataAccessService;
+
+    @BeforeEach
+    void setUp() {
+        customerColumnarDataAccessService = new CustomerColumnarDataAccessService();
+    }
+
+    @Test
+    void insertAndSelectCustomer() {
+        // Given
+        Customer customer = new Customer(null, "Zoë", "zoe@gmail.com", 30, Gender.FEMALE);
+
+        // When
+        customerColumnarDataAccessService.insertCustomer(customer);
+
+        // Then
+        assertThat(customer.getId()).isEqualTo(1);
+        assertThat(customerColumnarDataAccessService.selectCustomerById(1)).contains(customer);
+        assertThat(customerColumnarDataAccessService.existsPersonWithEmail("zoe@gmail.com")).isTrue();
+        assertThat(customerColumnarDataAccessService.existsPersonWithEmail("zoe@yahoo.com")).isFalse();
+    }
+
+    @Test
+    void insertCustomerRejectsTakenEmail() {
+        // Given
+        givenCustomers(1);
+        Customer duplicate = new Customer(null, "Other", "customer-0@gmail.com", 30, Gender.MALE);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> customerColumnarDataAccessService.insertCustomer(duplicate))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("Email already taken!");
+        assertThat(customerColumnarDataAccessService.insertCustomers(List.of(duplicate))).containsExactly(0);
+    }
+
+    @Test
+    void updatePersonChangesOnlyGivenColumns() {
+        // Given
+        givenCustomers(3);
+        Customer update = new Customer(2, null, "new@gmail.com", 99, null);
+
+        // When
+        Optional<Customer> updated = customerColumnarDataAccessService.updatePerson(update);
+
+        // Then
+        assertThat(updated).contains(new Customer(2, "Customer 1", "new@gmail.com", 99, Gender.FEMALE, 1L));
+        assertThat(customerColumnarDataAccessService.existsPersonWithEmail("customer-1@gmail.com")).isFalse();
+        assertThat(customerColumnarDataAccessService.existsPersonWithEmail("new@gmail.com")).isTrue();
+        assertThat(customerColumnarDataAccessService.updatePerson(update)).isEmpty();
+    }
+
+    @Test
+    void writesBumpVersionsAndChangeCount() {
+        // Given
+        givenCustomers(3);
+        long changes = customerColumnarDataAccessService.selectChangeCount();
+
+        // When
+        customerColumnarDataAccessService.updatePerson(new Customer(2, "Changed", null, null, null));
+        customerColumnarDataAccessService.updatePerson(new Customer(2, "Changed", null, null, null));
+        customerColumnarDataAccessService.deletePersonById(3);
+
+        // Then
+        assertThat(customerColumnarDataAccessService.selectCustomerVersion(1)).contains(0L);
+        assertThat(customerColumnarDataAccessService.selectCustomerVersion(2)).contains(1L);
+        assertThat(customerColumnarDataAccessService.selectCustomerVersion(3)).isEmpty();
+        // the second update changed nothing
+        assertThat(customerColumnarDataAccessService.selectChangeCount()).isEqualTo(changes + 2);
+    }
+
+    @Test
+    void updatePersonRejectsTakenEmail() {
+        // Given
+        givenCustomers(2);
+        Customer update = new Customer(1, "Changed", "customer-1@gmail.com", null, null);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> customerColumnarDataAccessService.updatePerson(update))
+                .isInstanceOf(DuplicateResourceException.class);
+        assertThat(customerColumnarDataAccessService.selectCustomerById(1))
+                .hasValueSatisfying(customer -> assertThat(customer.getName()).isEqualTo("Customer 0"));
+    }
+
+    @Test
+    void deletePersonByIdLeavesOtherCustomersReachable() {
+        // Given
+        int customers = 5_000;
+        givenCustomers(customers);
+
+        // When
+        for (int id = 1; id <= customers; id += 2) {
+            assertThat(customerColumnarDataAccessService.deletePersonById(id)).isPresent();
+        }
+
+        // Then
+        for (int i = 0; i < customers; i++) {
+            boolean deleted = i % 2 == 0;
+            assertThat(customerColumnarDataAccessService.existsPersonWithEmail("customer-%s@gmail.com".formatted(i)))
+                    .isEqualTo(!deleted);
+            assertThat(customerColumnarDataAccessService.existsPersonWithId(i + 1)).isEqualTo(!deleted);
+        }
+        assertThat(customerColumnarDataAccessService.selectAllCustomers()).hasSize(customers / 2);
+        assertThat(customerColumnarDataAccessService.selectCustomersAfter(0, 3))
+                .extracting(Customer::getId)
+                .containsExactly(2, 4, 6);
+    }
+
+    @Test
+    void selectChangesAfterReturnsWritesSinceTheFrontierInOrder() {
+        // Given
+        givenCustomers(3);
+        CustomerChangeLog initial = customerColumnarDataAccessService.selectChangesAfter(0, 0, false, 10);
+        customerColumnarDataAccessService.deletePersonById(1);
+        customerColumnarDataAccessService.updatePerson(Customer.builder().id(3).name("Renamed").build());
+
+        // When
+        CustomerChangeLog full = customerColumnarDataAccessService.selectChangesAfter(0, 0, false, 10);
+        CustomerChangeLog changes = customerColumnarDataAccessService.selectChangesAfter(initial.frontier(), 0, true, 10);
+
+        // Then
+        assertThat(full.entries()).extracting(CustomerChangeLog.Entry::id).containsExactly(2, 3);
+        assertThat(changes.entries()).extracting(CustomerChangeLog.Entry::id).containsExactly(1, 3);
+        assertThat(changes.entries().get(0).customer()).isNull();
+        assertThat(changes.entries().get(1).customer().getName()).isEqualTo("Renamed");
+    }
+
+    @Test
+    void countCustomersFiltersByAgeAndGender() {
+        // Given
+        givenCustomers(100);
+        customerColumnarDataAccessService.deletePersonById(1);
+
+        // When
+        long all = customerColumnarDataAccessService.countCustomers(0, 200, null);
+        long females = customerColumnarDataAccessService.countCustomers(0, 200, Gender.FEMALE);
+        long twenties = customerColumnarDataAccessService.countCustomers(20, 29, null);
+
+        // Then
+        assertThat(all).isEqualTo(99);
+        assertThat(females).isEqualTo(50);
+        assertThat(twenties).isEqualTo(20);
+    }
+
+    @Test
+    void ageStatsByGender() {
+        // Given
+        givenCustomers(4);
+
+        // When
+        Map<Gender, CustomerAgeStats> stats = customerColumnarDataAccessService.ageStatsByGender();
+
+        // Then
+        assertThat(stats).containsEntry(Gender.MALE, new CustomerAgeStats(2, 18, 20, 19.0));
+        assertThat(stats).containsEntry(Gender.FEMALE, new CustomerAgeStats(2, 19, 21, 20.0));
+    }
+
+    @Test
+    void footprintReportsColumnsAndGarbage() {
+        // Given
+        givenCustomers(10);
+        customerColumnarDataAccessService.updatePerson(new Customer(1, "Renamed", null, null, null));
+
+        // When
+        CustomerStoreFootprint footprint = customerColumnarDataAccessService.footprint();
+
+        // Then
+        assertThat(footprint.rows()).isEqualTo(10);
+        assertThat(footprint.liveRows()).isEqualTo(10);
+        assertThat(footprint.garbageBytes()).isEqualTo("Customer 0".length());
+        assertThat(footprint.totalBytes()).isEqualTo(footprint.ageBytes() + footprint.genderBytes()
+                + footprint.versionBytes() + footprint.changeStampBytes() + footprint.nameBytes()
+                + footprint.emailBytes() + footprint.indexBytes());
+    }
+
+
+    /*---- Helper Methods -----*/
+    // customer i: "Customer i", "customer-i@gmail.com", age 18 + i % 50, alternating genders
+    private void givenCustomers(int count) {
+        for (int i = 0; i < count; i++) {
+            customerColumnarDataAccessService.insertCustomer(new Customer(
+                    null,
+                    "Customer " + i,
+                    "customer-%s@gmail.com".formatted(i),
+                    18 + i % 50,
+                    i % 2 == 0 ? Gender.MALE : Gender.FEMALE
+            ));
+        }
+    }
+}
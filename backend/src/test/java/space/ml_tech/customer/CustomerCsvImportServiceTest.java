@@ -0,0 +1,142 @@
+package space.ml_tech.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import space.ml_tech.AbstractTestContainers;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class CustomerCsvImportServiceTest extends AbstractTestContainers {
+
+    private CustomerCsvImportService customerCsvImportService;
+    private CustomerJDBCDataAccessService customerJDBCDataAccessService;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = getJdbcTemplate();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource())
+        );
+        customerCsvImportService = new CustomerCsvImportService(jdbcTemplate, transactionTemplate, 100);
+        customerJDBCDataAccessService = new CustomerJDBCDataAccessService(jdbcTemplate, new CustomerRowMapper());
+    }
+
+    @Test
+    @DisplayName("Test that valid CSV rows are copied into the customer table")
+    void importCsv() {
+        // Given
+        String first = randomEmail();
+        String second = randomEmail();
+        String csv = """
+                name,email,age,gender
+                Foo,%s,20,MALE
+                "Bar, Jr.",%s,30,FEMALE
+                """.formatted(first, second);
+
+        // When
+        CustomerImportResult result = customerCsvImportService.importCsv(stream(csv));
+
+        // Then
+        assertThat(result.received()).isEqualTo(2);
+        assertThat(result.inserted()).isEqualTo(2);
+        assertThat(result.errors()).isEmpty();
+        assertThat(customerJDBCDataAccessService.existsPersonWithEmail(first)).isTrue();
+        assertThat(customerJDBCDataAccessService.existsPersonWithEmail(second)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Test that duplicate emails and invalid rows are reported instead of aborting the load")
+    void importCsvReportsRejectedRows() {
+        // Given
+        String existing = randomEmail();
+        customerJDBCDataAccessService.insertCustomer(
+                Customer.builder().name("Foo").email(existing).age(20).gender(Gender.MALE).build()
+        );
+        String fresh = randomEmail();
+        String csv = """
+                name,email,age,gender
+                Faa,%s,21,FEMALE
+                Fii,%s,22,MALE
+                Fuu,%s,23,MALE
+                ,%s,24,MALE
+                Fee,%s,old,MALE
+                """.formatted(fresh, existing, fresh, randomEmail(), randomEmail());
+
+        // When
+        CustomerImportResult result = customerCsvImportService.importCsv(stream(csv));
+
+        // Then
+        assertThat(result.received()).isEqualTo(5);
+        assertThat(result.inserted()).isEqualTo(1);
+        assertThat(result.rejected()).isEqualTo(4);
+        assertThat(result.errors())
+                .extracting(CustomerBatchResult.RowError::row, CustomerBatchResult.RowError::reason)
+                .containsExactly(
+                        tuple(1, "Email already taken!"),
+                        tuple(2, "Email already taken!"),
+                        tuple(3, "Missing name"),
+                        tuple(4, "Invalid age")
+                );
+        assertThat(customerJDBCDataAccessService.existsPersonWithEmail(fresh)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Test that rows whose email is registered while the load runs are reported too")
+    void importCsvReportsEmailsRegisteredDuringTheLoad() throws Exception {
+        // Given
+        String contested = randomEmail();
+        String fresh = randomEmail();
+        String csv = """
+                name,email,age,gender
+                Faa,%s,21,FEMALE
+                Fii,%s,22,MALE
+                """.formatted(contested, fresh);
+        DataSource dataSource = getJdbcTemplate().getDataSource();
+        CustomerImportResult result;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO customer (name, email, age, gender) VALUES ('Foo', ?, 20, 'MALE')")) {
+                insert.setString(1, contested);
+                insert.executeUpdate();
+            }
+
+            // When
+            // the import can't see the uncommitted customer, so only its `ON CONFLICT` runs into it
+            CompletableFuture<CustomerImportResult> importing =
+                    CompletableFuture.supplyAsync(() -> customerCsvImportService.importCsv(stream(csv)));
+            Thread.sleep(500);
+            connection.commit();
+            result = importing.get(10, TimeUnit.SECONDS);
+        }
+
+        // Then
+        assertThat(result.inserted()).isEqualTo(1);
+        assertThat(result.rejected()).isEqualTo(1);
+        assertThat(result.errors())
+                .extracting(CustomerBatchResult.RowError::row, CustomerBatchResult.RowError::email, CustomerBatchResult.RowError::reason)
+                .containsExactly(tuple(0, contested, "Email already taken!"));
+    }
+
+    private static String randomEmail() {
+        return FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+    }
+
+    private static ByteArrayInputStream stream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+}
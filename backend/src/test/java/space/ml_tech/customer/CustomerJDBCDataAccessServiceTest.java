@@ -3,13 +3,19 @@ package space.ml_tech.customer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import space.ml_tech.AbstractTestContainers;
+import space.ml_tech.exceptions.DuplicateResourceException;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
 
@@ -78,6 +84,96 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
     }
 
 
+    @Test
+    @DisplayName("Test that keyset pages are ordered by id and resume after the given id")
+    void selectCustomersAfter() {
+        // Given
+        injectCustomer();
+        injectCustomer();
+        injectCustomer();
+
+        // When
+        List<Customer> firstPage = customerJDBCDataAccessService.selectCustomersAfter(0, 2);
+        int lastId = firstPage.get(firstPage.size() - 1).getId();
+        List<Customer> secondPage = customerJDBCDataAccessService.selectCustomersAfter(lastId, 2);
+
+        // Then
+        assertThat(firstPage).hasSize(2).isSortedAccordingTo(Comparator.comparing(Customer::getId));
+        assertThat(secondPage).isNotEmpty()
+                .allSatisfy(c -> assertThat(c.getId()).isGreaterThan(lastId));
+    }
+
+
+    @Test
+    @DisplayName("Test that streaming the table visits every customer")
+    void forEachCustomer() {
+        // Given
+        injectCustomer();
+        List<Customer> streamed = new ArrayList<>();
+
+        // When
+        customerJDBCDataAccessService.forEachCustomer(streamed::add);
+
+        // Then
+        assertThat(streamed)
+                .hasSameSizeAs(customerJDBCDataAccessService.selectAllCustomers())
+                .anySatisfy(c -> assertThat(c.getEmail()).isEqualTo(email));
+    }
+
+
+    @Test
+    @DisplayName("Test that a search only returns customers matching every filter")
+    void searchCustomers() {
+        // Given
+        String domain = UUID.randomUUID() + ".com";
+        Customer match = insert("Smith-" + domain, "a@" + domain, 30, Gender.FEMALE);
+        insert("Smith-" + domain, "b@" + domain, 30, Gender.MALE);
+        insert("Smith-" + domain, "c@" + domain, 50, Gender.FEMALE);
+        insert("Jones-" + domain, "d@" + domain, 30, Gender.FEMALE);
+        CustomerSearchCriteria criteria = new CustomerSearchCriteria(
+                "Smith-", domain.toUpperCase(), 25, 35, Gender.FEMALE
+        );
+
+        // When
+        List<Customer> actual = customerJDBCDataAccessService.searchCustomers(criteria, 0, 10);
+
+        // Then
+        assertThat(actual).extracting(Customer::getEmail).containsExactly(match.getEmail());
+    }
+
+    @Test
+    @DisplayName("Test that LIKE wildcards in a name prefix are matched literally")
+    void searchCustomersEscapesNamePrefix() {
+        // Given
+        String domain = UUID.randomUUID() + ".com";
+        Customer match = insert("100%_" + domain, "a@" + domain, 30, Gender.MALE);
+        insert("100xx" + domain, "b@" + domain, 30, Gender.MALE);
+        CustomerSearchCriteria criteria = new CustomerSearchCriteria("100%_", domain, null, null, null);
+
+        // When
+        List<Customer> actual = customerJDBCDataAccessService.searchCustomers(criteria, 0, 10);
+
+        // Then
+        assertThat(actual).extracting(Customer::getEmail).containsExactly(match.getEmail());
+    }
+
+    @Test
+    @DisplayName("Test that search results are keyset paged by id")
+    void searchCustomersPagesById() {
+        // Given
+        String domain = UUID.randomUUID() + ".com";
+        Customer first = insert("Foo", "a@" + domain, 30, Gender.MALE);
+        Customer second = insert("Foo", "b@" + domain, 30, Gender.MALE);
+        CustomerSearchCriteria criteria = new CustomerSearchCriteria(null, domain, null, null, null);
+
+        // When
+        List<Customer> actual = customerJDBCDataAccessService.searchCustomers(criteria, first.getId(), 10);
+
+        // Then
+        assertThat(actual).extracting(Customer::getId).containsExactly(second.getId());
+    }
+
+
     // ------ POST methods ------ //
 
 
@@ -95,6 +191,60 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
     }
 
 
+    @Test
+    @DisplayName("Test that a batch insert skips emails that are already taken")
+    void insertCustomers() {
+        // Given
+        injectCustomer();
+        String newEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        List<Customer> batch = List.of(
+                Customer.builder().name("Foo").email(newEmail).age(30).gender(Gender.FEMALE).build(),
+                Customer.builder().name("Faa").email(email).age(31).gender(Gender.MALE).build(),
+                Customer.builder().name("Fii").email(newEmail).age(32).gender(Gender.MALE).build()
+        );
+
+        // When
+        int[] actual = customerJDBCDataAccessService.insertCustomers(batch);
+
+        // Then
+        assertThat(actual).containsExactly(1, 0, 0);
+        assertThat(customerJDBCDataAccessService.existsPersonWithEmail(newEmail)).isTrue();
+        assertThat(customerJDBCDataAccessService.selectCustomerById(batch.get(0).getId()))
+                .hasValueSatisfying(inserted -> assertThat(inserted.getName()).isEqualTo("Foo"));
+        assertThat(batch.get(1).getId()).isNull();
+        assertThat(batch.get(2).getId()).isNull();
+    }
+
+
+    @Test
+    @DisplayName("Test that inserting a customer sets its generated id")
+    void insertCustomerSetsGeneratedId() {
+        // When
+        injectCustomer();
+
+        // Then
+        assertThat(customer.getId()).isEqualTo(getCustomerId());
+    }
+
+    @Test
+    @DisplayName("Test that inserting a customer with a taken email is rejected by the insert itself")
+    void willThrowWhenInsertingCustomerWithTakenEmail() {
+        // Given
+        injectCustomer();
+        Customer duplicate = Customer.builder()
+                .name("Foo")
+                .email(email)
+                .age(40)
+                .gender(Gender.FEMALE)
+                .build();
+
+        // Then
+        assertThatThrownBy(() -> customerJDBCDataAccessService.insertCustomer(duplicate))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("Email already taken!");
+    }
+
+
     // ------ PUT methods ------ //
 
     @Test
@@ -185,6 +335,8 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
         customerJDBCDataAccessService.updatePerson(customer);
 
         // Then
+        // the update also bumped the version
+        customer.setVersion(1L);
         var actual = customerJDBCDataAccessService.selectCustomerById(customerId);
         assertThat(actual).isPresent().hasValue(customer);
     }
@@ -210,6 +362,98 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
     }
 
 
+    @Test
+    @DisplayName("Test that a partial update only touches the given fields and returns the new row")
+    void updatePersonReturnsUpdatedRow() {
+        // Given
+        injectCustomer();
+        int customerId = getCustomerId();
+        Customer update = Customer.builder().id(customerId).age(77).build();
+
+        // When
+        Optional<Customer> actual = customerJDBCDataAccessService.updatePerson(update);
+
+        // Then
+        assertThat(actual).hasValueSatisfying(c -> {
+            assertThat(c.getName()).isEqualTo(customer.getName());
+            assertThat(c.getEmail()).isEqualTo(customer.getEmail());
+            assertThat(c.getAge()).isEqualTo(77);
+        });
+    }
+
+    @Test
+    @DisplayName("Test that an update bumps the version of the row and the table's change counter")
+    void updatePersonBumpsVersionAndChangeCount() {
+        // Given
+        injectCustomer();
+        int customerId = getCustomerId();
+        long changes = customerJDBCDataAccessService.selectChangeCount();
+
+        // When
+        Optional<Customer> actual = customerJDBCDataAccessService.updatePerson(
+                Customer.builder().id(customerId).age(78).build()
+        );
+
+        // Then
+        assertThat(actual).hasValueSatisfying(c -> assertThat(c.getVersion()).isEqualTo(1));
+        assertThat(customerJDBCDataAccessService.selectCustomerVersion(customerId)).contains(1L);
+        assertThat(customerJDBCDataAccessService.selectCustomerVersion(-1)).isEmpty();
+        assertThat(customerJDBCDataAccessService.selectChangeCount()).isGreaterThan(changes);
+    }
+
+    @Test
+    @DisplayName("Test that an update which changes nothing returns empty")
+    void updatePersonReturnsEmptyWhenNothingChanged() {
+        // Given
+        injectCustomer();
+        int customerId = getCustomerId();
+        Customer update = Customer.builder().id(customerId).name(customer.getName()).build();
+        long changes = customerJDBCDataAccessService.selectChangeCount();
+
+        // When
+        Optional<Customer> actual = customerJDBCDataAccessService.updatePerson(update);
+
+        // Then
+        assertThat(actual).isEmpty();
+        // the `UPDATE` matched no row, so the `ETag` of the list stays the same
+        assertThat(customerJDBCDataAccessService.selectChangeCount()).isEqualTo(changes);
+    }
+
+    @Test
+    @DisplayName("Test that updating to an email that is taken is rejected")
+    void willThrowWhenUpdatingToTakenEmail() {
+        // Given
+        injectCustomer();
+        String takenEmail = email;
+        injectCustomer();
+        Customer update = Customer.builder().id(getCustomerId()).email(takenEmail).build();
+
+        // Then
+        assertThatThrownBy(() -> customerJDBCDataAccessService.updatePerson(update))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("Email already taken!");
+    }
+
+
+    @Test
+    @DisplayName("Test that breaking any other constraint is not reported as a taken email")
+    void willNotReportOtherConstraintViolationsAsTakenEmail() {
+        // Given
+        injectCustomer();
+        Customer update = Customer.builder().id(getCustomerId()).age(300).build();
+        JdbcTemplate jdbcTemplate = getJdbcTemplate();
+        jdbcTemplate.execute("ALTER TABLE customer ADD CONSTRAINT customer_age_test CHECK (age < 200) NOT VALID");
+
+        // Then
+        try {
+            assertThatThrownBy(() -> customerJDBCDataAccessService.updatePerson(update))
+                    .isInstanceOf(DataIntegrityViolationException.class);
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE customer DROP CONSTRAINT customer_age_test");
+        }
+    }
+
+
     // ------ DELETE methods ------ //
 
     @Test
@@ -221,13 +465,24 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
         int customerId = getCustomerId();
 
         // When
-        customerJDBCDataAccessService.deletePersonById(customerId);
+        Optional<Customer> deleted = customerJDBCDataAccessService.deletePersonById(customerId);
 
         // Then
+        assertThat(deleted).hasValueSatisfying(c -> assertThat(c.getEmail()).isEqualTo(email));
         var actual = customerJDBCDataAccessService.selectCustomerById(customerId);
         assertThat(actual).isNotPresent();
     }
 
+    @Test
+    @DisplayName("Test that deleting an unknown id returns empty")
+    void deletePersonByIdReturnsEmptyForUnknownId() {
+        // When
+        Optional<Customer> deleted = customerJDBCDataAccessService.deletePersonById(-1);
+
+        // Then
+        assertThat(deleted).isEmpty();
+    }
+
 
     // ------ MISC methods ------ //
 
@@ -291,6 +546,35 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
     }
 
 
+    @Test
+    @DisplayName("Test that the changes after a frontier hold every customer written since, once, and the deleted ones")
+    void selectChangesAfter() {
+        // Given
+        long frontier = customerJDBCDataAccessService.selectChangesAfter(0, 0, false, 1).frontier();
+        Customer kept = insert("Kept", "kept-" + UUID.randomUUID() + "@gmail.com", 30, Gender.FEMALE);
+        Customer gone = insert("Gone", "gone-" + UUID.randomUUID() + "@gmail.com", 40, Gender.MALE);
+        customerJDBCDataAccessService.updatePerson(Customer.builder().id(kept.getId()).age(31).build());
+        customerJDBCDataAccessService.deletePersonById(gone.getId());
+
+        // When
+        CustomerChangeLog changes = customerJDBCDataAccessService.selectChangesAfter(frontier, 0, true, 1000);
+
+        // Then
+        List<CustomerChangeLog.Entry> ours = changes.entries().stream()
+                .filter(entry -> entry.id() == kept.getId() || entry.id() == gone.getId())
+                .toList();
+        // in the order of their last writes: the update, then the deletion
+        assertThat(ours).extracting(CustomerChangeLog.Entry::id).containsExactly(kept.getId(), gone.getId());
+        assertThat(ours.get(0).customer().getAge()).isEqualTo(31);
+        assertThat(ours.get(1).customer()).isNull();
+        assertThat(changes.frontier()).isGreaterThan(ours.get(1).txid());
+        assertThat(customerJDBCDataAccessService.selectChangesAfter(frontier, 0, false, 1000).entries())
+                .extracting(CustomerChangeLog.Entry::id)
+                .contains(kept.getId())
+                .doesNotContain(gone.getId());
+    }
+
+
     // ---- HELPER METHODS ---- //
     void injectCustomer() {
         email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
@@ -305,6 +589,12 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
         customerJDBCDataAccessService.insertCustomer(customer);
     }
 
+    Customer insert(String name, String email, int age, Gender gender) {
+        Customer inserted = new Customer(null, name, email, age, gender);
+        customerJDBCDataAccessService.insertCustomer(inserted);
+        return inserted;
+    }
+
     int getCustomerId() {
         return customerJDBCDataAccessService.selectAllCustomers()
                 .stream()
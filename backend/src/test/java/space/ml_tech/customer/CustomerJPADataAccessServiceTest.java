@@ -1,11 +1,24 @@
 package space.ml_tech.customer;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import space.ml_tech.exceptions.DuplicateResourceException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class CustomerJPADataAccessServiceTest {
 
@@ -48,6 +61,72 @@ class CustomerJPADataAccessServiceTest {
         Mockito.verify(customerRepository).findById(randomId);
     }
 
+    @Test
+    void selectCustomersAfter() {
+        // Given
+        int afterId = 5;
+        int limit = 10;
+        Mockito.when(customerRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.ofSize(limit)))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        // When
+        customerJPADataAccessService.selectCustomersAfter(afterId, limit);
+
+        // Then
+        Mockito.verify(customerRepository).findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.ofSize(limit));
+    }
+
+    @Test
+    void searchCustomers() {
+        // Given
+        CustomerSearchCriteria criteria = new CustomerSearchCriteria("Al", "gmail.com", 18, 30, Gender.MALE);
+
+        // When
+        customerJPADataAccessService.searchCustomers(criteria, 5, 10);
+
+        // Then
+        Mockito.verify(customerRepository).search(criteria, 5, 10);
+    }
+
+    @Test
+    void forEachCustomerWalksTheTableInKeysetChunks() {
+        // Given
+        List<Customer> firstChunk = IntStream.rangeClosed(1, 1000)
+                .mapToObj(id -> new Customer(id, "Foo", "foo" + id + "@bar.com", 20, Gender.MALE))
+                .toList();
+        List<Customer> secondChunk = List.of(new Customer(1001, "Faa", "faa@bar.com", 30, Gender.FEMALE));
+        Mockito.when(customerRepository.findByIdGreaterThanOrderByIdAsc(0, PageRequest.ofSize(1000)))
+                .thenReturn(new SliceImpl<>(firstChunk));
+        Mockito.when(customerRepository.findByIdGreaterThanOrderByIdAsc(1000, PageRequest.ofSize(1000)))
+                .thenReturn(new SliceImpl<>(secondChunk));
+        List<Customer> consumed = new ArrayList<>();
+
+        // When
+        customerJPADataAccessService.forEachCustomer(consumed::add);
+
+        // Then
+        assertThat(consumed).hasSize(1001).endsWith(secondChunk.get(0));
+    }
+
+    @Test
+    void selectChangesAfterMapsRowsAndTombstones() {
+        // Given
+        List<Object[]> rows = List.of(
+                new Object[]{90L, 3L, 1L, "Alex", "alex@gmail.com", 21, "MALE", 2L, 81L, false},
+                new Object[]{90L, 3L, 2L, null, null, null, null, null, 82L, true}
+        );
+        Mockito.when(customerRepository.findChangesAfter(80, 0, true, 10)).thenReturn(rows);
+
+        // When
+        CustomerChangeLog actual = customerJPADataAccessService.selectChangesAfter(80, 0, true, 10);
+
+        // Then
+        assertThat(actual).isEqualTo(new CustomerChangeLog(List.of(
+                new CustomerChangeLog.Entry(81, 1, new Customer(1, "Alex", "alex@gmail.com", 21, Gender.MALE, 2L)),
+                new CustomerChangeLog.Entry(82, 2, null)
+        ), 90, 3));
+    }
+
     @Test
     void insertCustomer() {
         // Given
@@ -63,7 +142,47 @@ class CustomerJPADataAccessServiceTest {
         customerJPADataAccessService.insertCustomer(customer);
 
         // Then
-        Mockito.verify(customerRepository).save(customer);
+        Mockito.verify(customerRepository).saveAndFlush(customer);
+    }
+
+    @Test
+    void willThrowWhenInsertingCustomerWithTakenEmail() {
+        // Given
+        Customer customer = new Customer(null, "Rio", "rio_is_the_best@gmail.com", 35, Gender.MALE);
+        Mockito.when(customerRepository.saveAndFlush(customer)).thenThrow(violationOf("customer_email_unique"));
+
+        // Then
+        assertThatThrownBy(() -> customerJPADataAccessService.insertCustomer(customer))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("Email already taken!");
+    }
+
+    @Test
+    void willNotReportOtherConstraintViolationsAsTakenEmail() {
+        // Given
+        Customer customer = new Customer(null, "Rio", "rio_is_the_best@gmail.com", 35, null);
+        DataIntegrityViolationException violation = violationOf("customer_gender_not_null");
+        Mockito.when(customerRepository.saveAndFlush(customer)).thenThrow(violation);
+
+        // Then
+        assertThatThrownBy(() -> customerJPADataAccessService.insertCustomer(customer))
+                .isSameAs(violation);
+    }
+
+    @Test
+    void insertCustomersSkipsCustomersWithTakenEmail() {
+        // Given
+        Customer rio = new Customer(null, "Rio", "rio@gmail.com", 35, Gender.MALE);
+        Customer taken = new Customer(null, "Alex", "alex@gmail.com", 25, Gender.MALE);
+        Mockito.when(customerRepository.saveAndFlush(taken)).thenThrow(violationOf("customer_email_unique"));
+
+        // When
+        int[] actual = customerJPADataAccessService.insertCustomers(List.of(rio, taken));
+
+        // Then
+        assertThat(actual).containsExactly(1, 0);
+        Mockito.verify(customerRepository).saveAndFlush(rio);
+        Mockito.verify(customerRepository, Mockito.never()).existsCustomerByEmail(Mockito.anyString());
     }
 
     @Test
@@ -71,11 +190,15 @@ class CustomerJPADataAccessServiceTest {
         // Given
         int randomId = 7;
 
+        Customer customer = new Customer(randomId, "Rio", "rio@gmail.com", 35, Gender.MALE);
+        Mockito.when(customerRepository.findById(randomId)).thenReturn(Optional.of(customer));
+
         // When
-        customerJPADataAccessService.deletePersonById(randomId);
+        Optional<Customer> actual = customerJPADataAccessService.deletePersonById(randomId);
 
         // Then
-        Mockito.verify(customerRepository).deleteById(randomId);
+        Mockito.verify(customerRepository).delete(customer);
+        assertThat(actual).hasValue(customer);
     }
 
     @Test
@@ -89,11 +212,31 @@ class CustomerJPADataAccessServiceTest {
                 Gender.MALE
         );
 
+        Customer existing = new Customer(2, "Alex", "alex@gmail.com", 25, Gender.MALE);
+        Mockito.when(customerRepository.findById(2)).thenReturn(Optional.of(existing));
+        Mockito.when(customerRepository.saveAndFlush(existing)).thenReturn(existing);
+
         // When
-        customerJPADataAccessService.updatePerson(customer);
+        Optional<Customer> actual = customerJPADataAccessService.updatePerson(customer);
 
         // Then
-        Mockito.verify(customerRepository).save(customer);
+        Mockito.verify(customerRepository).saveAndFlush(existing);
+        assertThat(actual).hasValue(customer);
+    }
+
+    @Test
+    void willNotUpdatePersonWhenNothingChanged() {
+        // Given
+        Customer customer = new Customer(2, "Alex", "alex@gmail.com", 25, Gender.MALE);
+        Mockito.when(customerRepository.findById(2))
+                .thenReturn(Optional.of(new Customer(2, "Alex", "alex@gmail.com", 25, Gender.MALE)));
+
+        // When
+        Optional<Customer> actual = customerJPADataAccessService.updatePerson(customer);
+
+        // Then
+        Mockito.verify(customerRepository, Mockito.never()).saveAndFlush(Mockito.any());
+        assertThat(actual).isEmpty();
     }
 
     @Test
@@ -119,4 +262,12 @@ class CustomerJPADataAccessServiceTest {
         // Then
         Mockito.verify(customerRepository).existsCustomerById(randomId);
     }
-}
\ No newline at end of file
+
+
+    /*---- Helper Methods -----*/
+    // what Spring makes of a constraint violation Hibernate reports for Postgres
+    private static DataIntegrityViolationException violationOf(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", null, constraintName));
+    }
+}
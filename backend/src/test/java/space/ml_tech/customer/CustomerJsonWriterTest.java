@@ -0,0 +1,53 @@
+package space.ml_tech.customer;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerJsonWriterTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void writeRowMatchesJacksonsCustomerJson() throws SQLException, IOException {
+        // Given
+        // a quote, a backslash and non-ASCII characters, which must come out escaped / intact
+        Customer customer = Customer.builder()
+                .id(4)
+                .name("Zoë \"Foo\" \\ Łukasz")
+                .email("foo@bar.com")
+                .age(20)
+                .gender(Gender.FEMALE)
+                .build();
+
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        Mockito.when(resultSet.getInt(1)).thenReturn(customer.getId());
+        Mockito.when(resultSet.getBytes(2)).thenReturn(customer.getName().getBytes(StandardCharsets.UTF_8));
+        Mockito.when(resultSet.getBytes(3)).thenReturn(customer.getEmail().getBytes(StandardCharsets.UTF_8));
+        Mockito.when(resultSet.getInt(4)).thenReturn(customer.getAge());
+        Mockito.when(resultSet.getBytes(5)).thenReturn(customer.getGender().name().getBytes(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            CustomerJsonWriter.writeRow(resultSet, generator);
+        }
+
+        // Then
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(objectMapper.writeValueAsString(customer));
+        Mockito.verify(resultSet, Mockito.never()).getString(Mockito.anyString());
+        Mockito.verify(resultSet, Mockito.never()).getString(Mockito.anyInt());
+    }
+}
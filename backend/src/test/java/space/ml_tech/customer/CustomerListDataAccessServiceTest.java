@@ -0,0 +1,264 @@
+package space.ml_tech.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import space.ml_tech.exceptions.DuplicateResourceException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerListDataAccessServiceTest {
+
+    private CustomerListDataAccessService customerListDataAccessService;
+
+    @BeforeEach
+    void setUp() {
+        customerListDataAccessService = new CustomerListDataAccessService();
+    }
+
+    @Test
+    void insertCustomerGeneratesId() {
+        // Given
+        Customer customer = new Customer(null, "Ana", "ana@gmail.com", 30, Gender.FEMALE);
+
+        // When
+        customerListDataAccessService.insertCustomer(customer);
+
+        // Then
+        assertThat(customer.getId()).isNotNull();
+        assertThat(customerListDataAccessService.selectCustomerById(customer.getId())).contains(customer);
+        assertThat(customerListDataAccessService.existsPersonWithEmail("ana@gmail.com")).isTrue();
+    }
+
+    @Test
+    void updatePersonBumpsVersionAndChangeCount() {
+        // Given
+        Customer alex = customerListDataAccessService.selectAllCustomers().get(0);
+        long changes = customerListDataAccessService.selectChangeCount();
+
+        // When
+        Optional<Customer> updated = customerListDataAccessService.updatePerson(
+                new Customer(alex.getId(), "Alexander", null, null, null)
+        );
+
+        // Then
+        assertThat(alex.getVersion()).isZero();
+        assertThat(updated).hasValueSatisfying(customer -> assertThat(customer.getVersion()).isEqualTo(1));
+        assertThat(customerListDataAccessService.selectCustomerVersion(alex.getId())).contains(1L);
+        assertThat(customerListDataAccessService.selectChangeCount()).isEqualTo(changes + 1);
+    }
+
+    @Test
+    void insertCustomerRejectsTakenEmail() {
+        // Given
+        Customer customer = new Customer(null, "Other Alex", "alex@gmail.com", 30, Gender.MALE);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> customerListDataAccessService.insertCustomer(customer))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("Email already taken!");
+        assertThat(customerListDataAccessService.selectAllCustomers()).hasSize(2);
+    }
+
+    @Test
+    void updatePersonReplacesEntryInsteadOfAddingOne() {
+        // Given
+        Customer alex = customerListDataAccessService.selectAllCustomers().get(0);
+        Customer update = new Customer(alex.getId(), "Alexander", "alexander@gmail.com", null, null);
+
+        // When
+        Optional<Customer> updated = customerListDataAccessService.updatePerson(update);
+
+        // Then
+        assertThat(updated).hasValueSatisfying(customer -> {
+            assertThat(customer.getName()).isEqualTo("Alexander");
+            assertThat(customer.getEmail()).isEqualTo("alexander@gmail.com");
+            assertThat(customer.getAge()).isEqualTo(alex.getAge());
+        });
+        assertThat(customerListDataAccessService.selectAllCustomers()).hasSize(2);
+        assertThat(customerListDataAccessService.existsPersonWithEmail("alex@gmail.com")).isFalse();
+        assertThat(customerListDataAccessService.existsPersonWithEmail("alexander@gmail.com")).isTrue();
+    }
+
+    @Test
+    void updatePersonRejectsTakenEmailAndKeepsCustomer() {
+        // Given
+        Customer alex = customerListDataAccessService.selectAllCustomers().get(0);
+        Customer update = new Customer(alex.getId(), "Alexander", "jamila@gmail.com", null, null);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> customerListDataAccessService.updatePerson(update))
+                .isInstanceOf(DuplicateResourceException.class);
+        assertThat(customerListDataAccessService.selectCustomerById(alex.getId())).contains(alex);
+    }
+
+    @Test
+    void updatePersonWithoutChangesReturnsEmpty() {
+        // Given
+        Customer alex = customerListDataAccessService.selectAllCustomers().get(0);
+        Customer update = new Customer(alex.getId(), alex.getName(), null, alex.getAge(), null);
+
+        // When
+        Optional<Customer> updated = customerListDataAccessService.updatePerson(update);
+
+        // Then
+        assertThat(updated).isEmpty();
+    }
+
+    @Test
+    void deletePersonByIdFreesEmail() {
+        // Given
+        Customer alex = customerListDataAccessService.selectAllCustomers().get(0);
+
+        // When
+        Optional<Customer> deleted = customerListDataAccessService.deletePersonById(alex.getId());
+
+        // Then
+        assertThat(deleted).contains(alex);
+        assertThat(customerListDataAccessService.existsPersonWithId(alex.getId())).isFalse();
+        assertThat(customerListDataAccessService.existsPersonWithEmail(alex.getEmail())).isFalse();
+        assertThat(customerListDataAccessService.deletePersonById(alex.getId())).isEmpty();
+    }
+
+    @Test
+    void returnedCustomersAreCopies() {
+        // Given
+        Customer alex = customerListDataAccessService.selectAllCustomers().get(0);
+
+        // When
+        alex.setName("Changed");
+
+        // Then
+        assertThat(customerListDataAccessService.selectCustomerById(alex.getId()))
+                .hasValueSatisfying(customer -> assertThat(customer.getName()).isEqualTo("Alex"));
+    }
+
+    @Test
+    void selectCustomersAfterPagesInIdOrder() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            customerListDataAccessService.insertCustomer(
+                    new Customer(null, "Customer", "customer-%s@gmail.com".formatted(i), 20, Gender.MALE));
+        }
+        customerListDataAccessService.deletePersonById(4);
+
+        // When
+        List<Customer> page = customerListDataAccessService.selectCustomersAfter(2, 3);
+
+        // Then
+        assertThat(page).extracting(Customer::getId).containsExactly(3, 5, 6);
+    }
+
+    @Test
+    void selectChangesAfterReturnsWritesSinceTheFrontierInOrder() {
+        // Given
+        // Alex and Jamila are in the store from the start
+        CustomerChangeLog initial = customerListDataAccessService.selectChangesAfter(0, 0, false, 10);
+        customerListDataAccessService.updatePerson(Customer.builder().id(1).age(22).build());
+        customerListDataAccessService.deletePersonById(2);
+        Customer ana = new Customer(null, "Ana", "ana@gmail.com", 30, Gender.FEMALE);
+        customerListDataAccessService.insertCustomer(ana);
+
+        // When
+        CustomerChangeLog changes = customerListDataAccessService.selectChangesAfter(initial.frontier(), 0, true, 10);
+
+        // Then
+        assertThat(initial.entries()).extracting(CustomerChangeLog.Entry::id).containsExactly(1, 2);
+        assertThat(changes.entries()).extracting(CustomerChangeLog.Entry::id).containsExactly(1, 2, ana.getId());
+        assertThat(changes.entries().get(0).customer().getAge()).isEqualTo(22);
+        assertThat(changes.entries().get(1).customer()).isNull();
+        assertThat(changes.frontier()).isGreaterThan(changes.entries().get(2).txid());
+    }
+
+    @Test
+    void frontierCoversEveryWriteOnceConcurrentWritersAreDone() throws Exception {
+        // Given
+        int threads = 8;
+        int writesPerThread = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        // When
+        // everyone updates the same customer too, so its stamps race each other
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < writesPerThread; i++) {
+                    customerListDataAccessService.insertCustomer(new Customer(
+                            null, "Customer", "user-%s-%s@gmail.com".formatted(thread, i), 20, Gender.MALE));
+                    customerListDataAccessService.updatePerson(Customer.builder().id(1).age(20 + i % 2).build());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+        CustomerChangeLog changes = customerListDataAccessService.selectChangesAfter(0, 0, true, Integer.MAX_VALUE);
+
+        // Then
+        long writes = customerListDataAccessService.selectChangeCount();
+        assertThat(changes.frontier()).isEqualTo(writes + 1);
+        assertThat(changes.entries()).hasSize(threads * writesPerThread + 2);
+        assertThat(changes.entries().get(changes.entries().size() - 1).txid()).isLessThanOrEqualTo(writes);
+    }
+
+    @Test
+    void concurrentInsertsKeepIdsAndEmailsUnique() throws Exception {
+        // Given
+        int threads = 8;
+        int insertsPerThread = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        List<Future<Integer>> results = new ArrayList<>();
+
+        // When
+        // every thread inserts the same emails, so each one must be won by exactly one thread
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int inserted = 0;
+                for (int i = 0; i < insertsPerThread; i++) {
+                    Customer customer = new Customer(null, "Customer", "user-%s@gmail.com".formatted(i), 20, Gender.MALE);
+                    if (customerListDataAccessService.insertCustomers(List.of(customer))[0] == 1) {
+                        ids.add(customer.getId());
+                        inserted++;
+                    }
+                }
+                return inserted;
+            }));
+        }
+        start.countDown();
+        int inserted = 0;
+        for (Future<Integer> result : results) {
+            inserted += result.get();
+        }
+        executor.shutdown();
+
+        // Then
+        List<Customer> customers = customerListDataAccessService.selectAllCustomers();
+        assertThat(inserted).isEqualTo(insertsPerThread);
+        assertThat(ids).hasSize(insertsPerThread);
+        assertThat(customers).hasSize(insertsPerThread + 2);
+        assertThat(customers.stream().map(Customer::getEmail).collect(Collectors.toSet()))
+                .hasSize(insertsPerThread + 2);
+    }
+}
@@ -0,0 +1,77 @@
+package space.ml_tech.customer;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerProtobufTest {
+
+    @Test
+    void writeCustomerMatchesTheProtoWireFormat() throws IOException {
+        // Given
+        Customer customer = new Customer(1, "A", "b", 2, Gender.FEMALE);
+
+        // When
+        byte[] bytes = write(customer);
+
+        // Then
+        // (field number << 3 | wire type) before each value, and strings prefixed with their length
+        assertThat(bytes).containsExactly(
+                0x08, 0x01,
+                0x12, 0x01, 'A',
+                0x1A, 0x01, 'b',
+                0x20, 0x02,
+                0x28, 0x02
+        );
+    }
+
+    @Test
+    void writtenCustomerListReadsBack() throws IOException {
+        // Given
+        // unset fields are left out on the wire, and stay unset once read
+        List<Customer> customers = List.of(
+                new Customer(1, "Zoë Łukasz", "zoe@bar.com", 20, Gender.FEMALE),
+                new Customer(2, "Bar", null, null, null)
+        );
+
+        // When
+        List<Customer> read = CustomerProtobuf.readCustomers(CodedInputStream.newInstance(write(customers)));
+
+        // Then
+        assertThat(read).isEqualTo(customers);
+    }
+
+    @Test
+    void readCustomerDtoSkipsTheIdAndWhatItDoesNotKnow() throws IOException {
+        // Given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        CustomerProtobuf.write(new Customer(7, "Foo", "foo@bar.com", 30, null), output);
+        // a field from a newer schema, and a gender this server doesn't have
+        output.writeString(9, "unknown");
+        output.writeEnum(5, 7);
+        output.flush();
+
+        // When
+        CustomerDTO customerDto = CustomerProtobuf.readCustomerDto(CodedInputStream.newInstance(bytes.toByteArray()));
+
+        // Then
+        assertThat(customerDto).isEqualTo(new CustomerDTO("Foo", "foo@bar.com", 30, null));
+    }
+
+
+    /*---- Helper Methods -----*/
+    private static byte[] write(Object body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        CustomerProtobuf.write(body, output);
+        output.flush();
+        return bytes.toByteArray();
+    }
+}
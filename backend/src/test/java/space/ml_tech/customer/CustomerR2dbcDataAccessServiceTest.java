@@ -0,0 +1,244 @@
+package space.ml_tech.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import reactor.test.StepVerifier;
+import space.ml_tech.AbstractTestContainers;
+import space.ml_tech.exceptions.DuplicateResourceException;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerR2dbcDataAccessServiceTest extends AbstractTestContainers {
+
+    private CustomerR2dbcDataAccessService customerR2dbcDataAccessService;
+
+    @BeforeEach
+    void setUp() {
+        customerR2dbcDataAccessService = new CustomerR2dbcDataAccessService(getDatabaseClient());
+    }
+
+
+    // ------ GET methods ------ //
+
+    @Test
+    @DisplayName("Test that streaming all customers emits the inserted customer")
+    void selectAllCustomers() {
+        // Given
+        Customer customer = injectCustomer();
+
+        // When
+        // Then
+        StepVerifier.create(customerR2dbcDataAccessService.selectAllCustomers()
+                        .filter(c -> c.getEmail().equals(customer.getEmail())))
+                .assertNext(c -> assertThat(c.getId()).isEqualTo(customer.getId()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Test that we can select a customer given their id")
+    void selectCustomerById() {
+        // Given
+        Customer customer = injectCustomer();
+
+        // When
+        // Then
+        StepVerifier.create(customerR2dbcDataAccessService.selectCustomerById(customer.getId()))
+                .assertNext(c -> assertThat(c).usingRecursiveComparison().isEqualTo(customer))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Test that given an invalid id, no customer is emitted")
+    void willCompleteEmptyWhenSelectCustomerById() {
+        StepVerifier.create(customerR2dbcDataAccessService.selectCustomerById(-1))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Test that keyset pages are ordered by id and resume after the given id")
+    void selectCustomersAfter() {
+        // Given
+        Customer first = injectCustomer();
+        injectCustomer();
+        injectCustomer();
+
+        // When
+        List<Customer> page = customerR2dbcDataAccessService.selectCustomersAfter(first.getId() - 1, 2)
+                .collectList()
+                .block();
+
+        // Then
+        assertThat(page).hasSize(2)
+                .isSortedAccordingTo(Comparator.comparing(Customer::getId))
+                .first().extracting(Customer::getId).isEqualTo(first.getId());
+    }
+
+    @Test
+    @DisplayName("Test that a search only returns customers matching every filter")
+    void searchCustomers() {
+        // Given
+        String domain = UUID.randomUUID() + ".com";
+        Customer match = insert("100%_" + domain, "a@" + domain, 30, Gender.FEMALE);
+        insert("100xx" + domain, "b@" + domain, 30, Gender.FEMALE);
+        insert("100%_" + domain, "c@" + domain, 30, Gender.MALE);
+        insert("100%_" + domain, "d@" + domain, 50, Gender.FEMALE);
+        CustomerSearchCriteria criteria = new CustomerSearchCriteria(
+                "100%_", domain.toUpperCase(), 25, 35, Gender.FEMALE
+        );
+
+        // When
+        // Then
+        StepVerifier.create(customerR2dbcDataAccessService.searchCustomers(criteria, 0, 10))
+                .assertNext(c -> assertThat(c.getEmail()).isEqualTo(match.getEmail()))
+                .verifyComplete();
+    }
+
+
+    // ------ POST methods ------ //
+
+    @Test
+    @DisplayName("Test that inserting a customer with a taken email is rejected by the insert itself")
+    void willErrorWhenInsertingCustomerWithTakenEmail() {
+        // Given
+        Customer customer = injectCustomer();
+        Customer duplicate = new Customer(null, "Foo", customer.getEmail(), 40, Gender.FEMALE);
+
+        // When
+        // Then
+        StepVerifier.create(customerR2dbcDataAccessService.insertCustomer(duplicate))
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOf(DuplicateResourceException.class)
+                        .hasMessage("Email already taken!"))
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Test that a batch insert skips emails that are already taken")
+    void insertCustomers() {
+        // Given
+        Customer customer = injectCustomer();
+        String newEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        List<Customer> batch = List.of(
+                new Customer(null, "Foo", newEmail, 30, Gender.FEMALE),
+                new Customer(null, "Faa", customer.getEmail(), 31, Gender.MALE),
+                new Customer(null, "Fii", newEmail, 32, Gender.MALE)
+        );
+
+        // When
+        int[] actual = customerR2dbcDataAccessService.insertCustomers(batch).block();
+
+        // Then
+        assertThat(actual).containsExactly(1, 0, 0);
+    }
+
+
+    // ------ PUT methods ------ //
+
+    @Test
+    @DisplayName("Test that an update emits the updated row")
+    void updatePerson() {
+        // Given
+        Customer customer = injectCustomer();
+        Customer update = Customer.builder().id(customer.getId()).name("Foo").age(42).build();
+
+        // When
+        // Then
+        StepVerifier.create(customerR2dbcDataAccessService.updatePerson(update))
+                .assertNext(c -> {
+                    assertThat(c.getName()).isEqualTo("Foo");
+                    assertThat(c.getAge()).isEqualTo(42);
+                    assertThat(c.getEmail()).isEqualTo(customer.getEmail());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Test that an update that changes nothing completes empty")
+    void updatePersonCompletesEmptyWhenNothingChanged() {
+        // Given
+        Customer customer = injectCustomer();
+        Customer update = Customer.builder().id(customer.getId()).name(customer.getName()).build();
+
+        // When
+        // Then
+        StepVerifier.create(customerR2dbcDataAccessService.updatePerson(update))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Test that updating to a taken email is rejected")
+    void willErrorWhenUpdatingToTakenEmail() {
+        // Given
+        Customer customer = injectCustomer();
+        Customer other = injectCustomer();
+        Customer update = Customer.builder().id(other.getId()).email(customer.getEmail()).build();
+
+        // When
+        // Then
+        StepVerifier.create(customerR2dbcDataAccessService.updatePerson(update))
+                .expectError(DuplicateResourceException.class)
+                .verify();
+    }
+
+
+    @Test
+    @DisplayName("Test that breaking any other constraint is not reported as a taken email")
+    void willNotReportOtherConstraintViolationsAsTakenEmail() {
+        // Given
+        Customer customer = injectCustomer();
+        Customer update = Customer.builder().id(customer.getId()).age(300).build();
+        JdbcTemplate jdbcTemplate = getJdbcTemplate();
+        jdbcTemplate.execute("ALTER TABLE customer ADD CONSTRAINT customer_age_test CHECK (age < 200) NOT VALID");
+
+        // When
+        // Then
+        try {
+            StepVerifier.create(customerR2dbcDataAccessService.updatePerson(update))
+                    .expectError(DataIntegrityViolationException.class)
+                    .verify();
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE customer DROP CONSTRAINT customer_age_test");
+        }
+    }
+
+
+    // ------ DELETE & Misc methods ------ //
+
+    @Test
+    @DisplayName("Test that deleting a customer emits it and removes it")
+    void deletePersonById() {
+        // Given
+        Customer customer = injectCustomer();
+
+        // When
+        // Then
+        StepVerifier.create(customerR2dbcDataAccessService.deletePersonById(customer.getId()))
+                .assertNext(c -> assertThat(c.getEmail()).isEqualTo(customer.getEmail()))
+                .verifyComplete();
+        StepVerifier.create(customerR2dbcDataAccessService.existsPersonWithId(customer.getId()))
+                .expectNext(false)
+                .verifyComplete();
+    }
+
+
+    // ---- HELPER METHODS ---- //
+    Customer injectCustomer() {
+        return insert(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                20,
+                Gender.MALE
+        );
+    }
+
+    Customer insert(String name, String email, int age, Gender gender) {
+        return customerR2dbcDataAccessService.insertCustomer(new Customer(null, name, email, age, gender)).block();
+    }
+}
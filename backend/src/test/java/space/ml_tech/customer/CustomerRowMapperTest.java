@@ -24,6 +24,7 @@ class CustomerRowMapperTest {
                 .email(testEmail)
                 .age(testAge)
                 .gender(Gender.MALE)
+                .version(3L)
                 .build();
 
         CustomerRowMapper customerRowMapper = new CustomerRowMapper();
@@ -34,6 +35,7 @@ class CustomerRowMapperTest {
         Mockito.when(resultSet.getString("name")).thenReturn(testName);
         Mockito.when(resultSet.getString("email")).thenReturn(testEmail);
         Mockito.when(resultSet.getString("gender")).thenReturn(Gender.MALE.name());
+        Mockito.when(resultSet.getLong("version")).thenReturn(3L);
 
         // When
         Customer actual = customerRowMapper.mapRow(resultSet, 1);
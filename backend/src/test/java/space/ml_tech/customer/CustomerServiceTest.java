@@ -1,5 +1,6 @@
 package space.ml_tech.customer;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,7 +11,16 @@ import space.ml_tech.exceptions.DuplicateResourceException;
 import space.ml_tech.exceptions.RequestValidationException;
 import space.ml_tech.exceptions.ResourceNotFoundException;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -21,11 +31,13 @@ class CustomerServiceTest {
 
     @Mock
     private CustomerDao customerDao;
+    @Mock
+    private CustomerJsonWriter customerJsonWriter;
     private CustomerService customerService;
 
     @BeforeEach
     void setUp() {
-        customerService = new CustomerService(customerDao);
+        customerService = new CustomerService(customerDao, customerJsonWriter);
     }
 
     @Test
@@ -37,6 +49,187 @@ class CustomerServiceTest {
         Mockito.verify(customerDao).selectAllCustomers();
     }
 
+    @Test
+    void getCustomersPageReturnsCursorWhenMoreRowsExist() {
+        // Given
+        List<Customer> rows = List.of(
+                new Customer(1, "Foo", "foo@bar.com", 20, Gender.MALE),
+                new Customer(2, "Faa", "faa@bar.com", 21, Gender.FEMALE),
+                new Customer(3, "Fii", "fii@bar.com", 22, Gender.MALE)
+        );
+        Mockito.when(customerDao.selectCustomersAfter(0, 3)).thenReturn(rows);
+
+        // When
+        CustomerPage page = customerService.getCustomersPage(null, 2);
+
+        // Then
+        assertThat(page.customers()).containsExactly(rows.get(0), rows.get(1));
+        assertThat(page.nextCursor()).isEqualTo(CustomerService.encodeCursor(2));
+    }
+
+    @Test
+    void getCustomersPageResumesAfterCursor() {
+        // Given
+        String cursor = CustomerService.encodeCursor(2);
+        List<Customer> rows = List.of(new Customer(3, "Fii", "fii@bar.com", 22, Gender.MALE));
+        Mockito.when(customerDao.selectCustomersAfter(2, 3)).thenReturn(rows);
+
+        // When
+        CustomerPage page = customerService.getCustomersPage(cursor, 2);
+
+        // Then
+        assertThat(page.customers()).isEqualTo(rows);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void willThrowWhenPageLimitIsOutOfRange() {
+        assertThatThrownBy(() -> customerService.getCustomersPage(null, 0))
+                .isInstanceOf(RequestValidationException.class);
+        assertThatThrownBy(() -> customerService.getCustomersPage(null, CustomerService.MAX_PAGE_SIZE + 1))
+                .isInstanceOf(RequestValidationException.class);
+    }
+
+    @Test
+    void willThrowWhenCursorIsMalformed() {
+        assertThatThrownBy(() -> customerService.getCustomersPage("not-a-cursor", 10))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Invalid cursor: not-a-cursor");
+    }
+
+    @Test
+    void getCustomersPageSearchesWhenFiltersAreGiven() {
+        // Given
+        CustomerSearchCriteria criteria = new CustomerSearchCriteria("Fo", null, 18, 30, Gender.MALE);
+        List<Customer> rows = List.of(new Customer(7, "Foo", "foo@bar.com", 20, Gender.MALE));
+        Mockito.when(customerDao.searchCustomers(criteria, 0, 11)).thenReturn(rows);
+
+        // When
+        CustomerPage page = customerService.getCustomersPage(criteria, null, 10);
+
+        // Then
+        assertThat(page.customers()).isEqualTo(rows);
+        assertThat(page.nextCursor()).isNull();
+        Mockito.verify(customerDao, Mockito.never()).selectCustomersAfter(Mockito.anyInt(), Mockito.anyInt());
+    }
+
+    @Test
+    void willThrowWhenAgeRangeIsInverted() {
+        // Given
+        CustomerSearchCriteria criteria = new CustomerSearchCriteria(null, null, 40, 30, null);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> customerService.getCustomersPage(criteria, null, 10))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("minAge must not be greater than maxAge");
+    }
+
+    @Test
+    void fullSyncPagesThroughTheChangesThenEndsAtTheFrontierItStartedFrom() {
+        // Given
+        Customer foo = new Customer(1, "Foo", "foo@bar.com", 20, Gender.MALE);
+        Customer faa = new Customer(2, "Faa", "faa@bar.com", 21, Gender.FEMALE);
+        Customer fii = new Customer(3, "Fii", "fii@bar.com", 22, Gender.MALE);
+        Mockito.when(customerDao.selectChangesAfter(0, 0, false, 3)).thenReturn(new CustomerChangeLog(List.of(
+                new CustomerChangeLog.Entry(0, 1, foo),
+                new CustomerChangeLog.Entry(42, 2, faa),
+                new CustomerChangeLog.Entry(45, 3, fii)
+        ), 50, 7));
+        Mockito.when(customerDao.selectChangesAfter(42, 2, false, 3)).thenReturn(new CustomerChangeLog(List.of(
+                new CustomerChangeLog.Entry(45, 3, fii)
+        ), 60, 7));
+
+        // When
+        CustomerChanges first = customerService.getChanges(null, 2);
+        CustomerChanges last = customerService.getChanges(first.watermark(), 2);
+
+        // Then
+        assertThat(first.changed()).containsExactly(foo, faa);
+        assertThat(first.hasMore()).isTrue();
+        assertThat(last.changed()).containsExactly(fii);
+        assertThat(last.hasMore()).isFalse();
+        assertThat(last.reset()).isFalse();
+        // what committed during the pass below the page being read comes with the next sync
+        assertThat(CustomerChangeWatermark.decode(last.watermark()))
+                .isEqualTo(new CustomerChangeWatermark(50, 0, 0, 7, true));
+    }
+
+    @Test
+    void incrementalSyncReturnsUpdatesAndDeletions() {
+        // Given
+        String since = new CustomerChangeWatermark(50, 0, 0, 7, true).encode();
+        Customer foo = new Customer(1, "Foo", "foo@bar.com", 20, Gender.MALE);
+        Mockito.when(customerDao.selectChangesAfter(50, 0, true, 11)).thenReturn(new CustomerChangeLog(List.of(
+                new CustomerChangeLog.Entry(51, 1, foo),
+                new CustomerChangeLog.Entry(52, 3, null)
+        ), 53, 7));
+
+        // When
+        CustomerChanges changes = customerService.getChanges(since, 10);
+
+        // Then
+        assertThat(changes.changed()).containsExactly(foo);
+        assertThat(changes.deleted()).containsExactly(3);
+        assertThat(changes.hasMore()).isFalse();
+        assertThat(CustomerChangeWatermark.decode(changes.watermark()))
+                .isEqualTo(new CustomerChangeWatermark(53, 0, 0, 7, true));
+    }
+
+    @Test
+    void syncStartsOverWhenChangesWereLost() {
+        // Given
+        String since = new CustomerChangeWatermark(50, 0, 0, 7, true).encode();
+        Customer foo = new Customer(1, "Foo", "foo@bar.com", 20, Gender.MALE);
+        Mockito.when(customerDao.selectChangesAfter(50, 0, true, 11))
+                .thenReturn(new CustomerChangeLog(List.of(), 80, 75));
+        Mockito.when(customerDao.selectChangesAfter(0, 0, false, 11))
+                .thenReturn(new CustomerChangeLog(List.of(new CustomerChangeLog.Entry(76, 1, foo)), 80, 75));
+
+        // When
+        CustomerChanges changes = customerService.getChanges(since, 10);
+
+        // Then
+        assertThat(changes.reset()).isTrue();
+        assertThat(changes.changed()).containsExactly(foo);
+    }
+
+    @Test
+    void syncCarriesOnWhenOnlyTombstonesItAlreadyReadWerePruned() {
+        // Given
+        String since = new CustomerChangeWatermark(50, 0, 0, 7, true).encode();
+        Customer foo = new Customer(1, "Foo", "foo@bar.com", 20, Gender.MALE);
+        Mockito.when(customerDao.selectChangesAfter(50, 0, true, 11))
+                .thenReturn(new CustomerChangeLog(List.of(new CustomerChangeLog.Entry(51, 1, foo)), 53, 40));
+
+        // When
+        CustomerChanges changes = customerService.getChanges(since, 10);
+
+        // Then
+        assertThat(changes.reset()).isFalse();
+        assertThat(changes.changed()).containsExactly(foo);
+        assertThat(CustomerChangeWatermark.decode(changes.watermark()))
+                .isEqualTo(new CustomerChangeWatermark(53, 0, 0, 40, true));
+    }
+
+    @Test
+    void willThrowWhenWatermarkIsMalformed() {
+        assertThatThrownBy(() -> customerService.getChanges("not-a-watermark", 10))
+                .isInstanceOf(RequestValidationException.class);
+    }
+
+    @Test
+    void exportCustomers() {
+        // Given
+        Consumer<Customer> consumer = customer -> { };
+
+        // When
+        customerService.exportCustomers(consumer);
+
+        // Then
+        Mockito.verify(customerDao).forEachCustomer(consumer);
+    }
+
     @Test
     void getCustomer() {
         // Given
@@ -69,6 +262,35 @@ class CustomerServiceTest {
                 .hasMessage("customer with id %s not found!".formatted(randomId));
     }
 
+    @Test
+    void getCustomerJsonWritesTheRow() throws IOException {
+        // Given
+        int randomId = 11;
+        JsonGenerator generator = Mockito.mock(JsonGenerator.class);
+        Mockito.when(customerJsonWriter.writeCustomerById(randomId, generator)).thenReturn(true);
+
+        // When
+        customerService.getCustomerJson(randomId).writeTo(generator);
+
+        // Then
+        Mockito.verify(customerJsonWriter).writeCustomerById(randomId, generator);
+        Mockito.verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willThrowWhenCustomerJsonWithIdIsNotFound() {
+        // Given
+        int randomId = 12;
+        JsonGenerator generator = Mockito.mock(JsonGenerator.class);
+        Mockito.when(customerJsonWriter.writeCustomerById(randomId, generator)).thenReturn(false);
+
+        // Then
+        assertThatThrownBy(() -> customerService.getCustomerJson(randomId).writeTo(generator))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("customer with id %s not found!".formatted(randomId));
+        Mockito.verifyNoInteractions(generator);
+    }
+
     @Test
     void addCustomer() {
         // Given
@@ -80,13 +302,14 @@ class CustomerServiceTest {
                 .email(customerDto.email())
                 .gender(customerDto.gender())
                 .build();
-        Mockito.when(customerDao.existsPersonWithEmail(email)).thenReturn(false);
 
         // When
         customerService.addCustomer(customerDto);
 
         // Then
+        // a single insert, without asking the database whether the email exists first
         Mockito.verify(customerDao).insertCustomer(customer);
+        Mockito.verify(customerDao, Mockito.never()).existsPersonWithEmail(Mockito.any());
         assertThat(customer.getId()).isNull();
         assertThat(customer.getName()).isEqualTo(customerDto.name());
         assertThat(customer.getEmail()).isEqualTo(customerDto.email());
@@ -101,7 +324,8 @@ class CustomerServiceTest {
         // Given
         String email = "foo@bar.com";
         CustomerDTO customerDto = new CustomerDTO("foo", email, 15, Gender.MALE);
-        Mockito.when(customerDao.existsPersonWithEmail(email)).thenReturn(true);
+        Mockito.doThrow(new DuplicateResourceException("Email already taken!"))
+                .when(customerDao).insertCustomer(Mockito.any());
 
         // When
         assertThatThrownBy(() -> customerService.addCustomer(customerDto))
@@ -109,8 +333,8 @@ class CustomerServiceTest {
                         .hasMessage("Email already taken!");
 
         // Then
-        // make sure that no customer with duplicate email is ever inserted
-        Mockito.verify(customerDao, Mockito.never()).insertCustomer(Mockito.any());
+        // the duplicate is detected by the insert itself
+        Mockito.verify(customerDao, Mockito.never()).existsPersonWithEmail(Mockito.any());
     }
 
 
@@ -118,13 +342,15 @@ class CustomerServiceTest {
     void deleteCustomerById() {
         // Given
         int randomId = 8;
-        Mockito.when(customerDao.existsPersonWithId(randomId)).thenReturn(true);
+        Customer customer = new Customer(randomId, "Foo", "foo@bar.com", 30, Gender.MALE);
+        Mockito.when(customerDao.deletePersonById(randomId)).thenReturn(Optional.of(customer));
 
         // When
         customerService.deleteCustomerById(randomId);
 
         // Then
         Mockito.verify(customerDao).deletePersonById(randomId);
+        Mockito.verify(customerDao, Mockito.never()).existsPersonWithId(Mockito.any());
     }
 
 
@@ -132,15 +358,12 @@ class CustomerServiceTest {
     void willThrowWhenDeletingCustomerWithNonexistentId() {
         // Given
         int randomId = 18;
-        Mockito.when(customerDao.existsPersonWithId(randomId)).thenReturn(false);
+        Mockito.when(customerDao.deletePersonById(randomId)).thenReturn(Optional.empty());
 
         // When
         assertThatThrownBy(() ->   customerService.deleteCustomerById(randomId))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("Person with id %s does not exist!".formatted(randomId));
-
-        // Then
-        Mockito.verify(customerDao, Mockito.never()).deletePersonById(randomId);
     }
 
 
@@ -149,35 +372,25 @@ class CustomerServiceTest {
     void canUpdateAllCustomerProperties() {
         // Given
         int randomId = 9;
-        Customer customer = Customer.builder()
-                .id(randomId)
-                .name("Foo")
-                .email("foo@bar.com")
-                .age(90)
-                .gender(Gender.MALE)
-                .build();
-        Mockito.when(customerDao.selectCustomerById(randomId)).thenReturn(Optional.of(customer));
-
         String updatedEmail = "faa@icloud.bar";
         CustomerDTO updateRequest = new CustomerDTO("Faa", updatedEmail, 100, Gender.MALE);
-        Customer updatedCustomer = Customer.builder()
+        Customer update = Customer.builder()
                 .id(randomId)
                 .name(updateRequest.name())
                 .email(updateRequest.email())
                 .age(updateRequest.age())
-                .gender(updateRequest.gender())
                 .build();
-        Mockito.when(customerDao.existsPersonWithEmail(updatedEmail)).thenReturn(false);
+        Customer updatedCustomer = new Customer(randomId, "Faa", updatedEmail, 100, Gender.MALE);
+        Mockito.when(customerDao.updatePerson(update)).thenReturn(Optional.of(updatedCustomer));
 
         // When
         customerService.updateCustomer(randomId, updateRequest);
 
         // Then
-        Mockito.verify(customerDao).updatePerson(updatedCustomer);
-        assertThat(updatedCustomer.getName()).isEqualTo(updateRequest.name());
-        assertThat(updatedCustomer.getEmail()).isEqualTo(updateRequest.email());
-        assertThat(updatedCustomer.getAge()).isEqualTo(updateRequest.age());
-        assertThat(updatedCustomer.getGender()).isEqualTo(updateRequest.gender());
+        // one partial update, without reading the customer or checking the email first
+        Mockito.verify(customerDao).updatePerson(update);
+        Mockito.verify(customerDao, Mockito.never()).selectCustomerById(Mockito.any());
+        Mockito.verify(customerDao, Mockito.never()).existsPersonWithEmail(Mockito.any());
     }
 
 
@@ -185,34 +398,21 @@ class CustomerServiceTest {
     void canUpdateOnlyCustomerName() {
         // Given
         int randomId = 9;
-        Customer customer = Customer.builder()
-                .id(randomId)
-                .name("Foo")
-                .email("foo@bar.com")
-                .age(90)
-                .gender(Gender.MALE)
-                .build();
-        Mockito.when(customerDao.selectCustomerById(randomId)).thenReturn(Optional.of(customer));
-
         CustomerDTO updateRequest = new CustomerDTO("Faa", null, null, Gender.MALE);
-        Customer updatedCustomer = Customer.builder()
+        Customer update = Customer.builder()
                 .id(randomId)
                 .name(updateRequest.name())
-                .email(customer.getEmail())
-                .age(customer.getAge())
-                .gender(customer.getGender())
                 .build();
-
+        Customer updatedCustomer = new Customer(randomId, "Faa", "foo@bar.com", 90, Gender.MALE);
+        Mockito.when(customerDao.updatePerson(update)).thenReturn(Optional.of(updatedCustomer));
 
         // When
         customerService.updateCustomer(randomId, updateRequest);
 
         // Then
-        Mockito.verify(customerDao).updatePerson(updatedCustomer);
-        assertThat(updatedCustomer.getName()).isEqualTo(updateRequest.name());
-        assertThat(updatedCustomer.getEmail()).isEqualTo(customer.getEmail());
-        assertThat(updatedCustomer.getAge()).isEqualTo(customer.getAge());
-        assertThat(updatedCustomer.getGender()).isEqualTo(customer.getGender());
+        Mockito.verify(customerDao).updatePerson(update);
+        assertThat(update.getEmail()).isNull();
+        assertThat(update.getAge()).isNull();
     }
 
 
@@ -220,34 +420,21 @@ class CustomerServiceTest {
     void canUpdateOnlyCustomerEmail() {
         // Given
         int randomId = 9;
-        Customer customer = Customer.builder()
-                .id(randomId)
-                .name("Foo")
-                .email("foo@bar.com")
-                .age(90)
-                .gender(Gender.MALE)
-                .build();
-        Mockito.when(customerDao.selectCustomerById(randomId)).thenReturn(Optional.of(customer));
-
         CustomerDTO updateRequest = new CustomerDTO(null, "faa@bar.io", null, Gender.MALE);
-        Customer updatedCustomer = Customer.builder()
+        Customer update = Customer.builder()
                 .id(randomId)
-                .name(customer.getName())
                 .email(updateRequest.email())
-                .age(customer.getAge())
-                .gender(customer.getGender())
                 .build();
-
+        Customer updatedCustomer = new Customer(randomId, "Foo", "faa@bar.io", 90, Gender.MALE);
+        Mockito.when(customerDao.updatePerson(update)).thenReturn(Optional.of(updatedCustomer));
 
         // When
         customerService.updateCustomer(randomId, updateRequest);
 
         // Then
-        Mockito.verify(customerDao).updatePerson(updatedCustomer);
-        assertThat(updatedCustomer.getName()).isEqualTo(customer.getName());
-        assertThat(updatedCustomer.getEmail()).isEqualTo(updateRequest.email());
-        assertThat(updatedCustomer.getAge()).isEqualTo(customer.getAge());
-        assertThat(updatedCustomer.getGender()).isEqualTo(customer.getGender());
+        Mockito.verify(customerDao).updatePerson(update);
+        assertThat(update.getName()).isNull();
+        assertThat(update.getAge()).isNull();
     }
 
 
@@ -255,34 +442,21 @@ class CustomerServiceTest {
     void canUpdateOnlyCustomerAge() {
         // Given
         int randomId = 9;
-        Customer customer = Customer.builder()
-                .id(randomId)
-                .name("Foo")
-                .email("foo@bar.com")
-                .age(90)
-                .gender(Gender.MALE)
-                .build();
-        Mockito.when(customerDao.selectCustomerById(randomId)).thenReturn(Optional.of(customer));
-
         CustomerDTO updateRequest = new CustomerDTO(null, null, 120, Gender.MALE);
-        Customer updatedCustomer = Customer.builder()
+        Customer update = Customer.builder()
                 .id(randomId)
-                .name(customer.getName())
-                .email(customer.getEmail())
                 .age(updateRequest.age())
-                .gender(customer.getGender())
                 .build();
-
+        Customer updatedCustomer = new Customer(randomId, "Foo", "foo@bar.com", 120, Gender.MALE);
+        Mockito.when(customerDao.updatePerson(update)).thenReturn(Optional.of(updatedCustomer));
 
         // When
         customerService.updateCustomer(randomId, updateRequest);
 
         // Then
-        Mockito.verify(customerDao).updatePerson(updatedCustomer);
-        assertThat(updatedCustomer.getName()).isEqualTo(customer.getName());
-        assertThat(updatedCustomer.getEmail()).isEqualTo(customer.getEmail());
-        assertThat(updatedCustomer.getAge()).isEqualTo(updateRequest.age());
-        assertThat(updatedCustomer.getGender()).isEqualTo(updateRequest.gender());
+        Mockito.verify(customerDao).updatePerson(update);
+        assertThat(update.getName()).isNull();
+        assertThat(update.getEmail()).isNull();
     }
 
 
@@ -290,26 +464,15 @@ class CustomerServiceTest {
     void willThrowWhenTryingToUpdateCustomerWithTakenEmail() {
         // Given
         int randomId = 9;
-        Customer customer = Customer.builder()
-                .id(randomId)
-                .name("Foo")
-                .email("foo@bar.com")
-                .age(90)
-                .gender(Gender.MALE)
-                .build();
-        Mockito.when(customerDao.selectCustomerById(randomId)).thenReturn(Optional.of(customer));
-
         String updatedEmail = "faa@icloud.bar";
         CustomerDTO updateRequest = new CustomerDTO(null, updatedEmail, null, Gender.MALE);
-        Mockito.when(customerDao.existsPersonWithEmail(updatedEmail)).thenReturn(true);
+        Mockito.when(customerDao.updatePerson(Mockito.any()))
+                .thenThrow(new DuplicateResourceException("Email already taken!"));
 
         // When
         assertThatThrownBy(() -> customerService.updateCustomer(randomId, updateRequest))
                 .isInstanceOf(DuplicateResourceException.class)
                         .hasMessage("Email already taken!");
-
-        // Then
-        Mockito.verify(customerDao, Mockito.never()).updatePerson(Mockito.any());
     }
 
 
@@ -317,16 +480,22 @@ class CustomerServiceTest {
     void willThrowWhenNoChangesMade() {
         // Given
         int randomId = 9;
-        Customer customer = Customer.builder()
-                .id(randomId)
-                .name("Foo")
-                .email("foo@bar.com")
-                .age(90)
-                .gender(Gender.MALE)
-                .build();
-        Mockito.when(customerDao.selectCustomerById(randomId)).thenReturn(Optional.of(customer));
+        CustomerDTO updateRequest = new CustomerDTO("Foo", "foo@bar.com", 90, Gender.MALE);
+        Mockito.when(customerDao.updatePerson(Mockito.any())).thenReturn(Optional.empty());
+        Mockito.when(customerDao.existsPersonWithId(randomId)).thenReturn(true);
+
+        // When
+        assertThatThrownBy(() -> customerService.updateCustomer(randomId, updateRequest))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("No data changes found.");
+    }
 
-        CustomerDTO updateRequest = new CustomerDTO(customer.getName(), customer.getEmail(), customer.getAge(), Gender.MALE);
+
+    @Test
+    void willThrowWhenUpdateRequestIsEmpty() {
+        // Given
+        int randomId = 9;
+        CustomerDTO updateRequest = new CustomerDTO(null, null, null, Gender.MALE);
 
         // When
         assertThatThrownBy(() -> customerService.updateCustomer(randomId, updateRequest))
@@ -338,4 +507,133 @@ class CustomerServiceTest {
     }
 
 
-}
\ No newline at end of file
+    @Test
+    void willThrowWhenUpdatingCustomerWithNonexistentId() {
+        // Given
+        int randomId = 19;
+        CustomerDTO updateRequest = new CustomerDTO("Faa", null, null, Gender.MALE);
+        Mockito.when(customerDao.updatePerson(Mockito.any())).thenReturn(Optional.empty());
+        Mockito.when(customerDao.existsPersonWithId(randomId)).thenReturn(false);
+
+        // When
+        assertThatThrownBy(() -> customerService.updateCustomer(randomId, updateRequest))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("customer with id %s not found!".formatted(randomId));
+    }
+
+    @Test
+    void concurrentLookupsOfACustomerShareOneDatabaseCall() throws Exception {
+        // Given
+        // the database call is held until every request of the burst is waiting for it
+        int burst = 50;
+        Customer customer = new Customer(1, "Foo", "foo@bar.com", 20, Gender.MALE);
+        CountDownLatch released = new CountDownLatch(1);
+        Mockito.when(customerDao.selectCustomerById(1)).thenAnswer(invocation -> {
+            released.await();
+            return Optional.of(customer);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(burst);
+
+        try {
+            // When
+            List<Future<Customer>> lookups = new ArrayList<>();
+            for (int i = 0; i < burst; i++) {
+                lookups.add(executor.submit(() -> customerService.getCustomer(1)));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (sharedLookups() < burst - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            released.countDown();
+
+            // Then
+            for (Future<Customer> lookup : lookups) {
+                assertThat(lookup.get(5, TimeUnit.SECONDS)).isEqualTo(customer);
+            }
+            Mockito.verify(customerDao, Mockito.times(1)).selectCustomerById(1);
+            assertThat(customerService.getSingleFlightStats()).first().satisfies(stats -> {
+                assertThat(stats.calls()).isEqualTo(1);
+                assertThat(stats.shared()).isEqualTo(burst - 1);
+                assertThat(stats.coalescingRatio()).isEqualTo((burst - 1) / (double) burst);
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void lookupsAfterAWriteDontShareACallMadeBeforeIt() throws Exception {
+        // Given
+        // a lookup still in flight when an update of the same customer commits
+        Customer before = new Customer(1, "Foo", "foo@bar.com", 20, Gender.MALE);
+        Customer after = new Customer(1, "Faa", "foo@bar.com", 20, Gender.MALE);
+        CountDownLatch released = new CountDownLatch(1);
+        Mockito.when(customerDao.selectCustomerById(1)).thenAnswer(invocation -> {
+            released.await();
+            return Optional.of(before);
+        }).thenReturn(Optional.of(after));
+        Mockito.when(customerDao.updatePerson(Mockito.any())).thenReturn(Optional.of(after));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<Customer> inFlight = executor.submit(() -> customerService.getCustomer(1));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (customerService.getSingleFlightStats().get(0).calls() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            customerService.updateCustomer(1, new CustomerDTO("Faa", null, null, Gender.MALE));
+
+            // When
+            Customer afterUpdate = executor.submit(() -> customerService.getCustomer(1)).get(5, TimeUnit.SECONDS);
+            released.countDown();
+
+            // Then
+            assertThat(afterUpdate).isEqualTo(after);
+            assertThat(inFlight.get(5, TimeUnit.SECONDS)).isEqualTo(before);
+            Mockito.verify(customerDao, Mockito.times(2)).selectCustomerById(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void readsAfterAChangeNotificationDontShareACallMadeBeforeIt() throws Exception {
+        // Given
+        // a read of the whole table still in flight when a write of another node commits
+        Customer before = new Customer(1, "Foo", "foo@bar.com", 20, Gender.MALE);
+        Customer after = new Customer(1, "Faa", "foo@bar.com", 20, Gender.MALE);
+        CountDownLatch released = new CountDownLatch(1);
+        Mockito.when(customerDao.selectAllCustomers()).thenAnswer(invocation -> {
+            released.await();
+            return List.of(before);
+        }).thenReturn(List.of(after));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<List<Customer>> inFlight = executor.submit(() -> customerService.getAllCostumers());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (customerService.getSingleFlightStats().get(1).calls() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            customerService.onCustomerChanged(new CustomerChangedEvent(
+                    CustomerChangedEvent.Operation.UPDATE, 1, after.getEmail(), null, after));
+
+            // When
+            List<Customer> afterChange = executor.submit(() -> customerService.getAllCostumers()).get(5, TimeUnit.SECONDS);
+            released.countDown();
+
+            // Then
+            assertThat(afterChange).containsExactly(after);
+            assertThat(inFlight.get(5, TimeUnit.SECONDS)).containsExactly(before);
+            Mockito.verify(customerDao, Mockito.times(2)).selectAllCustomers();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    /*---- Helper Methods -----*/
+    private long sharedLookups() {
+        return customerService.getSingleFlightStats().get(0).shared();
+    }
+}
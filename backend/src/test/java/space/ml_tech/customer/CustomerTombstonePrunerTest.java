@@ -0,0 +1,86 @@
+package space.ml_tech.customer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import space.ml_tech.AbstractTestContainers;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerTombstonePrunerTest extends AbstractTestContainers {
+
+    private CustomerTombstonePruner customerTombstonePruner;
+    private CustomerJDBCDataAccessService customerJDBCDataAccessService;
+
+    @BeforeEach
+    void setUp() {
+        // only pruned when asked to
+        customerTombstonePruner = new CustomerTombstonePruner(getJdbcTemplate(), Duration.ofDays(1), Duration.ofDays(1));
+        customerJDBCDataAccessService = new CustomerJDBCDataAccessService(getJdbcTemplate(), new CustomerRowMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        customerTombstonePruner.close();
+    }
+
+    @Test
+    @DisplayName("Test that tombstones older than the retention are pruned and the floor is raised past them")
+    void pruneRaisesTheFloorPastThePrunedTombstones() {
+        // Given
+        int old = deleted("old");
+        int recent = deleted("recent");
+        getJdbcTemplate().update(
+                "UPDATE customer_tombstone SET deleted_at = now() - INTERVAL '2 days' WHERE id = ?", old);
+        long oldTxid = tombstoneTxid(old);
+
+        // When
+        long pruned = customerTombstonePruner.prune();
+
+        // Then
+        assertThat(pruned).isPositive();
+        assertThat(tombstoneCount(old)).isZero();
+        assertThat(tombstoneCount(recent)).isOne();
+        CustomerChangeLog log = customerJDBCDataAccessService.selectChangesAfter(0, 0, true, 1);
+        assertThat(log.floor()).isGreaterThanOrEqualTo(oldTxid).isLessThan(tombstoneTxid(recent));
+    }
+
+    @Test
+    @DisplayName("Test that the floor stays where it is when there's nothing to prune")
+    void pruneKeepsTheFloorWhenNothingIsPruned() {
+        // Given
+        customerTombstonePruner.prune();
+        long floor = customerJDBCDataAccessService.selectChangesAfter(0, 0, true, 1).floor();
+        deleted("recent");
+
+        // When
+        long pruned = customerTombstonePruner.prune();
+
+        // Then
+        assertThat(pruned).isZero();
+        assertThat(customerJDBCDataAccessService.selectChangesAfter(0, 0, true, 1).floor()).isEqualTo(floor);
+    }
+
+
+    // ---- HELPER METHODS ---- //
+    int deleted(String name) {
+        Customer customer = new Customer(null, name, name + "-" + UUID.randomUUID() + "@gmail.com", 30, Gender.MALE);
+        customerJDBCDataAccessService.insertCustomer(customer);
+        customerJDBCDataAccessService.deletePersonById(customer.getId());
+        return customer.getId();
+    }
+
+    long tombstoneTxid(int id) {
+        return getJdbcTemplate().queryForObject(
+                "SELECT changed_xid::text::bigint FROM customer_tombstone WHERE id = ?", Long.class, id);
+    }
+
+    int tombstoneCount(int id) {
+        return getJdbcTemplate().queryForObject(
+                "SELECT count(*) FROM customer_tombstone WHERE id = ?", Integer.class, id);
+    }
+}
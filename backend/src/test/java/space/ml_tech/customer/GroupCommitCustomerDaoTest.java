@@ -0,0 +1,180 @@
+package space.ml_tech.customer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import space.ml_tech.exceptions.DuplicateResourceException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GroupCommitCustomerDaoTest {
+
+    private static final String TAKEN_EMAIL = "taken@gmail.com";
+
+    private GroupCommitCustomerDao groupCommitCustomerDao;
+    @Mock
+    CustomerDao customerDao;
+    private AutoCloseable autoCloseable;
+
+
+    @BeforeEach
+    void setUp() {
+        autoCloseable = MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (groupCommitCustomerDao != null) {
+            groupCommitCustomerDao.close();
+        }
+        autoCloseable.close();
+    }
+
+    @Test
+    void concurrentInsertsAreWrittenTogetherAndEachCallerGetsItsOwnResult() throws Exception {
+        // Given
+        // a long delay, so that the batch is sent because it's full
+        groupCommitCustomerDao = new GroupCommitCustomerDao(customerDao, true, 10, Duration.ofSeconds(10));
+        Mockito.when(customerDao.insertCustomers(ArgumentMatchers.anyList())).thenAnswer(invocation -> {
+            List<Customer> customers = invocation.getArgument(0);
+            int[] inserted = new int[customers.size()];
+            for (int i = 0; i < customers.size(); i++) {
+                if (!customers.get(i).getEmail().equals(TAKEN_EMAIL)) {
+                    customers.get(i).setId(100 + i);
+                    inserted[i] = 1;
+                }
+            }
+            return inserted;
+        });
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            customers.add(new Customer(null, "Alex", "alex" + i + "@gmail.com", 20, Gender.MALE));
+        }
+        customers.add(new Customer(null, "Alex", TAKEN_EMAIL, 20, Gender.MALE));
+
+        // When
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<?>> inserts = new ArrayList<>();
+        for (Customer customer : customers) {
+            inserts.add(executor.submit(() -> groupCommitCustomerDao.insertCustomer(customer)));
+        }
+
+        // Then
+        for (int i = 0; i < customers.size(); i++) {
+            Future<?> insert = inserts.get(i);
+            if (customers.get(i).getEmail().equals(TAKEN_EMAIL)) {
+                assertThatThrownBy(insert::get)
+                        .isInstanceOf(ExecutionException.class)
+                        .hasCauseInstanceOf(DuplicateResourceException.class);
+                assertThat(customers.get(i).getId()).isNull();
+            } else {
+                insert.get();
+                assertThat(customers.get(i).getId()).isNotNull();
+            }
+        }
+        Mockito.verify(customerDao).insertCustomers(ArgumentMatchers.anyList());
+        Mockito.verify(customerDao, Mockito.never()).insertCustomer(ArgumentMatchers.any());
+        assertThat(groupCommitCustomerDao.stats().batches()).isEqualTo(1);
+        assertThat(groupCommitCustomerDao.stats().rows()).isEqualTo(10);
+        executor.shutdown();
+    }
+
+    @Test
+    void rowThatFailsTheBatchOnlyFailsItsOwnCaller() throws Exception {
+        // Given
+        groupCommitCustomerDao = new GroupCommitCustomerDao(customerDao, true, 2, Duration.ofSeconds(10));
+        Customer good = new Customer(null, "Alex", "alex@gmail.com", 20, Gender.MALE);
+        Customer bad = new Customer(null, "Alex", "bad@gmail.com", -1, Gender.MALE);
+        Mockito.when(customerDao.insertCustomers(ArgumentMatchers.anyList()))
+                .thenThrow(new DataIntegrityViolationException("age must not be negative"));
+        Mockito.doAnswer(invocation -> {
+            Customer customer = invocation.getArgument(0);
+            if (customer.getAge() < 0) {
+                throw new DataIntegrityViolationException("age must not be negative");
+            }
+            customer.setId(1);
+            return null;
+        }).when(customerDao).insertCustomer(ArgumentMatchers.any());
+
+        // When
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        Future<?> goodInsert = executor.submit(() -> groupCommitCustomerDao.insertCustomer(good));
+        Future<?> badInsert = executor.submit(() -> groupCommitCustomerDao.insertCustomer(bad));
+
+        // Then
+        goodInsert.get();
+        assertThat(good.getId()).isEqualTo(1);
+        assertThatThrownBy(badInsert::get).hasCauseInstanceOf(DataIntegrityViolationException.class);
+        assertThat(groupCommitCustomerDao.stats().fallbacks()).isEqualTo(1);
+        executor.shutdown();
+    }
+
+    @Test
+    void rowThatFailsBeforeReachingTheDatabaseOnlyFailsItsOwnCaller() throws Exception {
+        // Given
+        groupCommitCustomerDao = new GroupCommitCustomerDao(customerDao, true, 3, Duration.ofSeconds(10));
+        List<Customer> customers = List.of(
+                new Customer(null, "Alex", "alex@gmail.com", 20, Gender.MALE),
+                new Customer(null, "Alex", "no-gender@gmail.com", 20, null),
+                new Customer(null, "Ana", "ana@gmail.com", 30, Gender.FEMALE)
+        );
+        // like the JDBC DAO, which reads `getGender().name()` of every row to build the statement
+        Mockito.when(customerDao.insertCustomers(ArgumentMatchers.anyList()))
+                .thenAnswer(invocation -> {
+                    List<Customer> batch = invocation.getArgument(0);
+                    batch.forEach(customer -> customer.getGender().name());
+                    return new int[batch.size()];
+                });
+        Mockito.doAnswer(invocation -> {
+            Customer customer = invocation.getArgument(0);
+            customer.getGender().name();
+            customer.setId(customer.getAge());
+            return null;
+        }).when(customerDao).insertCustomer(ArgumentMatchers.any());
+
+        // When
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<?>> inserts = new ArrayList<>();
+        for (Customer customer : customers) {
+            inserts.add(executor.submit(() -> groupCommitCustomerDao.insertCustomer(customer)));
+        }
+
+        // Then
+        inserts.get(0).get();
+        inserts.get(2).get();
+        assertThat(customers.get(0).getId()).isEqualTo(20);
+        assertThat(customers.get(2).getId()).isEqualTo(30);
+        assertThatThrownBy(inserts.get(1)::get).hasCauseInstanceOf(NullPointerException.class);
+        assertThat(customers.get(1).getId()).isNull();
+        assertThat(groupCommitCustomerDao.stats().fallbacks()).isEqualTo(1);
+        executor.shutdown();
+    }
+
+    @Test
+    void insertsGoStraightThroughWhenDisabled() {
+        // Given
+        groupCommitCustomerDao = new GroupCommitCustomerDao(customerDao, false, 10, Duration.ofSeconds(10));
+        Customer customer = new Customer(null, "Alex", "alex@gmail.com", 20, Gender.MALE);
+
+        // When
+        groupCommitCustomerDao.insertCustomer(customer);
+
+        // Then
+        Mockito.verify(customerDao).insertCustomer(customer);
+        Mockito.verify(customerDao, Mockito.never()).insertCustomers(ArgumentMatchers.anyList());
+    }
+}
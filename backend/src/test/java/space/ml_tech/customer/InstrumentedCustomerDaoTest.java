@@ -0,0 +1,121 @@
+package space.ml_tech.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import space.ml_tech.exceptions.DuplicateResourceException;
+import space.ml_tech.metrics.LatencyHistogram;
+import space.ml_tech.metrics.MetricsRegistry;
+import space.ml_tech.metrics.OperationMetrics;
+
+import java.sql.Statement;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(MockitoExtension.class)
+class InstrumentedCustomerDaoTest {
+
+    @Mock
+    private CustomerDao customerDao;
+    private MetricsRegistry metricsRegistry;
+    private InstrumentedCustomerDao underTest;
+
+    @BeforeEach
+    void setUp() {
+        metricsRegistry = new MetricsRegistry();
+        underTest = new InstrumentedCustomerDao(customerDao, "beanOfTypeJdbc", metricsRegistry);
+    }
+
+    @Test
+    void recordsCallsAndRowsOfReads() {
+        // Given
+        List<Customer> customers = List.of(customer(1), customer(2), customer(3));
+        Mockito.when(customerDao.selectCustomersAfter(0, 3)).thenReturn(customers);
+
+        // When
+        List<Customer> actual = underTest.selectCustomersAfter(0, 3);
+
+        // Then
+        assertThat(actual).isSameAs(customers);
+        OperationMetrics metrics = metricsRegistry.daoOperation("beanOfTypeJdbc", "selectCustomersAfter");
+        assertThat(LatencyHistogram.count(metrics.latency().snapshot())).isEqualTo(1);
+        assertThat(metrics.rows()).isEqualTo(3);
+        assertThat(metrics.errors()).isZero();
+    }
+
+    @Test
+    void recordsAndRethrowsErrors() {
+        // Given
+        Customer customer = customer(1);
+        Mockito.doThrow(new DuplicateResourceException("Email already taken!"))
+                .when(customerDao).insertCustomer(customer);
+
+        // Then
+        assertThatThrownBy(() -> underTest.insertCustomer(customer))
+                .isInstanceOf(DuplicateResourceException.class);
+        OperationMetrics metrics = metricsRegistry.daoOperation("beanOfTypeJdbc", "insertCustomer");
+        assertThat(LatencyHistogram.count(metrics.latency().snapshot())).isEqualTo(1);
+        assertThat(metrics.errors()).isEqualTo(1);
+        assertThat(metrics.rows()).isZero();
+    }
+
+    @Test
+    void countsInsertedRowsOfBatches() {
+        // Given
+        List<Customer> customers = List.of(customer(1), customer(2), customer(3));
+        Mockito.when(customerDao.insertCustomers(customers)).thenReturn(new int[]{1, 0, Statement.SUCCESS_NO_INFO});
+
+        // When
+        underTest.insertCustomers(customers);
+
+        // Then
+        assertThat(metricsRegistry.daoOperation("beanOfTypeJdbc", "insertCustomers").rows()).isEqualTo(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void countsStreamedRows() {
+        // Given
+        Mockito.doAnswer(invocation -> {
+            Consumer<Customer> consumer = invocation.getArgument(0);
+            consumer.accept(customer(1));
+            consumer.accept(customer(2));
+            return null;
+        }).when(customerDao).forEachCustomer(Mockito.any());
+        Consumer<Customer> consumer = Mockito.mock(Consumer.class);
+
+        // When
+        underTest.forEachCustomer(consumer);
+
+        // Then
+        Mockito.verify(consumer, Mockito.times(2)).accept(Mockito.any());
+        assertThat(metricsRegistry.daoOperation("beanOfTypeJdbc", "forEachCustomer").rows()).isEqualTo(2);
+    }
+
+    @Test
+    void missingRowsCountAsZero() {
+        // Given
+        Mockito.when(customerDao.selectCustomerById(7)).thenReturn(Optional.empty());
+
+        // When
+        underTest.selectCustomerById(7);
+
+        // Then
+        OperationMetrics metrics = metricsRegistry.daoOperation("beanOfTypeJdbc", "selectCustomerById");
+        assertThat(LatencyHistogram.count(metrics.latency().snapshot())).isEqualTo(1);
+        assertThat(metrics.rows()).isZero();
+    }
+
+
+    /*---- Helper Methods -----*/
+    private static Customer customer(int id) {
+        return new Customer(id, "Foo " + id, "foo%s@bar.com".formatted(id), 20, Gender.MALE);
+    }
+}
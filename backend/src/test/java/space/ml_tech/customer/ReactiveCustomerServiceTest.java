@@ -0,0 +1,119 @@
+package space.ml_tech.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import space.ml_tech.exceptions.RequestValidationException;
+import space.ml_tech.exceptions.ResourceNotFoundException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCustomerServiceTest {
+
+    @Mock
+    private ReactiveCustomerDao customerDao;
+    private ReactiveCustomerService customerService;
+
+    @BeforeEach
+    void setUp() {
+        customerService = new ReactiveCustomerService(customerDao, 2);
+    }
+
+    @Test
+    void getCustomersPageReturnsCursorWhenMoreRowsExist() {
+        // Given
+        List<Customer> rows = List.of(
+                new Customer(1, "Foo", "foo@bar.com", 20, Gender.MALE),
+                new Customer(2, "Faa", "faa@bar.com", 21, Gender.FEMALE),
+                new Customer(3, "Fii", "fii@bar.com", 22, Gender.MALE)
+        );
+        Mockito.when(customerDao.selectCustomersAfter(0, 3)).thenReturn(Flux.fromIterable(rows));
+
+        // When
+        // Then
+        StepVerifier.create(customerService.getCustomersPage(new CustomerSearchCriteria(null, null, null, null, null), null, 2))
+                .assertNext(page -> {
+                    assertThat(page.customers()).containsExactly(rows.get(0), rows.get(1));
+                    assertThat(page.nextCursor()).isEqualTo(CustomerService.encodeCursor(2));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getCustomersPageRejectsInvalidLimitWithoutQuerying() {
+        // When
+        // Then
+        StepVerifier.create(customerService.getCustomersPage(new CustomerSearchCriteria(null, null, null, null, null), null, 0))
+                .expectError(RequestValidationException.class)
+                .verify();
+        Mockito.verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willErrorWhenCustomerIsNotFound() {
+        // Given
+        Mockito.when(customerDao.selectCustomerById(10)).thenReturn(Mono.empty());
+
+        // When
+        // Then
+        StepVerifier.create(customerService.getCustomer(10))
+                .expectErrorMessage("customer with id 10 not found!")
+                .verify();
+    }
+
+    @Test
+    void updateCustomerTellsMissingCustomerFromNoChanges() {
+        // Given
+        Mockito.when(customerDao.updatePerson(ArgumentMatchers.any())).thenReturn(Mono.empty());
+        Mockito.when(customerDao.existsPersonWithId(1)).thenReturn(Mono.just(true));
+        Mockito.when(customerDao.existsPersonWithId(2)).thenReturn(Mono.just(false));
+        CustomerDTO update = new CustomerDTO("Foo", null, null, null);
+
+        // When
+        // Then
+        StepVerifier.create(customerService.updateCustomer(1, update))
+                .expectError(RequestValidationException.class)
+                .verify();
+        StepVerifier.create(customerService.updateCustomer(2, update))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void addCustomersInsertsValidRowsInChunksAndReportsTheRest() {
+        // Given
+        Flux<CustomerDTO> body = Flux.just(
+                new CustomerDTO("Foo", "foo@bar.com", 20, Gender.MALE),
+                new CustomerDTO("", "faa@bar.com", 21, Gender.FEMALE),
+                new CustomerDTO("Fii", "fii@bar.com", 22, Gender.MALE),
+                new CustomerDTO("Fuu", "foo@bar.com", 23, Gender.FEMALE)
+        );
+        Mockito.when(customerDao.insertCustomers(ArgumentMatchers.anyList()))
+                .thenReturn(Mono.just(new int[]{1}))
+                .thenReturn(Mono.just(new int[]{1, 0}));
+
+        // When
+        // Then
+        StepVerifier.create(customerService.addCustomers(body))
+                .assertNext(result -> {
+                    assertThat(result.received()).isEqualTo(4);
+                    assertThat(result.inserted()).isEqualTo(2);
+                    assertThat(result.errors()).containsExactly(
+                            new CustomerBatchResult.RowError(1, "faa@bar.com", "Missing name"),
+                            new CustomerBatchResult.RowError(3, "foo@bar.com", "Email already taken!")
+                    );
+                })
+                .verifyComplete();
+        Mockito.verify(customerDao, Mockito.times(2)).insertCustomers(ArgumentMatchers.anyList());
+    }
+}
@@ -0,0 +1,123 @@
+package space.ml_tech.customer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import space.ml_tech.replication.ReadRouting;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingCustomerDaoTest {
+
+    private ReplicaRoutingCustomerDao replicaRoutingCustomerDao;
+    @Mock
+    CustomerDao customerDao;
+    private AutoCloseable autoCloseable;
+
+
+    @BeforeEach
+    void setUp() {
+        autoCloseable = MockitoAnnotations.openMocks(this);
+        replicaRoutingCustomerDao = new ReplicaRoutingCustomerDao(customerDao);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        autoCloseable.close();
+    }
+
+    @Test
+    void readsMayGoToAReplica() {
+        // Given
+        Customer customer = new Customer(1, "Alex", "alex@gmail.com", 20, Gender.MALE);
+        AtomicBoolean readOnly = new AtomicBoolean();
+        Mockito.when(customerDao.selectCustomersAfter(0, 10)).thenAnswer(invocation -> {
+            readOnly.set(ReadRouting.isReadOnly());
+            return List.of(customer);
+        });
+
+        // When
+        List<Customer> actual = replicaRoutingCustomerDao.selectCustomersAfter(0, 10);
+
+        // Then
+        assertThat(actual).containsExactly(customer);
+        assertThat(readOnly).isTrue();
+        assertThat(ReadRouting.isReadOnly()).isFalse();
+    }
+
+    @Test
+    void loadsOfTheCustomerCacheStayOnThePrimary() {
+        // Given
+        Customer customer = new Customer(1, "Alex", "alex@gmail.com", 20, Gender.MALE);
+        AtomicBoolean readOnly = new AtomicBoolean();
+        Mockito.when(customerDao.selectCustomerById(1)).thenAnswer(invocation -> {
+            readOnly.set(ReadRouting.isReadOnly());
+            return Optional.of(customer);
+        });
+
+        // When
+        Optional<Customer> actual = replicaRoutingCustomerDao.selectCustomerById(1);
+
+        // Then
+        assertThat(actual).contains(customer);
+        assertThat(readOnly).isFalse();
+    }
+
+    @Test
+    void readsBehindAnETagStayOnThePrimary() {
+        // Given
+        AtomicBoolean readOnly = new AtomicBoolean();
+        Mockito.when(customerDao.selectChangeCount()).thenAnswer(invocation -> {
+            readOnly.compareAndSet(false, ReadRouting.isReadOnly());
+            return 3L;
+        });
+        Mockito.when(customerDao.selectAllCustomers()).thenAnswer(invocation -> {
+            readOnly.compareAndSet(false, ReadRouting.isReadOnly());
+            return List.of();
+        });
+        Mockito.when(customerDao.selectCustomerVersion(1)).thenAnswer(invocation -> {
+            readOnly.compareAndSet(false, ReadRouting.isReadOnly());
+            return Optional.of(0L);
+        });
+
+        // When
+        replicaRoutingCustomerDao.selectChangeCount();
+        replicaRoutingCustomerDao.selectAllCustomers();
+        replicaRoutingCustomerDao.selectCustomerVersion(1);
+
+        // Then
+        Mockito.verify(customerDao).selectAllCustomers();
+        assertThat(readOnly).isFalse();
+    }
+
+    @Test
+    void writesAndTheFullScanStayOnThePrimary() {
+        // Given
+        Customer customer = new Customer(1, "Alex", "alex@gmail.com", 20, Gender.MALE);
+        AtomicBoolean readOnly = new AtomicBoolean();
+        Mockito.doAnswer(invocation -> {
+            readOnly.compareAndSet(false, ReadRouting.isReadOnly());
+            return null;
+        }).when(customerDao).insertCustomer(customer);
+        Mockito.doAnswer(invocation -> {
+            readOnly.compareAndSet(false, ReadRouting.isReadOnly());
+            return null;
+        }).when(customerDao).forEachCustomer(Mockito.any());
+
+        // When
+        replicaRoutingCustomerDao.insertCustomer(customer);
+        replicaRoutingCustomerDao.forEachCustomer(each -> {
+        });
+
+        // Then
+        Mockito.verify(customerDao).insertCustomer(customer);
+        assertThat(readOnly).isFalse();
+    }
+}
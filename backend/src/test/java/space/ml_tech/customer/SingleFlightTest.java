@@ -0,0 +1,86 @@
+package space.ml_tech.customer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final SingleFlight<Integer, String> underTest = new SingleFlight<>("test");
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void callersOfAFailedCallGetItsException() throws Exception {
+        // Given
+        CountDownLatch released = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> underTest.call(1, () -> {
+            await(released);
+            throw new IllegalStateException("database down");
+        }));
+        awaitCalls(1);
+
+        // When
+        Future<String> follower = executor.submit(() -> underTest.call(1, () -> "not called"));
+        awaitShared(1);
+        released.countDown();
+
+        // Then
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("database down");
+    }
+
+    @Test
+    void nothingIsKeptOnceACallIsDone() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        underTest.call(1, () -> "first " + calls.incrementAndGet());
+        String second = underTest.call(1, () -> "second " + calls.incrementAndGet());
+
+        // Then
+        assertThat(second).isEqualTo("second 2");
+        assertThat(underTest.stats().calls()).isEqualTo(2);
+        assertThat(underTest.stats().coalescingRatio()).isZero();
+    }
+
+
+    /*---- Helper Methods -----*/
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitCalls(long calls) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (underTest.stats().calls() < calls && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private void awaitShared(long shared) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (underTest.stats().shared() < shared && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package space.ml_tech.limiter;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    private final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1, 1.5, 1.0, Duration.ZERO, 10);
+    private final ConcurrencyLimitFilter underTest = new ConcurrencyLimitFilter(limiter, Duration.ofSeconds(2));
+
+    @Test
+    void requestsOverTheLimitAreTurnedAwayWithRetryAfter() throws Exception {
+        // Given
+        limiter.tryAcquire(ConcurrencyLimiter.Partition.WRITE);
+        FilterChain chain = Mockito.mock(FilterChain.class);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        underTest.doFilter(new MockHttpServletRequest("GET", "/api/v1/customers/1"), response, chain);
+
+        // Then
+        Mockito.verifyNoInteractions(chain);
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+    }
+
+    @Test
+    void onlyCustomerRequestsAreLimited() throws Exception {
+        // Given
+        limiter.tryAcquire(ConcurrencyLimiter.Partition.WRITE);
+        FilterChain chain = Mockito.mock(FilterChain.class);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/stats/limiter");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        underTest.doFilter(request, response, chain);
+
+        // Then
+        Mockito.verify(chain).doFilter(request, response);
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void permitsAreReleasedOnceTheRequestIsDone() throws Exception {
+        // Given
+        FilterChain chain = Mockito.mock(FilterChain.class);
+
+        // When
+        underTest.doFilter(new MockHttpServletRequest("POST", "/api/v1/customers"), new MockHttpServletResponse(), chain);
+
+        // Then
+        assertThat(limiter.stats().inFlightWrites()).isZero();
+        assertThat(limiter.tryAcquire(ConcurrencyLimiter.Partition.READ)).isNotNull();
+    }
+}
@@ -0,0 +1,99 @@
+package space.ml_tech.limiter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimiterTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void requestsBeyondTheLimitAreRejectedAfterABriefWait() {
+        // Given
+        ConcurrencyLimiter underTest = limiter(2, 1.0, Duration.ofMillis(20));
+        underTest.tryAcquire(ConcurrencyLimiter.Partition.READ);
+        underTest.tryAcquire(ConcurrencyLimiter.Partition.WRITE);
+
+        // When
+        long start = System.nanoTime();
+        ConcurrencyLimiter.Permit rejected = underTest.tryAcquire(ConcurrencyLimiter.Partition.READ);
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertThat(rejected).isNull();
+        assertThat(waitedMillis).isBetween(15L, 1_000L);
+        assertThat(underTest.stats()).satisfies(stats -> {
+            assertThat(stats.inFlightReads()).isEqualTo(1);
+            assertThat(stats.inFlightWrites()).isEqualTo(1);
+            assertThat(stats.rejectedReads()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void readsLeaveRoomForWrites() {
+        // Given
+        ConcurrencyLimiter underTest = limiter(4, 0.5, Duration.ZERO);
+        underTest.tryAcquire(ConcurrencyLimiter.Partition.READ);
+        underTest.tryAcquire(ConcurrencyLimiter.Partition.READ);
+
+        // When
+        ConcurrencyLimiter.Permit read = underTest.tryAcquire(ConcurrencyLimiter.Partition.READ);
+        ConcurrencyLimiter.Permit write = underTest.tryAcquire(ConcurrencyLimiter.Partition.WRITE);
+
+        // Then
+        assertThat(read).isNull();
+        assertThat(write).isNotNull();
+    }
+
+    @Test
+    void waitingWritesGoFirst() {
+        // Given
+        ConcurrencyLimiter underTest = limiter(1, 1.0, Duration.ofSeconds(5));
+        ConcurrencyLimiter.Permit held = underTest.tryAcquire(ConcurrencyLimiter.Partition.READ);
+        CompletableFuture<ConcurrencyLimiter.Permit> read = CompletableFuture.supplyAsync(
+                () -> underTest.tryAcquire(ConcurrencyLimiter.Partition.READ), executor);
+        awaitUntil(() -> underTest.stats().queuedReads() == 1);
+        CompletableFuture<ConcurrencyLimiter.Permit> write = CompletableFuture.supplyAsync(
+                () -> underTest.tryAcquire(ConcurrencyLimiter.Partition.WRITE), executor);
+        awaitUntil(() -> underTest.stats().queuedWrites() == 1);
+
+        // When
+        held.release(false);
+
+        // Then
+        ConcurrencyLimiter.Permit writePermit = write.join();
+        assertThat(writePermit).isNotNull();
+        assertThat(read).isNotDone();
+        writePermit.release(false);
+        assertThat(read.join()).isNotNull();
+    }
+
+
+    /*---- Helper Methods -----*/
+    // a limit that stays where it is: it only moves after a window of samples
+    private static ConcurrencyLimiter limiter(int limit, double readShare, Duration maxQueueTime) {
+        return new ConcurrencyLimiter(limit, 1, limit, 1.5, readShare, maxQueueTime, 10);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("waited too long").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package space.ml_tech.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class GradientLimitTest {
+
+    private static final long NO_LOAD_LATENCY = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void limitSettlesNearTheCapacityUnderOverload() {
+        // Given
+        // a database that serves 20 queries at a time in 10ms, and queues the rest
+        int capacity = 20;
+        GradientLimit underTest = new GradientLimit(10, 4, 200, 1.5);
+
+        // When
+        // more clients than any limit: there are always as many requests in flight as the limit lets in
+        double latency = 0;
+        for (int window = 0; window < 2_000; window++) {
+            int inFlight = underTest.limit();
+            latency = NO_LOAD_LATENCY * Math.max(1.0, (double) inFlight / capacity);
+            samples(underTest, (long) latency, inFlight, GradientLimit.WINDOW_SIZE);
+        }
+
+        // Then
+        // enough in flight to keep the database busy (throughput at its peak), without letting latency run away
+        assertThat(underTest.limit()).isBetween(capacity, 3 * capacity);
+        assertThat(latency / NO_LOAD_LATENCY).isLessThanOrEqualTo(2.5);
+    }
+
+    @Test
+    void limitShrinksWhenLatencyRisesAndBacksOffOnFailures() {
+        // Given
+        GradientLimit underTest = new GradientLimit(50, 4, 200, 1.5);
+        samples(underTest, NO_LOAD_LATENCY, 50, 5 * GradientLimit.WINDOW_SIZE);
+        int before = underTest.limit();
+
+        // When
+        samples(underTest, 10 * NO_LOAD_LATENCY, before, 5 * GradientLimit.WINDOW_SIZE);
+        int afterSlowdown = underTest.limit();
+        underTest.onSample(NO_LOAD_LATENCY, afterSlowdown, true);
+
+        // Then
+        assertThat(afterSlowdown).isLessThan(before);
+        assertThat(underTest.limit()).isLessThan(afterSlowdown);
+        assertThat(underTest.baselineMillis()).isEqualTo(10.0);
+    }
+
+    @Test
+    void lightLoadLeavesTheLimitAlone() {
+        // Given
+        GradientLimit underTest = new GradientLimit(20, 4, 200, 1.5);
+
+        // When
+        // a single request at a time tells nothing about how many more the database could take
+        samples(underTest, NO_LOAD_LATENCY, 1, 100 * GradientLimit.WINDOW_SIZE);
+        samples(underTest, 2 * NO_LOAD_LATENCY, 1, 100 * GradientLimit.WINDOW_SIZE);
+
+        // Then
+        assertThat(underTest.limit()).isEqualTo(20);
+        // but it does tell the latency of a query without load, which has doubled
+        assertThat(underTest.baselineMillis()).isCloseTo(20.0, offset(0.5));
+    }
+
+
+    /*---- Helper Methods -----*/
+    private static void samples(GradientLimit limit, long latencyNanos, int inFlight, int count) {
+        for (int i = 0; i < count; i++) {
+            limit.onSample(latencyNanos, inFlight, false);
+        }
+    }
+}
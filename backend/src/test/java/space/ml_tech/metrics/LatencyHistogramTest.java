@@ -0,0 +1,85 @@
+package space.ml_tech.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsCoverEveryValueWithBoundedError() {
+        // Given
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 1_000, 999_999, 1_000_000, 123_456_789, 68_000_000_000L};
+
+        for (long value : values) {
+            // When
+            int index = LatencyHistogram.bucketIndex(value);
+
+            // Then
+            long lowest = LatencyHistogram.lowestValue(index);
+            assertThat(lowest).isLessThanOrEqualTo(value);
+            assertThat(value - lowest).isLessThanOrEqualTo(value / 16);
+            if (index + 1 < LatencyHistogram.BUCKETS) {
+                assertThat(LatencyHistogram.lowestValue(index + 1)).isGreaterThan(value);
+            }
+        }
+    }
+
+    @Test
+    void tooSlowValuesLandInTheLastBucket() {
+        // When
+        int index = LatencyHistogram.bucketIndex(TimeUnit.HOURS.toNanos(1));
+
+        // Then
+        assertThat(index).isEqualTo(LatencyHistogram.BUCKETS - 1);
+        assertThat(LatencyHistogram.bucketIndex(Long.MAX_VALUE)).isEqualTo(LatencyHistogram.BUCKETS - 1);
+    }
+
+    @Test
+    void countsAndPercentiles() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        // When
+        long[] snapshot = histogram.snapshot();
+
+        // Then
+        assertThat(LatencyHistogram.count(snapshot)).isEqualTo(100);
+        assertThat(LatencyHistogram.countAtOrBelow(snapshot, TimeUnit.MILLISECONDS.toNanos(10))).isBetween(10L, 11L);
+        assertThat(LatencyHistogram.valueAtPercentile(snapshot, 50))
+                .isBetween(TimeUnit.MILLISECONDS.toNanos(47), TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(LatencyHistogram.valueAtPercentile(snapshot, 99))
+                .isBetween(TimeUnit.MILLISECONDS.toNanos(93), TimeUnit.MILLISECONDS.toNanos(99));
+        assertThat(histogram.sumNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(5050));
+    }
+
+    @Test
+    void recordingDoesNotAllocate() {
+        // Given
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        OperationMetrics metrics = new OperationMetrics();
+        // warm up, so that class loading and the first increments aren't counted
+        for (int i = 0; i < 100_000; i++) {
+            metrics.recordSuccess(System.nanoTime() - i, 1);
+            metrics.recordError(System.nanoTime() - i);
+        }
+
+        // When
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 1_000_000; i++) {
+            metrics.recordSuccess(System.nanoTime() - i, 1);
+            metrics.recordError(System.nanoTime() - i);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        // Then
+        // a single allocation per call would already be tens of megabytes
+        assertThat(allocated).isLessThan(64 * 1024);
+    }
+}
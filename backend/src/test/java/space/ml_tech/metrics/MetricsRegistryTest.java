@@ -0,0 +1,60 @@
+package space.ml_tech.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricsRegistryTest {
+
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+
+    @Test
+    void sameOperationIsRegisteredOnce() {
+        // When
+        OperationMetrics first = metricsRegistry.daoOperation("beanOfTypeJdbc", "selectAllCustomers");
+        OperationMetrics second = metricsRegistry.daoOperation("beanOfTypeJdbc", "selectAllCustomers");
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(metricsRegistry.daoOperation("beanOfTypeJpa", "selectAllCustomers")).isNotSameAs(first);
+    }
+
+    @Test
+    void scrapeWritesThePrometheusTextFormat() {
+        // Given
+        OperationMetrics select = metricsRegistry.daoOperation("beanOfTypeJdbc", "selectCustomerById");
+        select.recordSuccess(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(2), 1);
+        select.recordError(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(2));
+        OperationMetrics endpoint = metricsRegistry.httpEndpoint("CustomerController.getCustomer", "GET", "/api/v1/customers/{id}");
+        endpoint.recordSuccess(System.nanoTime(), 0);
+
+        // When
+        String scrape = metricsRegistry.scrape();
+
+        // Then
+        String dao = "dao=\"beanOfTypeJdbc\",method=\"selectCustomerById\"";
+        assertThat(scrape)
+                .contains("# TYPE customer_dao_calls_total counter\n")
+                .contains("customer_dao_calls_total{" + dao + "} 2\n")
+                .contains("customer_dao_errors_total{" + dao + "} 1\n")
+                .contains("customer_dao_rows_total{" + dao + "} 1\n")
+                .contains("# TYPE customer_dao_duration_seconds histogram\n")
+                .contains("customer_dao_duration_seconds_bucket{" + dao + ",le=\"0.001\"} 0\n")
+                .contains("customer_dao_duration_seconds_bucket{" + dao + ",le=\"1\"} 2\n")
+                .contains("customer_dao_duration_seconds_bucket{" + dao + ",le=\"+Inf\"} 2\n")
+                .contains("customer_dao_duration_seconds_count{" + dao + "} 2\n")
+                .contains("customer_http_calls_total{handler=\"CustomerController.getCustomer\",method=\"GET\",path=\"/api/v1/customers/{id}\"} 1\n")
+                .doesNotContain("customer_http_rows_total");
+    }
+
+    @Test
+    void labelValuesAreEscaped() {
+        // When
+        metricsRegistry.httpEndpoint("handler", "GET", "/a\"b\\c");
+
+        // Then
+        assertThat(metricsRegistry.scrape()).contains("path=\"/a\\\"b\\\\c\"");
+    }
+}
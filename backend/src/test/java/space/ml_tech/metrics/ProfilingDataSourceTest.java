@@ -0,0 +1,109 @@
+package space.ml_tech.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGConnection;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(MockitoExtension.class)
+class ProfilingDataSourceTest {
+
+    private static final String SELECT_BY_AGE = "SELECT id FROM customer WHERE age > ?";
+
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement statement;
+    @Mock
+    private ResultSet resultSet;
+    private SqlProfiler sqlProfiler;
+    private ProfilingDataSource underTest;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        Mockito.when(dataSource.getConnection()).thenReturn(connection);
+        sqlProfiler = new SqlProfiler(Duration.ofSeconds(10), 100);
+        underTest = new ProfilingDataSource(dataSource, sqlProfiler);
+    }
+
+    @Test
+    void queriesAreRecordedWithTheirRowsOnceClosed() throws SQLException {
+        // Given
+        Mockito.when(connection.prepareStatement(SELECT_BY_AGE)).thenReturn(statement);
+        Mockito.when(statement.executeQuery()).thenReturn(resultSet);
+        Mockito.when(resultSet.next()).thenReturn(true, true, false);
+
+        // When
+        try (Connection profiled = underTest.getConnection();
+             PreparedStatement select = profiled.prepareStatement(SELECT_BY_AGE)) {
+            select.setInt(1, 21);
+            ResultSet rows = select.executeQuery();
+            while (rows.next()) {
+                rows.getInt(1);
+            }
+            assertThat(sqlProfiler.top(1)).isEmpty();
+            rows.close();
+        }
+
+        // Then
+        assertThat(sqlProfiler.top(1)).singleElement().satisfies(stats -> {
+            assertThat(stats.fingerprint()).isEqualTo(SELECT_BY_AGE);
+            assertThat(stats.calls()).isEqualTo(1);
+            assertThat(stats.rows()).isEqualTo(2);
+        });
+        Mockito.verify(statement).setInt(1, 21);
+        Mockito.verify(resultSet).close();
+        Mockito.verify(connection).close();
+    }
+
+    @Test
+    void updatesAndFailuresAreRecorded() throws SQLException {
+        // Given
+        String delete = "DELETE FROM customer WHERE id = ?";
+        Mockito.when(connection.prepareStatement(delete)).thenReturn(statement);
+        Mockito.when(statement.executeUpdate()).thenReturn(1).thenThrow(new SQLException("gone"));
+
+        // When
+        try (Connection profiled = underTest.getConnection();
+             PreparedStatement update = profiled.prepareStatement(delete)) {
+            update.setInt(1, 7);
+            assertThat(update.executeUpdate()).isEqualTo(1);
+            assertThatThrownBy(update::executeUpdate).isInstanceOf(SQLException.class).hasMessage("gone");
+        }
+
+        // Then
+        assertThat(sqlProfiler.top(1)).singleElement().satisfies(stats -> {
+            assertThat(stats.calls()).isEqualTo(2);
+            assertThat(stats.errors()).isEqualTo(1);
+            assertThat(stats.rows()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void unwrapReachesTheDriverConnection() throws SQLException {
+        // Given
+        PGConnection pgConnection = Mockito.mock(PGConnection.class);
+        Mockito.when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+
+        // When
+        Connection profiled = underTest.getConnection();
+
+        // Then
+        assertThat(profiled.unwrap(PGConnection.class)).isSameAs(pgConnection);
+    }
+}
@@ -0,0 +1,90 @@
+package space.ml_tech.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlProfilerTest {
+
+    private final SqlProfiler underTest = new SqlProfiler(Duration.ofSeconds(10), 3);
+
+    @Test
+    void fingerprintFoldsLiteralsAndValueLists() {
+        assertThat(SqlProfiler.fingerprint("""
+                SELECT id, name
+                FROM customer
+                WHERE email = 'o''brien@bar.com' AND age > 21 AND id IN (?, ?, ?)
+                LIMIT 50
+                """))
+                .isEqualTo("SELECT id, name FROM customer WHERE email = ? AND age > ? AND id IN (?, ...) LIMIT ?");
+        assertThat(SqlProfiler.fingerprint("INSERT INTO customer(name, age) VALUES (?, ?), (?, ?), (?, ?)"))
+                .isEqualTo("INSERT INTO customer(name, age) VALUES (?, ?), ...");
+        // digits that are part of a name aren't literals
+        assertThat(SqlProfiler.fingerprint("SELECT c1.id FROM customer c1 WHERE c1.age = 3"))
+                .isEqualTo("SELECT c1.id FROM customer c1 WHERE c1.age = ?");
+    }
+
+    @Test
+    void topListsStatementsByTotalTime() {
+        // Given
+        underTest.record("SELECT * FROM customer WHERE id = 1", millis(2), 1, false, new Object[0]);
+        underTest.record("SELECT * FROM customer WHERE id = 2", millis(2), 0, false, new Object[0]);
+        underTest.record("SELECT * FROM customer WHERE id = 3", millis(2), 1, true, new Object[0]);
+        underTest.record("DELETE FROM customer WHERE id = ?", millis(1), 1, false, new Object[]{4});
+        underTest.record("SELECT count(*) FROM customer", millis(50), 1, false, new Object[0]);
+
+        // When
+        List<SqlStatementStats> top = underTest.top(2);
+
+        // Then
+        assertThat(top).extracting(SqlStatementStats::fingerprint)
+                .containsExactly("SELECT count(*) FROM customer", "SELECT * FROM customer WHERE id = ?");
+        SqlStatementStats byId = top.get(1);
+        assertThat(byId.calls()).isEqualTo(3);
+        assertThat(byId.errors()).isEqualTo(1);
+        assertThat(byId.rows()).isEqualTo(2);
+        assertThat(byId.totalMillis()).isEqualTo(6.0);
+        assertThat(byId.meanMillis()).isEqualTo(2.0);
+        assertThat(byId.p99Millis()).isBetween(1.8, 2.2);
+    }
+
+    @Test
+    void statementsPastTheLimitAreCountedTogether() {
+        // When
+        underTest.record("SELECT 1 FROM a", millis(1), 1, false, new Object[0]);
+        underTest.record("SELECT 1 FROM b", millis(1), 1, false, new Object[0]);
+        underTest.record("SELECT 1 FROM c", millis(1), 1, false, new Object[0]);
+        underTest.record("SELECT 1 FROM d", millis(1), 1, false, new Object[0]);
+        underTest.record("SELECT 1 FROM e", millis(1), 1, false, new Object[0]);
+
+        // Then
+        // the three tracked statements, and the rest
+        assertThat(underTest.top(10)).hasSize(4)
+                .anySatisfy(stats -> {
+                    assertThat(stats.fingerprint()).isEqualTo("(other statements)");
+                    assertThat(stats.calls()).isEqualTo(2);
+                });
+    }
+
+    @Test
+    void resetClearsTheReport() {
+        // Given
+        underTest.record("SELECT 1", millis(1), 1, false, new Object[0]);
+
+        // When
+        underTest.reset();
+
+        // Then
+        assertThat(underTest.top(10)).isEmpty();
+    }
+
+
+    /*---- Helper Methods -----*/
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
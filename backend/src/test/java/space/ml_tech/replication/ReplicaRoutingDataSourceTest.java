@@ -0,0 +1,133 @@
+package space.ml_tech.replication;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+    @Mock
+    private Connection primaryConnection;
+    @Mock
+    private DataSource replica;
+    @Mock
+    private Connection replicaConnection;
+    @Mock
+    private Statement lagStatement;
+    @Mock
+    private ResultSet lagResult;
+    private ReplicaRoutingDataSource underTest;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        ReadRouting.clear();
+        underTest.close();
+    }
+
+    @Test
+    void readsGoToAReplicaAndEverythingElseToThePrimary() throws SQLException {
+        // Given
+        replicaBehindBy(0);
+        Mockito.when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // When
+        Connection read = ReadRouting.onReplica(this::connection);
+        Connection write = underTest.getConnection();
+
+        // Then
+        assertThat(read).isSameAs(replicaConnection);
+        assertThat(write).isSameAs(primaryConnection);
+        assertThat(underTest.stats()).satisfies(stats -> {
+            assertThat(stats.replicaReads()).isEqualTo(1);
+            assertThat(stats.primaryConnections()).isEqualTo(1);
+            assertThat(stats.replicas()).singleElement()
+                    .satisfies(replica -> assertThat(replica.lagMillis()).isZero());
+        });
+    }
+
+    @Test
+    void readsStickToThePrimaryAfterAWrite() throws SQLException {
+        // Given
+        replicaBehindBy(0);
+        Mockito.when(primary.getConnection()).thenReturn(primaryConnection);
+        ReadRouting.stickToPrimaryUntil(System.currentTimeMillis() + 60_000);
+
+        // When
+        Connection read = ReadRouting.onReplica(this::connection);
+
+        // Then
+        assertThat(read).isSameAs(primaryConnection);
+        assertThat(underTest.stats().primaryReads()).isEqualTo(1);
+    }
+
+    @Test
+    void readsSkipAReplicaThatLagsTooFarBehind() throws SQLException {
+        // Given
+        replicaBehindBy(5_000);
+        Mockito.when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // When
+        Connection read = ReadRouting.onReplica(this::connection);
+
+        // Then
+        assertThat(read).isSameAs(primaryConnection);
+        assertThat(underTest.stats().replicas()).singleElement()
+                .satisfies(replica -> assertThat(replica.lagMillis()).isEqualTo(5_000));
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenAReplicaGoesDown() throws SQLException {
+        // Given
+        // up for the lag checks, down for the read
+        replicaBehindBy(0);
+        Mockito.when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        Mockito.when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // When
+        Connection read = ReadRouting.onReplica(this::connection);
+
+        // Then
+        assertThat(read).isSameAs(primaryConnection);
+        assertThat(underTest.stats().replicas()).singleElement().satisfies(replica -> {
+            assertThat(replica.available()).isFalse();
+            assertThat(replica.failures()).isEqualTo(1);
+        });
+    }
+
+
+    /*---- Helper Methods -----*/
+    // the checker measures the replica right away, and once more (synchronously) on `checkLagNow`
+    private void replicaBehindBy(double lagMillis) throws SQLException {
+        Mockito.when(replica.getConnection()).thenReturn(replicaConnection);
+        Mockito.when(replicaConnection.createStatement()).thenReturn(lagStatement);
+        Mockito.when(lagStatement.executeQuery(Mockito.anyString())).thenReturn(lagResult);
+        Mockito.when(lagResult.getDouble(1)).thenReturn(lagMillis);
+        underTest = new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ofSeconds(1), Duration.ofHours(1));
+        underTest.checkLagNow();
+    }
+
+    private Connection connection() {
+        try {
+            return underTest.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package space.ml_tech.rest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import space.ml_tech.changes.CustomerChangeListenerStats;
+import space.ml_tech.customer.Customer;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * A write that doesn't go through this application, as one made by another node, reaches its cache
+ * through the `customer_changes` notifications
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+public class CustomerChangeNotificationIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void customerUpdatedElsewhereIsNotServedStaleFromTheCache() throws Exception {
+        // Given
+        Integer id = jdbcTemplate.queryForObject("""
+                INSERT INTO customer(name, email, age, gender)
+                VALUES ('Before', ?, 30, 'MALE')
+                RETURNING id
+                """, Integer.class, "notified-" + UUID.randomUUID() + "@ml-tech.space");
+        assertThat(getCustomer(id).getName()).isEqualTo("Before");
+
+        // When
+        jdbcTemplate.update("UPDATE customer SET name = 'After', version = version + 1 WHERE id = ?", id);
+
+        // Then
+        long deadline = System.currentTimeMillis() + 5_000;
+        String name = getCustomer(id).getName();
+        while (!name.equals("After") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            name = getCustomer(id).getName();
+        }
+        assertThat(name).isEqualTo("After");
+        assertThat(changeNotificationStats().listening()).isTrue();
+        assertThat(changeNotificationStats().notifications()).isPositive();
+    }
+
+
+    /*---- Helper Methods -----*/
+    private Customer getCustomer(Integer id) {
+        return webTestClient.get()
+                .uri("api/v1/customers/{id}", id)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Customer.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private CustomerChangeListenerStats changeNotificationStats() {
+        return webTestClient.get()
+                .uri("api/v1/stats/change-notifications")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(CustomerChangeListenerStats.class)
+                .returnResult()
+                .getResponseBody();
+    }
+}
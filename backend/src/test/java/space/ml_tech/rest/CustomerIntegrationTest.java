@@ -2,19 +2,36 @@ package space.ml_tech.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.javafaker.Faker;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Mono;
+import space.ml_tech.controllers.CustomerController;
 import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerChanges;
 import space.ml_tech.customer.CustomerDTO;
+import space.ml_tech.customer.CustomerProtobuf;
+import space.ml_tech.customer.CustomerService;
 import space.ml_tech.customer.Gender;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Random;
 import java.util.UUID;
 
@@ -29,6 +46,8 @@ public class CustomerIntegrationTest {
 
     private static final String CUSTOMER_URI = "api/v1/customers";
     private static final Random RANDOM_INT = new Random();
+    private static final MediaType SMILE = MediaType.parseMediaType(CustomerController.APPLICATION_SMILE_VALUE);
+    private static final MediaType PROTOBUF = MediaType.parseMediaType(CustomerController.APPLICATION_PROTOBUF_VALUE);
 
     // Create fake random data
     private final Faker faker = new Faker();
@@ -238,4 +257,361 @@ public class CustomerIntegrationTest {
         assertThat(updatedCustomer).isEqualTo(expectedCustomer);
     }
 
+
+    /* ----------------------------
+            TEST CONDITIONAL GET
+     ---------------------------- */
+    @Test
+    void unchangedCustomersAreAnsweredWithNotModified() {
+        // Step 1 - Create a customer and tag the list and the customer
+        CustomerDTO request = new CustomerDTO(name, email, age, gender);
+
+        webTestClient.post()
+                .uri(CUSTOMER_URI)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerDTO.class)
+                .exchange()
+                .expectStatus().isOk();
+
+        EntityExchangeResult<List<Customer>> list = webTestClient.get()
+                .uri(CUSTOMER_URI)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().cacheControl(CacheControl.noCache())
+                .expectBodyList(Customer.class)
+                .returnResult();
+        String listETag = list.getResponseHeaders().getETag();
+        int customerId = list.getResponseBody().stream()
+                .filter(c -> c.getEmail().equals(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+
+        String customerETag = webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", customerId)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0-json\"")
+                .expectBody(Customer.class)
+                .returnResult()
+                .getResponseHeaders().getETag();
+
+        // Step 2 - Revalidating an unchanged customer gets a 304 without a body
+        webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", customerId)
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(customerETag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, customerETag)
+                .expectBody().isEmpty();
+
+        // Step 3 - Once it's updated, both the customer and the list are sent again with new tags
+        webTestClient.put()
+                .uri(CUSTOMER_URI + "/{id}", customerId)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerDTO("Big Boss", null, null, null)), CustomerDTO.class)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", customerId)
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(customerETag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1-json\"")
+                .expectBody(Customer.class)
+                .value(customer -> assertThat(customer.getName()).isEqualTo("Big Boss"));
+
+        String newListETag = webTestClient.get()
+                .uri(CUSTOMER_URI)
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(listETag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Customer.class)
+                .returnResult()
+                .getResponseHeaders().getETag();
+        assertThat(newListETag).isNotEqualTo(listETag);
+
+        webTestClient.get()
+                .uri(CUSTOMER_URI)
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(newListETag)
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    void eachEncodingIsTaggedApart() {
+        // Step 1 - Create a customer and tag it in JSON
+        CustomerDTO request = new CustomerDTO(name, email, age, gender);
+
+        webTestClient.post()
+                .uri(CUSTOMER_URI)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerDTO.class)
+                .exchange()
+                .expectStatus().isOk();
+
+        EntityExchangeResult<List<Customer>> list = webTestClient.get()
+                .uri(CUSTOMER_URI)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().values(HttpHeaders.VARY, vary -> assertThat(vary).contains(HttpHeaders.ACCEPT))
+                .expectBodyList(Customer.class)
+                .returnResult();
+        String listETag = list.getResponseHeaders().getETag();
+        int customerId = list.getResponseBody().stream()
+                .filter(c -> c.getEmail().equals(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+        String customerETag = webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", customerId)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Customer.class)
+                .returnResult()
+                .getResponseHeaders().getETag();
+
+        // Step 2 - The JSON tags don't revalidate a Protobuf copy: it's sent in full, with a tag of its own
+        String protobufETag = webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", customerId)
+                .accept(PROTOBUF)
+                .ifNoneMatch(customerETag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(PROTOBUF)
+                .expectHeader().values(HttpHeaders.VARY, vary -> assertThat(vary).contains(HttpHeaders.ACCEPT))
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0-protobuf\"")
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseHeaders().getETag();
+        webTestClient.get()
+                .uri(CUSTOMER_URI)
+                .accept(PROTOBUF)
+                .ifNoneMatch(listETag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(PROTOBUF)
+                .expectHeader().value(HttpHeaders.ETAG, etag -> assertThat(etag).isNotEqualTo(listETag));
+
+        // Step 3 - Each tag still revalidates the copy in its own encoding
+        webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", customerId)
+                .accept(PROTOBUF)
+                .ifNoneMatch(protobufETag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().values(HttpHeaders.VARY, vary -> assertThat(vary).contains(HttpHeaders.ACCEPT));
+        webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", customerId)
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(customerETag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        // Step 4 - An encoding that isn't served is refused rather than tagged
+        webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", customerId)
+                .accept(MediaType.TEXT_PLAIN)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_ACCEPTABLE);
+    }
+
+
+    /* ----------------------------
+            TEST EXPORT
+     ---------------------------- */
+    @Test
+    void canExportCustomersAsNdjson() {
+        // Step 1 - Create customer registration request
+        CustomerDTO request = new CustomerDTO(name, email, age, gender);
+
+        webTestClient.post()
+                .uri(CUSTOMER_URI)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerDTO.class)
+                .exchange()
+                .expectStatus().isOk();
+
+        // Step 2 - Export all customers, one JSON document per line
+        List<Customer> exported = webTestClient.get()
+                .uri(CUSTOMER_URI + "/export")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Customer.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        // Step 3 - Make sure that our newly registered customer is part of the export
+        assertThat(exported).isNotNull()
+                .anySatisfy(c -> assertThat(c.getEmail()).isEqualTo(email));
+    }
+
+
+    /* ----------------------------
+            TEST DELTA SYNC
+     ---------------------------- */
+    @Test
+    void canSyncOnlyTheChangesSinceAWatermark() {
+        // Step 1 - Full sync, as a new client would
+        String watermark = syncChanges(null).watermark();
+
+        // Step 2 - Register a customer and find it among the changes since then
+        webTestClient.post()
+                .uri(CUSTOMER_URI)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerDTO(name, email, age, gender)), CustomerDTO.class)
+                .exchange()
+                .expectStatus().isOk();
+        CustomerChanges inserted = syncChanges(watermark);
+        Customer customer = inserted.changed().stream()
+                .filter(c -> c.getEmail().equals(email))
+                .findFirst()
+                .orElseThrow();
+        assertThat(inserted.reset()).isFalse();
+
+        // Step 3 - Update it, then delete it
+        webTestClient.put()
+                .uri(CUSTOMER_URI + "/{id}", customer.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerDTO("Renamed", null, null, null)), CustomerDTO.class)
+                .exchange()
+                .expectStatus().isOk();
+        CustomerChanges updated = syncChanges(inserted.watermark());
+        webTestClient.delete()
+                .uri(CUSTOMER_URI + "/{id}", customer.getId())
+                .exchange()
+                .expectStatus().isOk();
+        CustomerChanges deleted = syncChanges(updated.watermark());
+
+        // Step 4 - Each sync only told what happened after the previous one
+        assertThat(updated.changed()).anySatisfy(c -> {
+            assertThat(c.getId()).isEqualTo(customer.getId());
+            assertThat(c.getName()).isEqualTo("Renamed");
+        });
+        assertThat(updated.deleted()).doesNotContain(customer.getId());
+        assertThat(deleted.deleted()).contains(customer.getId());
+        assertThat(deleted.changed()).noneSatisfy(c -> assertThat(c.getId()).isEqualTo(customer.getId()));
+    }
+
+
+    /* ----------------------------
+            TEST BINARY ENCODINGS
+     ---------------------------- */
+    @Test
+    void canRegisterAndGetCustomersInBinaryEncodings() throws IOException {
+        for (MediaType mediaType : List.of(MediaType.APPLICATION_CBOR, SMILE, PROTOBUF)) {
+            String customerEmail = mediaType.getSubtype() + "-" + email;
+
+            // Step 1 - Register a customer with a request body in that encoding
+            webTestClient.post()
+                    .uri(CUSTOMER_URI)
+                    .contentType(mediaType)
+                    .bodyValue(encode(mediaType, new CustomerDTO(name, customerEmail, age, gender)))
+                    .exchange()
+                    .expectStatus().isOk();
+
+            // Step 2 - Get all customers in that encoding, and find the new one among them
+            byte[] allCustomers = webTestClient.get()
+                    .uri(CUSTOMER_URI)
+                    .accept(mediaType)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentTypeCompatibleWith(mediaType)
+                    .expectBody(byte[].class)
+                    .returnResult()
+                    .getResponseBody();
+            Customer customer = decodeList(mediaType, allCustomers).stream()
+                    .filter(c -> c.getEmail().equals(customerEmail))
+                    .findFirst()
+                    .orElseThrow();
+            assertThat(customer).usingRecursiveComparison().ignoringFields("id")
+                    .isEqualTo(new Customer(null, name, customerEmail, age, gender));
+
+            // Step 3 - Get it by id, in the same encoding
+            byte[] byId = webTestClient.get()
+                    .uri(CUSTOMER_URI + "/{id}", customer.getId())
+                    .accept(mediaType)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentTypeCompatibleWith(mediaType)
+                    .expectBody(byte[].class)
+                    .returnResult()
+                    .getResponseBody();
+            assertThat(decodeCustomer(mediaType, byId)).isEqualTo(customer);
+        }
+    }
+
+
+    /*---- Helper Methods -----*/
+    // a Protobuf `Customer` without an id is read as a `CustomerDTO`
+    private static byte[] encode(MediaType mediaType, CustomerDTO request) throws IOException {
+        if (mediaType.equals(PROTOBUF)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+            CustomerProtobuf.write(new Customer(null, request.name(), request.email(), request.age(), request.gender()), output);
+            output.flush();
+            return bytes.toByteArray();
+        }
+        return jackson(mediaType).writeValueAsBytes(request);
+    }
+
+    private static List<Customer> decodeList(MediaType mediaType, byte[] body) throws IOException {
+        return mediaType.equals(PROTOBUF)
+                ? CustomerProtobuf.readCustomers(CodedInputStream.newInstance(body))
+                : jackson(mediaType).readValue(body, new TypeReference<>() {
+                });
+    }
+
+    private static Customer decodeCustomer(MediaType mediaType, byte[] body) throws IOException {
+        return mediaType.equals(PROTOBUF)
+                ? CustomerProtobuf.readCustomer(CodedInputStream.newInstance(body))
+                : jackson(mediaType).readValue(body, Customer.class);
+    }
+
+    private static ObjectMapper jackson(MediaType mediaType) {
+        return mediaType.equals(SMILE) ? Jackson2ObjectMapperBuilder.smile().build() : Jackson2ObjectMapperBuilder.cbor().build();
+    }
+
+    // every page of changes after `since`, gathered into one
+    private CustomerChanges syncChanges(String since) {
+        List<Customer> changed = new ArrayList<>();
+        List<Integer> deleted = new ArrayList<>();
+        String watermark = since;
+        CustomerChanges page;
+        do {
+            String after = watermark;
+            page = webTestClient.get()
+                    .uri(uri -> uri.path(CUSTOMER_URI + "/changes")
+                            .queryParamIfPresent("since", Optional.ofNullable(after))
+                            .queryParam("limit", CustomerService.MAX_PAGE_SIZE)
+                            .build())
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(CustomerChanges.class)
+                    .returnResult()
+                    .getResponseBody();
+            assertThat(page).isNotNull();
+            changed.addAll(page.changed());
+            deleted.addAll(page.deleted());
+            watermark = page.watermark();
+        } while (page.hasMore());
+        return new CustomerChanges(changed, deleted, watermark, false, page.reset());
+    }
 }
@@ -0,0 +1,77 @@
+package space.ml_tech.rest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.web.reactive.server.FluxExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import space.ml_tech.changes.CustomerChangeFeedStats;
+import space.ml_tech.customer.Customer;
+import space.ml_tech.customer.CustomerDTO;
+import space.ml_tech.customer.Gender;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * A subscriber of `GET /api/v1/customers/stream` hears of a customer registered after it subscribed
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+public class CustomerStreamIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void registeredCustomerIsStreamedToSubscribers() throws Exception {
+        // Given
+        long subscribers = streamStats().subscribers();
+        FluxExchangeResult<ServerSentEvent<Customer>> stream = webTestClient.get()
+                .uri("api/v1/customers/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<>() {});
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (streamStats().subscribers() <= subscribers && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        String email = "streamed-" + UUID.randomUUID() + "@ml-tech.space";
+
+        // When
+        webTestClient.post()
+                .uri("api/v1/customers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerDTO("Streamed", email, 30, Gender.FEMALE)), CustomerDTO.class)
+                .exchange()
+                .expectStatus().isOk();
+
+        // Then
+        ServerSentEvent<Customer> event = stream.getResponseBody()
+                .filter(sse -> "insert".equals(sse.event()) && sse.data() != null && email.equals(sse.data().getEmail()))
+                .blockFirst(Duration.ofSeconds(5));
+        assertThat(event).isNotNull();
+        assertThat(event.id()).isNotBlank();
+        assertThat(event.data().getId()).isNotNull();
+        assertThat(event.data().getName()).isEqualTo("Streamed");
+    }
+
+
+    /*---- Helper Methods -----*/
+    private CustomerChangeFeedStats streamStats() {
+        return webTestClient.get()
+                .uri("api/v1/stats/stream")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(CustomerChangeFeedStats.class)
+                .returnResult()
+                .getResponseBody();
+    }
+}
@@ -0,0 +1,12 @@
+package space.ml_tech.rest;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * Runs the {@link CustomerIntegrationTest} flows with the reads written as JSON straight from the `ResultSet`
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = "customer.read-path=direct")
+public class DirectReadCustomerIntegrationTest extends CustomerIntegrationTest {
+}
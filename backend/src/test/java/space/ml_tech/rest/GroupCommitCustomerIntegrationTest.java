@@ -0,0 +1,85 @@
+package space.ml_tech.rest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import space.ml_tech.customer.CustomerDTO;
+import space.ml_tech.customer.Gender;
+import space.ml_tech.customer.GroupCommitStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * Runs the {@link CustomerIntegrationTest} flows with the inserts group-committed
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "customer.group-commit.enabled=true",
+        "customer.group-commit.max-delay=50ms"
+})
+public class GroupCommitCustomerIntegrationTest extends CustomerIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void concurrentSignUpsShareInsertsAndEachGetsItsOwnOutcome() throws Exception {
+        // Given
+        String prefix = "group-commit-" + UUID.randomUUID();
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            emails.add(prefix + "-" + i + "@ml-tech.space");
+        }
+        // the same email twice, only one of them can get in
+        emails.add(prefix + "-0@ml-tech.space");
+        GroupCommitStats before = groupCommitStats();
+
+        // When
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<HttpStatus>> signUps = new ArrayList<>();
+        for (String email : emails) {
+            signUps.add(executor.submit(() -> HttpStatus.valueOf(webTestClient.post()
+                    .uri("api/v1/customers")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Mono.just(new CustomerDTO("Grouped", email, 30, Gender.MALE)), CustomerDTO.class)
+                    .exchange()
+                    .returnResult(Void.class)
+                    .getStatus()
+                    .value())));
+        }
+        List<HttpStatus> statuses = new ArrayList<>();
+        for (Future<HttpStatus> signUp : signUps) {
+            statuses.add(signUp.get());
+        }
+        executor.shutdown();
+        GroupCommitStats after = groupCommitStats();
+
+        // Then
+        assertThat(statuses).filteredOn(status -> status == HttpStatus.OK).hasSize(10);
+        assertThat(statuses).filteredOn(status -> status == HttpStatus.CONFLICT).hasSize(1);
+        assertThat(after.rows() - before.rows()).isGreaterThan(after.batches() - before.batches());
+    }
+
+
+    /*---- Helper Methods -----*/
+    private GroupCommitStats groupCommitStats() {
+        return webTestClient.get()
+                .uri("api/v1/stats/group-commit")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(GroupCommitStats.class)
+                .returnResult()
+                .getResponseBody();
+    }
+}
@@ -0,0 +1,84 @@
+package space.ml_tech.rest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import space.ml_tech.controllers.CustomerController;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+public class MetricsIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void requestsShowUpInTheMetrics() {
+        // Given
+        // a customer that doesn't exist: a database round trip and a 404, which isn't a failure
+        webTestClient.get()
+                .uri("api/v1/customers/{id}", Integer.MAX_VALUE)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isNotFound();
+
+        // When
+        String metrics = webTestClient.get()
+                .uri("api/v1/metrics")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_PLAIN)
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        // Then
+        assertThat(metrics)
+                .containsPattern("customer_dao_calls_total\\{dao=\"beanOfTypeJdbc\",method=\"selectCustomerById\"} [1-9]")
+                .contains("customer_dao_duration_seconds_bucket{dao=\"beanOfTypeJpa\",method=\"selectCustomerById\",le=\"+Inf\"} ")
+                .containsPattern("customer_http_calls_total\\{handler=\"CustomerController.getCustomer\",method=\"GET\",path=\"/api/v1/customers/\\{id}\"} [1-9]")
+                .containsPattern("customer_http_errors_total\\{handler=\"CustomerController.getCustomer\",method=\"GET\",path=\"/api/v1/customers/\\{id}\"} 0");
+    }
+
+    @Test
+    void statementsShowUpInTheSqlReport() {
+        // Given
+        webTestClient.get()
+                .uri("api/v1/customers/{id}", Integer.MAX_VALUE)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isNotFound();
+
+        // When
+        String report = webTestClient.get()
+                .uri("api/v1/stats/sql?top=100")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        // Then
+        assertThat(report)
+                .contains("FROM customer WHERE id = ?")
+                .contains("\"calls\":")
+                .contains("\"p99Millis\":");
+    }
+
+    @Test
+    void statsAreNotAcceptableAsProtobuf() {
+        // When
+        // Then
+        // a list, but not of customers: no Protobuf message of this API fits it
+        webTestClient.get()
+                .uri("api/v1/stats/single-flight")
+                .accept(MediaType.parseMediaType(CustomerController.APPLICATION_PROTOBUF_VALUE))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_ACCEPTABLE);
+    }
+}
@@ -0,0 +1,12 @@
+package space.ml_tech.rest;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * Runs the {@link CustomerIntegrationTest} flows against the reactive stack (WebFlux on Netty over R2DBC)
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = "spring.main.web-application-type=reactive")
+public class ReactiveCustomerIntegrationTest extends CustomerIntegrationTest {
+}
@@ -0,0 +1,79 @@
+package space.ml_tech.rest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseCookie;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import space.ml_tech.customer.CustomerDTO;
+import space.ml_tech.customer.Gender;
+import space.ml_tech.replication.ReplicationStats;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * Runs the {@link CustomerIntegrationTest} flows with the reads routed to a replica. The replica
+ * is a stand-in, a second pool on the primary's own database, which is enough to see where the
+ * reads go (and it's never behind); a real one is set up the same way, with its own url
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = "replication.replicas[0].url=${spring.datasource.url}")
+public class ReplicatedCustomerIntegrationTest extends CustomerIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void readsGoToTheReplicaExceptRightAfterAWrite() {
+        // Given
+        ReplicationStats before = replicationStats();
+        ResponseCookie stickiness = webTestClient.post()
+                .uri("api/v1/customers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerDTO("Replicated", "replicated-" + UUID.randomUUID() + "@ml-tech.space", 30, Gender.FEMALE)), CustomerDTO.class)
+                .exchange()
+                .expectStatus().isOk()
+                .expectCookie().exists("read-primary-until")
+                .returnResult(Void.class)
+                .getResponseCookies()
+                .getFirst("read-primary-until");
+
+        // When
+        webTestClient.get()
+                .uri("api/v1/customers?limit=10")
+                .cookie(stickiness.getName(), stickiness.getValue())
+                .exchange()
+                .expectStatus().isOk();
+        ReplicationStats afterStickyRead = replicationStats();
+        webTestClient.get()
+                .uri("api/v1/customers?limit=10")
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .exchange()
+                .expectStatus().isOk();
+        ReplicationStats afterRead = replicationStats();
+
+        // Then
+        assertThat(afterStickyRead.primaryReads()).isGreaterThan(before.primaryReads());
+        assertThat(afterStickyRead.replicaReads()).isEqualTo(before.replicaReads());
+        assertThat(afterRead.replicaReads()).isGreaterThan(afterStickyRead.replicaReads());
+        assertThat(afterRead.replicas()).singleElement()
+                .satisfies(replica -> assertThat(replica.available()).isTrue());
+    }
+
+
+    /*---- Helper Methods -----*/
+    private ReplicationStats replicationStats() {
+        return webTestClient.get()
+                .uri("api/v1/stats/replication")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(ReplicationStats.class)
+                .returnResult()
+                .getResponseBody();
+    }
+}
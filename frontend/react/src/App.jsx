@@ -1,25 +1,73 @@
 import { Wrap, WrapItem, Spinner, Text } from "@chakra-ui/react";
 import SidebarWithHeader from "./components/shared/SideBar";
 import { useEffect, useState } from "react";
-import { getCustomers } from "./services/client";
+import { getCustomers, subscribeToCustomerChanges } from "./services/client";
 import CardWithImage from "./components/Card";
 
+// one change from the stream, applied to the list
+const applyChange = (customers, type, customer) => {
+  const others = customers.filter((c) => c.id !== customer.id);
+  if (type === "delete") {
+    return others;
+  }
+  if (others.length === customers.length) {
+    return [...customers, customer];
+  }
+  return customers.map((c) => (c.id === customer.id ? customer : c));
+};
+
 const App = () => {
   const [customers, setCustomers] = useState([]);
   const [loading, setLoading] = useState(false);
 
+  // read the customers, then keep the list up to date as they change instead of reading it all
+  // again. The stream is opened first, and the changes it brings while the customers are being
+  // read are held back and applied on top of what was read: the response may be older than them
   useEffect(() => {
+    let reading = 0;
+    let held = null;
+
+    const readCustomers = () => {
+      const read = ++reading;
+      held = [];
+      return getCustomers()
+        .then((res) => res.data)
+        .catch((err) => {
+          console.log(err);
+          return null;
+        })
+        .then((fetched) => {
+          // a newer read (after a reset) is under way, or the component is gone
+          if (read !== reading) {
+            return;
+          }
+          const changes = held;
+          held = null;
+          setCustomers((current) =>
+            changes.reduce(
+              (list, [type, customer]) => applyChange(list, type, customer),
+              fetched ?? current
+            )
+          );
+        });
+    };
+
+    const source = subscribeToCustomerChanges((type, customer) => {
+      if (held) {
+        held.push([type, customer]);
+      } else {
+        setCustomers((current) => applyChange(current, type, customer));
+      }
+    }, readCustomers);
+
     setLoading(true);
-    getCustomers()
-      .then((res) => {
-        setCustomers(res.data);
-      })
-      .catch((err) => {
-        console.log(err);
-      })
-      .finally(() => {
-        setLoading(false);
-      });
+    readCustomers().finally(() => {
+      setLoading(false);
+    });
+    return () => {
+      reading++;
+      source.close();
+    };
   }, []);
 
   if (loading) {
@@ -48,7 +96,7 @@ const App = () => {
     <SidebarWithHeader>
       <Wrap justify={"center"} spacing={"30px"}>
         {customers.map((customer, index) => (
-          <WrapItem key={index}>
+          <WrapItem key={customer.id}>
             <CardWithImage {...customer} imageNumber={index} />
           </WrapItem>
         ))}
@@ -10,3 +10,20 @@ export const getCustomers = async () => {
     throw e;
   }
 };
+
+// Calls `onChange(type, customer)` for every customer inserted, updated or deleted from now on,
+// and `onReset()` whenever the changes can't be told one by one and the customers must be read
+// again. The browser reconnects by itself, picking up where it left off. Returns the EventSource:
+// `close()` it when done
+export const subscribeToCustomerChanges = (onChange, onReset) => {
+  const source = new EventSource(
+    `${import.meta.env.VITE_API_BASE_URL}/api/v1/customers/stream`
+  );
+  ["insert", "update", "delete"].forEach((type) => {
+    source.addEventListener(type, (event) => {
+      onChange(type, JSON.parse(event.data));
+    });
+  });
+  source.addEventListener("reset", () => onReset());
+  return source;
+};